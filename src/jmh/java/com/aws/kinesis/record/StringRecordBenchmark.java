@@ -0,0 +1,117 @@
+package com.aws.kinesis.record;
+
+import com.amazonaws.services.kinesis.model.Record;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kinesis record to record throughput, eager decode (previous StringRecord) vs lazy StringRecord.
+ *
+ * bytesOnly: handler reads data only, value: handler reads value.
+ *
+ * Run: ./gradlew jmh
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class StringRecordBenchmark {
+
+  @Param({"100"})
+  public int recordCount;
+
+  @Param({"100", "1000", "10000"})
+  public int recordBytes;
+
+  private List<Record> kinesisRecords;
+
+  @Setup
+  public void setup() {
+    final StringBuilder value = new StringBuilder();
+    while (value.length() < recordBytes) value.append('x');
+
+    kinesisRecords = new ArrayList<>(recordCount);
+    for (int i = 0; i < recordCount; i++) {
+      kinesisRecords.add(new Record()
+        .withPartitionKey("pk-" + i)
+        .withSequenceNumber("49590338271490256608559692538361571095921575989136588898")
+        .withData(ByteBuffer.wrap(value.toString().getBytes(StandardCharsets.UTF_8))));
+    }
+  }
+
+  @Benchmark
+  public void eagerBytesOnly(final Blackhole blackhole) throws CharacterCodingException {
+    for (Record kinesisRecord : kinesisRecords) {
+      blackhole.consume(new EagerStringRecord(kinesisRecord).data.remaining());
+    }
+  }
+
+  @Benchmark
+  public void lazyBytesOnly(final Blackhole blackhole) {
+    for (Record kinesisRecord : kinesisRecords) {
+      blackhole.consume(new StringRecord(kinesisRecord).getData().remaining());
+    }
+  }
+
+  @Benchmark
+  public void eagerValue(final Blackhole blackhole) throws CharacterCodingException {
+    for (Record kinesisRecord : kinesisRecords) {
+      blackhole.consume(new EagerStringRecord(kinesisRecord).value);
+    }
+  }
+
+  @Benchmark
+  public void lazyValue(final Blackhole blackhole) {
+    for (Record kinesisRecord : kinesisRecords) {
+      blackhole.consume(new StringRecord(kinesisRecord).getValue());
+    }
+  }
+
+  @Benchmark
+  public void eagerFromValue(final Blackhole blackhole) throws CharacterCodingException {
+    for (Record kinesisRecord : kinesisRecords) {
+      blackhole.consume(new EagerStringRecord(kinesisRecord.getPartitionKey(), kinesisRecord.getSequenceNumber()).data);
+    }
+  }
+
+  @Benchmark
+  public void lazyFromValue(final Blackhole blackhole) {
+    for (Record kinesisRecord : kinesisRecords) {
+      blackhole.consume(new StringRecord(kinesisRecord.getPartitionKey(), kinesisRecord.getSequenceNumber()).getData());
+    }
+  }
+
+  // previous StringRecord, decodes or encodes in the constructor with shared coders.
+  private static class EagerStringRecord {
+    private static final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private static final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+
+    private final ByteBuffer data;
+    private final String value;
+
+    EagerStringRecord(final Record kinesisRecord) throws CharacterCodingException {
+      final ByteBuffer readOnlyByteBuffer = kinesisRecord.getData().asReadOnlyBuffer();
+      readOnlyByteBuffer.rewind();
+
+      this.data = kinesisRecord.getData();
+      this.value = decoder.decode(readOnlyByteBuffer).toString();
+    }
+
+    EagerStringRecord(final String partitionKey, final String value) throws CharacterCodingException {
+      this.data = encoder.encode(CharBuffer.wrap(value));
+      this.value = value;
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package com.aws.kinesis.record.aggregation;
+
+import com.amazonaws.services.kinesis.clientlibrary.types.UserRecord;
+import com.amazonaws.services.kinesis.model.Record;
+import com.aws.kinesis.record.IRecord;
+import com.aws.kinesis.record.StringRecord;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.CharacterCodingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * De-aggregation throughput, RecordDeaggregator vs KCL UserRecord.deaggregate.
+ *
+ * Run: ./gradlew jmh
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RecordDeaggregatorBenchmark {
+
+  @Param({"10", "100", "1000"})
+  public int userRecordCount;
+
+  @Param({"200"})
+  public int userRecordBytes;
+
+  private List<Record> kinesisRecords;
+
+  @Setup
+  public void setup() throws CharacterCodingException {
+    final StringBuilder value = new StringBuilder();
+    while (value.length() < userRecordBytes) value.append('x');
+
+    final List<IRecord> records = new ArrayList<>(userRecordCount);
+    for (int i = 0; i < userRecordCount; i++) {
+      records.add(new StringRecord("pk-" + i, value.toString()));
+    }
+
+    kinesisRecords = new ArrayList<>();
+    for (AggregatedRecord aggregatedRecord : new RecordAggregator(RecordAggregator.MAX_AGGREGATED_BYTES_LIMIT, userRecordCount).aggregate(records)) {
+      kinesisRecords.add(new Record()
+        .withPartitionKey(aggregatedRecord.getPartitionKey())
+        .withSequenceNumber("49590338271490256608559692538361571095921575989136588898")
+        .withData(aggregatedRecord.getData()));
+    }
+  }
+
+  @Benchmark
+  public List<Record> recordDeaggregator() {
+    return RecordDeaggregator.deaggregate(rewind(kinesisRecords));
+  }
+
+  @Benchmark
+  public List<UserRecord> kclUserRecordDeaggregate() {
+    return UserRecord.deaggregate(rewind(kinesisRecords));
+  }
+
+  // kcl de-aggregation consumes the record data buffer.
+  private static List<Record> rewind(final List<Record> records) {
+    for (Record record : records) {
+      record.getData().rewind();
+    }
+    return records;
+  }
+}
@@ -1,14 +1,17 @@
 package com.aws.kinesis.api;
 
+import com.amazonaws.handlers.AsyncHandler;
 import com.amazonaws.services.kinesis.AmazonKinesisAsync;
 import com.amazonaws.services.kinesis.model.*;
 import com.utils.AppConfig;
-import com.utils.AppUtils;
+import com.utils.retry.Retry;
+import com.utils.retry.RetryPolicy;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -16,6 +19,8 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -27,7 +32,14 @@ import java.util.stream.Stream;
 public class ApiClient {
   private static final Logger logger = LoggerFactory.getLogger(ApiClient.class);
 
-  private static final int MAX_RETRY_COUNT = AppConfig.getRetryAttemptCount();
+  private static final RetryPolicy CREATE_STREAM_RETRY_POLICY = RetryPolicy.forOperation("createStream");
+  private static final RetryPolicy DELETE_STREAM_RETRY_POLICY = RetryPolicy.forOperation("deleteStream");
+  private static final RetryPolicy DESCRIBE_STREAM_RETRY_POLICY = RetryPolicy.forOperation("describeStream");
+  private static final RetryPolicy LIST_STREAMS_RETRY_POLICY = RetryPolicy.forOperation("listStreams");
+  private static final RetryPolicy GET_SHARD_ITERATOR_RETRY_POLICY = RetryPolicy.forOperation("getShardIterator");
+  private static final RetryPolicy PUT_RECORDS_RETRY_POLICY = RetryPolicy.forOperation("putRecords");
+  private static final RetryPolicy GET_RECORDS_RETRY_POLICY = RetryPolicy.forOperation("getRecords");
+
   private static long BACKOFF_TIME_IN_MILLIS = AppConfig.getRetryBackoffTimeInMillis();
 
   private final String awsProfile;
@@ -68,7 +80,9 @@ public class ApiClient {
   public boolean createStream(final String streamName, final int shardCount) {
     logger.debug("create stream. name: " + streamName + ", shard count: " + shardCount);
 
-    for (int retryCount = 1; retryCount <= MAX_RETRY_COUNT; retryCount++) {
+    final Retry retry = CREATE_STREAM_RETRY_POLICY.newRetry();
+
+    do {
       try {
         kinesisClient.createStream(streamName, shardCount);
         return true;
@@ -78,14 +92,13 @@ public class ApiClient {
       } catch (LimitExceededException e) {
         logger.error("failed create stream. exceeded request limit, name: " + streamName);
         logger.error(e.getMessage());
-        AppUtils.backoff("backoff due to failed create stream. name: " + streamName);
       } catch (Exception e) {
         logger.error("failed create stream. unknown exception, name: " + streamName + ", shard count: " + shardCount);
         logger.error(e.getMessage(), e);
         return false;
       }
-    }
-    logger.error("failed create stream. exceeded retry attempts. name: " + streamName);
+    } while (retry.backoff("backoff due to failed create stream. name: " + streamName));
+    logger.error("failed create stream. no more retry. name: " + streamName);
     return false;
   }
 
@@ -96,7 +109,9 @@ public class ApiClient {
   public boolean deleteStream(final String streamName) {
     logger.debug("delete stream. name: " + streamName);
 
-    for (int retryCount = 1; retryCount <= MAX_RETRY_COUNT; retryCount++) {
+    final Retry retry = DELETE_STREAM_RETRY_POLICY.newRetry();
+
+    do {
       try {
         kinesisClient.deleteStream(streamName);
         return true;
@@ -106,14 +121,13 @@ public class ApiClient {
       } catch (LimitExceededException e) {
         logger.error("failed delete stream. exceeded request limit, name: " + streamName);
         logger.error(e.getMessage());
-        AppUtils.backoff("backoff due to failed delete stream. name:" + streamName);
       } catch (Exception e) {
         logger.error("failed delete stream. unknown exception, name: " + streamName);
         logger.error(e.getMessage(), e);
         return false;
       }
-    }
-    logger.error("failed delete stream. exceeded retry attempts. name: " + streamName);
+    } while (retry.backoff("backoff due to failed delete stream. name:" + streamName));
+    logger.error("failed delete stream. no more retry. name: " + streamName);
     return false;
   }
 
@@ -129,7 +143,9 @@ public class ApiClient {
                                                    final String exclusiveStartShardId) {
     logger.debug("get stream description. name: " + streamName);
 
-    for (int retryCount = 1; retryCount <= MAX_RETRY_COUNT; retryCount++) {
+    final Retry retry = DESCRIBE_STREAM_RETRY_POLICY.newRetry();
+
+    do {
       try {
         return Optional.of(kinesisClient.describeStream(streamName, exclusiveStartShardId).getStreamDescription());
       } catch (ResourceNotFoundException e) {
@@ -138,14 +154,13 @@ public class ApiClient {
       } catch (LimitExceededException e) {
         logger.debug("failed get stream description. exceeded request limit, name: " + streamName);
         logger.error(e.getMessage());
-        AppUtils.backoff("backoff due to failed get stream description, name: " + streamName);
       } catch (Exception e) {
         logger.error("failed get stream description. unknown exception, name: " + streamName);
         logger.error(e.getMessage(), e);
         return Optional.empty();
       }
-    }
-    logger.error("failed get stream description. exceeded retry attempts. name: " + streamName);
+    } while (retry.backoff("backoff due to failed get stream description, name: " + streamName));
+    logger.error("failed get stream description. no more retry. name: " + streamName);
     return Optional.empty();
   }
 
@@ -194,28 +209,24 @@ public class ApiClient {
   public CompletableFuture<Boolean> watchStreamReady(final String streamName, final long intervalMillis) {
     logger.debug("watch stream ready. name: " + streamName + ", interval millis: " + intervalMillis);
 
-    return CompletableFuture
-      .supplyAsync(() -> {
-        while (true) {
-          final String streamStatus = this.getStreamStatus(streamName);
-
-          switch (streamStatus) {
-            case "ACTIVE":
-              logger.debug("stream status is " + streamStatus + ". stop watching, name: " + streamName);
-              return true;
-            case "CREATING":
-            case "UPDATING":
-              logger.debug("stream status is " + streamStatus + ". backoff for stream will be ready, name: " + streamName);
-              AppUtils.backoff("for stream ready.", intervalMillis);
-              break;
-            case "DELETING":
-            case "NOT_EXIST":
-            default:
-              logger.debug("stream status is " + streamStatus + ". can't watch stream be ready, name: " + streamName);
-              return false;
-          }
-        }
-      });
+    return PollExecutor.getInstance().loop(() -> {
+      final String streamStatus = this.getStreamStatus(streamName);
+
+      switch (streamStatus) {
+        case "ACTIVE":
+          logger.debug("stream status is " + streamStatus + ". stop watching, name: " + streamName);
+          return PollExecutor.Poll.done(true);
+        case "CREATING":
+        case "UPDATING":
+          logger.debug("stream status is " + streamStatus + ". backoff for stream will be ready, name: " + streamName);
+          return PollExecutor.Poll.again(intervalMillis);
+        case "DELETING":
+        case "NOT_EXIST":
+        default:
+          logger.debug("stream status is " + streamStatus + ". can't watch stream be ready, name: " + streamName);
+          return PollExecutor.Poll.done(false);
+      }
+    });
   }
 
   public CompletableFuture<Boolean> watchStreamReady(final String streamName) {
@@ -248,28 +259,24 @@ public class ApiClient {
   public CompletableFuture<Boolean> watchStreamDelete(final String streamName, final long intervalMillis) {
     logger.debug("watch stream delete. name: " + streamName + ", interval millis: " + intervalMillis);
 
-    return CompletableFuture
-      .supplyAsync(() -> {
-        while (true) {
-          final String streamStatus = this.getStreamStatus(streamName);
-
-          switch (streamStatus) {
-            case "DELETING":
-              logger.debug("stream status is " + streamStatus + ". backoff for stream will be delete, name: " + streamName);
-              AppUtils.backoff("for stream delete.", intervalMillis);
-              break;
-            case "NOT_EXIST":
-              logger.debug("stream status is " + streamStatus + ". stop watching, name: " + streamName);
-              return true;
-            case "ACTIVE":
-            case "CREATING":
-            case "UPDATING":
-            default:
-              logger.debug("stream status is " + streamStatus + ". can't watch stream be delete, name: " + streamName);
-              return false;
-          }
-        }
-      });
+    return PollExecutor.getInstance().loop(() -> {
+      final String streamStatus = this.getStreamStatus(streamName);
+
+      switch (streamStatus) {
+        case "DELETING":
+          logger.debug("stream status is " + streamStatus + ". backoff for stream will be delete, name: " + streamName);
+          return PollExecutor.Poll.again(intervalMillis);
+        case "NOT_EXIST":
+          logger.debug("stream status is " + streamStatus + ". stop watching, name: " + streamName);
+          return PollExecutor.Poll.done(true);
+        case "ACTIVE":
+        case "CREATING":
+        case "UPDATING":
+        default:
+          logger.debug("stream status is " + streamStatus + ". can't watch stream be delete, name: " + streamName);
+          return PollExecutor.Poll.done(false);
+      }
+    });
   }
 
   public CompletableFuture<Boolean> watchStreamDelete(final String streamName) {
@@ -309,7 +316,9 @@ public class ApiClient {
 
     final List<String> streamName = new ArrayList<>();
 
-    for (int i = 1; i <= MAX_RETRY_COUNT; i++) {
+    final Retry retry = LIST_STREAMS_RETRY_POLICY.newRetry();
+
+    do {
       try {
         boolean hasMoreStreams = true;
 
@@ -331,10 +340,8 @@ public class ApiClient {
         logger.error("failed get stream list. exceeded limit request.");
         logger.error(e.getMessage());
       }
-      AppUtils.backoff("backoff due to failed get list streams.");
-    }
-
-    logger.error("failed get stream list. exceeded retry attempts.");
+    } while (retry.backoff("backoff due to failed get list streams."));
+    logger.error("failed get stream list. no more retry.");
     return streamName;
   }
 
@@ -376,7 +383,7 @@ public class ApiClient {
    *
    * @param streamName unchecked stream name.
    * @param shardIteratorType "TRIM_HORIZON" or "LATEST"
-   *                          ("AT_SEQUENCE_NUMBER", "AFTER_SEQUENCE_NUMBER", "AT_TIMESTAMP", not support)
+   *                          ("AT_SEQUENCE_NUMBER", "AFTER_SEQUENCE_NUMBER" with starting sequence number)
    *                          {@link ShardIteratorType}
    *
    * @return returns an optional type value that is a shard-iterator for the given stream's shard.
@@ -384,36 +391,113 @@ public class ApiClient {
   public Optional<String> getShardIterator(final String streamName,
                                            final Shard shard,
                                            final ShardIteratorType shardIteratorType) {
-    logger.debug("get shardIterator. stream: " + streamName + ", type: " + shardIteratorType.toString());
+    return this.getShardIterator(new GetShardIteratorRequest()
+      .withStreamName(streamName)
+      .withShardId(shard.getShardId())
+      .withShardIteratorType(shardIteratorType));
+  }
 
-    for(int i = 1; i <= MAX_RETRY_COUNT; i++) {
-      try {
-        return Optional.of(kinesisClient
-          .getShardIterator(streamName, shard.getShardId(), shardIteratorType.toString())
-          .getShardIterator());
-      } catch (ResourceNotFoundException e) {
-        logger.error("failed get shard iterator. stream is not exist, " +
-          "name: " + streamName + ", shardId: " + shard.getShardId() + ", iterator type: " + shardIteratorType.toString());
-        logger.error(e.getMessage());
-        return Optional.empty();
-      } catch (InvalidArgumentException e) {
-        logger.error("failed get shard iterator. invalid argument, " +
-          "name: " + streamName + ", shardId: " + shard.getShardId() + ", iterator type: " + shardIteratorType.toString());
-        logger.error(e.getMessage());
-        return Optional.empty();
-      } catch (ProvisionedThroughputExceededException e) {
-        logger.debug("failed get shard iterator. exceeded provisioned throughput," +
-          "name: " + streamName + ", shardId: " + shard.getShardId() + ", iterator type: " + shardIteratorType.toString());
-        AppUtils.backoff("backoff due to failed get shard iterator.n, name: " +
-          "name: " + streamName + ", shardId: " + shard.getShardId() + ", iterator type: " + shardIteratorType.toString());
+  /**
+   * Get shard-iterator at or after a sequence number.
+   *
+   * @param streamName unchecked stream name.
+   * @param shardIteratorType "AT_SEQUENCE_NUMBER" or "AFTER_SEQUENCE_NUMBER" {@link ShardIteratorType}
+   * @param startingSequenceNumber sequence number.
+   *
+   * @return returns an optional type value that is a shard-iterator for the given stream's shard.
+   */
+  public Optional<String> getShardIterator(final String streamName,
+                                           final Shard shard,
+                                           final ShardIteratorType shardIteratorType,
+                                           final String startingSequenceNumber) {
+    return this.getShardIterator(new GetShardIteratorRequest()
+      .withStreamName(streamName)
+      .withShardId(shard.getShardId())
+      .withShardIteratorType(shardIteratorType)
+      .withStartingSequenceNumber(startingSequenceNumber));
+  }
+
+  /**
+   * Get shard-iterator at a timestamp, AT_TIMESTAMP {@link ShardIteratorType}
+   *
+   * @param streamName unchecked stream name.
+   * @param timestamp approximate arrival timestamp of the first record, before trim horizon reads from trim horizon.
+   *
+   * @return returns an optional type value that is a shard-iterator for the given stream's shard.
+   */
+  public Optional<String> getShardIterator(final String streamName,
+                                           final Shard shard,
+                                           final Date timestamp) {
+    return this.getShardIterator(new GetShardIteratorRequest()
+      .withStreamName(streamName)
+      .withShardId(shard.getShardId())
+      .withShardIteratorType(ShardIteratorType.AT_TIMESTAMP)
+      .withTimestamp(timestamp));
+  }
+
+  private Optional<String> getShardIterator(final GetShardIteratorRequest getShardIteratorRequest) {
+    final String streamName = getShardIteratorRequest.getStreamName();
+    final String shardId = getShardIteratorRequest.getShardId();
+    final String shardIteratorType = getShardIteratorRequest.getShardIteratorType();
+
+    final Retry retry = GET_SHARD_ITERATOR_RETRY_POLICY.newRetry();
+    final AtomicReference<Exception> failure = new AtomicReference<>();
+
+    do {
+      failure.set(null);
+      final Optional<String> shardIterator = this.getShardIteratorOnce(getShardIteratorRequest, failure::set);
+
+      if (shardIterator.isPresent() || !(failure.get() instanceof ProvisionedThroughputExceededException)) {
+        return shardIterator;
       }
-    }
+    } while (retry.backoff("backoff due to failed get shard iterator. " +
+      "name: " + streamName + ", shardId: " + shardId + ", iterator type: " + shardIteratorType));
 
-    logger.error("failed get shard iterator. exceeded retry attempts." +
-      "name: " + streamName + ", shardId: " + shard.getShardId() + ", iterator type: " + shardIteratorType.toString());
+    logger.error("failed get shard iterator. no more retry." +
+      "name: " + streamName + ", shardId: " + shardId + ", iterator type: " + shardIteratorType);
     return Optional.empty();
   }
 
+  /**
+   * Get shard-iterator in one attempt, no backoff on the calling thread.
+   * For poll loops, the loop schedules the next attempt. {@link PollExecutor}
+   *
+   * @param getShardIteratorRequest provided request with stream name and shard id.
+   * @param failureConsumer receives the failure cause when result is empty, e.g. {@link ProvisionedThroughputExceededException}
+   *
+   * @return shard-iterator, empty if failed.
+   */
+  public Optional<String> getShardIteratorOnce(final GetShardIteratorRequest getShardIteratorRequest, final Consumer<Exception> failureConsumer) {
+    final String streamName = getShardIteratorRequest.getStreamName();
+    final String shardId = getShardIteratorRequest.getShardId();
+    final String shardIteratorType = getShardIteratorRequest.getShardIteratorType();
+
+    logger.debug("get shardIterator. stream: " + streamName + ", type: " + shardIteratorType);
+
+    try {
+      return Optional.of(kinesisClient
+        .getShardIterator(getShardIteratorRequest)
+        .getShardIterator());
+    } catch (ResourceNotFoundException e) {
+      logger.error("failed get shard iterator. stream is not exist, " +
+        "name: " + streamName + ", shardId: " + shardId + ", iterator type: " + shardIteratorType);
+      logger.error(e.getMessage());
+      failureConsumer.accept(e);
+      return Optional.empty();
+    } catch (InvalidArgumentException e) {
+      logger.error("failed get shard iterator. invalid argument, " +
+        "name: " + streamName + ", shardId: " + shardId + ", iterator type: " + shardIteratorType);
+      logger.error(e.getMessage());
+      failureConsumer.accept(e);
+      return Optional.empty();
+    } catch (ProvisionedThroughputExceededException e) {
+      logger.debug("failed get shard iterator. exceeded provisioned throughput," +
+        "name: " + streamName + ", shardId: " + shardId + ", iterator type: " + shardIteratorType);
+      failureConsumer.accept(e);
+      return Optional.empty();
+    }
+  }
+
   /**
    * Get shard-iterator list.
    *
@@ -433,7 +517,7 @@ public class ApiClient {
     if(shardList.isEmpty()) return new ArrayList<>();
 
     final Stream<CompletableFuture<Optional<String>>> shardIteratorListFuture = shardList.stream()
-      .map(shard -> CompletableFuture.supplyAsync(() ->
+      .map(shard -> PollExecutor.getInstance().supplyAsync(() ->
         getShardIterator(streamName, shard, shardIteratorType)));
 
     return shardIteratorListFuture
@@ -461,59 +545,137 @@ public class ApiClient {
     logger.debug("put records request. stream name: " + putRecordsRequest.getStreamName() +
       ", count: " + putRecordsRequest.getRecords().size());
 
-    for (int i = 1; i <= MAX_RETRY_COUNT; i++) {
+    final Retry retry = PUT_RECORDS_RETRY_POLICY.newRetry();
+
+    do {
       try {
         return Optional.of(kinesisClient.putRecords(putRecordsRequest));
       } catch (ResourceNotFoundException e) {
         logger.error("failed put records. stream is not exist, name: " + putRecordsRequest.getStreamName());
         return Optional.empty();
       } catch (InvalidArgumentException e) {
-        logger.error("failed put records. invaild argument.");
+        logger.error("failed put records. invaild argument, name: " + putRecordsRequest.getStreamName() +
+          ", count: " + putRecordsRequest.getRecords().size());
+        logger.error(e.getMessage());
         return Optional.empty();
       } catch (ProvisionedThroughputExceededException e) {
         logger.error("failed put records. exceeded provisioned throughput.");
-        AppUtils.backoff("backoff due to failed put records");
       } catch (Exception e) {
         logger.error("failed put records.");
         logger.error(e.getMessage(), e);
         return Optional.empty();
       }
-    }
-    logger.error("failed put records. exceeded retry attempts");
+    } while (retry.backoff("backoff due to failed put records"));
+    logger.error("failed put records. no more retry");
     return Optional.empty();
   }
 
+  /**
+   * Put records asynchronously with PutRecordsRequest.
+   *
+   * No retry, the caller decides how to retry on failure.
+   *
+   * @see {@link PutRecordsRequest}
+   *
+   * @param putRecordsRequest provided request.
+   *
+   * @return put record result future, completed exceptionally if request failed.
+   */
+  public CompletableFuture<PutRecordsResult> putRecordsAsync(PutRecordsRequest putRecordsRequest) {
+    logger.debug("put records async request. stream name: " + putRecordsRequest.getStreamName() +
+      ", count: " + putRecordsRequest.getRecords().size());
+
+    final CompletableFuture<PutRecordsResult> putRecordsFuture = new CompletableFuture<>();
+
+    try {
+      kinesisClient.putRecordsAsync(putRecordsRequest, new AsyncHandler<PutRecordsRequest, PutRecordsResult>() {
+        @Override
+        public void onError(Exception e) {
+          putRecordsFuture.completeExceptionally(e);
+        }
+
+        @Override
+        public void onSuccess(PutRecordsRequest request, PutRecordsResult putRecordsResult) {
+          putRecordsFuture.complete(putRecordsResult);
+        }
+      });
+    } catch (Exception e) {
+      logger.error("failed put records async request. stream name: " + putRecordsRequest.getStreamName());
+      logger.error(e.getMessage(), e);
+      putRecordsFuture.completeExceptionally(e);
+    }
+
+    return putRecordsFuture;
+  }
+
   /**
    * Get Records with GetRecordsRequest.
    *
    * @see {@link GetRecordsRequest}
    *
    * @param getRecordsRequest provided request.
+   * @param failureConsumer receives the failure cause when result is empty, e.g. {@link ExpiredIteratorException}
    *
    * @return get record result.
    */
-  public Optional<GetRecordsResult> getRecords(GetRecordsRequest getRecordsRequest) {
-    logger.debug("get records request. shardIterator: " + getRecordsRequest.getShardIterator());
+  public Optional<GetRecordsResult> getRecords(GetRecordsRequest getRecordsRequest, Consumer<Exception> failureConsumer) {
+    final Retry retry = GET_RECORDS_RETRY_POLICY.newRetry();
+    final AtomicReference<Exception> failure = new AtomicReference<>();
 
-    for (int i = 1; i <= MAX_RETRY_COUNT; i++) {
-      try {
-        return Optional.of(kinesisClient.getRecords(getRecordsRequest));
-      } catch (ResourceNotFoundException e) {
-        logger.error("failed get records. stream is not exist");
-        return Optional.empty();
-      } catch (InvalidArgumentException e) {
-        logger.error("failed get records. invaild argument.");
-        return Optional.empty();
-      } catch (ProvisionedThroughputExceededException e) {
-        logger.error("failed get records. exceeded provisioned throughput.");
-        AppUtils.backoff("backoff due to failed put records");
-      } catch (Exception e) {
-        logger.error("failed get records.");
-        logger.error(e.getMessage(), e);
+    do {
+      failure.set(null);
+      final Optional<GetRecordsResult> getRecordsResult = this.getRecordsOnce(getRecordsRequest, failure::set);
+
+      if (getRecordsResult.isPresent()) return getRecordsResult;
+      if (!(failure.get() instanceof ProvisionedThroughputExceededException)) {
+        failureConsumer.accept(failure.get());
         return Optional.empty();
       }
-    }
-    logger.error("failed get records. exceeded retry attempts");
+    } while (retry.backoff("backoff due to failed get records"));
+    logger.error("failed get records. no more retry");
+    failureConsumer.accept(failure.get());
     return Optional.empty();
   }
-}
\ No newline at end of file
+
+  /**
+   * Get Records in one attempt, no backoff on the calling thread.
+   * For poll loops, the loop schedules the next read. {@link PollExecutor}
+   *
+   * @param getRecordsRequest provided request.
+   * @param failureConsumer receives the failure cause when result is empty, e.g. {@link ProvisionedThroughputExceededException}
+   *
+   * @return get record result, empty if failed.
+   */
+  public Optional<GetRecordsResult> getRecordsOnce(GetRecordsRequest getRecordsRequest, Consumer<Exception> failureConsumer) {
+    logger.debug("get records request. shardIterator: " + getRecordsRequest.getShardIterator());
+
+    try {
+      return Optional.of(kinesisClient.getRecords(getRecordsRequest));
+    } catch (ResourceNotFoundException e) {
+      logger.error("failed get records. stream is not exist");
+      failureConsumer.accept(e);
+      return Optional.empty();
+    } catch (InvalidArgumentException e) {
+      logger.error("failed get records. invaild argument.");
+      failureConsumer.accept(e);
+      return Optional.empty();
+    } catch (ExpiredIteratorException e) {
+      logger.error("failed get records. shard iterator expired.");
+      failureConsumer.accept(e);
+      return Optional.empty();
+    } catch (ProvisionedThroughputExceededException e) {
+      logger.debug("failed get records. exceeded provisioned throughput.");
+      failureConsumer.accept(e);
+      return Optional.empty();
+    } catch (Exception e) {
+      logger.error("failed get records.");
+      logger.error(e.getMessage(), e);
+      failureConsumer.accept(e);
+      return Optional.empty();
+    }
+  }
+
+  public Optional<GetRecordsResult> getRecords(GetRecordsRequest getRecordsRequest) {
+    return this.getRecords(getRecordsRequest, failure -> {});
+  }
+}
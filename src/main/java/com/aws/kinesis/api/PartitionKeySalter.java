@@ -0,0 +1,174 @@
+package com.aws.kinesis.api;
+
+import com.amazonaws.services.kinesis.model.ProvisionedThroughputExceededException;
+import com.aws.kinesis.record.IRecord;
+import com.aws.kinesis.record.aggregation.AggregatedRecord;
+import com.utils.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Spread hot partition keys over explicit hash keys.
+ *
+ * A partition key throttled threshold times within window is salted, its records are put with
+ * explicit hash keys of salt count sub-keys, evenly spaced over the 128 bit hash key space.
+ * Salt 0 is the partition key hash itself. The partition key is kept as it is,
+ * so consumers regroup records by partition key, without order across sub-keys.
+ * A salted key is unsalted when it is not throttled for cool down time.
+ */
+public class PartitionKeySalter {
+  private static Logger logger = LoggerFactory.getLogger(PartitionKeySalter.class);
+
+  public static final String THROTTLED_ERROR_CODE = ProvisionedThroughputExceededException.class.getSimpleName();
+
+  private static final BigInteger HASH_KEY_SPACE = BigInteger.ONE.shiftLeft(128);
+  private static final int MAX_TRACKED_KEY_COUNT = 10000;
+
+  private final int saltCount;
+  private final int throttleThreshold;
+  private final long windowMillis;
+  private final long coolDownMillis;
+  private final Map<String, KeyState> keyStates = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor
+   *
+   * @param saltCount sub-key count of a salted key.
+   * @param throttleThreshold throttled record count within window to salt a key.
+   * @param windowMillis throttle count window.
+   * @param coolDownMillis unsalt a key after no throttling for.
+   */
+  public PartitionKeySalter(final int saltCount, final int throttleThreshold, final long windowMillis, final long coolDownMillis) {
+    this.saltCount = Math.max(1, saltCount);
+    this.throttleThreshold = Math.max(1, throttleThreshold);
+    this.windowMillis = windowMillis;
+    this.coolDownMillis = coolDownMillis;
+  }
+
+  /**
+   * @return salter from config, null if salting is disabled.
+   */
+  public static PartitionKeySalter fromConfig() {
+    return AppConfig.isProducerSaltingEnabled() ?
+      new PartitionKeySalter(AppConfig.getProducerSaltingSaltCount(),
+        AppConfig.getProducerSaltingThrottleThreshold(),
+        AppConfig.getProducerSaltingWindowMillis(),
+        AppConfig.getProducerSaltingCoolDownMillis()) : null;
+  }
+
+  public static BigInteger getSaltedHashKey(final String partitionKey, final int salt, final int saltCount) {
+    final BigInteger offset = HASH_KEY_SPACE.multiply(BigInteger.valueOf(salt)).divide(BigInteger.valueOf(saltCount));
+
+    return ShardLocator.getHashKey(partitionKey).add(offset).mod(HASH_KEY_SPACE);
+  }
+
+  // Getter >>
+  public int getSaltCount() { return saltCount; }
+  // << Getter
+
+  public boolean isSalted(final String partitionKey) {
+    final KeyState state = keyStates.get(partitionKey);
+    if (state == null) return false;
+
+    synchronized (state) {
+      return this.isSalted(partitionKey, state, System.currentTimeMillis());
+    }
+  }
+
+  public long getSaltedKeyCount() {
+    return keyStates.keySet().stream().filter(this::isSalted).count();
+  }
+
+  /**
+   * Next explicit hash key of partition key, sub-keys are used round robin.
+   *
+   * @return explicit hash key, empty if the key is not salted.
+   */
+  public Optional<String> getExplicitHashKey(final String partitionKey) {
+    final KeyState state = keyStates.get(partitionKey);
+    if (state == null) return Optional.empty();
+
+    final int salt;
+    synchronized (state) {
+      if (!this.isSalted(partitionKey, state, System.currentTimeMillis())) return Optional.empty();
+      salt = state.nextSalt;
+      state.nextSalt = (state.nextSalt + 1) % saltCount;
+    }
+
+    return Optional.of(getSaltedHashKey(partitionKey, salt, saltCount).toString());
+  }
+
+  /**
+   * Throttling feedback of a put record.
+   *
+   * @param record throttled record, user records for an aggregated record.
+   */
+  public void onThrottled(final IRecord record) {
+    if (record instanceof AggregatedRecord) {
+      for (IRecord userRecord : ((AggregatedRecord) record).getValue()) {
+        this.onThrottled(userRecord.getPartitionKey());
+      }
+    } else {
+      this.onThrottled(record.getPartitionKey());
+    }
+  }
+
+  public void onThrottled(final String partitionKey) {
+    final long now = System.currentTimeMillis();
+    final KeyState state = keyStates.computeIfAbsent(partitionKey, k -> new KeyState(now));
+
+    synchronized (state) {
+      if (now - state.windowStartMillis > windowMillis) {
+        state.windowStartMillis = now;
+        state.throttledCount = 0;
+      }
+      state.throttledCount++;
+      state.lastThrottledMillis = now;
+
+      if (!state.salted && state.throttledCount >= throttleThreshold) {
+        logger.debug("salt hot partition key. key: " + partitionKey + ", " +
+          "throttled count: " + state.throttledCount + ", salt count: " + saltCount);
+        state.salted = true;
+      }
+    }
+
+    if (keyStates.size() > MAX_TRACKED_KEY_COUNT) {
+      this.evictColdKeys(now);
+    }
+  }
+
+  private boolean isSalted(final String partitionKey, final KeyState state, final long now) {
+    if (state.salted && now - state.lastThrottledMillis > coolDownMillis) {
+      logger.debug("unsalt cooled partition key. key: " + partitionKey);
+      state.salted = false;
+    }
+    return state.salted;
+  }
+
+  private void evictColdKeys(final long now) {
+    keyStates.entrySet().removeIf(entry -> {
+      synchronized (entry.getValue()) {
+        return !this.isSalted(entry.getKey(), entry.getValue(), now) &&
+          now - entry.getValue().lastThrottledMillis > windowMillis;
+      }
+    });
+  }
+
+  private static class KeyState {
+    private long windowStartMillis;
+    private long lastThrottledMillis;
+    private int throttledCount = 0;
+    private int nextSalt = 0;
+    private boolean salted = false;
+
+    private KeyState(final long now) {
+      this.windowStartMillis = now;
+      this.lastThrottledMillis = now;
+    }
+  }
+}
@@ -0,0 +1,128 @@
+package com.aws.kinesis.api;
+
+import com.utils.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide executor of polling loops (shard fetch loops, stream status watches).
+ *
+ * A loop is a chain of timer-driven polls on a bounded pool. A poll holds a thread only while it runs,
+ * the wait until the next poll is a scheduled delay, so many shards of many streams share a few threads.
+ * Cancelling the loop future stops the loop before its next poll.
+ */
+public class PollExecutor {
+  private static Logger logger = LoggerFactory.getLogger(PollExecutor.class);
+
+  private final ScheduledThreadPoolExecutor executor;
+
+  /**
+   * Constructor
+   *
+   * @param threadCount pool thread count, daemon threads.
+   */
+  public PollExecutor(final int threadCount) {
+    final AtomicInteger threadNumber = new AtomicInteger();
+
+    this.executor = new ScheduledThreadPoolExecutor(Math.max(1, threadCount), runnable -> {
+      final Thread thread = new Thread(runnable, "poll-executor-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.executor.setRemoveOnCancelPolicy(true);
+  }
+
+  private static class LazyHolder {
+    private static final PollExecutor INSTANCE = new PollExecutor(AppConfig.getPollExecutorThreadCount());
+  }
+
+  public static PollExecutor getInstance() {
+    return LazyHolder.INSTANCE;
+  }
+
+  // Getter >>
+  public Executor getExecutor() { return executor; }
+  public int getThreadCount() { return executor.getCorePoolSize(); }
+  public int getQueuedTaskCount() { return executor.getQueue().size(); }
+  // << Getter
+
+  /**
+   * Result of a poll, done with a value or poll again after a delay.
+   */
+  public static final class Poll<T> {
+    private final boolean done;
+    private final T value;
+    private final long delayMillis;
+
+    private Poll(final boolean done, final T value, final long delayMillis) {
+      this.done = done;
+      this.value = value;
+      this.delayMillis = delayMillis;
+    }
+
+    public static <T> Poll<T> done(final T value) { return new Poll<>(true, value, 0L); }
+    public static <T> Poll<T> again(final long delayMillis) { return new Poll<>(false, null, Math.max(0L, delayMillis)); }
+
+    // Getter >>
+    public boolean isDone() { return done; }
+    public T getValue() { return value; }
+    public long getDelayMillis() { return delayMillis; }
+    // << Getter
+  }
+
+  /**
+   * Run polls until a poll is done.
+   *
+   * @param poll one step of the loop, must not sleep.
+   * @param initialDelayMillis delay of the first poll.
+   *
+   * @return loop future, completes with the value of the done poll or exceptionally if a poll throws.
+   */
+  public <T> CompletableFuture<T> loop(final Supplier<Poll<T>> poll, final long initialDelayMillis) {
+    final CompletableFuture<T> loopFuture = new CompletableFuture<>();
+    this.schedule(() -> this.runPoll(poll, loopFuture), initialDelayMillis);
+    return loopFuture;
+  }
+
+  public <T> CompletableFuture<T> loop(final Supplier<Poll<T>> poll) {
+    return this.loop(poll, 0L);
+  }
+
+  public <T> CompletableFuture<T> supplyAsync(final Supplier<T> supplier) {
+    return CompletableFuture.supplyAsync(supplier, executor);
+  }
+
+  private void schedule(final Runnable task, final long delayMillis) {
+    if (delayMillis > 0) {
+      executor.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+    } else {
+      executor.execute(task);
+    }
+  }
+
+  private <T> void runPoll(final Supplier<Poll<T>> poll, final CompletableFuture<T> loopFuture) {
+    // cancelled or completed from outside.
+    if (loopFuture.isDone()) return;
+
+    try {
+      final Poll<T> result = poll.get();
+
+      if (result.isDone()) {
+        loopFuture.complete(result.getValue());
+      } else {
+        this.schedule(() -> this.runPoll(poll, loopFuture), result.getDelayMillis());
+      }
+    } catch (Throwable t) {
+      logger.error("failed poll. stop loop.");
+      logger.error(t.getMessage());
+      loopFuture.completeExceptionally(t);
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package com.aws.kinesis.api;
+
+import com.amazonaws.services.kinesis.model.Shard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Locate target shard of partition key.
+ *
+ * Kinesis maps a partition key to a 128 bit hash key with MD5,
+ * a record goes to the open shard whose hash key range contains the hash key.
+ * Explicit hash key overrides the partition key hash.
+ */
+public class ShardLocator {
+  private static final Logger logger = LoggerFactory.getLogger(ShardLocator.class);
+
+  private static final ThreadLocal<MessageDigest> md5 = ThreadLocal.withInitial(() -> {
+    try {
+      return MessageDigest.getInstance("MD5");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("MD5 is not supported.", e);
+    }
+  });
+
+  // starting hash key -> open shard
+  private final TreeMap<BigInteger, Shard> openShards = new TreeMap<>();
+  private final Set<String> openShardIds = new HashSet<>();
+
+  /**
+   * Constructor
+   *
+   * @param shards stream shard list, closed shards are ignored. {@link ApiClient#getShardList(String)}
+   */
+  public ShardLocator(final List<Shard> shards) {
+    for (Shard shard : shards) {
+      if (isOpenShard(shard)) {
+        openShards.put(new BigInteger(shard.getHashKeyRange().getStartingHashKey()), shard);
+        openShardIds.add(shard.getShardId());
+      }
+    }
+    logger.debug("create shard locator. open shard count: " + openShards.size() + "/" + shards.size());
+  }
+
+  public static boolean isOpenShard(final Shard shard) {
+    return shard.getSequenceNumberRange() == null || shard.getSequenceNumberRange().getEndingSequenceNumber() == null;
+  }
+
+  public static BigInteger getHashKey(final String partitionKey) {
+    final MessageDigest messageDigest = md5.get();
+    messageDigest.reset();
+
+    return new BigInteger(1, messageDigest.digest(partitionKey.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  public boolean isEmpty() {
+    return openShards.isEmpty();
+  }
+
+  public int getOpenShardCount() {
+    return openShards.size();
+  }
+
+  /**
+   * @return true if the shard is an open shard of this locator, false for closed or unknown shards.
+   */
+  public boolean isOpenShardId(final String shardId) {
+    return openShardIds.contains(shardId);
+  }
+
+  public Optional<Shard> getShard(final BigInteger hashKey) {
+    final Map.Entry<BigInteger, Shard> floorEntry = openShards.floorEntry(hashKey);
+
+    if (floorEntry == null) return Optional.empty();
+
+    final Shard shard = floorEntry.getValue();
+    if (hashKey.compareTo(new BigInteger(shard.getHashKeyRange().getEndingHashKey())) > 0) {
+      return Optional.empty();
+    }
+    return Optional.of(shard);
+  }
+
+  /**
+   * Get target shard id.
+   *
+   * @param partitionKey record partition key.
+   * @param explicitHashKey record explicit hash key (nullable).
+   *
+   * @return target open shard id, empty if there is no open shard for the hash key.
+   */
+  public Optional<String> getShardId(final String partitionKey, final String explicitHashKey) {
+    final BigInteger hashKey = explicitHashKey == null ? getHashKey(partitionKey) : new BigInteger(explicitHashKey);
+
+    return this.getShard(hashKey).map(Shard::getShardId);
+  }
+
+  public Optional<String> getShardId(final String partitionKey) {
+    return this.getShardId(partitionKey, null);
+  }
+}
@@ -0,0 +1,95 @@
+package com.aws.kinesis.api.consumer;
+
+import com.amazonaws.services.kinesis.model.GetRecordsResult;
+import com.amazonaws.services.kinesis.model.Record;
+
+/**
+ * Adaptive GetRecords schedule of a shard.
+ *
+ * A shard far behind (MillisBehindLatest over catch up threshold) or returning a full batch is read
+ * back-to-back with max limit. A caught up shard backs off by doubling toward max interval on empty reads,
+ * a throttled shard backs off the same way.
+ * Delay never drops below per-shard read limits, 5 reads/s and 2 MiB/s.
+ *
+ * Not thread-safe, one scheduler per shard fetch loop.
+ */
+public class AdaptivePollScheduler {
+  // per-shard GetRecords limits.
+  public static final int MAX_LIMIT = 10000;
+  public static final long MIN_INTERVAL_MILLIS = 200L;
+  public static final long MAX_BYTES_PER_SECOND = 2L * 1024 * 1024;
+
+  private final long maxIntervalMillis;
+  private final long catchUpMillisBehindLatest;
+  private final int limit;
+
+  private long intervalMillis = MIN_INTERVAL_MILLIS;
+  private int currentLimit;
+
+  /**
+   * Constructor
+   *
+   * @param maxIntervalMillis poll interval of a caught up shard.
+   * @param catchUpMillisBehindLatest shard behind more than this is read back-to-back.
+   * @param limit GetRecords limit of a caught up shard.
+   */
+  public AdaptivePollScheduler(final long maxIntervalMillis, final long catchUpMillisBehindLatest, final int limit) {
+    this.maxIntervalMillis = Math.max(MIN_INTERVAL_MILLIS, maxIntervalMillis);
+    this.catchUpMillisBehindLatest = catchUpMillisBehindLatest;
+    this.limit = Math.min(Math.max(1, limit), MAX_LIMIT);
+    this.currentLimit = MAX_LIMIT;
+  }
+
+  // Getter >>
+  public int getLimit() { return currentLimit; }
+  public long getIntervalMillis() { return intervalMillis; }
+  // << Getter
+
+  /**
+   * Update schedule with a GetRecords result.
+   *
+   * @return delay millis from the start of the read to the next read.
+   */
+  public long onRecords(final GetRecordsResult getRecordsResult) {
+    long bytes = 0L;
+    for (Record record : getRecordsResult.getRecords()) {
+      bytes += record.getData().remaining();
+    }
+    return this.onRecords(getRecordsResult.getRecords().size(), bytes, getRecordsResult.getMillisBehindLatest());
+  }
+
+  /**
+   * @param recordCount read record count.
+   * @param bytes read record data bytes.
+   * @param millisBehindLatest millis behind latest of the read (nullable).
+   *
+   * @return delay millis from the start of the read to the next read.
+   */
+  public long onRecords(final int recordCount, final long bytes, final Long millisBehindLatest) {
+    final boolean catchingUp = recordCount >= currentLimit ||
+      (millisBehindLatest != null && millisBehindLatest >= catchUpMillisBehindLatest);
+
+    if (catchingUp) {
+      intervalMillis = MIN_INTERVAL_MILLIS;
+      currentLimit = MAX_LIMIT;
+    } else {
+      if (recordCount == 0) {
+        intervalMillis = Math.min(maxIntervalMillis, intervalMillis * 2);
+      }
+      currentLimit = limit;
+    }
+
+    return Math.max(intervalMillis, bytes * 1000L / MAX_BYTES_PER_SECOND);
+  }
+
+  /**
+   * Throttled read, the shard is polled less often until records are read.
+   *
+   * @return delay millis from the start of the read to the next read.
+   */
+  public long onThrottled() {
+    intervalMillis = Math.min(maxIntervalMillis, intervalMillis * 2);
+    currentLimit = limit;
+    return intervalMillis;
+  }
+}
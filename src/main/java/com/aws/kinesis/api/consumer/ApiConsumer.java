@@ -2,17 +2,39 @@ package com.aws.kinesis.api.consumer;
 
 import com.amazonaws.services.kinesis.model.*;
 import com.aws.kinesis.api.ApiClient;
+import com.aws.kinesis.api.PollExecutor;
+import com.aws.kinesis.api.consumer.checkpoint.CheckpointStoreFactory;
+import com.aws.kinesis.api.consumer.checkpoint.ICheckpointStore;
+import com.aws.kinesis.api.consumer.lease.ILeaseManager;
+import com.aws.kinesis.api.consumer.lease.LeaseManagerFactory;
+import com.aws.kinesis.api.consumer.lease.LeaseManagerType;
+import com.aws.kinesis.record.DecodedBatch;
+import com.aws.kinesis.record.aggregation.RecordDeaggregator;
+import com.aws.kinesis.record.codec.RecordDecoder;
 import com.aws.kinesis.record.handler.HandlerFactory;
 import com.aws.kinesis.record.handler.IRecordsHandler;
+import com.aws.kinesis.record.serde.ISerde;
+import com.aws.kinesis.record.serde.SerdeFactory;
 import com.utils.AppConfig;
-import com.utils.AppUtils;
+import com.utils.retry.DecorrelatedJitterBackoff;
+import com.utils.retry.Retry;
+import com.utils.retry.RetryPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * AWS SDK Kinesis Consumer.
@@ -20,27 +42,63 @@ import java.util.concurrent.*;
  * The api consumer accepts handler and process it in consume-job.
  * Use handler {@link com.aws.kinesis.record.handler} or create custom handler class.
  *
+ * KPL aggregated records are de-aggregated into user records before handlers. {@link RecordDeaggregator}
+ * Encoded payloads are decoded after de-aggregation. {@link RecordDecoder}
+ * Each shard is read by one fetch loop, every batch is handed to all handlers.
+ * Fetch loops of all consumers are timer-driven polls on a shared bounded pool. {@link PollExecutor}
+ * With adaptive poll, read interval and limit follow MillisBehindLatest. {@link AdaptivePollScheduler}
+ * With prefetch, fetch and process of a shard are pipelined through a bounded queue. {@link PrefetchQueue}
+ * With checkpoint store, handled sequence numbers are checkpointed and consume resumes after them. {@link ICheckpointStore}
+ * Expired iterators and transient read failures are recovered after the last read sequence number. {@link FetchRecovery}
+ * With lease manager, consumer processes split shards by leases instead of each reading all shards. {@link ILeaseManager}
+ * Replay backfills a time range with parallel slice readers under a rate cap, then tails. {@link ReplaySlice}
+ *
  * @see {@link com.aws.kinesis.record.handler}
  *
  */
 public class ApiConsumer {
   private static Logger logger = LoggerFactory.getLogger(ApiConsumer.class);
   private static long INTERVAL_TIME_MILLIS = AppConfig.getIntervalMillis();
+  // retry delay of records refused by a full prefetch queue, or offered while their batch is in handling.
+  private static final long BACKPRESSURE_DELAY_MILLIS = 50L;
+  private static final int DEFAULT_RETENTION_PERIOD_HOURS = 24;
+  private static final RetryPolicy PROCESS_RETRY_POLICY = RetryPolicy.forOperation("processRecords");
+
+  // handlers of a batch run concurrently on this pool, off the poll threads and the common pool.
+  private static final ExecutorService handlerExecutor = newHandlerExecutor(AppConfig.getConsumerHandlerThreadCount());
 
   private final String streamName;
   private final ApiClient apiClient;
+  private final ICheckpointStore checkpointStore;
+  private final ILeaseManager leaseManager;
+  private final ISerde serde;
+  private final ConsumerMetrics metrics = new ConsumerMetrics();
+  // running fetch loops by shard id, cancelled to stop a shard.
+  private final Map<String, CompletableFuture<Boolean>> fetchLoops = new ConcurrentHashMap<>();
+  private final Set<CompletableFuture<Void>> leaseJobs = ConcurrentHashMap.newKeySet();
 
   /**
    * Constructor
    *
    * @param apiClient aws kinesis sdk client. otherwise create default client.
    * @param streamName unchecked stream name.
+   * @param checkpointStore checkpoint store, no checkpoint if null. {@link ICheckpointStore}
+   * @param leaseManager shard lease manager, read all shards if null. checkpoints are kept in leases
+   *                     and checkpoint store is not used. {@link ILeaseManager}
+   * @param serde record value serde of typed handlers. {@link IRecordsHandler#isTypedHandler()}
    *
    * @throws ResourceNotFoundException stream is not exist.
    */
-  public ApiConsumer(final ApiClient apiClient, final String streamName) throws ResourceNotFoundException {
+  public ApiConsumer(final ApiClient apiClient,
+                     final String streamName,
+                     final ICheckpointStore checkpointStore,
+                     final ILeaseManager leaseManager,
+                     final ISerde serde) throws ResourceNotFoundException {
     this.apiClient = apiClient;
     this.streamName = streamName;
+    this.leaseManager = leaseManager;
+    this.checkpointStore = leaseManager != null ? leaseManager : checkpointStore;
+    this.serde = serde;
 
     /**
      * check stream validate.
@@ -50,35 +108,79 @@ public class ApiConsumer {
     }
   }
 
+  public ApiConsumer(final ApiClient apiClient,
+                     final String streamName,
+                     final ICheckpointStore checkpointStore,
+                     final ILeaseManager leaseManager) throws ResourceNotFoundException {
+    this(apiClient, streamName, checkpointStore, leaseManager, SerdeFactory.getInstance().getSerde(streamName));
+  }
+
+  public ApiConsumer(final ApiClient apiClient, final String streamName, final ICheckpointStore checkpointStore) throws ResourceNotFoundException {
+    this(apiClient, streamName, checkpointStore, null);
+  }
+
+  /**
+   * Constructor with configured checkpoint store and lease manager.
+   *
+   * @throws IllegalStateException configured checkpoint store can't be opened.
+   */
+  public ApiConsumer(final ApiClient apiClient, final String streamName) throws ResourceNotFoundException {
+    this(apiClient, streamName,
+      AppConfig.getConsumerLeaseManagerType() == LeaseManagerType.NONE ?
+        CheckpointStoreFactory.getInstance().getCheckpointStore(AppConfig.getConsumerCheckpointStoreType(), streamName) : null,
+      LeaseManagerFactory.getInstance().getLeaseManager(AppConfig.getConsumerLeaseManagerType(), streamName));
+  }
+
   public ApiConsumer(final String streamName) {
     this(new ApiClient(), streamName);
   }
 
   // Getter >>
   public String getStreamName() { return streamName; }
+  public Optional<ICheckpointStore> getCheckpointStore() { return Optional.ofNullable(checkpointStore); }
+  public Optional<ILeaseManager> getLeaseManager() { return Optional.ofNullable(leaseManager); }
+  public ConsumerMetrics getMetrics() { return metrics; }
+  public ISerde getSerde() { return serde; }
   // << Getter
 
+  /**
+   * Stop lease jobs and fetch loops, then flush and close checkpoint store, leases are released.
+   */
+  public void close() {
+    leaseJobs.forEach(leaseJob -> leaseJob.cancel(false));
+    fetchLoops.values().forEach(fetchLoop -> fetchLoop.cancel(false));
+
+    if (checkpointStore != null) {
+      checkpointStore.close();
+    }
+  }
+
   /**
    * Start point consumer.
    *
-   * Consumer count is equal to shard count * handler count.
+   * Consumer count is equal to shard count, read api usage does not depend on handler count.
+   * Child shards are consumed after their parents are drained. {@link ShardLineage}
+   * With lease manager, only leased shards are consumed by one lease job. {@link ILeaseManager}
    *
    * @param intervalMillis consume interval millis.
    * @param handlers consume records handler list.
    *
-   * @return consume loop future list.
+   * @return consume loop future list. cancel lease job future to stop.
    */
   public List<CompletableFuture<Void>> consume(final ShardIteratorType shardIteratorType, final long intervalMillis, final IRecordsHandler handler, final IRecordsHandler... handlers) {
     logger.debug("consumer start. stream name: " + streamName);
 
     final List<CompletableFuture<Void>> jobFutures = new ArrayList<>(handlers.length);
     final List<Shard> shardList = apiClient.getShardList(streamName);
+    final ShardLineage shardLineage = new ShardLineage(shardList, shardIteratorType);
     final List<IRecordsHandler> checkedHandlerList = this.getCheckedHandlerList(HandlerFactory.getInstance().mergeHandler(handler, handlers));
 
     logger.debug("consumer handler count: " + checkedHandlerList.size());
-    if (checkedHandlerList.size() > 0) {
-      for (Shard shard : shardList) {
-        jobFutures.addAll(this.getConsumeJob(intervalMillis, shard, shardIteratorType, checkedHandlerList));
+    if (checkedHandlerList.size() > 0 && leaseManager != null) {
+      jobFutures.add(this.getLeaseJob(intervalMillis, shardLineage, checkedHandlerList));
+    } else if (checkedHandlerList.size() > 0) {
+      for (Shard shard : shardLineage.startableShards(shardList)) {
+        jobFutures.addAll(this.getConsumeJob(intervalMillis, shard, shardLineage, checkedHandlerList));
       }
     }
 
@@ -90,6 +192,142 @@ public class ApiConsumer {
     return this.consume(shardIteratorType, INTERVAL_TIME_MILLIS, handler, handlers);
   }
 
+  /**
+   * Replay consumer, backfill then tail.
+   *
+   * Records arrived in [startTimestamp, endTimestamp) of every shard in retention, closed shards included, are read by
+   * parallel time-slice readers per shard under a shared records and bytes per second cap. {@link ReplaySlice} {@link ReplayRateLimiter}
+   * Batches of different slices of a shard are handled out of order, backfill is not checkpointed.
+   * With tail, an open shard is consumed from AT_TIMESTAMP endTimestamp after all its slices are done,
+   * so backfill and tail neither overlap nor leave a gap. Child shards are tailed after their parents.
+   *
+   * @param startTimestamp backfill start, trim horizon if null.
+   * @param endTimestamp backfill end, now if null.
+   * @param tail consume open shards after backfill.
+   * @param intervalMillis tail consume interval millis.
+   * @param handlers consume records handler list.
+   *
+   * @return replay job future list, a future per shard. fails without tail if a backfill slice of the shard failed.
+   */
+  public List<CompletableFuture<Void>> replay(final Date startTimestamp,
+                                              final Date endTimestamp,
+                                              final boolean tail,
+                                              final long intervalMillis,
+                                              final IRecordsHandler handler,
+                                              final IRecordsHandler... handlers) {
+    final Date replayEndTimestamp = endTimestamp == null ? new Date() : endTimestamp;
+    final Date replayStartTimestamp = startTimestamp == null ? this.getTrimHorizonTimestamp(replayEndTimestamp) : startTimestamp;
+
+    logger.debug("replay start. stream name: " + streamName + ", start: " + replayStartTimestamp.getTime() + ", " +
+      "end: " + replayEndTimestamp.getTime() + ", tail: " + tail);
+
+    final List<CompletableFuture<Void>> jobFutures = new ArrayList<>();
+    final List<Shard> shardList = apiClient.getShardList(streamName);
+    final List<IRecordsHandler> checkedHandlerList = this.getCheckedHandlerList(HandlerFactory.getInstance().mergeHandler(handler, handlers));
+    final ReplayRateLimiter replayRateLimiter = new ReplayRateLimiter(AppConfig.getConsumerReplayRecordsPerSecond(),
+      AppConfig.getConsumerReplayBytesPerSecond());
+
+    // closed shards are backfilled only, children created while tailing start from TRIM_HORIZON.
+    final ShardLineage shardLineage = new ShardLineage(shardList, ShardIteratorType.LATEST);
+    shardList.stream().filter(shard -> !isOpen(shard)).forEach(shard -> shardLineage.onShardDrained(shard.getShardId()));
+    shardLineage.startableShards(shardList);
+
+    if (checkedHandlerList.isEmpty()) return jobFutures;
+
+    for (Shard shard : shardList) {
+      final CompletableFuture<Void> backfillJob = this.getBackfillJob(shard,
+        ReplaySlice.split(replayStartTimestamp, replayEndTimestamp, AppConfig.getConsumerReplayReadersPerShard()),
+        replayRateLimiter, checkedHandlerList);
+
+      if (tail && isOpen(shard)) {
+        jobFutures.add(backfillJob.thenCompose(result ->
+          this.getTailTask(intervalMillis, shard, replayEndTimestamp, shardLineage, checkedHandlerList)));
+      } else {
+        jobFutures.add(backfillJob);
+      }
+    }
+
+    logger.debug("replay running job future count: " + jobFutures.size());
+    return jobFutures;
+  }
+
+  public List<CompletableFuture<Void>> replay(final Date startTimestamp, final Date endTimestamp, final boolean tail, final IRecordsHandler handler, final IRecordsHandler... handlers) {
+    return this.replay(startTimestamp, endTimestamp, tail, INTERVAL_TIME_MILLIS, handler, handlers);
+  }
+
+  /**
+   * Backfill job of a shard, slice readers run in parallel.
+   *
+   * @return backfill future, completes when all slices are read, exceptionally if a slice is not read to its end.
+   */
+  private CompletableFuture<Void> getBackfillJob(final Shard shard,
+                                                 final List<ReplaySlice> replaySlices,
+                                                 final ReplayRateLimiter replayRateLimiter,
+                                                 final List<IRecordsHandler> handlers) {
+    logger.debug("get backfill job. stream name: " + streamName + ", shardId: " + shard.getShardId() + ", slice count: " + replaySlices.size());
+
+    final List<CompletableFuture<Boolean>> sliceFutures = new ArrayList<>(replaySlices.size());
+
+    for (ReplaySlice replaySlice : replaySlices) {
+      final Supplier<Optional<String>> sliceShardIterator = () -> this.getShardIterator(shard, new GetShardIteratorRequest()
+        .withShardIteratorType(ShardIteratorType.AT_TIMESTAMP)
+        .withTimestamp(replaySlice.getStartTimestamp()));
+      final AtomicReference<BatchHandling> batchHandling = new AtomicReference<>();
+
+      sliceFutures.add(PollExecutor.getInstance()
+        .loop(new FetchPoll(INTERVAL_TIME_MILLIS, shard, sliceShardIterator, records ->
+          records.isEmpty() || this.offer(batchHandling, new BatchHandling(shard, records, handlers, false)),
+          replaySlice, replayRateLimiter))
+        .exceptionally(throwable -> this.onTaskFailure(shard, throwable)));
+    }
+
+    return CompletableFuture.allOf(sliceFutures.toArray(new CompletableFuture[0]))
+      .thenRun(() -> {
+        // a slice gave up or failed, records of its time range are not handled.
+        final long failedSliceCount = sliceFutures.stream().filter(sliceFuture -> !sliceFuture.join()).count();
+        if (failedSliceCount > 0) {
+          throw new IllegalStateException("failed backfill. stream name: " + streamName + ", shardId: " + shard.getShardId() + ", " +
+            "failed slice count: " + failedSliceCount);
+        }
+        logger.debug("backfill done. stream name: " + streamName + ", shardId: " + shard.getShardId());
+      });
+  }
+
+  /**
+   * Tail task of an open shard from backfill end, continues to child shards.
+   */
+  private CompletableFuture<Void> getTailTask(final long intervalMillis,
+                                              final Shard shard,
+                                              final Date endTimestamp,
+                                              final ShardLineage shardLineage,
+                                              final List<IRecordsHandler> handlers) {
+    final Supplier<Optional<String>> tailShardIterator = () -> this.getShardIterator(shard, new GetShardIteratorRequest()
+      .withShardIteratorType(ShardIteratorType.AT_TIMESTAMP)
+      .withTimestamp(endTimestamp));
+
+    logger.debug("switch backfill to tail. stream name: " + streamName + ", shardId: " + shard.getShardId());
+    return this.taskLoop(intervalMillis, shard, tailShardIterator, handlers)
+      .exceptionally(throwable -> this.onTaskFailure(shard, throwable))
+      .thenCompose(drained -> drained ?
+        this.consumeChildShards(intervalMillis, shard, shardLineage, handlers) :
+        CompletableFuture.completedFuture(null));
+  }
+
+  /**
+   * Oldest readable timestamp by stream retention period.
+   */
+  private Date getTrimHorizonTimestamp(final Date endTimestamp) {
+    final int retentionPeriodHours = apiClient.getStreamDesc(streamName)
+      .map(StreamDescription::getRetentionPeriodHours)
+      .orElse(DEFAULT_RETENTION_PERIOD_HOURS);
+
+    return new Date(endTimestamp.getTime() - TimeUnit.HOURS.toMillis(retentionPeriodHours));
+  }
+
+  private static boolean isOpen(final Shard shard) {
+    return shard.getSequenceNumberRange() == null || shard.getSequenceNumberRange().getEndingSequenceNumber() == null;
+  }
+
   /**
    * Handler validation.
    *
@@ -120,30 +358,25 @@ public class ApiConsumer {
    * Job depends on shard count.
    * Job count is equals to shard count.
    *
-   * Job is consist of task.
-   * Task is consis of handler.
+   * Job is consist of one task, the task fans out records to all handlers.
+   * Job future completes when the shard and its started descendants are done.
    *
    *
    * @param intervalMillis consume interval.
    * @param shard job on shard.
+   * @param shardLineage shard parent-child order.
    * @param handlers record handlers.
    *
    * @return job future list.
    */
   private List<CompletableFuture<Void>> getConsumeJob(final long intervalMillis,
                                                       final Shard shard,
-                                                      ShardIteratorType shardIteratorType,
+                                                      final ShardLineage shardLineage,
                                                       final List<IRecordsHandler> handlers) {
     logger.debug("get consume job. stream name: " + streamName + ", shardId: " + shard.getShardId() + ", handler count: " + handlers.size());
-    final List<CompletableFuture<Void>> taskFutures = new ArrayList<>(handlers.size());
+    final List<CompletableFuture<Void>> taskFutures = new ArrayList<>(1);
 
-    for (IRecordsHandler handler : handlers) {
-      final CompletableFuture<Void> consumeTaskFuture = this.getConsumeTask(intervalMillis, shard, shardIteratorType, handler);
-
-      if (consumeTaskFuture != null) {
-        taskFutures.add(consumeTaskFuture);
-      }
-    }
+    taskFutures.add(this.getConsumeTask(intervalMillis, shard, shardLineage, handlers));
 
     logger.debug("consumer running task future count: " + taskFutures.size());
     return taskFutures;
@@ -152,70 +385,675 @@ public class ApiConsumer {
   /**
    * Consumer task.
    *
-   * Task depends on shard, handler.
-   * Task count is equals to shard count * handler count.
+   * Task depends on shard.
+   * Task count is equals to shard count.
    *
    * @param intervalMillis consume interval.
    * @param shard task on shard
-   * @param shardIteratorType shard iterator type {@link ShardIteratorType}
-   * @param handler record handler.
+   * @param shardLineage shard parent-child order, gives shard iterator type {@link ShardIteratorType}
+   * @param handlers record handlers.
    *
-   * @return task future list.
+   * @return task future, completes after child shard tasks.
    */
   private CompletableFuture<Void> getConsumeTask(final long intervalMillis,
                                                  final Shard shard,
-                                                 ShardIteratorType shardIteratorType,
-                                                 final IRecordsHandler handler) {
-    logger.debug("get consume task. stream name: " + streamName + ", shardId: " + shard.getShardId() + ", handler: " + handler.getClass().getName());
+                                                 final ShardLineage shardLineage,
+                                                 final List<IRecordsHandler> handlers) {
+    logger.debug("get consume task. stream name: " + streamName + ", shardId: " + shard.getShardId() + ", handler count: " + handlers.size());
+
+    return this.taskLoop(intervalMillis, shard, () -> this.getStartShardIterator(shard, shardLineage), handlers)
+      .exceptionally(throwable -> this.onTaskFailure(shard, throwable))
+      .thenCompose(drained -> drained ?
+        this.consumeChildShards(intervalMillis, shard, shardLineage, handlers) :
+        CompletableFuture.completedFuture(null));
+  }
+
+  /**
+   * Lease job.
+   *
+   * Every renew interval, acquires leases of leasable shards, starts tasks of newly held shards and
+   * stops tasks of lost shards. A shard is leasable after its parents are completed.
+   * Drained shards complete their leases, child shards are started by the next renew.
+   *
+   * @return lease job future, completes when all shards are completed.
+   */
+  private CompletableFuture<Void> getLeaseJob(final long intervalMillis,
+                                              final ShardLineage shardLineage,
+                                              final List<IRecordsHandler> handlers) {
+    logger.debug("get lease job. stream name: " + streamName + ", worker: " + leaseManager.getWorkerId());
+
+    // running leased shard tasks by shard id.
+    final Map<String, CompletableFuture<Boolean>> leasedTasks = new ConcurrentHashMap<>();
+
+    final CompletableFuture<Void> leaseJob = PollExecutor.getInstance().loop(() -> {
+      final List<Shard> shards = apiClient.getShardList(streamName);
+      final Set<String> shardIds = shards.stream().map(Shard::getShardId).collect(Collectors.toSet());
+
+      final List<String> leasableShardIds = shards.stream()
+        .filter(shard -> !leaseManager.isCompleted(shard.getShardId()))
+        .filter(shard -> this.isParentCompleted(shard.getParentShardId(), shardIds))
+        .filter(shard -> this.isParentCompleted(shard.getAdjacentParentShardId(), shardIds))
+        .map(Shard::getShardId)
+        .collect(Collectors.toList());
+
+      final Set<String> heldShardIds = leaseManager.acquire(leasableShardIds);
+
+      for (String shardId : leasedTasks.keySet()) {
+        if (!heldShardIds.contains(shardId)) {
+          logger.debug("lease lost. stop shard, stream name: " + streamName + ", shardId: " + shardId);
+          this.stopShard(shardId);
+        }
+      }
+
+      for (Shard shard : shards) {
+        if (heldShardIds.contains(shard.getShardId()) && !leasedTasks.containsKey(shard.getShardId())) {
+          final CompletableFuture<Boolean> task = this.getLeasedTask(intervalMillis, shard, shardLineage, handlers);
+          leasedTasks.put(shard.getShardId(), task);
+          task.whenComplete((drained, throwable) -> leasedTasks.remove(shard.getShardId()));
+        }
+      }
+
+      if (!shards.isEmpty() && shards.stream().allMatch(shard -> leaseManager.isCompleted(shard.getShardId()))) {
+        logger.debug("all shards completed. stop lease job, stream name: " + streamName);
+        return PollExecutor.Poll.done(null);
+      }
+      return PollExecutor.Poll.again(AppConfig.getConsumerLeaseRenewIntervalMillis());
+    });
+
+    leaseJobs.add(leaseJob);
+    leaseJob.whenComplete((result, throwable) -> {
+      leaseJobs.remove(leaseJob);
+      leasedTasks.keySet().forEach(this::stopShard);
+    });
+    return leaseJob;
+  }
+
+  /**
+   * Leased shard task, completes the lease when the shard is drained.
+   *
+   * @return task future, supplies true if drained.
+   */
+  private CompletableFuture<Boolean> getLeasedTask(final long intervalMillis,
+                                                   final Shard shard,
+                                                   final ShardLineage shardLineage,
+                                                   final List<IRecordsHandler> handlers) {
+    logger.debug("get leased task. stream name: " + streamName + ", shardId: " + shard.getShardId());
+
+    return this.taskLoop(intervalMillis, shard, () -> this.getStartShardIterator(shard, shardLineage), handlers)
+      .exceptionally(throwable -> this.onTaskFailure(shard, throwable))
+      .thenApply(drained -> {
+        if (drained) {
+          leaseManager.complete(shard.getShardId());
+        }
+        return drained;
+      });
+  }
+
+  private boolean isParentCompleted(final String parentShardId, final Set<String> shardIds) {
+    return parentShardId == null || leaseManager.isCompleted(parentShardId) || !shardIds.contains(parentShardId);
+  }
+
+  /**
+   * Stop the fetch loop of a shard before its next read. records already read are still handled.
+   */
+  private void stopShard(final String shardId) {
+    final CompletableFuture<Boolean> fetchLoop = fetchLoops.get(shardId);
 
-    Optional<String> getShardIterator = apiClient.getShardIterator(streamName, shard, shardIteratorType);
+    if (fetchLoop != null) {
+      fetchLoop.cancel(false);
+    }
+  }
 
-    if (getShardIterator.isPresent()) {
-      return CompletableFuture.runAsync(this.taskLoop(intervalMillis, getShardIterator.get(), handler));
+  private boolean onTaskFailure(final Shard shard, final Throwable throwable) {
+    if (throwable instanceof CancellationException || throwable.getCause() instanceof CancellationException) {
+      logger.debug("consume task stopped. stream: " + streamName + ", shardId: " + shard.getShardId());
     } else {
-      logger.error("failed get consume task. stream: " + streamName + ", shardId: " + shard.getShardId());
-      return null;
+      logger.error("failed consume task. stream: " + streamName + ", shardId: " + shard.getShardId());
+      logger.error(throwable.getMessage());
+    }
+    return false;
+  }
+
+  /**
+   * Start shard iterator in one attempt, got by the fetch loop before its first read.
+   *
+   * A checkpointed shard resumes after the checkpoint sequence number.
+   * A shard without checkpoint whose parent has a checkpoint is read from TRIM_HORIZON,
+   * the parent was consumed so the child is read from its start.
+   */
+  private Optional<String> getStartShardIterator(final Shard shard, final ShardLineage shardLineage) {
+    if (checkpointStore != null) {
+      final Optional<String> checkpoint = checkpointStore.getCheckpoint(shard.getShardId());
+
+      if (checkpoint.isPresent()) {
+        logger.debug("resume from checkpoint. stream name: " + streamName + ", shardId: " + shard.getShardId() + ", " +
+          "sequence number: " + checkpoint.get());
+
+        final Optional<String> shardIterator = this.getShardIterator(shard, new GetShardIteratorRequest()
+          .withShardIteratorType(ShardIteratorType.AFTER_SEQUENCE_NUMBER)
+          .withStartingSequenceNumber(checkpoint.get()));
+        if (shardIterator.isPresent()) return shardIterator;
+
+        logger.error("failed resume from checkpoint. start with iterator type, " +
+          "stream name: " + streamName + ", shardId: " + shard.getShardId() + ", type: " + shardLineage.getShardIteratorType(shard));
+      } else if (this.isCheckpointed(shard.getParentShardId()) || this.isCheckpointed(shard.getAdjacentParentShardId())) {
+        return this.getShardIterator(shard, new GetShardIteratorRequest().withShardIteratorType(ShardIteratorType.TRIM_HORIZON));
+      }
+    }
+
+    return this.getShardIterator(shard, new GetShardIteratorRequest().withShardIteratorType(shardLineage.getShardIteratorType(shard)));
+  }
+
+  /**
+   * Shard iterator in one attempt, no backoff on a poll thread. a failed attempt is retried by the fetch loop. {@link FetchRecovery}
+   *
+   * @param getShardIteratorRequest request with iterator type and position, stream name and shard id are set.
+   */
+  private Optional<String> getShardIterator(final Shard shard, final GetShardIteratorRequest getShardIteratorRequest) {
+    return apiClient.getShardIteratorOnce(getShardIteratorRequest
+      .withStreamName(streamName)
+      .withShardId(shard.getShardId()), failure -> {});
+  }
+
+  private boolean isCheckpointed(final String shardId) {
+    return shardId != null && checkpointStore.getCheckpoint(shardId).isPresent();
+  }
+
+  /**
+   * Checkpoint the last record of handled records. sequence number of a de-aggregated record is its aggregated record.
+   * Called only after every handler succeeded with the records. {@link BatchHandling}
+   */
+  private void checkpoint(final Shard shard, final List<Record> records) {
+    if (checkpointStore != null && !records.isEmpty()) {
+      checkpointStore.checkpoint(shard.getShardId(), records.get(records.size() - 1).getSequenceNumber());
     }
   }
 
+  /**
+   * Start child shards of a drained shard, children wait for all their parents.
+   *
+   * @return child shard task futures.
+   */
+  private CompletableFuture<Void> consumeChildShards(final long intervalMillis,
+                                                     final Shard shard,
+                                                     final ShardLineage shardLineage,
+                                                     final List<IRecordsHandler> handlers) {
+    shardLineage.onShardDrained(shard.getShardId());
+
+    final List<Shard> childShards = shardLineage.startableShards(apiClient.getShardList(streamName));
+
+    logger.debug("shard drained. start child shards, stream name: " + streamName + ", " +
+      "shardId: " + shard.getShardId() + ", child shard count: " + childShards.size());
+
+    final List<CompletableFuture<Void>> childFutures = new ArrayList<>(childShards.size());
+    for (Shard childShard : childShards) {
+      childFutures.add(this.getConsumeTask(intervalMillis, childShard, shardLineage, handlers));
+    }
+
+    return CompletableFuture.allOf(childFutures.toArray(new CompletableFuture[0]));
+  }
+
   /**
    * Task Loop
    *
+   * Fetch runs as polls on the shared poll executor, handlers run on the handler pool. {@link PollExecutor}
+   * With prefetch, the next batch is fetched while handlers process the current one. {@link PrefetchQueue}
+   * Processing of a shard is chained, batches are handled in order one at a time.
+   * A failed process step fails the task loop, later batches are not processed or checkpointed.
+   *
+   * @param intervalMillis consume interval.
+   * @param shard task on shard, checkpointed after handlers.
+   * @param startShardIterator shard iterator of the start position, got by the loop before the first read.
+   * @param handlers record handlers.
+   *
+   * @return task loop future, completes with true if the shard is drained to its end.
+   */
+  private CompletableFuture<Boolean> taskLoop(final long intervalMillis,
+                                              final Shard shard,
+                                              final Supplier<Optional<String>> startShardIterator,
+                                              final List<IRecordsHandler> handlers) {
+    logger.debug("consume loop start. stream name: " + streamName + ", shardId: " + shard.getShardId() +
+      ", handler count: " + handlers.size());
+
+    if (!AppConfig.isConsumerPrefetchEnabled()) {
+      final AtomicReference<BatchHandling> batchHandling = new AtomicReference<>();
+
+      return this.fetchLoop(intervalMillis, shard, startShardIterator,
+        records -> this.offer(batchHandling, new BatchHandling(shard, records, handlers, true)));
+    }
+
+    final PrefetchQueue prefetchQueue = new PrefetchQueue(AppConfig.getConsumerPrefetchMaxRecords(), AppConfig.getConsumerPrefetchMaxBytes());
+    final AtomicReference<CompletableFuture<Void>> processFuture = new AtomicReference<>(CompletableFuture.completedFuture(null));
+    final AtomicReference<Throwable> processFailure = new AtomicReference<>();
+
+    return this.fetchLoop(intervalMillis, shard, startShardIterator, records -> {
+      // later steps are skipped after a failed step, the queue does not drain. stop the fetch loop.
+      if (processFailure.get() != null) throw new CompletionException(processFailure.get());
+
+      if (records.isEmpty()) return true;
+      if (!prefetchQueue.offer(records)) return false;
+
+      // one process step per queued batch, runs after the previous step.
+      processFuture.set(processFuture.get().thenComposeAsync(result -> prefetchQueue.poll()
+        .map(batch -> new BatchHandling(shard, batch, handlers, true).handleAsync())
+        .orElseGet(() -> CompletableFuture.completedFuture(null)), handlerExecutor)
+        .whenComplete((result, throwable) -> {
+          if (throwable != null) processFailure.compareAndSet(null, throwable);
+        }));
+      return true;
+    })
+      // all fetched records are processed, drained if the fetch loop reached shard end.
+      .thenCompose(drained -> processFuture.get().thenApply(result -> drained))
+      .whenComplete((drained, throwable) -> prefetchQueue.close());
+  }
+
+  /**
+   * Fetch Loop
+   *
+   * Each poll reads once and hands the records to the consumer, the next poll is scheduled after the read delay.
+   * Records refused by the consumer are offered again after backpressure delay, without a new read.
+   * A failed read is recovered with a fresh shard iterator after backoff, a throttled read backs off. {@link FetchRecovery}
+   *
    * @param intervalMillis consume interval.
-   * @param startShardIterator start shard iterator
-   * @param handler record handler.
+   * @param shard fetch loop on shard.
+   * @param startShardIterator shard iterator of the start position, for the first read and recovery before it.
+   * @param recordsConsumer decoded records consumer, returns false to refuse records for now.
    *
-   * @return task runnable task loop.
+   * @return fetch loop future, completes with true if the shard end is reached,
+   * the shard is closed by resharding and all records are consumed. false if failed read.
    */
-  private Runnable taskLoop(final long intervalMillis,
-                            final String startShardIterator,
-                            final IRecordsHandler handler) {
-    logger.debug("consume loop start. stream name: " + streamName + ", shard-iterator: " + startShardIterator +
-      ", handler: " + handler.getClass().getName());
+  private CompletableFuture<Boolean> fetchLoop(final long intervalMillis,
+                                               final Shard shard,
+                                               final Supplier<Optional<String>> startShardIterator,
+                                               final Predicate<List<Record>> recordsConsumer) {
+    final CompletableFuture<Boolean> fetchLoop =
+      PollExecutor.getInstance().loop(new FetchPoll(intervalMillis, shard, startShardIterator, recordsConsumer));
+
+    fetchLoops.put(shard.getShardId(), fetchLoop);
+    fetchLoop.whenComplete((drained, throwable) -> fetchLoops.remove(shard.getShardId(), fetchLoop));
+    return fetchLoop;
+  }
+
+  /**
+   * One step of a fetch loop.
+   */
+  private class FetchPoll implements Supplier<PollExecutor.Poll<Boolean>> {
+    private final long intervalMillis;
+    private final Shard shard;
+    private final Supplier<Optional<String>> restartShardIterator;
+    private final Predicate<List<Record>> recordsConsumer;
+    private final GetRecordsRequest getRecordsRequest;
+    private final AdaptivePollScheduler pollScheduler;
+    private final FetchRecovery fetchRecovery;
+    // replay reader only.
+    private final ReplaySlice replaySlice;
+    private final ReplayRateLimiter replayRateLimiter;
+
+    // records of the last read, not accepted by the consumer yet.
+    private List<Record> pendingRecords = null;
+    // shard end, or slice end of a replay reader.
+    private boolean endReached = false;
+    private long readStartMillis = 0L;
+    private long delayMillis = 0L;
+    // no shard iterator yet or the last read failed, get a fresh shard iterator before the next read.
+    private boolean recovering = true;
+    private Exception readFailure = null;
+
+    private FetchPoll(final long intervalMillis,
+                      final Shard shard,
+                      final Supplier<Optional<String>> restartShardIterator,
+                      final Predicate<List<Record>> recordsConsumer) {
+      this(intervalMillis, shard, restartShardIterator, recordsConsumer, null, null);
+    }
+
+    /**
+     * @param restartShardIterator shard iterator of the start position, for the first read and recovery before it.
+     * @param replaySlice read until slice end or latest with max limit, null for a tailing fetch loop.
+     * @param replayRateLimiter shared replay cap, with replay slice.
+     */
+    private FetchPoll(final long intervalMillis,
+                      final Shard shard,
+                      final Supplier<Optional<String>> restartShardIterator,
+                      final Predicate<List<Record>> recordsConsumer,
+                      final ReplaySlice replaySlice,
+                      final ReplayRateLimiter replayRateLimiter) {
+      this.intervalMillis = intervalMillis;
+      this.shard = shard;
+      this.restartShardIterator = restartShardIterator;
+      this.recordsConsumer = recordsConsumer;
+      this.replaySlice = replaySlice;
+      this.replayRateLimiter = replayRateLimiter;
+      this.getRecordsRequest = new GetRecordsRequest();
+      this.pollScheduler = replaySlice == null && AppConfig.isConsumerAdaptivePollEnabled() ?
+        new AdaptivePollScheduler(intervalMillis,
+          AppConfig.getConsumerPollCatchUpMillisBehindLatest(),
+          AppConfig.getConsumerPollLimit()) : null;
+      this.fetchRecovery = new FetchRecovery(AppConfig.getConsumerRecoveryMaxAttempts(),
+        new DecorrelatedJitterBackoff(AppConfig.getRetryBackoffTimeInMillis("getRecords"), AppConfig.getRetryMaxBackoffTimeInMillis("getRecords")),
+        metrics);
+
+      if (replaySlice != null) {
+        getRecordsRequest.setLimit(AdaptivePollScheduler.MAX_LIMIT);
+      }
+    }
+
+    @Override
+    public PollExecutor.Poll<Boolean> get() {
+      if (recovering) {
+        final Optional<String> shardIterator = this.getRecoveryShardIterator();
+
+        if (!shardIterator.isPresent()) {
+          return this.recover(null);
+        }
+        getRecordsRequest.setShardIterator(shardIterator.get());
+        recovering = false;
+      }
 
+      if (pendingRecords == null) {
+        if (replayRateLimiter != null) {
+          final long waitMillis = replayRateLimiter.getWaitMillis();
+          if (waitMillis > 0) return PollExecutor.Poll.again(waitMillis);
+        }
 
-    return () -> {
-      final GetRecordsRequest getRecordsRequest = new GetRecordsRequest()
-        .withShardIterator(startShardIterator);
+        logger.debug("consume next loop. stream name: " + streamName + ", shard-iterator: " + getRecordsRequest.getShardIterator());
+
+        readStartMillis = System.currentTimeMillis();
+        if (pollScheduler != null) {
+          getRecordsRequest.setLimit(pollScheduler.getLimit());
+        }
+
+        readFailure = null;
+        final Optional<GetRecordsResult> getRecordsResult = apiClient.getRecordsOnce(getRecordsRequest, failure -> readFailure = failure);
+
+        if (!getRecordsResult.isPresent() && readFailure instanceof ProvisionedThroughputExceededException) {
+          return this.throttle();
+        }
+        if (!getRecordsResult.isPresent()) {
+          logger.error("failed get records result. stream name: " + streamName + ", shardId: " + shard.getShardId() + ", " +
+            "shard-iterator: " + getRecordsRequest.getShardIterator());
+          return this.recover(readFailure);
+        }
 
-      while (true) {
-        logger.debug("consume next loop. stream name: " + streamName + ", shard-iterator: " + getRecordsRequest.getShardIterator() +
-          ", handler: " + handler.getClass().getName());
+        fetchRecovery.onRecords(getRecordsResult.get().getRecords());
 
-        final Optional<GetRecordsResult> getRecordsResult = apiClient.getRecords(getRecordsRequest);
+        List<Record> records = getRecordsResult.get().getRecords();
+        endReached = getRecordsResult.get().getNextShardIterator() == null;
 
-        if (getRecordsResult.isPresent() && (getRecordsResult.get().getNextShardIterator() != null)) {
-          handler.kinesisRecordsProcess(getRecordsResult.get().getRecords());
-          getRecordsRequest.setShardIterator(getRecordsResult.get().getNextShardIterator());
+        if (replaySlice != null) {
+          final List<Record> sliceRecords = replaySlice.headOf(records);
+
+          // slice end is passed, or the reader is at latest.
+          endReached = endReached || sliceRecords.size() < records.size() ||
+            (records.isEmpty() && Long.valueOf(0L).equals(getRecordsResult.get().getMillisBehindLatest()));
+          records = sliceRecords;
+
+          replayRateLimiter.onRecords(records);
+          delayMillis = replaySlice.getReadDelayMillis(getBytes(records));
         } else {
-          logger.error("failed get records result. stop consume loop, " +
-            "stream name: " + streamName + ", shard-iterator: " + getRecordsRequest.getShardIterator() +
-            ", handler: " + handler.getClass().getName());
-          break;
+          delayMillis = pollScheduler == null ? intervalMillis : pollScheduler.onRecords(getRecordsResult.get());
         }
 
-        AppUtils.backoff("consume task loop. handler: " + handler.getClass().getName(), intervalMillis);
+        pendingRecords = RecordDecoder.getInstance()
+          .decode(RecordDeaggregator.deaggregate(records));
+        getRecordsRequest.setShardIterator(getRecordsResult.get().getNextShardIterator());
+      }
+
+      if (!recordsConsumer.test(pendingRecords)) {
+        logger.debug("records consumer is full. backpressure, stream name: " + streamName + ", record count: " + pendingRecords.size());
+        return PollExecutor.Poll.again(BACKPRESSURE_DELAY_MILLIS);
+      }
+      pendingRecords = null;
+
+      if (endReached) {
+        logger.debug("shard end reached. stop consume loop, stream name: " + streamName + ", shardId: " + shard.getShardId() +
+          (replaySlice == null ? "" : ", replay slice: " + replaySlice));
+        return PollExecutor.Poll.done(true);
+      }
+
+      if (replaySlice != null) {
+        return PollExecutor.Poll.again(delayMillis - (System.currentTimeMillis() - readStartMillis));
       }
-    };
+
+      if (pollScheduler == null) {
+        return PollExecutor.Poll.again(delayMillis);
+      }
+
+      // handler time counts toward the delay, a shard behind is read back-to-back.
+      return PollExecutor.Poll.again(delayMillis - (System.currentTimeMillis() - readStartMillis));
+    }
+
+    /**
+     * Back off and read again with the same shard iterator, the poll thread is not held while throttled.
+     */
+    private PollExecutor.Poll<Boolean> throttle() {
+      final long backoffMillis = pollScheduler == null ? fetchRecovery.onThrottled() :
+        Math.max(fetchRecovery.onThrottled(), pollScheduler.onThrottled());
+
+      logger.debug("read throttled. stream name: " + streamName + ", shardId: " + shard.getShardId() + ", " +
+        "backoff millis: " + backoffMillis);
+      return PollExecutor.Poll.again(backoffMillis);
+    }
+
+    /**
+     * Back off before a fresh shard iterator, or stop the loop.
+     */
+    private PollExecutor.Poll<Boolean> recover(final Exception failure) {
+      final Optional<Long> backoffMillis = fetchRecovery.onFailure(failure);
+
+      if (!backoffMillis.isPresent()) {
+        logger.error("failed recover consume loop. stop consume loop, stream name: " + streamName + ", " +
+          "shardId: " + shard.getShardId() + ", attempts: " + fetchRecovery.getAttempt());
+        return PollExecutor.Poll.done(false);
+      }
+
+      logger.debug("recover consume loop. stream name: " + streamName + ", shardId: " + shard.getShardId() + ", " +
+        "attempt: " + fetchRecovery.getAttempt() + ", backoff millis: " + backoffMillis.get());
+      recovering = true;
+      return PollExecutor.Poll.again(backoffMillis.get());
+    }
+
+    /**
+     * Fresh shard iterator after the last read record, or the start position if nothing is read yet.
+     */
+    private Optional<String> getRecoveryShardIterator() {
+      final Optional<String> lastSequenceNumber = fetchRecovery.getLastSequenceNumber();
+
+      if (lastSequenceNumber.isPresent()) {
+        return getShardIterator(shard, new GetShardIteratorRequest()
+          .withShardIteratorType(ShardIteratorType.AFTER_SEQUENCE_NUMBER)
+          .withStartingSequenceNumber(lastSequenceNumber.get()));
+      }
+      return restartShardIterator.get();
+    }
+  }
+
+  /**
+   * Hand records to every handler on the bounded handler pool, no handler runs on a poll thread.
+   *
+   * Handlers of a batch run concurrently, the next batch waits for all of them.
+   * Each raw handler has its own view of record data, so a handler reading data
+   * does not move the position for others. Typed handlers share one batch decoded before they run. {@link DecodedBatch}
+   *
+   * @param shard read shard.
+   * @param records decoded records of one read.
+   * @param handlers record handlers.
+   *
+   * @return future of failed handlers, empty if every handler succeeded.
+   */
+  private CompletableFuture<List<IRecordsHandler>> fanOut(final Shard shard, final List<Record> records, final List<IRecordsHandler> handlers) {
+    return CompletableFuture.supplyAsync(() -> {
+      final DecodedBatch decodedBatch = DecodedBatch.isNeeded(handlers) ? DecodedBatch.decode(records, serde) : null;
+      if (decodedBatch != null) metrics.onBatchDecoded(decodedBatch);
+      return decodedBatch;
+    }, handlerExecutor).thenCompose(decodedBatch -> {
+      final List<CompletableFuture<Boolean>> handlerFutures = handlers.stream()
+        .map(handler -> CompletableFuture.supplyAsync(() -> this.process(handler, shard.getShardId(), handler.isTypedHandler() ? records : duplicate(records), decodedBatch), handlerExecutor))
+        .collect(Collectors.toList());
+
+      return CompletableFuture.allOf(handlerFutures.toArray(new CompletableFuture[0]))
+        .thenApply(result -> {
+          final List<IRecordsHandler> failedHandlers = new ArrayList<>();
+          for (int i = 0; i < handlers.size(); i++) {
+            if (!handlerFutures.get(i).join()) failedHandlers.add(handlers.get(i));
+          }
+          return failedHandlers;
+        });
+    });
+  }
+
+  /**
+   * @return false if the handler throws.
+   */
+  @SuppressWarnings("unchecked")
+  private boolean process(final IRecordsHandler handler, final String shardId, final List<Record> records, final DecodedBatch decodedBatch) {
+    try {
+      if (handler.isTypedHandler()) {
+        handler.recordsProcess(shardId, decodedBatch.getRecords());
+      } else {
+        handler.kinesisRecordsProcess(shardId, records);
+      }
+      return true;
+    } catch (Exception e) {
+      logger.error("failed process records. stream name: " + streamName + ", shardId: " + shardId + ", " +
+        "handler: " + handler.getClass().getName());
+      logger.error(e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * Offer records of a fetch poll to the batch in handling, a poll offers the same records until the batch is done.
+   *
+   * @param batchHandling batch in handling of the fetch loop, null if none.
+   * @param newBatchHandling handling of the offered records, used if no batch is in handling.
+   *
+   * @return true if the batch is done, false to offer the records again.
+   */
+  private boolean offer(final AtomicReference<BatchHandling> batchHandling, final BatchHandling newBatchHandling) {
+    if (batchHandling.get() == null) batchHandling.set(newBatchHandling);
+
+    if (!batchHandling.get().offer()) return false;
+
+    batchHandling.set(null);
+    return true;
+  }
+
+  /**
+   * Handling of one batch by every handler.
+   *
+   * Failed handlers are run again after backoff, succeeded handlers are not run again.
+   * The batch is checkpointed only after every handler succeeded.
+   * When retries run out the batch fails without checkpoint and the shard task stops,
+   * the shard resumes from the last checkpoint when it starts again.
+   */
+  private class BatchHandling {
+    private final Shard shard;
+    private final List<Record> records;
+    private final boolean checkpointed;
+    private final Retry retry = PROCESS_RETRY_POLICY.newRetry();
+
+    private List<IRecordsHandler> pendingHandlers;
+    private long retryAtMillis = 0L;
+    // handling started by a fetch poll, not checked yet.
+    private CompletableFuture<Boolean> handling = null;
+
+    /**
+     * @param checkpointed checkpoint after all handlers succeeded, false for backfill.
+     */
+    private BatchHandling(final Shard shard, final List<Record> records, final List<IRecordsHandler> handlers, final boolean checkpointed) {
+      this.shard = shard;
+      this.records = records;
+      this.pendingHandlers = handlers;
+      this.checkpointed = checkpointed;
+    }
+
+    /**
+     * Run pending handlers once on the handler pool.
+     *
+     * @return future completed with true if every handler succeeded.
+     */
+    private CompletableFuture<Boolean> handle() {
+      return fanOut(shard, records, pendingHandlers).thenApply(failedHandlers -> {
+        pendingHandlers = failedHandlers;
+
+        if (!failedHandlers.isEmpty()) return false;
+
+        if (checkpointed) checkpoint(shard, records);
+        return true;
+      });
+    }
+
+    /**
+     * Handle from fetch polls, the poll thread waits neither for handlers nor for backoff. polls offer again until done.
+     *
+     * @return true if done, false while handlers run or wait for retry.
+     *
+     * @throws IllegalStateException retries run out.
+     */
+    private boolean offer() {
+      if (handling == null) {
+        if (System.currentTimeMillis() < retryAtMillis) return false;
+        handling = this.handle();
+      }
+      if (!handling.isDone()) return false;
+
+      final boolean handled = handling.join();
+      handling = null;
+      if (handled) return true;
+
+      final Optional<Long> backoffMillis = retry.next();
+      if (!backoffMillis.isPresent()) throw this.newFailure();
+
+      logger.debug("retry failed handlers. stream name: " + streamName + ", shardId: " + shard.getShardId() + ", " +
+        "handler count: " + pendingHandlers.size() + ", backoff millis: " + backoffMillis.get());
+      retryAtMillis = System.currentTimeMillis() + backoffMillis.get();
+      return false;
+    }
+
+    /**
+     * Handle in a process chain, backoff does not block a thread.
+     *
+     * @return future completed when done, exceptionally if retries run out.
+     */
+    private CompletableFuture<Void> handleAsync() {
+      return this.handle().thenCompose(handled -> {
+        if (handled) return CompletableFuture.completedFuture(null);
+
+        return retry.backoffAsync("retry failed handlers. shardId: " + shard.getShardId() + ",")
+          .thenComposeAsync(retrying -> {
+            if (!retrying) throw this.newFailure();
+            return this.handleAsync();
+          }, handlerExecutor);
+      });
+    }
+
+    private IllegalStateException newFailure() {
+      return new IllegalStateException("failed process records, no more retry. stream name: " + streamName + ", " +
+        "shardId: " + shard.getShardId() + ", failed handler count: " + pendingHandlers.size());
+    }
+  }
+
+  private static ExecutorService newHandlerExecutor(final int threadCount) {
+    final AtomicInteger threadNumber = new AtomicInteger();
+
+    return Executors.newFixedThreadPool(Math.max(1, threadCount), runnable -> {
+      final Thread thread = new Thread(runnable, "api-consumer-handler-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  private static long getBytes(final List<Record> records) {
+    long bytes = 0L;
+    for (Record record : records) {
+      bytes += record.getData().remaining();
+    }
+    return bytes;
+  }
+
+  private static List<Record> duplicate(final List<Record> records) {
+    return records.stream()
+      .map(record -> record.clone().withData(record.getData().duplicate()))
+      .collect(Collectors.toList());
   }
 }
\ No newline at end of file
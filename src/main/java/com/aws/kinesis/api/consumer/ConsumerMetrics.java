@@ -0,0 +1,58 @@
+package com.aws.kinesis.api.consumer;
+
+import com.aws.kinesis.record.DecodedBatch;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of an api consumer, shared by its shard fetch loops.
+ */
+public class ConsumerMetrics {
+  private final LongAdder expiredIteratorRecoveryCount = new LongAdder();
+  private final LongAdder transientFailureRecoveryCount = new LongAdder();
+  private final LongAdder failedRecoveryCount = new LongAdder();
+  private final LongAdder decodedRecordCount = new LongAdder();
+  private final LongAdder decodeFailureCount = new LongAdder();
+
+  // Getter >>
+  public long getExpiredIteratorRecoveryCount() { return expiredIteratorRecoveryCount.sum(); }
+  public long getTransientFailureRecoveryCount() { return transientFailureRecoveryCount.sum(); }
+  public long getFailedRecoveryCount() { return failedRecoveryCount.sum(); }
+  public long getDecodedRecordCount() { return decodedRecordCount.sum(); }
+  public long getDecodeFailureCount() { return decodeFailureCount.sum(); }
+  // << Getter
+
+  /**
+   * A fetch loop got a fresh shard iterator after an expired iterator.
+   */
+  public void onExpiredIteratorRecovered() { expiredIteratorRecoveryCount.increment(); }
+
+  /**
+   * A fetch loop got a fresh shard iterator after a transient read failure.
+   */
+  public void onTransientFailureRecovered() { transientFailureRecoveryCount.increment(); }
+
+  /**
+   * A fetch loop stopped, the failure is not recoverable or recovery attempts are exhausted.
+   */
+  public void onRecoveryFailed() { failedRecoveryCount.increment(); }
+
+  /**
+   * A read was decoded once for its typed handlers.
+   */
+  public void onBatchDecoded(final DecodedBatch decodedBatch) {
+    decodedRecordCount.add(decodedBatch.getRecords().size());
+    decodeFailureCount.add(decodedBatch.getFailedCount());
+  }
+
+  @Override
+  public String toString() {
+    return "ConsumerMetrics{" +
+      "expiredIteratorRecoveryCount=" + getExpiredIteratorRecoveryCount() +
+      ", transientFailureRecoveryCount=" + getTransientFailureRecoveryCount() +
+      ", failedRecoveryCount=" + getFailedRecoveryCount() +
+      ", decodedRecordCount=" + getDecodedRecordCount() +
+      ", decodeFailureCount=" + getDecodeFailureCount() +
+      '}';
+  }
+}
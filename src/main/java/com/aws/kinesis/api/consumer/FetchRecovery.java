@@ -0,0 +1,104 @@
+package com.aws.kinesis.api.consumer;
+
+import com.amazonaws.services.kinesis.model.ExpiredIteratorException;
+import com.amazonaws.services.kinesis.model.Record;
+import com.amazonaws.services.kinesis.model.ResourceNotFoundException;
+import com.utils.retry.BackoffStrategy;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read failure recovery of a shard fetch loop.
+ *
+ * Tracks the last read sequence number. After an expired iterator or a transient failure, the loop backs off
+ * and reads again with a fresh AFTER_SEQUENCE_NUMBER iterator, so a slow handler does not stop the shard.
+ * A deleted stream or too many consecutive failures stop the loop.
+ * A throttled read backs off and reads again with the same iterator, throttling does not stop the loop.
+ *
+ * Not thread-safe, one recovery per shard fetch loop.
+ */
+public class FetchRecovery {
+  private final int maxAttempts;
+  private final BackoffStrategy backoffStrategy;
+  private final ConsumerMetrics metrics;
+
+  private String lastSequenceNumber = null;
+  private Exception failure = null;
+  private int attempt = 0;
+  private long backoffMillis = 0L;
+  private long throttleBackoffMillis = 0L;
+
+  /**
+   * Constructor
+   *
+   * @param maxAttempts max consecutive recovery attempts.
+   * @param backoffStrategy backoff before a recovery attempt.
+   * @param metrics recovery counters.
+   */
+  public FetchRecovery(final int maxAttempts, final BackoffStrategy backoffStrategy, final ConsumerMetrics metrics) {
+    this.maxAttempts = maxAttempts;
+    this.backoffStrategy = backoffStrategy;
+    this.metrics = metrics;
+  }
+
+  // Getter >>
+  public Optional<String> getLastSequenceNumber() { return Optional.ofNullable(lastSequenceNumber); }
+  public int getAttempt() { return attempt; }
+  // << Getter
+
+  /**
+   * Successful read, before de-aggregation. Ends a recovery.
+   */
+  public void onRecords(final List<Record> records) {
+    if (!records.isEmpty()) {
+      lastSequenceNumber = records.get(records.size() - 1).getSequenceNumber();
+    }
+
+    if (failure != null) {
+      if (failure instanceof ExpiredIteratorException) {
+        metrics.onExpiredIteratorRecovered();
+      } else {
+        metrics.onTransientFailureRecovered();
+      }
+    }
+
+    failure = null;
+    attempt = 0;
+    backoffMillis = 0L;
+    throttleBackoffMillis = 0L;
+  }
+
+  /**
+   * Read throttled by provisioned throughput, the shard iterator is still valid.
+   *
+   * @return backoff millis before the next read, grows until a successful read.
+   */
+  public long onThrottled() {
+    throttleBackoffMillis = backoffStrategy.nextBackoffMillis(throttleBackoffMillis);
+    return throttleBackoffMillis;
+  }
+
+  /**
+   * Failed read or failed fresh iterator.
+   *
+   * @param failure failure cause, null if unknown.
+   *
+   * @return backoff millis before a recovery attempt, empty if the loop should stop.
+   */
+  public Optional<Long> onFailure(final Exception failure) {
+    if (failure instanceof ResourceNotFoundException || attempt >= maxAttempts) {
+      metrics.onRecoveryFailed();
+      return Optional.empty();
+    }
+
+    // the first cause of a recovery is counted, failures while getting a fresh iterator keep it.
+    if (this.failure == null) {
+      this.failure = failure == null ? new IllegalStateException("unknown read failure") : failure;
+    }
+
+    attempt++;
+    backoffMillis = backoffStrategy.nextBackoffMillis(backoffMillis);
+    return Optional.of(backoffMillis);
+  }
+}
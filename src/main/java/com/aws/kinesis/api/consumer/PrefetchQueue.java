@@ -0,0 +1,94 @@
+package com.aws.kinesis.api.consumer;
+
+import com.amazonaws.services.kinesis.model.Record;
+import com.utils.Tuple2;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Bounded record batch queue between a shard fetch loop and handlers.
+ *
+ * Offer is rejected while queued records or bytes are over the limit, so fetching pauses
+ * when handlers fall behind. A batch is always accepted into an empty queue, an oversize batch is not rejected forever.
+ * Neither side waits, callers are not blocked. After close, offer is rejected and poll drains the remaining batches.
+ */
+public class PrefetchQueue {
+  private final int maxRecords;
+  private final long maxBytes;
+
+  // batch, batch bytes
+  private final Deque<Tuple2<List<Record>, Long>> batches = new ArrayDeque<>();
+  private int recordCount = 0;
+  private long bytes = 0L;
+  private boolean closed = false;
+
+  /**
+   * Constructor
+   *
+   * @param maxRecords max queued record count.
+   * @param maxBytes max queued record data bytes.
+   */
+  public PrefetchQueue(final int maxRecords, final long maxBytes) {
+    this.maxRecords = maxRecords;
+    this.maxBytes = maxBytes;
+  }
+
+  // Getter >>
+  public synchronized int getBatchCount() { return batches.size(); }
+  public synchronized int getRecordCount() { return recordCount; }
+  public synchronized long getBytes() { return bytes; }
+  // << Getter
+
+  /**
+   * Put a batch if there is room, without waiting.
+   *
+   * @return false if queue is full or closed.
+   */
+  public synchronized boolean offer(final List<Record> batch) {
+    final long batchBytes = getBytes(batch);
+
+    if (closed || (!batches.isEmpty() &&
+      (recordCount + batch.size() > maxRecords || bytes + batchBytes > maxBytes))) {
+      return false;
+    }
+
+    this.add(batch, batchBytes);
+    return true;
+  }
+
+  /**
+   * Take a batch if any, without waiting.
+   *
+   * @return empty if queue is empty.
+   */
+  public synchronized Optional<List<Record>> poll() {
+    final Tuple2<List<Record>, Long> batch = batches.poll();
+    if (batch == null) return Optional.empty();
+
+    recordCount -= batch.getForward().size();
+    bytes -= batch.getRear();
+
+    return Optional.of(batch.getForward());
+  }
+
+  public synchronized void close() {
+    closed = true;
+  }
+
+  private void add(final List<Record> batch, final long batchBytes) {
+    batches.add(new Tuple2<>(batch, batchBytes));
+    recordCount += batch.size();
+    bytes += batchBytes;
+  }
+
+  private static long getBytes(final List<Record> batch) {
+    long batchBytes = 0L;
+    for (Record record : batch) {
+      batchBytes += record.getData().remaining();
+    }
+    return batchBytes;
+  }
+}
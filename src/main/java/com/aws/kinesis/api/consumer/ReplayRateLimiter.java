@@ -0,0 +1,49 @@
+package com.aws.kinesis.api.consumer;
+
+import com.amazonaws.services.kinesis.model.Record;
+import com.utils.TokenBucket;
+
+import java.util.List;
+
+/**
+ * Records and bytes per second cap shared by all replay readers of a consumer.
+ *
+ * Read size is known after the read, so reads are taken into debt and readers wait while the cap is in debt.
+ * A cap of 0 or less is unlimited.
+ */
+public class ReplayRateLimiter {
+  private final TokenBucket recordsBucket;
+  private final TokenBucket bytesBucket;
+
+  /**
+   * Constructor
+   *
+   * @param recordsPerSecond max records per second, unlimited if 0 or less.
+   * @param bytesPerSecond max record data bytes per second, unlimited if 0 or less.
+   */
+  public ReplayRateLimiter(final long recordsPerSecond, final long bytesPerSecond) {
+    this.recordsBucket = recordsPerSecond > 0 ? new TokenBucket(recordsPerSecond, recordsPerSecond) : null;
+    this.bytesBucket = bytesPerSecond > 0 ? new TokenBucket(bytesPerSecond, bytesPerSecond) : null;
+  }
+
+  /**
+   * @return 0 if a reader can read now, otherwise wait millis until the debt is refilled.
+   */
+  public long getWaitMillis() {
+    return Math.max(recordsBucket == null ? 0L : recordsBucket.getWaitMillis(1.0),
+      bytesBucket == null ? 0L : bytesBucket.getWaitMillis(1.0));
+  }
+
+  public void onRecords(final List<Record> records) {
+    long bytes = 0L;
+    for (Record record : records) {
+      bytes += record.getData().remaining();
+    }
+    this.onRecords(records.size(), bytes);
+  }
+
+  public void onRecords(final int recordCount, final long bytes) {
+    if (recordsBucket != null) recordsBucket.forceAcquire(recordCount);
+    if (bytesBucket != null) bytesBucket.forceAcquire(bytes);
+  }
+}
@@ -0,0 +1,84 @@
+package com.aws.kinesis.api.consumer;
+
+import com.amazonaws.services.kinesis.model.Record;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Arrival time range of a shard read by one replay reader, [start, end).
+ *
+ * A shard is split into slices read in parallel from AT_TIMESTAMP of each slice start.
+ * Readers of a shard share its read limits, each reader reads slice count times slower.
+ */
+public class ReplaySlice {
+  private final Date startTimestamp;
+  private final Date endTimestamp;
+  private final int sliceCount;
+
+  public ReplaySlice(final Date startTimestamp, final Date endTimestamp, final int sliceCount) {
+    this.startTimestamp = startTimestamp;
+    this.endTimestamp = endTimestamp;
+    this.sliceCount = sliceCount;
+  }
+
+  // Getter >>
+  public Date getStartTimestamp() { return startTimestamp; }
+  public Date getEndTimestamp() { return endTimestamp; }
+  public int getSliceCount() { return sliceCount; }
+  // << Getter
+
+  /**
+   * Split a time range into equal slices.
+   *
+   * @param startTimestamp range start, inclusive.
+   * @param endTimestamp range end, exclusive.
+   * @param sliceCount max slice count, a range shorter than slice count millis gets fewer slices.
+   *
+   * @return slices in time order.
+   */
+  public static List<ReplaySlice> split(final Date startTimestamp, final Date endTimestamp, final int sliceCount) {
+    final long startMillis = startTimestamp.getTime();
+    final long rangeMillis = Math.max(0L, endTimestamp.getTime() - startMillis);
+    final int count = (int) Math.max(1L, Math.min(Math.max(1, sliceCount), rangeMillis));
+
+    final List<ReplaySlice> slices = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      final Date sliceStart = new Date(startMillis + rangeMillis * i / count);
+      final Date sliceEnd = i == count - 1 ? endTimestamp : new Date(startMillis + rangeMillis * (i + 1) / count);
+      slices.add(new ReplaySlice(sliceStart, sliceEnd, count));
+    }
+    return slices;
+  }
+
+  /**
+   * Records arrived before slice end, records of a shard are in arrival order.
+   *
+   * @return leading records before slice end.
+   */
+  public List<Record> headOf(final List<Record> records) {
+    int count = 0;
+    for (Record record : records) {
+      if (record.getApproximateArrivalTimestamp() != null && !record.getApproximateArrivalTimestamp().before(endTimestamp)) break;
+      count++;
+    }
+    return count == records.size() ? records : records.subList(0, count);
+  }
+
+  /**
+   * @return delay millis between reads of this slice, within per-shard read limits shared by the slices of a shard.
+   */
+  public long getReadDelayMillis(final long bytes) {
+    return Math.max(AdaptivePollScheduler.MIN_INTERVAL_MILLIS, bytes * 1000L / AdaptivePollScheduler.MAX_BYTES_PER_SECOND) * sliceCount;
+  }
+
+  @Override
+  public String toString() {
+    return "ReplaySlice{" +
+      "startTimestamp=" + startTimestamp.getTime() +
+      ", endTimestamp=" + endTimestamp.getTime() +
+      ", sliceCount=" + sliceCount +
+      '}';
+  }
+}
@@ -0,0 +1,76 @@
+package com.aws.kinesis.api.consumer;
+
+import com.amazonaws.services.kinesis.model.Shard;
+import com.amazonaws.services.kinesis.model.ShardIteratorType;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Shard parent-child order of a consumer.
+ *
+ * A shard is started once, after its parents (ParentShardId, AdjacentParentShardId) are drained,
+ * so records of a partition key are consumed in order across split and merge.
+ * A parent no longer in the shard list (trimmed) counts as drained.
+ *
+ * Shards of the first shard list start with the requested iterator type,
+ * shards created after start are read from TRIM_HORIZON.
+ */
+public class ShardLineage {
+  private final ShardIteratorType shardIteratorType;
+  private final Set<String> initialShardIds;
+  private final Set<String> startedShardIds = new HashSet<>();
+  private final Set<String> drainedShardIds = new HashSet<>();
+
+  /**
+   * Constructor
+   *
+   * @param shards shard list at consumer start.
+   * @param shardIteratorType shard iterator type of the shards at consumer start.
+   */
+  public ShardLineage(final List<Shard> shards, final ShardIteratorType shardIteratorType) {
+    this.shardIteratorType = shardIteratorType;
+    this.initialShardIds = shards.stream().map(Shard::getShardId).collect(Collectors.toSet());
+  }
+
+  public ShardIteratorType getShardIteratorType(final Shard shard) {
+    return initialShardIds.contains(shard.getShardId()) ? shardIteratorType : ShardIteratorType.TRIM_HORIZON;
+  }
+
+  public synchronized boolean isDrained(final String shardId) {
+    return drainedShardIds.contains(shardId);
+  }
+
+  /**
+   * Shards ready to start, returned shards are marked as started.
+   *
+   * @param shards current shard list.
+   *
+   * @return not started shards whose parents are drained.
+   */
+  public synchronized List<Shard> startableShards(final List<Shard> shards) {
+    final Set<String> shardIds = shards.stream().map(Shard::getShardId).collect(Collectors.toSet());
+
+    final List<Shard> startableShards = shards.stream()
+      .filter(shard -> !startedShardIds.contains(shard.getShardId()))
+      .filter(shard -> this.isParentDrained(shard.getParentShardId(), shardIds))
+      .filter(shard -> this.isParentDrained(shard.getAdjacentParentShardId(), shardIds))
+      .collect(Collectors.toList());
+
+    startableShards.forEach(shard -> startedShardIds.add(shard.getShardId()));
+    return startableShards;
+  }
+
+  /**
+   * Mark a shard as drained, its shard end is reached and all records are handled.
+   */
+  public synchronized void onShardDrained(final String shardId) {
+    drainedShardIds.add(shardId);
+  }
+
+  private boolean isParentDrained(final String parentShardId, final Set<String> shardIds) {
+    return parentShardId == null || drainedShardIds.contains(parentShardId) || !shardIds.contains(parentShardId);
+  }
+}
@@ -0,0 +1,48 @@
+package com.aws.kinesis.api.consumer.checkpoint;
+
+import com.utils.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+public class CheckpointStoreFactory {
+  private static Logger logger = LoggerFactory.getLogger(CheckpointStoreFactory.class);
+
+  private CheckpointStoreFactory() {}
+
+  public static CheckpointStoreFactory getInstance() {
+    return LazyHolder.INSTANCE;
+  }
+
+  private static class LazyHolder {
+    private static final CheckpointStoreFactory INSTANCE = new CheckpointStoreFactory();
+  }
+
+  /**
+   * @param checkpointStoreType checkpoint store type.
+   * @param streamName stream name, a store per stream.
+   *
+   * @return checkpoint store, null for NONE.
+   *
+   * @throws IllegalStateException failed open checkpoint store.
+   */
+  public ICheckpointStore getCheckpointStore(CheckpointStoreType checkpointStoreType, String streamName) {
+    switch (checkpointStoreType) {
+      case JOURNAL:
+        try {
+          return new JournalCheckpointStore(Paths.get(AppConfig.getConsumerCheckpointDir(), streamName),
+            AppConfig.getConsumerCheckpointJournalBytes(),
+            AppConfig.getConsumerCheckpointFlushIntervalMillis());
+        } catch (IOException e) {
+          logger.error("failed open checkpoint journal. stream name: " + streamName);
+          logger.error(e.getMessage());
+          throw new IllegalStateException("failed open checkpoint journal. stream name: " + streamName, e);
+        }
+      case NONE:
+      default:
+        return null;
+    }
+  }
+}
@@ -0,0 +1,6 @@
+package com.aws.kinesis.api.consumer.checkpoint;
+
+public enum CheckpointStoreType {
+  NONE,
+  JOURNAL
+}
@@ -0,0 +1,15 @@
+package com.aws.kinesis.api.consumer.checkpoint;
+
+import java.util.Optional;
+
+/**
+ * Last processed sequence number per shard of a stream.
+ *
+ * Checkpoint is cheap and may be buffered, flush makes buffered checkpoints durable.
+ */
+public interface ICheckpointStore {
+  Optional<String> getCheckpoint(String shardId);
+  void checkpoint(String shardId, String sequenceNumber);
+  boolean flush();
+  void close();
+}
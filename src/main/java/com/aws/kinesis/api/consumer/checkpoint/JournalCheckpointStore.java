@@ -0,0 +1,297 @@
+package com.aws.kinesis.api.consumer.checkpoint;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Checkpoint store on an append-only memory-mapped journal file.
+ *
+ * Entry format: [int payload length][int payload crc32][short shard id length][shard id][sequence number]
+ *
+ * Checkpoints are buffered in memory and appended by a background flush, the last entry of a shard wins.
+ * A full journal is compacted into a new file with the last entry per shard, and replaces the journal atomically.
+ * Payload length is written last, so an entry torn by a crash reads as the end of the journal.
+ * The directory is locked while the store is open.
+ */
+public class JournalCheckpointStore implements ICheckpointStore {
+  private static Logger logger = LoggerFactory.getLogger(JournalCheckpointStore.class);
+
+  private static final String JOURNAL_FILE_NAME = "checkpoint.journal";
+  private static final String COMPACT_FILE_NAME = "checkpoint.journal.compact";
+  private static final String LOCK_FILE_NAME = "checkpoint.lock";
+  private static final int ENTRY_HEADER_SIZE = 8;
+  private static final int SHARD_ID_LENGTH_SIZE = 2;
+
+  private static final ScheduledExecutorService flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    final Thread thread = new Thread(runnable, "checkpoint-store-flush");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final Path dir;
+  private final int journalBytes;
+  private final FileChannel lockChannel;
+  private final FileLock lock;
+
+  // latest checkpoints, flushed or not.
+  private final Map<String, String> checkpoints = new ConcurrentHashMap<>();
+  // checkpoints not flushed yet, guarded by itself.
+  private final Map<String, String> pendingCheckpoints = new LinkedHashMap<>();
+  // checkpoints in journal, guarded by this.
+  private final Map<String, String> journaledCheckpoints = new HashMap<>();
+
+  private FileChannel journalChannel;
+  private MappedByteBuffer journal;
+  private int writeOffset;
+  private ScheduledFuture<?> flushFuture;
+
+  /**
+   * Constructor, open or create a journal and recover checkpoints.
+   *
+   * @param dir journal directory.
+   * @param journalBytes journal file size, compaction grows it if the last entries do not fit.
+   * @param flushIntervalMillis background flush interval.
+   *
+   * @throws IOException failed open journal files or store is in use.
+   */
+  public JournalCheckpointStore(final Path dir, final int journalBytes, final long flushIntervalMillis) throws IOException {
+    this.dir = dir;
+    this.journalBytes = journalBytes;
+
+    Files.createDirectories(dir);
+
+    this.lockChannel = FileChannel.open(dir.resolve(LOCK_FILE_NAME), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    this.lock = this.tryLock(lockChannel);
+
+    if (lock == null) {
+      lockChannel.close();
+      throw new IOException("checkpoint store is in use. dir: " + dir);
+    }
+
+    // a compact file left by a crash is incomplete, the journal is still valid.
+    Files.deleteIfExists(dir.resolve(COMPACT_FILE_NAME));
+
+    this.openJournal();
+    this.recover();
+
+    this.flushFuture = flushScheduler.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  // Getter >>
+  public Path getDir() { return dir; }
+  public synchronized int getJournalOffset() { return writeOffset; }
+  // << Getter
+
+  @Override
+  public Optional<String> getCheckpoint(final String shardId) {
+    return Optional.ofNullable(checkpoints.get(shardId));
+  }
+
+  @Override
+  public void checkpoint(final String shardId, final String sequenceNumber) {
+    checkpoints.put(shardId, sequenceNumber);
+
+    synchronized (pendingCheckpoints) {
+      pendingCheckpoints.put(shardId, sequenceNumber);
+    }
+  }
+
+  /**
+   * Append pending checkpoints to journal and force.
+   *
+   * @return false if failed write, pending checkpoints are kept for next flush.
+   */
+  @Override
+  public synchronized boolean flush() {
+    final Map<String, String> batch;
+
+    synchronized (pendingCheckpoints) {
+      if (pendingCheckpoints.isEmpty()) return true;
+      batch = new LinkedHashMap<>(pendingCheckpoints);
+      pendingCheckpoints.clear();
+    }
+
+    logger.debug("flush checkpoints. dir: " + dir + ", count: " + batch.size());
+
+    try {
+      for (Map.Entry<String, String> entry : batch.entrySet()) {
+        int nextOffset = writeEntry(journal, writeOffset, entry.getKey(), entry.getValue());
+
+        if (nextOffset < 0) {
+          this.compact();
+          nextOffset = writeEntry(journal, writeOffset, entry.getKey(), entry.getValue());
+
+          if (nextOffset < 0) {
+            throw new IOException("checkpoint entry is too large. shardId: " + entry.getKey());
+          }
+        }
+
+        writeOffset = nextOffset;
+        journaledCheckpoints.put(entry.getKey(), entry.getValue());
+      }
+      journal.force();
+
+      return true;
+    } catch (IOException e) {
+      logger.error("failed flush checkpoints. dir: " + dir);
+      logger.error(e.getMessage());
+
+      // keep newer checkpoints taken while flushing.
+      synchronized (pendingCheckpoints) {
+        batch.forEach(pendingCheckpoints::putIfAbsent);
+      }
+      return false;
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    flushFuture.cancel(false);
+    this.flush();
+
+    try {
+      journalChannel.close();
+      lock.release();
+      lockChannel.close();
+    } catch (IOException e) {
+      logger.error("failed close checkpoint store. dir: " + dir);
+      logger.error(e.getMessage());
+    }
+  }
+
+  /**
+   * Write last checkpoints into a new file and replace the journal.
+   */
+  private void compact() throws IOException {
+    int snapshotBytes = 0;
+    for (Map.Entry<String, String> entry : journaledCheckpoints.entrySet()) {
+      snapshotBytes += getEntryLength(entry.getKey(), entry.getValue());
+    }
+
+    final Path compactPath = dir.resolve(COMPACT_FILE_NAME);
+    final int capacity = Math.max(journalBytes, snapshotBytes * 2);
+
+    logger.debug("compact checkpoint journal. dir: " + dir + ", " +
+      "journal bytes: " + writeOffset + ", compacted bytes: " + snapshotBytes + ", capacity: " + capacity);
+
+    try (FileChannel compactChannel = FileChannel.open(compactPath,
+      StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      final MappedByteBuffer compactJournal = compactChannel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+
+      int offset = 0;
+      for (Map.Entry<String, String> entry : journaledCheckpoints.entrySet()) {
+        offset = writeEntry(compactJournal, offset, entry.getKey(), entry.getValue());
+      }
+      compactJournal.force();
+    }
+
+    journalChannel.close();
+    Files.move(compactPath, dir.resolve(JOURNAL_FILE_NAME), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+    this.openJournal();
+    writeOffset = snapshotBytes;
+  }
+
+  private void openJournal() throws IOException {
+    journalChannel = FileChannel.open(dir.resolve(JOURNAL_FILE_NAME),
+      StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    journal = journalChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(journalBytes, journalChannel.size()));
+  }
+
+  /**
+   * Read entries until the end of valid entries.
+   */
+  private void recover() {
+    int offset = 0;
+
+    while (offset + ENTRY_HEADER_SIZE <= journal.capacity()) {
+      final int payloadLength = journal.getInt(offset);
+
+      if (payloadLength < SHARD_ID_LENGTH_SIZE || offset + ENTRY_HEADER_SIZE + payloadLength > journal.capacity()) break;
+
+      final ByteBuffer payload = journal.duplicate();
+      payload.limit(offset + ENTRY_HEADER_SIZE + payloadLength).position(offset + ENTRY_HEADER_SIZE);
+
+      final CRC32 crc32 = new CRC32();
+      crc32.update(payload.duplicate());
+      if ((int) crc32.getValue() != journal.getInt(offset + 4)) {
+        logger.error("checkpoint journal entry crc mismatch. stop recover, dir: " + dir + ", offset: " + offset);
+        break;
+      }
+
+      final int shardIdLength = payload.getShort() & 0xFFFF;
+      if (shardIdLength > payload.remaining()) break;
+
+      final byte[] shardId = new byte[shardIdLength];
+      final byte[] sequenceNumber = new byte[payload.remaining() - shardIdLength];
+      payload.get(shardId).get(sequenceNumber);
+
+      journaledCheckpoints.put(new String(shardId, StandardCharsets.UTF_8), new String(sequenceNumber, StandardCharsets.UTF_8));
+      offset += ENTRY_HEADER_SIZE + payloadLength;
+    }
+
+    writeOffset = offset;
+    checkpoints.putAll(journaledCheckpoints);
+
+    logger.debug("recover checkpoints. dir: " + dir + ", shard count: " + journaledCheckpoints.size() + ", journal bytes: " + writeOffset);
+  }
+
+  /**
+   * @return next offset, -1 if the entry does not fit.
+   */
+  private static int writeEntry(final MappedByteBuffer buffer, final int offset, final String shardId, final String sequenceNumber) {
+    final byte[] shardIdBytes = shardId.getBytes(StandardCharsets.UTF_8);
+    final byte[] sequenceNumberBytes = sequenceNumber.getBytes(StandardCharsets.UTF_8);
+    final int payloadLength = SHARD_ID_LENGTH_SIZE + shardIdBytes.length + sequenceNumberBytes.length;
+
+    if (offset + ENTRY_HEADER_SIZE + payloadLength > buffer.capacity()) return -1;
+
+    final ByteBuffer payload = buffer.duplicate();
+    payload.position(offset + ENTRY_HEADER_SIZE);
+    payload.putShort((short) shardIdBytes.length).put(shardIdBytes).put(sequenceNumberBytes);
+    payload.limit(payload.position()).position(offset + ENTRY_HEADER_SIZE);
+
+    final CRC32 crc32 = new CRC32();
+    crc32.update(payload);
+
+    buffer.putInt(offset + 4, (int) crc32.getValue());
+    buffer.putInt(offset, payloadLength);
+
+    return offset + ENTRY_HEADER_SIZE + payloadLength;
+  }
+
+  private static int getEntryLength(final String shardId, final String sequenceNumber) {
+    return ENTRY_HEADER_SIZE + SHARD_ID_LENGTH_SIZE +
+      shardId.getBytes(StandardCharsets.UTF_8).length + sequenceNumber.getBytes(StandardCharsets.UTF_8).length;
+  }
+
+  private FileLock tryLock(final FileChannel channel) throws IOException {
+    try {
+      return channel.tryLock();
+    } catch (OverlappingFileLockException e) {
+      return null;
+    }
+  }
+}
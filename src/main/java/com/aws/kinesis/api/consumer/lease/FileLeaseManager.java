@@ -0,0 +1,351 @@
+package com.aws.kinesis.api.consumer.lease;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Lease manager on a lease file shared by consumer processes of one host.
+ *
+ * File format, a line per lease or worker:
+ *   lease {shard id} {owner worker id or -} {expiry millis} {checkpoint or -} {completed}
+ *   worker {worker id} {heartbeat expiry millis}
+ *
+ * Every update reads, changes and atomically replaces the file under an exclusive lock of the lock file.
+ * A worker is alive while its heartbeat is not expired, a lease of another worker past its expiry is free.
+ * Acquire takes free leases up to ceil(shards / alive workers), and steals one lease from the most loaded
+ * worker while holding less than floor(shards / alive workers). A stolen shard may be read by both workers
+ * until the next acquire of the previous owner.
+ */
+public class FileLeaseManager implements ILeaseManager {
+  private static Logger logger = LoggerFactory.getLogger(FileLeaseManager.class);
+
+  private static final String LEASE_FILE_NAME = "leases";
+  private static final String TEMP_FILE_NAME = "leases.tmp";
+  private static final String LOCK_FILE_NAME = "lease.lock";
+  private static final String LEASE = "lease";
+  private static final String WORKER = "worker";
+  private static final String NO_VALUE = "-";
+
+  // file locks are held per process, updates of managers in one process are serialized by this.
+  private static final Object processLock = new Object();
+
+  private final Path dir;
+  private final String workerId;
+  private final long leaseDurationMillis;
+
+  // lease table at the last update.
+  private final Map<String, String> checkpoints = new ConcurrentHashMap<>();
+  private final Set<String> completedShardIds = ConcurrentHashMap.newKeySet();
+  private volatile Set<String> heldShardIds = Collections.emptySet();
+  // checkpoints not written yet, guarded by itself.
+  private final Map<String, String> pendingCheckpoints = new LinkedHashMap<>();
+
+  /**
+   * Constructor
+   *
+   * @param dir lease file directory, shared by workers of a stream.
+   * @param workerId unique worker id without spaces.
+   * @param leaseDurationMillis lease and heartbeat duration, acquire more often than this.
+   *
+   * @throws IOException failed create lease directory.
+   */
+  public FileLeaseManager(final Path dir, final String workerId, final long leaseDurationMillis) throws IOException {
+    this.dir = dir;
+    this.workerId = workerId;
+    this.leaseDurationMillis = leaseDurationMillis;
+
+    Files.createDirectories(dir);
+  }
+
+  // Getter >>
+  public Path getDir() { return dir; }
+  public Set<String> getHeldShardIds() { return heldShardIds; }
+  // << Getter
+
+  @Override
+  public String getWorkerId() { return workerId; }
+
+  @Override
+  public Set<String> acquire(final List<String> shardIds) {
+    final long nowMillis = System.currentTimeMillis();
+
+    if (!this.update(table -> this.balance(table, shardIds, nowMillis))) {
+      heldShardIds = Collections.emptySet();
+    }
+    return heldShardIds;
+  }
+
+  @Override
+  public void complete(final String shardId) {
+    logger.debug("complete lease. dir: " + dir + ", worker: " + workerId + ", shardId: " + shardId);
+
+    completedShardIds.add(shardId);
+    this.update(table -> {
+      final Lease lease = table.leases.computeIfAbsent(shardId, Lease::new);
+      lease.completed = true;
+      lease.owner = null;
+      lease.expiryMillis = 0L;
+    });
+  }
+
+  @Override
+  public boolean isCompleted(final String shardId) {
+    return completedShardIds.contains(shardId);
+  }
+
+  @Override
+  public Optional<String> getCheckpoint(final String shardId) {
+    return Optional.ofNullable(checkpoints.get(shardId));
+  }
+
+  @Override
+  public void checkpoint(final String shardId, final String sequenceNumber) {
+    checkpoints.put(shardId, sequenceNumber);
+
+    synchronized (pendingCheckpoints) {
+      pendingCheckpoints.put(shardId, sequenceNumber);
+    }
+  }
+
+  /**
+   * Write pending checkpoints of held leases.
+   */
+  @Override
+  public boolean flush() {
+    return this.update(table -> {});
+  }
+
+  /**
+   * Write pending checkpoints and release held leases.
+   */
+  @Override
+  public void close() {
+    logger.debug("release leases. dir: " + dir + ", worker: " + workerId + ", count: " + heldShardIds.size());
+
+    this.update(table -> {
+      for (Lease lease : table.leases.values()) {
+        if (workerId.equals(lease.owner)) {
+          lease.owner = null;
+          lease.expiryMillis = 0L;
+        }
+      }
+      table.workers.remove(workerId);
+    });
+  }
+
+  /**
+   * Renew heartbeat and held leases, take free leases and steal one toward an even split.
+   */
+  private void balance(final LeaseTable table, final List<String> shardIds, final long nowMillis) {
+    table.workers.values().removeIf(expiryMillis -> expiryMillis < nowMillis);
+    table.workers.put(workerId, nowMillis + leaseDurationMillis);
+
+    for (String shardId : shardIds) {
+      table.leases.computeIfAbsent(shardId, Lease::new);
+    }
+
+    final List<Lease> heldLeases = new ArrayList<>();
+    for (Lease lease : table.leases.values()) {
+      if (lease.completed) continue;
+
+      if (workerId.equals(lease.owner)) {
+        heldLeases.add(lease);
+      } else if (lease.owner != null && lease.expiryMillis < nowMillis) {
+        logger.debug("lease expired. dir: " + dir + ", shardId: " + lease.shardId + ", owner: " + lease.owner);
+        lease.owner = null;
+      }
+    }
+
+    final List<Lease> leasableLeases = shardIds.stream()
+      .map(table.leases::get)
+      .filter(lease -> !lease.completed)
+      .collect(Collectors.toList());
+    final int workerCount = table.workers.size();
+    final int maxLeaseCount = (leasableLeases.size() + workerCount - 1) / workerCount;
+    final int minLeaseCount = leasableLeases.size() / workerCount;
+
+    for (Lease lease : leasableLeases) {
+      if (heldLeases.size() >= maxLeaseCount) break;
+
+      if (lease.owner == null) {
+        logger.debug("take lease. dir: " + dir + ", worker: " + workerId + ", shardId: " + lease.shardId);
+        lease.owner = workerId;
+        heldLeases.add(lease);
+      }
+    }
+
+    if (heldLeases.size() < minLeaseCount) {
+      final Map<String, List<Lease>> leasesByOwner = leasableLeases.stream()
+        .filter(lease -> lease.owner != null && !workerId.equals(lease.owner))
+        .collect(Collectors.groupingBy(lease -> lease.owner));
+
+      leasesByOwner.values().stream()
+        .max(Comparator.comparingInt(List::size))
+        .filter(victimLeases -> victimLeases.size() > heldLeases.size() + 1)
+        .ifPresent(victimLeases -> {
+          final Lease lease = victimLeases.get(victimLeases.size() - 1);
+          logger.debug("steal lease. dir: " + dir + ", worker: " + workerId + ", shardId: " + lease.shardId + ", " +
+            "owner: " + lease.owner + ", owner lease count: " + victimLeases.size());
+
+          lease.owner = workerId;
+          heldLeases.add(lease);
+        });
+    }
+
+    heldLeases.forEach(lease -> lease.expiryMillis = nowMillis + leaseDurationMillis);
+  }
+
+  /**
+   * Read, update and replace the lease file under the file lock. Pending checkpoints are written to held leases.
+   *
+   * @return false if failed read or write, pending checkpoints are kept.
+   */
+  private synchronized boolean update(final Consumer<LeaseTable> updater) {
+    final Map<String, String> batch;
+
+    synchronized (pendingCheckpoints) {
+      batch = new LinkedHashMap<>(pendingCheckpoints);
+      pendingCheckpoints.clear();
+    }
+
+    synchronized (processLock) {
+      try (FileChannel lockChannel = FileChannel.open(dir.resolve(LOCK_FILE_NAME), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+        final FileLock lock = lockChannel.lock();
+        try {
+          final LeaseTable table = this.readTable();
+
+          // checkpoints of leases not held any more are dropped.
+          batch.forEach((shardId, sequenceNumber) -> {
+            final Lease lease = table.leases.get(shardId);
+            if (lease != null && workerId.equals(lease.owner)) {
+              lease.checkpoint = sequenceNumber;
+            }
+          });
+
+          updater.accept(table);
+          this.writeTable(table);
+          this.refresh(table);
+
+          return true;
+        } finally {
+          lock.release();
+        }
+      } catch (IOException e) {
+        logger.error("failed update lease file. dir: " + dir + ", worker: " + workerId);
+        logger.error(e.getMessage());
+
+        // keep newer checkpoints taken while updating.
+        synchronized (pendingCheckpoints) {
+          batch.forEach(pendingCheckpoints::putIfAbsent);
+        }
+        return false;
+      }
+    }
+  }
+
+  private void refresh(final LeaseTable table) {
+    final Set<String> shardIds = new HashSet<>();
+
+    for (Lease lease : table.leases.values()) {
+      if (lease.checkpoint != null) checkpoints.put(lease.shardId, lease.checkpoint);
+      if (lease.completed) completedShardIds.add(lease.shardId);
+      if (!lease.completed && workerId.equals(lease.owner)) shardIds.add(lease.shardId);
+    }
+
+    heldShardIds = Collections.unmodifiableSet(shardIds);
+  }
+
+  private LeaseTable readTable() throws IOException {
+    final LeaseTable table = new LeaseTable();
+    final Path leasePath = dir.resolve(LEASE_FILE_NAME);
+
+    if (!Files.exists(leasePath)) return table;
+
+    for (String line : Files.readAllLines(leasePath, StandardCharsets.UTF_8)) {
+      final String[] fields = line.split(" ");
+
+      if (LEASE.equals(fields[0]) && fields.length == 6) {
+        final Lease lease = new Lease(fields[1]);
+        lease.owner = NO_VALUE.equals(fields[2]) ? null : fields[2];
+        lease.expiryMillis = Long.parseLong(fields[3]);
+        lease.checkpoint = NO_VALUE.equals(fields[4]) ? null : fields[4];
+        lease.completed = Boolean.parseBoolean(fields[5]);
+        table.leases.put(lease.shardId, lease);
+      } else if (WORKER.equals(fields[0]) && fields.length == 3) {
+        table.workers.put(fields[1], Long.parseLong(fields[2]));
+      } else if (!line.isEmpty()) {
+        logger.error("skip malformed lease line. dir: " + dir + ", line: " + line);
+      }
+    }
+
+    return table;
+  }
+
+  private void writeTable(final LeaseTable table) throws IOException {
+    final StringBuilder builder = new StringBuilder();
+
+    for (Lease lease : table.leases.values()) {
+      builder.append(LEASE).append(' ')
+        .append(lease.shardId).append(' ')
+        .append(lease.owner == null ? NO_VALUE : lease.owner).append(' ')
+        .append(lease.expiryMillis).append(' ')
+        .append(lease.checkpoint == null ? NO_VALUE : lease.checkpoint).append(' ')
+        .append(lease.completed).append('\n');
+    }
+    for (Map.Entry<String, Long> worker : table.workers.entrySet()) {
+      builder.append(WORKER).append(' ').append(worker.getKey()).append(' ').append(worker.getValue()).append('\n');
+    }
+
+    final Path tempPath = dir.resolve(TEMP_FILE_NAME);
+    try (FileChannel tempChannel = FileChannel.open(tempPath,
+      StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      final ByteBuffer buffer = ByteBuffer.wrap(builder.toString().getBytes(StandardCharsets.UTF_8));
+      while (buffer.hasRemaining()) {
+        tempChannel.write(buffer);
+      }
+      tempChannel.force(true);
+    }
+
+    Files.move(tempPath, dir.resolve(LEASE_FILE_NAME), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private static final class Lease {
+    private final String shardId;
+    private String owner = null;
+    private long expiryMillis = 0L;
+    private String checkpoint = null;
+    private boolean completed = false;
+
+    private Lease(final String shardId) {
+      this.shardId = shardId;
+    }
+  }
+
+  private static final class LeaseTable {
+    private final Map<String, Lease> leases = new TreeMap<>();
+    private final Map<String, Long> workers = new TreeMap<>();
+  }
+}
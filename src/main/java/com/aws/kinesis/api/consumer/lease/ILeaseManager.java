@@ -0,0 +1,32 @@
+package com.aws.kinesis.api.consumer.lease;
+
+import com.aws.kinesis.api.consumer.checkpoint.ICheckpointStore;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Shard leases of consumer workers of a stream.
+ *
+ * A worker reads only shards it holds leases of. Checkpoints are kept in leases,
+ * so a shard taken over by another worker resumes after the last checkpoint.
+ * Checkpoints of shards not held are dropped.
+ */
+public interface ILeaseManager extends ICheckpointStore {
+  String getWorkerId();
+
+  /**
+   * Renew held leases, take free or expired leases and steal from overloaded workers toward an even split.
+   *
+   * @param shardIds leasable shard ids.
+   *
+   * @return shard ids held by this worker, empty if failed.
+   */
+  Set<String> acquire(List<String> shardIds);
+
+  /**
+   * Shard end is reached and handled, the shard is not leased again.
+   */
+  void complete(String shardId);
+  boolean isCompleted(String shardId);
+}
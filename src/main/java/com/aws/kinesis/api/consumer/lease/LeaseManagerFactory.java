@@ -0,0 +1,55 @@
+package com.aws.kinesis.api.consumer.lease;
+
+import com.utils.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.UUID;
+
+public class LeaseManagerFactory {
+  private static Logger logger = LoggerFactory.getLogger(LeaseManagerFactory.class);
+
+  private LeaseManagerFactory() {}
+
+  public static LeaseManagerFactory getInstance() {
+    return LazyHolder.INSTANCE;
+  }
+
+  private static class LazyHolder {
+    private static final LeaseManagerFactory INSTANCE = new LeaseManagerFactory();
+  }
+
+  /**
+   * @param leaseManagerType lease manager type.
+   * @param streamName stream name, leases per stream.
+   *
+   * @return lease manager with a new worker id, null for NONE or failed open.
+   */
+  public ILeaseManager getLeaseManager(LeaseManagerType leaseManagerType, String streamName) {
+    switch (leaseManagerType) {
+      case FILE:
+        try {
+          return new FileLeaseManager(Paths.get(AppConfig.getConsumerLeaseDir(), streamName),
+            this.newWorkerId(),
+            AppConfig.getConsumerLeaseDurationMillis());
+        } catch (IOException e) {
+          logger.error("failed open lease dir. consume all shards, stream name: " + streamName);
+          logger.error(e.getMessage());
+          return null;
+        }
+      case NONE:
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * @return pid@host:uuid
+   */
+  public String newWorkerId() {
+    return ManagementFactory.getRuntimeMXBean().getName() + ":" + UUID.randomUUID();
+  }
+}
@@ -0,0 +1,6 @@
+package com.aws.kinesis.api.consumer.lease;
+
+public enum LeaseManagerType {
+  NONE,
+  FILE
+}
@@ -2,13 +2,40 @@ package com.aws.kinesis.api.producer;
 
 import com.amazonaws.services.kinesis.model.*;
 import com.aws.kinesis.api.ApiClient;
+import com.aws.kinesis.api.PartitionKeySalter;
+import com.aws.kinesis.api.ShardLocator;
+import com.aws.kinesis.api.producer.spill.SpillQueue;
 import com.aws.kinesis.record.IRecord;
+import com.aws.kinesis.record.aggregation.AggregatedRecord;
+import com.aws.kinesis.record.aggregation.RecordAggregator;
+import com.aws.kinesis.record.codec.RecordEncoder;
+import com.utils.AppConfig;
+import com.utils.AppUtils;
+import com.utils.Tuple2;
+import com.utils.retry.Retry;
+import com.utils.retry.RetryPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -18,8 +45,36 @@ import java.util.stream.Collectors;
 public class ApiProducer {
   private static Logger logger = LoggerFactory.getLogger(ApiProducer.class);
 
+  private static final RetryPolicy PRODUCE_RETRY_POLICY = RetryPolicy.forOperation("produce");
+  private static final String UNKNOWN_SHARD_ID = "unknown";
+  private static final long SHARD_REFRESH_MIN_INTERVAL_MILLIS = AppConfig.getProducerShardRefreshMinIntervalMillis();
+
+  private static final ScheduledExecutorService spillDrainScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    final Thread thread = new Thread(runnable, "api-producer-spill-drain");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private static final ExecutorService shardExecutor = newShardExecutor(AppConfig.getProducerShardThreadCount());
+
   private final ApiClient apiClient;
   private final String streamName;
+  private final DispatchMode dispatchMode;
+  private final ShardRateLimiter shardRateLimiter;
+  private final PartitionKeySalter partitionKeySalter;
+  private final RecordEncoder recordEncoder;
+  private final RecordAggregator recordAggregator;
+  private final AsyncPutRecordsDispatcher asyncDispatcher;
+  private final SpillQueue spillQueue;
+  private final RecordAccumulator recordAccumulator;
+  private final ScheduledFuture<?> spillDrainFuture;
+  // held while draining, close waits for a running drain before closing the spill queue.
+  private final Object spillDrainLock = new Object();
+
+  private final AtomicLong lastShardRefreshMillis = new AtomicLong(0L);
+
+  private volatile ShardLocator shardLocator;
+  private volatile boolean closed = false;
 
   /**
    * Constructor
@@ -28,6 +83,7 @@ public class ApiProducer {
    * @param streamName unchecked stream name.
    *
    * @throws ResourceNotFoundException stream is not exist.
+   * @throws IllegalStateException spill is enabled and the spill queue can't be opened.
    */
   public ApiProducer(final ApiClient apiClient, final String streamName) throws ResourceNotFoundException {
     this.apiClient = apiClient;
@@ -39,6 +95,31 @@ public class ApiProducer {
     if (apiClient.isNotStreamExist(streamName)) {
       throw new ResourceNotFoundException("failed create apiProducer. stream is not exist, name: " + streamName);
     }
+
+    this.dispatchMode = AppConfig.getProducerDispatchMode();
+    this.shardLocator = new ShardLocator(apiClient.getShardList(streamName));
+    this.shardRateLimiter = AppConfig.isProducerRateLimitEnabled() ?
+      new ShardRateLimiter(shardLocator,
+        AppConfig.getProducerRateLimitRecordsPerSecond(),
+        AppConfig.getProducerRateLimitBytesPerSecond()) : null;
+    this.partitionKeySalter = PartitionKeySalter.fromConfig();
+    this.recordEncoder = RecordEncoder.forStream(streamName);
+    this.recordAggregator = AppConfig.isProducerAggregationEnabled() ?
+      new RecordAggregator(AppConfig.getProducerAggregationMaxBytes(), AppConfig.getProducerAggregationMaxCount(), recordEncoder) : null;
+    this.asyncDispatcher = new AsyncPutRecordsDispatcher(apiClient, streamName, shardRateLimiter, partitionKeySalter);
+    this.spillQueue = AppConfig.isProducerSpillEnabled() ? this.openSpillQueue() : null;
+    this.recordAccumulator = new RecordAccumulator(this::produceRecords,
+      AppConfig.getProducerAccumulatorMaxCount(),
+      AppConfig.getProducerAccumulatorMaxBytes(),
+      AppConfig.getProducerAccumulatorLingerMillis(),
+      AppConfig.getProducerAccumulatorStripeCount(),
+      AppConfig.getProducerAccumulatorBufferBytes(),
+      AppConfig.getProducerAccumulatorMaxBlockMillis());
+
+    this.spillDrainFuture = spillQueue == null ? null : spillDrainScheduler.scheduleWithFixedDelay(this::drainSpillQueue,
+      AppConfig.getProducerSpillDrainIntervalMillis(),
+      AppConfig.getProducerSpillDrainIntervalMillis(),
+      TimeUnit.MILLISECONDS);
   }
 
   public ApiProducer(final String streamName) {
@@ -47,71 +128,657 @@ public class ApiProducer {
 
   // Getter >>
   public String getStreamName() { return streamName; }
+  public DispatchMode getDispatchMode() { return dispatchMode; }
+  public long getSpilledRecordCount() { return spillQueue == null ? 0L : spillQueue.size(); }
+  public long getSaltedKeyCount() { return partitionKeySalter == null ? 0L : partitionKeySalter.getSaltedKeyCount(); }
   // << Getter
 
+  /**
+   * Reload shard hash key ranges after resharding.
+   */
+  public void refreshShards() {
+    logger.debug("refresh shards. stream name: " + streamName);
+
+    lastShardRefreshMillis.set(System.currentTimeMillis());
+    this.shardLocator = new ShardLocator(apiClient.getShardList(streamName));
+
+    if (shardRateLimiter != null) {
+      shardRateLimiter.setShardLocator(shardLocator);
+    }
+  }
+
+  /**
+   * Refresh shards when the shard locator is stale, at most once per min refresh interval.
+   *
+   * The locator is stale if a record has no open shard or a record is put to a shard the locator does not know as open.
+   *
+   * @return true if shards are refreshed.
+   */
+  private boolean refreshStaleShards(final String reason) {
+    final long lastRefreshMillis = lastShardRefreshMillis.get();
+    final long currentMillis = System.currentTimeMillis();
+
+    if (currentMillis - lastRefreshMillis < SHARD_REFRESH_MIN_INTERVAL_MILLIS ||
+      !lastShardRefreshMillis.compareAndSet(lastRefreshMillis, currentMillis)) return false;
+
+    logger.info("shard locator is stale, refresh shards. stream name: " + streamName + ", reason: " + reason);
+    this.refreshShards();
+    return true;
+  }
+
   /**
    * Produce records.
    *
+   * With spill queue {@link SpillQueue}, records failed after retries are spilled to disk
+   * and produced by the background drain. While spilled records remain, records are spilled
+   * without produce, so they stay behind the spilled records and out of heap.
+   *
    * @param records produce records.
    *
-   * @return produce result, returns a failure if an error occurs while producing record.
+   * @return produce result, returns a failure if an error occurs while producing or spilling record.
    */
   public boolean produce(final List<IRecord> records) {
+    if (spillQueue == null) {
+      return this.produceRecords(records).stream().allMatch(ProduceRecordResult::isSuccessful);
+    }
+
+    if (!spillQueue.isEmpty()) {
+      logger.debug("spill queue is not empty. spill records, count: " + records.size());
+      return this.spill(records);
+    }
+
+    boolean hasUnspillableRecord = false;
+    final List<IRecord> failedRecords = new ArrayList<>();
+
+    for (ProduceRecordResult result : this.produceRecords(records)) {
+      if (result.isSuccessful()) continue;
+
+      if (ProduceRecordResult.ERROR_CODE_RECORD_TOO_LARGE.equals(result.getErrorCode().orElse(null))) {
+        hasUnspillableRecord = true;
+      } else {
+        failedRecords.add(result.getRecord());
+      }
+    }
+
+    return this.spill(failedRecords) && !hasUnspillableRecord;
+  }
+
+  /**
+   * Send a record, records are accumulated and produced as a batch. {@link RecordAccumulator}
+   *
+   * @param record produce record.
+   *
+   * @return produce result future, completed when the batch of the record is produced.
+   */
+  public CompletableFuture<ProduceRecordResult> send(final IRecord record) {
+    return recordAccumulator.send(record);
+  }
+
+  /**
+   * Produce accumulated records without waiting for linger time.
+   */
+  public CompletableFuture<Void> flush() {
+    return recordAccumulator.flush();
+  }
+
+  /**
+   * Produce accumulated records, stop the spill drain and close the spill queue.
+   *
+   * Spilled records are kept in the spill queue and drained by the next producer of the stream.
+   */
+  public void close() {
+    if (closed) return;
+
+    logger.debug("close api producer. stream name: " + streamName);
+
+    recordAccumulator.flush().join();
+    closed = true;
+
+    if (spillDrainFuture != null) spillDrainFuture.cancel(false);
+
+    if (spillQueue != null) {
+      synchronized (spillDrainLock) {
+        spillQueue.close();
+      }
+    }
+  }
+
+  private List<ProduceRecordResult> produceRecords(final List<IRecord> records) {
+    return dispatchMode == DispatchMode.SHARD ? this.produceByShard(records) : this.produceWithResult(records);
+  }
+
+  private SpillQueue openSpillQueue() {
+    try {
+      return new SpillQueue(Paths.get(AppConfig.getProducerSpillDir(), streamName), AppConfig.getProducerSpillSegmentBytes());
+    } catch (IOException e) {
+      logger.error("failed open spill queue. stream name: " + streamName);
+      logger.error(e.getMessage());
+      throw new IllegalStateException("failed open spill queue. stream name: " + streamName, e);
+    }
+  }
+
+  private boolean spill(final List<IRecord> records) {
+    if (records.isEmpty()) return true;
+
+    logger.debug("spill records. stream name: " + streamName + ", count: " + records.size());
+
+    boolean spilled = true;
+    for (IRecord record : records) {
+      spilled &= spillQueue.append(record);
+    }
+    spillQueue.force();
+
+    return spilled;
+  }
+
+  /**
+   * Produce spilled records until spill queue is empty or produce fails.
+   *
+   * Only the produced prefix of a batch is removed, the first failed record stays at the head
+   * and is produced first by the next drain, so spilled records keep their order.
+   * Records after it produced in the same batch are produced again, not lost.
+   */
+  private void drainSpillQueue() {
+    synchronized (spillDrainLock) {
+      if (closed) return;
+      this.drainSpillQueueLocked();
+    }
+  }
+
+  private void drainSpillQueueLocked() {
+    try {
+      while (!closed) {
+        final List<IRecord> spilledRecords = spillQueue.peek(AppConfig.getProducerSpillDrainBatchCount());
+
+        if (spilledRecords.isEmpty()) return;
+
+        logger.debug("drain spilled records. stream name: " + streamName + ", count: " + spilledRecords.size());
+
+        final List<ProduceRecordResult> results = this.produceRecords(spilledRecords);
+
+        int producedCount = 0;
+        for (ProduceRecordResult result : results) {
+          if (!result.isSuccessful()) {
+            if (!ProduceRecordResult.ERROR_CODE_RECORD_TOO_LARGE.equals(result.getErrorCode().orElse(null))) break;
+
+            logger.error("drop spilled record. record is too large, stream name: " + streamName);
+          }
+          producedCount++;
+        }
+
+        spillQueue.remove(producedCount);
+        spillQueue.force();
+
+        if (producedCount < results.size()) {
+          logger.debug("failed drain spilled records. wait for next drain, " +
+            "produced count: " + producedCount + "/" + results.size());
+          return;
+        }
+      }
+    } catch (Exception e) {
+      logger.error("failed drain spill queue. stream name: " + streamName);
+      logger.error(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Produce records with per-record result.
+   *
+   * Records are packed into PutRecords limit-compliant batches {@link PutRecordsBatcher}
+   * and batches are put one after another, so records of a partition key keep their order.
+   * For concurrent puts across shards use {@link DispatchMode#SHARD}. Oversize records are not put and reported as failed.
+   *
+   * @param records produce records, any size.
+   *
+   * @return per-record produce result list, same order as records.
+   */
+  public List<ProduceRecordResult> produceWithResult(final List<IRecord> records) {
+    return this.withAggregation(records, this::putRecordsInBatches);
+  }
+
+  private List<ProduceRecordResult> putRecordsInBatches(final List<IRecord> records) {
     logger.debug("produce records to stream. name: " + streamName + ", count: " + records.size());
 
-    PutRecordsRequest putRecordsRequest = new PutRecordsRequest()
-      .withStreamName(streamName)
-      .withRecords(this.toPutRecordsRequestEntryList(records));
+    final ProduceRecordResult[] results = new ProduceRecordResult[records.size()];
+    final List<Tuple2<Integer, PutRecordsRequestEntry>> indexedEntries = this.toIndexedEntries(records, results);
+
+    // a batch is put after the previous batch is done, records of a key are not reordered across batches.
+    for (List<Tuple2<Integer, PutRecordsRequestEntry>> batch :
+      PutRecordsBatcher.split(indexedEntries, indexedEntry -> PutRecordsBatcher.getEntrySize(indexedEntry.getRear()))) {
+      this.produceBatch(batch, records, results);
+    }
+
+    return Arrays.asList(results);
+  }
+
+  /**
+   * Produce records grouped by target shard.
+   *
+   * Records are bucketed by target shard {@link ShardLocator}, each shard has its own request stream
+   * and retry schedule, shards are produced concurrently on a bounded shard thread pool.
+   * A throttled shard retries its own records only, other shards are not held back.
+   *
+   * @param records produce records, any size.
+   *
+   * @return per-record produce result list, same order as records.
+   */
+  public List<ProduceRecordResult> produceByShard(final List<IRecord> records) {
+    return this.withAggregation(records, this::putRecordsByShard);
+  }
+
+  private List<ProduceRecordResult> putRecordsByShard(final List<IRecord> records) {
+    logger.debug("produce records by shard to stream. name: " + streamName + ", count: " + records.size());
+
+    final ProduceRecordResult[] results = new ProduceRecordResult[records.size()];
+    final ShardLocator currentShardLocator = this.shardLocator;
+
+    // shard id -> indexed entries, keep record order in shard.
+    final Map<String, List<Tuple2<Integer, PutRecordsRequestEntry>>> shardEntries = this.toIndexedEntries(records, results)
+      .stream()
+      .collect(Collectors.groupingBy(
+        indexedEntry -> currentShardLocator
+          .getShardId(indexedEntry.getRear().getPartitionKey(), indexedEntry.getRear().getExplicitHashKey())
+          .orElse(UNKNOWN_SHARD_ID),
+        LinkedHashMap::new,
+        Collectors.toList()));
+
+    logger.debug("produce records by shard. shard count: " + shardEntries.size());
+
+    if (shardEntries.containsKey(UNKNOWN_SHARD_ID)) {
+      this.refreshStaleShards("no open shard for a record");
+    }
+
+    final List<CompletableFuture<Void>> shardFutures = shardEntries.entrySet().stream()
+      .map(entry -> CompletableFuture.runAsync(() -> {
+        logger.debug("produce shard records. shardId: " + entry.getKey() + ", count: " + entry.getValue().size());
+
+        for (List<Tuple2<Integer, PutRecordsRequestEntry>> batch :
+          PutRecordsBatcher.split(entry.getValue(), indexedEntry -> PutRecordsBatcher.getEntrySize(indexedEntry.getRear()))) {
+          this.produceBatch(batch, records, results);
+        }
+      }, shardExecutor))
+      .collect(Collectors.toList());
+
+    CompletableFuture.allOf(shardFutures.toArray(new CompletableFuture[0])).join();
+
+    return Arrays.asList(results);
+  }
+
+  /**
+   * Produce records asynchronously.
+   *
+   * Records are packed into limit-compliant batches {@link PutRecordsBatcher} and pipelined
+   * through {@link AsyncPutRecordsDispatcher}, in-flight request count adapts to throttling.
+   *
+   * @param records produce records, any size.
+   *
+   * @return per-batch result future list. oversize records are reported in an already completed future.
+   */
+  public List<CompletableFuture<List<ProduceRecordResult>>> produceAsync(final List<IRecord> records) {
+    if (recordAggregator == null) return this.putRecordsAsync(records);
+
+    return this.putRecordsAsync(this.aggregate(records, new ArrayList<>())).stream()
+      .map(batchFuture -> batchFuture.thenApply(batchResults -> batchResults.stream()
+        .flatMap(result -> this.toUserRecordResults(result).stream())
+        .collect(Collectors.toList())))
+      .collect(Collectors.toList());
+  }
+
+  private List<CompletableFuture<List<ProduceRecordResult>>> putRecordsAsync(final List<IRecord> records) {
+    logger.debug("produce records async to stream. name: " + streamName + ", count: " + records.size());
+
+    final List<ProduceRecordResult> oversizeResults = new ArrayList<>();
+    final List<Tuple2<IRecord, PutRecordsRequestEntry>> entries = new ArrayList<>(records.size());
+
+    for (IRecord record : records) {
+      final PutRecordsRequestEntry entry = this.toPutRecordsRequestEntry(record);
+      final long entrySize = PutRecordsBatcher.getEntrySize(entry);
+
+      if (PutRecordsBatcher.isOversize(entrySize)) {
+        oversizeResults.add(this.toRecordTooLargeResult(record, entrySize));
+      } else {
+        entries.add(new Tuple2<>(record, entry));
+      }
+    }
+
+    final List<CompletableFuture<List<ProduceRecordResult>>> batchFutures = PutRecordsBatcher
+      .split(entries, entry -> PutRecordsBatcher.getEntrySize(entry.getRear()))
+      .stream()
+      .map(asyncDispatcher::submit)
+      .collect(Collectors.toList());
+
+    if (!oversizeResults.isEmpty()) {
+      batchFutures.add(CompletableFuture.completedFuture(oversizeResults));
+    }
+
+    return batchFutures;
+  }
+
+  /**
+   * Aggregate records if aggregation is enabled, and expand results to user records.
+   *
+   * @param records user records.
+   * @param putRecords put function.
+   *
+   * @return per-user-record produce result list, same order as records.
+   */
+  private List<ProduceRecordResult> withAggregation(final List<IRecord> records,
+                                                    final Function<List<IRecord>, List<ProduceRecordResult>> putRecords) {
+    if (recordAggregator == null) return putRecords.apply(records);
+
+    final ProduceRecordResult[] results = new ProduceRecordResult[records.size()];
+    final List<Integer> unaggregatedIndexes = new ArrayList<>();
+    final List<IRecord> putRecordList = this.aggregate(records, unaggregatedIndexes);
+    final List<ProduceRecordResult> putResults = putRecords.apply(putRecordList);
+
+    // aggregated records first, un-aggregated records follow in index order.
+    final int aggregatedCount = putRecordList.size() - unaggregatedIndexes.size();
+    for (int i = 0; i < aggregatedCount; i++) {
+      final List<Integer> userRecordIndexes = ((AggregatedRecord) putResults.get(i).getRecord()).getUserRecordIndexes();
+      final List<ProduceRecordResult> userRecordResults = this.toUserRecordResults(putResults.get(i));
+
+      for (int j = 0; j < userRecordIndexes.size(); j++) {
+        results[userRecordIndexes.get(j)] = userRecordResults.get(j);
+      }
+    }
+    for (int i = aggregatedCount; i < putResults.size(); i++) {
+      results[unaggregatedIndexes.get(i - aggregatedCount)] = putResults.get(i);
+    }
+
+    return Arrays.asList(results);
+  }
+
+  /**
+   * Aggregate records of resolved shards.
+   *
+   * KCL drops user records whose hash key is out of the shard range of the aggregated record,
+   * so records without an open shard are put un-aggregated. On a miss shards are refreshed and resolved again.
+   *
+   * @param records user records.
+   * @param unaggregatedIndexes filled with indexes of un-aggregated records.
+   *
+   * @return aggregated records followed by un-aggregated records.
+   */
+  private List<IRecord> aggregate(final List<IRecord> records, final List<Integer> unaggregatedIndexes) {
+    final String[] explicitHashKeys = new String[records.size()];
+    final String[] shardIds = new String[records.size()];
+    boolean hasMiss = false;
+
+    for (int i = 0; i < records.size(); i++) {
+      explicitHashKeys[i] = this.getExplicitHashKey(records.get(i));
+      shardIds[i] = this.shardLocator.getShardId(records.get(i).getPartitionKey(), explicitHashKeys[i]).orElse(null);
+      hasMiss |= shardIds[i] == null;
+    }
+
+    if (hasMiss && this.refreshStaleShards("no open shard for a record")) {
+      for (int i = 0; i < records.size(); i++) {
+        if (shardIds[i] == null) {
+          shardIds[i] = this.shardLocator.getShardId(records.get(i).getPartitionKey(), explicitHashKeys[i]).orElse(null);
+        }
+      }
+    }
+
+    final List<IRecord> resolvedRecords = new ArrayList<>(records.size());
+    final List<Integer> resolvedIndexes = new ArrayList<>(records.size());
+    final Map<IRecord, String> resolvedExplicitHashKeys = new IdentityHashMap<>();
+    final Map<IRecord, String> resolvedShardIds = new IdentityHashMap<>();
+
+    for (int i = 0; i < records.size(); i++) {
+      if (shardIds[i] == null) {
+        unaggregatedIndexes.add(i);
+        continue;
+      }
+      resolvedRecords.add(records.get(i));
+      resolvedIndexes.add(i);
+      resolvedExplicitHashKeys.put(records.get(i), explicitHashKeys[i]);
+      resolvedShardIds.put(records.get(i), shardIds[i]);
+    }
+
+    final List<IRecord> putRecordList = new ArrayList<>(records.size());
+
+    // user record indexes of resolved records to positions of records.
+    for (AggregatedRecord aggregatedRecord :
+      recordAggregator.aggregate(resolvedRecords, resolvedExplicitHashKeys::get, (record, explicitHashKey) -> resolvedShardIds.get(record))) {
+      putRecordList.add(new AggregatedRecord(aggregatedRecord.getPartitionKey(),
+        aggregatedRecord.getExplicitHashKey().orElse(null),
+        aggregatedRecord.getData(),
+        aggregatedRecord.getValue(),
+        aggregatedRecord.getUserRecordIndexes().stream().map(resolvedIndexes::get).collect(Collectors.toList())));
+    }
+
+    if (!unaggregatedIndexes.isEmpty()) {
+      logger.debug("put records without open shard un-aggregated. count: " + unaggregatedIndexes.size());
+      for (int index : unaggregatedIndexes) {
+        putRecordList.add(records.get(index));
+      }
+    }
+    return putRecordList;
+  }
+
+  /**
+   * Aggregated record result to its user record results, an un-aggregated record result is kept as it is.
+   */
+  private List<ProduceRecordResult> toUserRecordResults(final ProduceRecordResult aggregatedResult) {
+    if (!(aggregatedResult.getRecord() instanceof AggregatedRecord)) return Collections.singletonList(aggregatedResult);
+
+    final List<IRecord> userRecords = ((AggregatedRecord) aggregatedResult.getRecord()).getValue();
 
-    Optional<PutRecordsResult> putRecordsResult = apiClient.putRecords(putRecordsRequest);
+    return userRecords.stream()
+      .map(userRecord -> aggregatedResult.isSuccessful() ?
+        ProduceRecordResult.succeeded(userRecord,
+          aggregatedResult.getShardId().orElse(null),
+          aggregatedResult.getSequenceNumber().orElse(null)) :
+        ProduceRecordResult.failed(userRecord,
+          aggregatedResult.getErrorCode().orElse(null),
+          aggregatedResult.getErrorMessage().orElse(null)))
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * Put a limit-compliant batch, retry failed entries.
+   *
+   * With shard rate limiter, only entries of shards which have tokens are put,
+   * entries of rate limited shards wait for tokens and are put in following requests.
+   *
+   * @param batch indexed entries, index is position of records.
+   * @param records produce records.
+   * @param results result array to be filled, each batch fills its own indexes. every index is filled on return.
+   */
+  private void produceBatch(final List<Tuple2<Integer, PutRecordsRequestEntry>> batch,
+                            final List<IRecord> records,
+                            final ProduceRecordResult[] results) {
+    logger.debug("produce batch. stream name: " + streamName + ", count: " + batch.size());
+
+    final Retry retry = PRODUCE_RETRY_POLICY.newRetry();
+
+    List<Tuple2<Integer, PutRecordsRequestEntry>> currentBatch = batch;
+
+    do {
+      final List<Tuple2<Integer, PutRecordsRequestEntry>> failedBatch = new ArrayList<>();
+
+      List<Tuple2<Integer, PutRecordsRequestEntry>> unsentBatch = currentBatch;
+
+      while (!unsentBatch.isEmpty()) {
+        final List<Tuple2<Integer, PutRecordsRequestEntry>> sendBatch;
+
+        if (shardRateLimiter == null) {
+          sendBatch = unsentBatch;
+          unsentBatch = new ArrayList<>();
+        } else {
+          final Tuple2<List<Tuple2<Integer, PutRecordsRequestEntry>>, List<Tuple2<Integer, PutRecordsRequestEntry>>> admission =
+            shardRateLimiter.admit(unsentBatch, Tuple2::getRear);
+          sendBatch = admission.getForward();
+          unsentBatch = admission.getRear();
+        }
+
+        if (!sendBatch.isEmpty()) {
+          final Optional<List<Tuple2<Integer, PutRecordsRequestEntry>>> sendFailedBatch =
+            this.putBatch(sendBatch, records, results);
+
+          if (!sendFailedBatch.isPresent()) {
+            // entries deferred by the rate limiter and failed entries of earlier requests are not put either.
+            this.failUnfilled(unsentBatch, records, results, "put records request failed, entry is not sent.");
+            this.failUnfilled(failedBatch, records, results, "put records request failed, entry is not retried.");
+            return;
+          }
+          failedBatch.addAll(sendFailedBatch.get());
+        }
 
-    while (true) {
-      if (putRecordsResult.isPresent()) {
-        if (putRecordsResult.get().getFailedRecordCount() > 0) {
-          logger.debug("failed put records. re-produce record, count: " + putRecordsResult.get().getFailedRecordCount());
-          putRecordsRequest
-            .setRecords(this.getFailedPutRecordsRequestEntryList(putRecordsRequest, putRecordsResult.get()));
-          putRecordsResult = apiClient.putRecords(putRecordsRequest);
-        } else return true;
-      }  else return false;
+        if (!unsentBatch.isEmpty()) {
+          AppUtils.backoff("wait for shard rate limit.", shardRateLimiter.getWaitMillis(unsentBatch, Tuple2::getRear));
+        }
+      }
+
+      if (failedBatch.isEmpty()) return;
+
+      logger.debug("failed put records. re-produce record, " +
+        "attempts: " + retry.getAttempt() + "/" + PRODUCE_RETRY_POLICY.getMaxAttempts() + ", count: " + failedBatch.size());
+      currentBatch = failedBatch;
+    } while (retry.backoff("retry to produce failed records."));
+
+    logger.error("failed produce records batch. no more retry. " +
+      "stream: " + streamName + ", remain record count: " + currentBatch.size());
+  }
+
+  /**
+   * Mark entries without result as failed, results of failed put entries keep their error code.
+   */
+  private void failUnfilled(final List<Tuple2<Integer, PutRecordsRequestEntry>> batch,
+                            final List<IRecord> records,
+                            final ProduceRecordResult[] results,
+                            final String errorMessage) {
+    for (Tuple2<Integer, PutRecordsRequestEntry> indexedEntry : batch) {
+      if (results[indexedEntry.getForward()] == null) {
+        results[indexedEntry.getForward()] = ProduceRecordResult.failed(records.get(indexedEntry.getForward()),
+          ProduceRecordResult.ERROR_CODE_REQUEST_FAILED, errorMessage);
+      }
     }
   }
 
-  private List<PutRecordsRequestEntry> getFailedPutRecordsRequestEntryList(final PutRecordsRequest putRecordsRequest,
-                                                                           final PutRecordsResult putRecordsResult) {
-    logger.debug("get failed PutRecordsRequestEntryList. " +
-      "request count: " + putRecordsRequest.getRecords().size() + ", " +
-      "failed count: " + putRecordsResult.getRecords().stream()
-        .filter(putRecordsResultEntry -> putRecordsResultEntry.getErrorCode() != null)
-        .count());
+  /**
+   * Put entries with one PutRecords request and fill results.
+   *
+   * @return failed entries, empty if request failed. (all entries are marked as failed)
+   */
+  private Optional<List<Tuple2<Integer, PutRecordsRequestEntry>>> putBatch(final List<Tuple2<Integer, PutRecordsRequestEntry>> batch,
+                                                                           final List<IRecord> records,
+                                                                           final ProduceRecordResult[] results) {
+    final PutRecordsRequest putRecordsRequest = new PutRecordsRequest()
+      .withStreamName(streamName)
+      .withRecords(batch.stream().map(Tuple2::getRear).collect(Collectors.toList()));
 
-    final List<PutRecordsRequestEntry> putRecordsRequestEntryList = putRecordsRequest.getRecords();
-    final List<PutRecordsResultEntry> putRecordsResultEntryList = putRecordsResult.getRecords();
+    final Optional<PutRecordsResult> putRecordsResult = apiClient.putRecords(putRecordsRequest);
 
-    final List<PutRecordsRequestEntry> failedPutRecordsRequestEntryList = new ArrayList<>();
+    if (!putRecordsResult.isPresent()) {
+      logger.error("failed put records batch. stream name: " + streamName + ", count: " + batch.size());
+      for (Tuple2<Integer, PutRecordsRequestEntry> indexedEntry : batch) {
+        results[indexedEntry.getForward()] = ProduceRecordResult.failed(records.get(indexedEntry.getForward()),
+          ProduceRecordResult.ERROR_CODE_REQUEST_FAILED, "put records request failed.");
+      }
+      return Optional.empty();
+    }
+
+    final List<Tuple2<Integer, PutRecordsRequestEntry>> failedBatch = new ArrayList<>();
+    final List<PutRecordsResultEntry> putRecordsResultEntryList = putRecordsResult.get().getRecords();
+    final ShardLocator currentShardLocator = this.shardLocator;
+    String unknownShardId = null;
 
     for (int i = 0; i < putRecordsResultEntryList.size(); i++) {
-      final PutRecordsRequestEntry putRecordRequestEntry = putRecordsRequestEntryList.get(i);
+      final Tuple2<Integer, PutRecordsRequestEntry> indexedEntry = batch.get(i);
       final PutRecordsResultEntry putRecordsResultEntry = putRecordsResultEntryList.get(i);
-      if (putRecordsResultEntry.getErrorCode() != null) {
-        failedPutRecordsRequestEntryList.add(putRecordRequestEntry);
+      final IRecord record = records.get(indexedEntry.getForward());
+
+      if (putRecordsResultEntry.getErrorCode() == null) {
+        results[indexedEntry.getForward()] = ProduceRecordResult.succeeded(record,
+          putRecordsResultEntry.getShardId(), putRecordsResultEntry.getSequenceNumber());
+
+        if (!currentShardLocator.isOpenShardId(putRecordsResultEntry.getShardId())) {
+          unknownShardId = putRecordsResultEntry.getShardId();
+        }
+      } else {
+        results[indexedEntry.getForward()] = ProduceRecordResult.failed(record,
+          putRecordsResultEntry.getErrorCode(), putRecordsResultEntry.getErrorMessage());
+        failedBatch.add(indexedEntry);
+
+        if (partitionKeySalter != null && PartitionKeySalter.THROTTLED_ERROR_CODE.equals(putRecordsResultEntry.getErrorCode())) {
+          partitionKeySalter.onThrottled(record);
+        }
+      }
+    }
+
+    // a shard split or merge, the locator still maps keys to a closed parent shard.
+    if (unknownShardId != null) {
+      this.refreshStaleShards("record is put to a shard not open in locator, shardId: " + unknownShardId);
+    }
+
+    return Optional.of(failedBatch);
+  }
+
+  /**
+   * Records to indexed entries, index is position of records.
+   *
+   * @param records produce records.
+   * @param results result array, oversize records are marked as failed.
+   *
+   * @return indexed entries except oversize records.
+   */
+  private List<Tuple2<Integer, PutRecordsRequestEntry>> toIndexedEntries(final List<IRecord> records,
+                                                                         final ProduceRecordResult[] results) {
+    final List<Tuple2<Integer, PutRecordsRequestEntry>> indexedEntries = new ArrayList<>(records.size());
+
+    for (int i = 0; i < records.size(); i++) {
+      final PutRecordsRequestEntry entry = this.toPutRecordsRequestEntry(records.get(i));
+      final long entrySize = PutRecordsBatcher.getEntrySize(entry);
+
+      if (PutRecordsBatcher.isOversize(entrySize)) {
+        results[i] = this.toRecordTooLargeResult(records.get(i), entrySize);
+      } else {
+        indexedEntries.add(new Tuple2<>(i, entry));
       }
     }
 
-    return failedPutRecordsRequestEntryList;
+    return indexedEntries;
   }
 
-  private List<PutRecordsRequestEntry> toPutRecordsRequestEntryList(List<IRecord> records) {
-    logger.debug("records to PutRecordsRequestEntryList. record count: " + records.size());
+  private ProduceRecordResult toRecordTooLargeResult(final IRecord record, final long entrySize) {
+    logger.error("failed put record. record is too large, size: " + entrySize + ", " +
+      "limit: " + PutRecordsBatcher.MAX_BYTES_PER_RECORD);
 
-    return records.stream().map(this::toPutRecordsRequestEntry).collect(Collectors.toList());
+    return ProduceRecordResult.failed(record, ProduceRecordResult.ERROR_CODE_RECORD_TOO_LARGE,
+      "record size " + entrySize + " exceeds limit " + PutRecordsBatcher.MAX_BYTES_PER_RECORD);
   }
 
   private PutRecordsRequestEntry toPutRecordsRequestEntry(IRecord record) {
     logger.debug("record to PutRecordsRequestEntry. record: " + record.toString());
 
+    // user records of an aggregated record are encoded and salted by aggregator.
+    if (record instanceof AggregatedRecord) {
+      return new PutRecordsRequestEntry()
+        .withPartitionKey(record.getPartitionKey())
+        .withExplicitHashKey(((AggregatedRecord) record).getExplicitHashKey().orElse(null))
+        .withData(record.getData());
+    }
+
     return new PutRecordsRequestEntry()
       .withPartitionKey(record.getPartitionKey())
-      .withData(record.getData());
+      .withExplicitHashKey(this.getExplicitHashKey(record))
+      .withData(recordEncoder.encode(record.getData()));
+  }
+
+  private static ExecutorService newShardExecutor(final int threadCount) {
+    final AtomicInteger threadNumber = new AtomicInteger();
+
+    return Executors.newFixedThreadPool(Math.max(1, threadCount), runnable -> {
+      final Thread thread = new Thread(runnable, "api-producer-shard-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * @return salted explicit hash key of a hot partition key, null if not salted. {@link PartitionKeySalter}
+   */
+  private String getExplicitHashKey(final IRecord record) {
+    return partitionKeySalter == null ? null : partitionKeySalter.getExplicitHashKey(record.getPartitionKey()).orElse(null);
   }
 }
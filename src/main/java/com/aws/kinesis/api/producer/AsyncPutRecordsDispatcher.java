@@ -0,0 +1,305 @@
+package com.aws.kinesis.api.producer;
+
+import com.amazonaws.services.kinesis.model.*;
+import com.aws.kinesis.api.ApiClient;
+import com.aws.kinesis.api.PartitionKeySalter;
+import com.aws.kinesis.record.IRecord;
+import com.utils.AppConfig;
+import com.utils.Tuple2;
+import com.utils.retry.Retry;
+import com.utils.retry.RetryPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Pipelined asynchronous PutRecords dispatcher.
+ *
+ * Batches are queued and sent while the in-flight window {@link InFlightWindow} has a free slot,
+ * so several PutRecords requests are in flight at once.
+ * Failed entries are re-queued after async backoff {@link Retry#backoffAsync(String)}, no thread is blocked while waiting.
+ *
+ * With shard rate limiter {@link ShardRateLimiter}, entries of a rate limited shard are split off
+ * and re-queued when the shard has tokens again, the rest of the batch is sent right away.
+ */
+public class AsyncPutRecordsDispatcher {
+  private static Logger logger = LoggerFactory.getLogger(AsyncPutRecordsDispatcher.class);
+
+  private static final RetryPolicy PRODUCE_RETRY_POLICY = RetryPolicy.forOperation("produce");
+
+  private static final String THROTTLED_ERROR_CODE = ProvisionedThroughputExceededException.class.getSimpleName();
+
+  private final ApiClient apiClient;
+  private final String streamName;
+  private final InFlightWindow window;
+  private final ShardRateLimiter shardRateLimiter;
+  private final PartitionKeySalter partitionKeySalter;
+  private final Queue<PendingBatch> pendingBatches = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Constructor
+   *
+   * @param apiClient aws sdk kinesis client.
+   * @param streamName checked stream name.
+   * @param window in-flight window.
+   * @param shardRateLimiter shard rate limiter, no rate limit if null.
+   * @param partitionKeySalter receives throttled records, no salting feedback if null.
+   */
+  public AsyncPutRecordsDispatcher(final ApiClient apiClient,
+                                   final String streamName,
+                                   final InFlightWindow window,
+                                   final ShardRateLimiter shardRateLimiter,
+                                   final PartitionKeySalter partitionKeySalter) {
+    this.apiClient = apiClient;
+    this.streamName = streamName;
+    this.window = window;
+    this.shardRateLimiter = shardRateLimiter;
+    this.partitionKeySalter = partitionKeySalter;
+  }
+
+  public AsyncPutRecordsDispatcher(final ApiClient apiClient,
+                                   final String streamName,
+                                   final InFlightWindow window,
+                                   final ShardRateLimiter shardRateLimiter) {
+    this(apiClient, streamName, window, shardRateLimiter, null);
+  }
+
+  public AsyncPutRecordsDispatcher(final ApiClient apiClient,
+                                   final String streamName,
+                                   final ShardRateLimiter shardRateLimiter,
+                                   final PartitionKeySalter partitionKeySalter) {
+    this(apiClient, streamName,
+      new InFlightWindow(AppConfig.getProducerInitialInFlightRequests(), AppConfig.getProducerMaxInFlightRequests()),
+      shardRateLimiter, partitionKeySalter);
+  }
+
+  public AsyncPutRecordsDispatcher(final ApiClient apiClient, final String streamName, final ShardRateLimiter shardRateLimiter) {
+    this(apiClient, streamName, shardRateLimiter, null);
+  }
+
+  public AsyncPutRecordsDispatcher(final ApiClient apiClient, final String streamName) {
+    this(apiClient, streamName, (ShardRateLimiter) null);
+  }
+
+  // Getter >>
+  public InFlightWindow getWindow() { return window; }
+  public int getPendingBatchCount() { return pendingBatches.size(); }
+  // << Getter
+
+  /**
+   * Submit a limit-compliant batch. {@link PutRecordsBatcher}
+   *
+   * @param batch record and its put records request entry.
+   *
+   * @return per-record result future of the batch, same order as batch.
+   */
+  public CompletableFuture<List<ProduceRecordResult>> submit(final List<Tuple2<IRecord, PutRecordsRequestEntry>> batch) {
+    logger.debug("submit batch. stream name: " + streamName + ", count: " + batch.size());
+
+    final BatchState batchState = new BatchState(batch);
+
+    pendingBatches.add(new PendingBatch(batchState,
+      IntStream.range(0, batch.size()).boxed().collect(Collectors.toList()),
+      PRODUCE_RETRY_POLICY.newRetry()));
+    this.dispatch();
+
+    return batchState.future;
+  }
+
+  /**
+   * Send pending batches while in-flight window has free slot.
+   */
+  private void dispatch() {
+    while (window.tryAcquire()) {
+      final PendingBatch pendingBatch = pendingBatches.poll();
+
+      if (pendingBatch == null) {
+        window.release();
+        return;
+      }
+
+      this.send(pendingBatch);
+    }
+  }
+
+  private void send(final PendingBatch pendingBatch) {
+    final List<Integer> sendIndexes;
+
+    if (shardRateLimiter == null) {
+      sendIndexes = pendingBatch.indexes;
+    } else {
+      final Tuple2<List<Integer>, List<Integer>> admission = shardRateLimiter
+        .admit(pendingBatch.indexes, pendingBatch::getEntry);
+
+      sendIndexes = admission.getForward();
+
+      if (!admission.getRear().isEmpty()) {
+        final PendingBatch deferredBatch = new PendingBatch(pendingBatch.state, admission.getRear(), pendingBatch.retry.copy());
+
+        if (!sendIndexes.isEmpty()) pendingBatch.state.outstandingParts.incrementAndGet();
+        this.schedule(deferredBatch, shardRateLimiter.getWaitMillis(admission.getRear(), pendingBatch::getEntry));
+      }
+
+      if (sendIndexes.isEmpty()) {
+        window.release();
+        return;
+      }
+    }
+
+    final PendingBatch sendBatch = sendIndexes == pendingBatch.indexes ? pendingBatch :
+      new PendingBatch(pendingBatch.state, sendIndexes, pendingBatch.retry);
+
+    logger.debug("send batch. stream name: " + streamName + ", count: " + sendBatch.indexes.size() + ", " +
+      "attempts: " + sendBatch.retry.getAttempt() + "/" + PRODUCE_RETRY_POLICY.getMaxAttempts() + ", window: " + window.getWindowSize());
+
+    final PutRecordsRequest putRecordsRequest = new PutRecordsRequest()
+      .withStreamName(streamName)
+      .withRecords(sendBatch.indexes.stream().map(sendBatch::getEntry).collect(Collectors.toList()));
+
+    apiClient.putRecordsAsync(putRecordsRequest).whenComplete((putRecordsResult, throwable) -> {
+      if (throwable == null) {
+        this.onRequestCompleted(sendBatch, putRecordsResult);
+      } else {
+        this.onRequestFailed(sendBatch,
+          throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable);
+      }
+      this.dispatch();
+    });
+  }
+
+  private void onRequestCompleted(final PendingBatch pendingBatch, final PutRecordsResult putRecordsResult) {
+    final List<PutRecordsResultEntry> putRecordsResultEntryList = putRecordsResult.getRecords();
+    final List<Integer> failedIndexes = new ArrayList<>();
+
+    boolean throttled = false;
+
+    for (int i = 0; i < putRecordsResultEntryList.size(); i++) {
+      final int index = pendingBatch.indexes.get(i);
+      final IRecord record = pendingBatch.getRecord(index);
+      final PutRecordsResultEntry putRecordsResultEntry = putRecordsResultEntryList.get(i);
+
+      if (putRecordsResultEntry.getErrorCode() == null) {
+        pendingBatch.state.results[index] = ProduceRecordResult.succeeded(record,
+          putRecordsResultEntry.getShardId(), putRecordsResultEntry.getSequenceNumber());
+      } else {
+        pendingBatch.state.results[index] = ProduceRecordResult.failed(record,
+          putRecordsResultEntry.getErrorCode(), putRecordsResultEntry.getErrorMessage());
+        failedIndexes.add(index);
+
+        if (THROTTLED_ERROR_CODE.equals(putRecordsResultEntry.getErrorCode())) {
+          throttled = true;
+          if (partitionKeySalter != null) partitionKeySalter.onThrottled(record);
+        }
+      }
+    }
+
+    if (throttled) window.onThrottled(); else window.onSuccess();
+
+    if (failedIndexes.isEmpty()) {
+      pendingBatch.state.completePart();
+    } else {
+      logger.debug("failed put records. re-produce record, count: " + failedIndexes.size());
+      this.retry(pendingBatch, failedIndexes);
+    }
+  }
+
+  private void onRequestFailed(final PendingBatch pendingBatch, final Throwable throwable) {
+    logger.error("failed put records async request. stream name: " + streamName + ", " +
+      "count: " + pendingBatch.indexes.size() + ", exception: " + throwable.getClass().getSimpleName());
+    logger.error(throwable.getMessage());
+
+    for (int index : pendingBatch.indexes) {
+      pendingBatch.state.results[index] = ProduceRecordResult.failed(pendingBatch.getRecord(index),
+        throwable.getClass().getSimpleName(), throwable.getMessage());
+    }
+
+    if (throwable instanceof ProvisionedThroughputExceededException) {
+      window.onThrottled();
+      this.retry(pendingBatch, pendingBatch.indexes);
+    } else if (throwable instanceof ResourceNotFoundException || throwable instanceof InvalidArgumentException) {
+      window.onFailure();
+      pendingBatch.state.completePart();
+    } else {
+      window.onFailure();
+      this.retry(pendingBatch, pendingBatch.indexes);
+    }
+  }
+
+  private void retry(final PendingBatch pendingBatch, final List<Integer> retryIndexes) {
+    pendingBatch.retry.backoffAsync("retry put records. stream: " + streamName + ", count: " + retryIndexes.size() + ",")
+      .thenAccept(retried -> {
+        if (!retried) {
+          logger.error("failed produce records batch. no more retry. " +
+            "stream: " + streamName + ", remain record count: " + retryIndexes.size());
+          pendingBatch.state.completePart();
+          return;
+        }
+
+        pendingBatches.add(new PendingBatch(pendingBatch.state, retryIndexes, pendingBatch.retry));
+        this.dispatch();
+      });
+  }
+
+  private void schedule(final PendingBatch pendingBatch, final long delayMillis) {
+    Retry.delayAsync(delayMillis).thenRun(() -> {
+      pendingBatches.add(pendingBatch);
+      this.dispatch();
+    });
+  }
+
+  /**
+   * Submitted batch state.
+   *
+   * A batch may be split into several parts (rate limit, retry),
+   * future is completed when every part is finished.
+   */
+  private static class BatchState {
+    private final List<Tuple2<IRecord, PutRecordsRequestEntry>> batch;
+    private final ProduceRecordResult[] results;
+    private final AtomicInteger outstandingParts = new AtomicInteger(1);
+    private final CompletableFuture<List<ProduceRecordResult>> future = new CompletableFuture<>();
+
+    private BatchState(List<Tuple2<IRecord, PutRecordsRequestEntry>> batch) {
+      this.batch = batch;
+      this.results = new ProduceRecordResult[batch.size()];
+    }
+
+    private void completePart() {
+      if (outstandingParts.decrementAndGet() == 0) {
+        future.complete(Arrays.asList(results));
+      }
+    }
+  }
+
+  /**
+   * Batch part waiting for send.
+   */
+  private static class PendingBatch {
+    private final BatchState state;
+    private final List<Integer> indexes;
+    // owned by this part, a split part takes a copy.
+    private final Retry retry;
+
+    private PendingBatch(BatchState state, List<Integer> indexes, Retry retry) {
+      this.state = state;
+      this.indexes = indexes;
+      this.retry = retry;
+    }
+
+    private IRecord getRecord(int index) {
+      return state.batch.get(index).getForward();
+    }
+
+    private PutRecordsRequestEntry getEntry(int index) {
+      return state.batch.get(index).getRear();
+    }
+  }
+}
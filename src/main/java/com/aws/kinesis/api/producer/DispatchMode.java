@@ -0,0 +1,12 @@
+package com.aws.kinesis.api.producer;
+
+/**
+ * ApiProducer produce dispatch mode.
+ *
+ * BATCH : records are packed into batches in order, batches are put one after another.
+ * SHARD : records are grouped by target shard, each shard has its own requests and retries.
+ */
+public enum DispatchMode {
+  BATCH,
+  SHARD
+}
@@ -0,0 +1,66 @@
+package com.aws.kinesis.api.producer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Adaptive in-flight request window.
+ *
+ * Additive increase, multiplicative decrease (AIMD).
+ *  - success: window grows by 1 for every full window of succeeded requests.
+ *  - throttled: window is halved.
+ *
+ * Window size is kept between 1 and max size.
+ */
+public class InFlightWindow {
+  private static Logger logger = LoggerFactory.getLogger(InFlightWindow.class);
+
+  private static final double MIN_WINDOW_SIZE = 1.0;
+
+  private final double maxWindowSize;
+
+  private double windowSize;
+  private int inFlightCount = 0;
+
+  public InFlightWindow(final int initialWindowSize, final int maxWindowSize) {
+    this.maxWindowSize = Math.max(MIN_WINDOW_SIZE, maxWindowSize);
+    this.windowSize = Math.min(this.maxWindowSize, Math.max(MIN_WINDOW_SIZE, initialWindowSize));
+  }
+
+  // Getter >>
+  public synchronized int getWindowSize() { return (int) windowSize; }
+  public synchronized int getInFlightCount() { return inFlightCount; }
+  // << Getter
+
+  /**
+   * Acquire an in-flight slot if window is not full.
+   *
+   * @return true if acquired, caller must release with one of on* method.
+   */
+  public synchronized boolean tryAcquire() {
+    if (inFlightCount < (int) windowSize) {
+      inFlightCount++;
+      return true;
+    }
+    return false;
+  }
+
+  public synchronized void release() {
+    inFlightCount = Math.max(0, inFlightCount - 1);
+  }
+
+  public synchronized void onSuccess() {
+    this.release();
+    windowSize = Math.min(maxWindowSize, windowSize + (1.0 / windowSize));
+  }
+
+  public synchronized void onThrottled() {
+    this.release();
+    windowSize = Math.max(MIN_WINDOW_SIZE, windowSize / 2.0);
+    logger.debug("throttled, decrease in-flight window. size: " + (int) windowSize);
+  }
+
+  public synchronized void onFailure() {
+    this.release();
+  }
+}
@@ -0,0 +1,62 @@
+package com.aws.kinesis.api.producer;
+
+import com.aws.kinesis.record.IRecord;
+
+import java.util.Optional;
+
+/**
+ * Per-record produce outcome.
+ *
+ * Succeeded result has shard id and sequence number,
+ * failed result has error code and error message.
+ */
+public class ProduceRecordResult {
+  public static final String ERROR_CODE_RECORD_TOO_LARGE = "RecordTooLarge";
+  public static final String ERROR_CODE_REQUEST_FAILED = "RequestFailed";
+  public static final String ERROR_CODE_BUFFER_FULL = "BufferFull";
+
+  private final IRecord record;
+  private final String shardId;
+  private final String sequenceNumber;
+  private final String errorCode;
+  private final String errorMessage;
+
+  private ProduceRecordResult(IRecord record, String shardId, String sequenceNumber, String errorCode, String errorMessage) {
+    this.record = record;
+    this.shardId = shardId;
+    this.sequenceNumber = sequenceNumber;
+    this.errorCode = errorCode;
+    this.errorMessage = errorMessage;
+  }
+
+  public static ProduceRecordResult succeeded(final IRecord record, final String shardId, final String sequenceNumber) {
+    return new ProduceRecordResult(record, shardId, sequenceNumber, null, null);
+  }
+
+  public static ProduceRecordResult failed(final IRecord record, final String errorCode, final String errorMessage) {
+    return new ProduceRecordResult(record, null, null, errorCode, errorMessage);
+  }
+
+  // Getter >>
+  public IRecord getRecord() { return record; }
+  public Optional<String> getShardId() { return Optional.ofNullable(shardId); }
+  public Optional<String> getSequenceNumber() { return Optional.ofNullable(sequenceNumber); }
+  public Optional<String> getErrorCode() { return Optional.ofNullable(errorCode); }
+  public Optional<String> getErrorMessage() { return Optional.ofNullable(errorMessage); }
+  // << Getter
+
+  public boolean isSuccessful() {
+    return errorCode == null;
+  }
+
+  @Override
+  public String toString() {
+    return "ProduceRecordResult{" +
+      "partitionKey='" + record.getPartitionKey() + '\'' +
+      ", shardId='" + shardId + '\'' +
+      ", sequenceNumber='" + sequenceNumber + '\'' +
+      ", errorCode='" + errorCode + '\'' +
+      ", errorMessage='" + errorMessage + '\'' +
+      '}';
+  }
+}
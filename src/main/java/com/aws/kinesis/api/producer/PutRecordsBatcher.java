@@ -0,0 +1,103 @@
+package com.aws.kinesis.api.producer;
+
+import com.amazonaws.services.kinesis.model.PutRecordsRequestEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Split records into PutRecords limit-compliant batches.
+ *
+ * PutRecords request limits
+ *  - 500 records per request.
+ *  - 5 MiB per request, including partition keys.
+ *  - 1 MiB per record, including partition key.
+ *
+ * @see <a href="https://docs.aws.amazon.com/kinesis/latest/APIReference/API_PutRecords.html">PutRecords</a>
+ */
+public class PutRecordsBatcher {
+  private static Logger logger = LoggerFactory.getLogger(PutRecordsBatcher.class);
+
+  public static final int MAX_RECORDS_PER_REQUEST = 500;
+  public static final long MAX_BYTES_PER_REQUEST = 5L * 1024L * 1024L;
+  public static final long MAX_BYTES_PER_RECORD = 1024L * 1024L;
+
+  private PutRecordsBatcher() {}
+
+  /**
+   * Entry size counted against the PutRecords limits.
+   *
+   * @param entry put records request entry.
+   *
+   * @return data remaining bytes + utf-8 encoded partition key bytes.
+   */
+  public static long getEntrySize(final PutRecordsRequestEntry entry) {
+    final long dataSize = entry.getData() == null ? 0L : entry.getData().remaining();
+    final long partitionKeySize = entry.getPartitionKey() == null ? 0L :
+      entry.getPartitionKey().getBytes(StandardCharsets.UTF_8).length;
+
+    return dataSize + partitionKeySize;
+  }
+
+  public static boolean isOversize(final long entrySize) {
+    return entrySize > MAX_BYTES_PER_RECORD;
+  }
+
+  public static boolean isOversize(final PutRecordsRequestEntry entry) {
+    return isOversize(getEntrySize(entry));
+  }
+
+  /**
+   * Pack items into batches in the given order.
+   *
+   * A new batch starts when adding the next item would exceed the record count or byte limit.
+   * Oversize items must be filtered out by the caller, they are never placed in a batch.
+   *
+   * @param items items to be packed.
+   * @param sizeOf item size function. (bytes counted against the request limit)
+   * @param <E> item type.
+   *
+   * @return batch list, every batch is limit-compliant.
+   */
+  public static <E> List<List<E>> split(final List<E> items, final ToLongFunction<E> sizeOf) {
+    logger.debug("split items to batches. item count: " + items.size());
+
+    final List<List<E>> batches = new ArrayList<>();
+
+    List<E> currentBatch = new ArrayList<>();
+    long currentBatchBytes = 0L;
+
+    for (E item : items) {
+      final long itemSize = sizeOf.applyAsLong(item);
+
+      if (isOversize(itemSize)) {
+        logger.error("skip oversize item. size: " + itemSize + ", limit: " + MAX_BYTES_PER_RECORD);
+        continue;
+      }
+
+      if (currentBatch.size() >= MAX_RECORDS_PER_REQUEST || currentBatchBytes + itemSize > MAX_BYTES_PER_REQUEST) {
+        batches.add(currentBatch);
+        currentBatch = new ArrayList<>();
+        currentBatchBytes = 0L;
+      }
+
+      currentBatch.add(item);
+      currentBatchBytes += itemSize;
+    }
+
+    if (!currentBatch.isEmpty()) {
+      batches.add(currentBatch);
+    }
+
+    logger.debug("split items to batches. batch count: " + batches.size());
+    return batches;
+  }
+
+  public static List<List<PutRecordsRequestEntry>> split(final List<PutRecordsRequestEntry> entries) {
+    return split(entries, PutRecordsBatcher::getEntrySize);
+  }
+}
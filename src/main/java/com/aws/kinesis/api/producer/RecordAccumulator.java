@@ -0,0 +1,278 @@
+package com.aws.kinesis.api.producer;
+
+import com.aws.kinesis.record.IRecord;
+import com.utils.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Accumulate single record sends into batches.
+ *
+ * Records are appended to one of striped buffers picked by sender thread, each stripe has its own lock.
+ * A stripe is produced as a batch when it reaches max count or max bytes,
+ * or linger time after its first record.
+ *
+ * Batches of a stripe are produced one at a time in drain order, so records of a sender thread keep their order.
+ * Bytes of records sent and not yet produced are bounded by buffer bytes, send blocks while the buffer is full.
+ */
+public class RecordAccumulator {
+  private static Logger logger = LoggerFactory.getLogger(RecordAccumulator.class);
+
+  private static final ScheduledExecutorService lingerScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    final Thread thread = new Thread(runnable, "record-accumulator-linger");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  // produce blocks until batch results, keep it off the common pool. a stripe has at most one batch in flight.
+  private static final ExecutorService produceExecutor = newProduceExecutor(AppConfig.getProducerAccumulatorStripeCount());
+
+  private final Function<List<IRecord>, List<ProduceRecordResult>> produceRecords;
+  private final int maxCount;
+  private final long maxBytes;
+  private final long lingerMillis;
+  private final Stripe[] stripes;
+  private final long bufferBytes;
+  private final long maxBlockMillis;
+
+  // guarded by bufferLock.
+  private final Object bufferLock = new Object();
+  private long bufferedBytes = 0L;
+
+  /**
+   * Constructor
+   *
+   * @param produceRecords produce function, per-record result list in the same order as records.
+   * @param maxCount max record count of a batch.
+   * @param maxBytes max record bytes of a batch, a batch is produced when it reaches.
+   * @param lingerMillis max wait time of a record before produce.
+   * @param stripeCount buffer stripe count.
+   * @param bufferBytes max bytes of records sent and not yet produced, a record larger than the buffer is sent alone.
+   * @param maxBlockMillis max wait time of send for buffer space, the record fails after it.
+   */
+  public RecordAccumulator(final Function<List<IRecord>, List<ProduceRecordResult>> produceRecords,
+                           final int maxCount,
+                           final long maxBytes,
+                           final long lingerMillis,
+                           final int stripeCount,
+                           final long bufferBytes,
+                           final long maxBlockMillis) {
+    this.produceRecords = produceRecords;
+    this.maxCount = Math.max(1, maxCount);
+    this.maxBytes = maxBytes;
+    this.lingerMillis = lingerMillis;
+    this.stripes = new Stripe[Math.max(1, stripeCount)];
+    this.bufferBytes = bufferBytes;
+    this.maxBlockMillis = maxBlockMillis;
+
+    for (int i = 0; i < stripes.length; i++) {
+      stripes[i] = new Stripe();
+    }
+  }
+
+  public RecordAccumulator(final Function<List<IRecord>, List<ProduceRecordResult>> produceRecords,
+                           final int maxCount,
+                           final long maxBytes,
+                           final long lingerMillis,
+                           final int stripeCount) {
+    this(produceRecords, maxCount, maxBytes, lingerMillis, stripeCount, Long.MAX_VALUE, 0L);
+  }
+
+  public long getBufferedBytes() {
+    synchronized (bufferLock) {
+      return bufferedBytes;
+    }
+  }
+
+  public int getPendingRecordCount() {
+    int count = 0;
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        count += stripe.records.size();
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Send a record, blocks while the buffer is full.
+   *
+   * @return produce result future, completed when the batch of the record is produced.
+   *         a failed result with {@link ProduceRecordResult#ERROR_CODE_BUFFER_FULL} if no buffer space in max block time.
+   */
+  public CompletableFuture<ProduceRecordResult> send(final IRecord record) {
+    final long recordBytes = getRecordBytes(record);
+
+    if (!this.reserve(recordBytes)) {
+      logger.error("failed send record. accumulator buffer is full, buffer bytes: " + bufferBytes);
+      return CompletableFuture.completedFuture(ProduceRecordResult.failed(record, ProduceRecordResult.ERROR_CODE_BUFFER_FULL,
+        "accumulator buffer " + bufferBytes + " bytes is full for " + maxBlockMillis + " millis"));
+    }
+
+    final PendingRecord pendingRecord = new PendingRecord(record, recordBytes);
+    final Stripe stripe = stripes[(int) (Thread.currentThread().getId() % stripes.length)];
+
+    synchronized (stripe) {
+      if (stripe.records.isEmpty()) {
+        final long generation = stripe.generation;
+        lingerScheduler.schedule(() -> this.flush(stripe, generation), lingerMillis, TimeUnit.MILLISECONDS);
+      }
+
+      stripe.records.add(pendingRecord);
+      stripe.bytes += recordBytes;
+
+      if (stripe.records.size() >= maxCount || stripe.bytes >= maxBytes) this.produce(stripe, stripe.drain());
+    }
+
+    return pendingRecord.future;
+  }
+
+  /**
+   * Produce all pending records without waiting for linger time.
+   *
+   * @return future completed when the pending records at the time of call are produced.
+   */
+  public CompletableFuture<Void> flush() {
+    final List<CompletableFuture<Void>> batchFutures = new ArrayList<>(stripes.length);
+
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        if (!stripe.records.isEmpty()) batchFutures.add(this.produce(stripe, stripe.drain()));
+      }
+    }
+
+    return CompletableFuture.allOf(batchFutures.toArray(new CompletableFuture[0]));
+  }
+
+  private void flush(final Stripe stripe, final long generation) {
+    synchronized (stripe) {
+      // already produced by size or flush.
+      if (stripe.generation != generation || stripe.records.isEmpty()) return;
+      this.produce(stripe, stripe.drain());
+    }
+  }
+
+  /**
+   * Chain a drained batch after the previous batch of the stripe, called with the stripe lock.
+   *
+   * @return future completed when the batch is produced.
+   */
+  private CompletableFuture<Void> produce(final Stripe stripe, final List<PendingRecord> batch) {
+    logger.debug("produce accumulated records. count: " + batch.size());
+
+    final List<IRecord> records = batch.stream().map(pendingRecord -> pendingRecord.record).collect(Collectors.toList());
+
+    stripe.lastBatch = stripe.lastBatch
+      .thenApplyAsync(ignored -> produceRecords.apply(records), produceExecutor)
+      .handle((results, throwable) -> {
+        if (throwable != null) {
+          logger.error("failed produce accumulated records. count: " + batch.size());
+          logger.error(throwable.getMessage());
+        }
+
+        // buffer space is released before results, a completed sender sees the space.
+        this.release(batch.stream().mapToLong(pendingRecord -> pendingRecord.bytes).sum());
+
+        for (int i = 0; i < batch.size(); i++) {
+          if (throwable == null) {
+            batch.get(i).future.complete(results.get(i));
+          } else {
+            batch.get(i).future.completeExceptionally(throwable);
+          }
+        }
+        return null;
+      });
+
+    return stripe.lastBatch;
+  }
+
+  /**
+   * Reserve buffer space for a record, wait up to max block time.
+   *
+   * @return false if no buffer space.
+   */
+  private boolean reserve(final long recordBytes) {
+    final long deadlineMillis = System.currentTimeMillis() + maxBlockMillis;
+
+    synchronized (bufferLock) {
+      // a record larger than the buffer waits for an empty buffer.
+      while (bufferedBytes > 0 && bufferedBytes + recordBytes > bufferBytes) {
+        final long waitMillis = deadlineMillis - System.currentTimeMillis();
+        if (waitMillis <= 0) return false;
+
+        try {
+          bufferLock.wait(waitMillis);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return false;
+        }
+      }
+      bufferedBytes += recordBytes;
+      return true;
+    }
+  }
+
+  private void release(final long bytes) {
+    synchronized (bufferLock) {
+      bufferedBytes -= bytes;
+      bufferLock.notifyAll();
+    }
+  }
+
+  private static ExecutorService newProduceExecutor(final int threadCount) {
+    final AtomicInteger threadNumber = new AtomicInteger();
+
+    return Executors.newFixedThreadPool(Math.max(1, threadCount), runnable -> {
+      final Thread thread = new Thread(runnable, "record-accumulator-produce-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  private static long getRecordBytes(final IRecord record) {
+    return record.getData().remaining() + record.getPartitionKey().getBytes(StandardCharsets.UTF_8).length;
+  }
+
+  private static class PendingRecord {
+    private final IRecord record;
+    private final long bytes;
+    private final CompletableFuture<ProduceRecordResult> future = new CompletableFuture<>();
+
+    private PendingRecord(final IRecord record, final long bytes) {
+      this.record = record;
+      this.bytes = bytes;
+    }
+  }
+
+  /**
+   * Buffer stripe, guarded by its own monitor.
+   * Generation is increased on every drain, a linger task of a drained generation does nothing.
+   * Last batch is the tail of produced batches, a drained batch is produced after it.
+   */
+  private static class Stripe {
+    private CompletableFuture<Void> lastBatch = CompletableFuture.completedFuture(null);
+    private List<PendingRecord> records = new ArrayList<>();
+    private long bytes = 0L;
+    private long generation = 0L;
+
+    private List<PendingRecord> drain() {
+      final List<PendingRecord> drained = records;
+      records = new ArrayList<>();
+      bytes = 0L;
+      generation++;
+      return drained;
+    }
+  }
+}
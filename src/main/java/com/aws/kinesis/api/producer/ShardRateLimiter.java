@@ -0,0 +1,136 @@
+package com.aws.kinesis.api.producer;
+
+import com.amazonaws.services.kinesis.model.PutRecordsRequestEntry;
+import com.aws.kinesis.api.ShardLocator;
+import com.utils.TokenBucket;
+import com.utils.Tuple2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Client-side per-shard write rate limiter.
+ *
+ * Each open shard has a records and a bytes token bucket {@link TokenBucket}.
+ * Entries are admitted only when both buckets of their target shard have enough tokens,
+ * so a hot shard holds back its own entries only.
+ *
+ * @see <a href="https://docs.aws.amazon.com/streams/latest/dev/service-sizes-and-limits.html">Kinesis limits</a>
+ */
+public class ShardRateLimiter {
+  private static Logger logger = LoggerFactory.getLogger(ShardRateLimiter.class);
+
+  private final long recordsPerSecond;
+  private final long bytesPerSecond;
+  private final ConcurrentHashMap<String, ShardQuota> shardQuotas = new ConcurrentHashMap<>();
+
+  private volatile ShardLocator shardLocator;
+
+  public ShardRateLimiter(final ShardLocator shardLocator, final long recordsPerSecond, final long bytesPerSecond) {
+    this.shardLocator = shardLocator;
+    this.recordsPerSecond = recordsPerSecond;
+    this.bytesPerSecond = bytesPerSecond;
+  }
+
+  // Getter >>
+  public ShardLocator getShardLocator() { return shardLocator; }
+  // << Getter
+
+  /**
+   * Replace shard locator after resharding, quotas of existing shards are kept.
+   */
+  public void setShardLocator(final ShardLocator shardLocator) {
+    this.shardLocator = shardLocator;
+  }
+
+  public Optional<String> getShardId(final PutRecordsRequestEntry entry) {
+    return shardLocator.getShardId(entry.getPartitionKey(), entry.getExplicitHashKey());
+  }
+
+  /**
+   * Try to take record and bytes tokens of target shard.
+   *
+   * @param entry put records request entry.
+   *
+   * @return true if admitted. entry of unknown shard is always admitted.
+   */
+  public boolean tryAcquire(final PutRecordsRequestEntry entry) {
+    return this.getShardId(entry)
+      .map(shardId -> this.getShardQuota(shardId).tryAcquire(PutRecordsBatcher.getEntrySize(entry)))
+      .orElse(true);
+  }
+
+  public long getWaitMillis(final PutRecordsRequestEntry entry) {
+    return this.getShardId(entry)
+      .map(shardId -> this.getShardQuota(shardId).getWaitMillis(PutRecordsBatcher.getEntrySize(entry)))
+      .orElse(0L);
+  }
+
+  /**
+   * Split items into admitted and deferred in the given order.
+   *
+   * @param items items to be sent.
+   * @param toEntry item to put records request entry function.
+   * @param <E> item type.
+   *
+   * @return Tuple2(admitted items, deferred items)
+   */
+  public <E> Tuple2<List<E>, List<E>> admit(final List<E> items, final Function<E, PutRecordsRequestEntry> toEntry) {
+    final List<E> admitted = new ArrayList<>(items.size());
+    final List<E> deferred = new ArrayList<>();
+
+    for (E item : items) {
+      if (this.tryAcquire(toEntry.apply(item))) {
+        admitted.add(item);
+      } else {
+        deferred.add(item);
+      }
+    }
+
+    if (!deferred.isEmpty()) {
+      logger.debug("shard rate limited. admitted count: " + admitted.size() + ", deferred count: " + deferred.size());
+    }
+    return new Tuple2<>(admitted, deferred);
+  }
+
+  /**
+   * Shortest wait time until one of deferred items can be admitted.
+   */
+  public <E> long getWaitMillis(final List<E> deferred, final Function<E, PutRecordsRequestEntry> toEntry) {
+    return deferred.stream()
+      .mapToLong(item -> this.getWaitMillis(toEntry.apply(item)))
+      .min()
+      .orElse(0L);
+  }
+
+  private ShardQuota getShardQuota(final String shardId) {
+    return shardQuotas.computeIfAbsent(shardId, k -> new ShardQuota(recordsPerSecond, bytesPerSecond));
+  }
+
+  private static class ShardQuota {
+    private final TokenBucket recordsBucket;
+    private final TokenBucket bytesBucket;
+
+    private ShardQuota(long recordsPerSecond, long bytesPerSecond) {
+      this.recordsBucket = new TokenBucket(recordsPerSecond, recordsPerSecond);
+      this.bytesBucket = new TokenBucket(bytesPerSecond, bytesPerSecond);
+    }
+
+    private synchronized boolean tryAcquire(long bytes) {
+      if (this.getWaitMillis(bytes) > 0) return false;
+
+      recordsBucket.tryAcquire(1.0);
+      bytesBucket.tryAcquire(bytes);
+      return true;
+    }
+
+    private synchronized long getWaitMillis(long bytes) {
+      return Math.max(recordsBucket.getWaitMillis(1.0), bytesBucket.getWaitMillis(bytes));
+    }
+  }
+}
@@ -0,0 +1,431 @@
+package com.aws.kinesis.api.producer.spill;
+
+import com.aws.kinesis.record.IRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+/**
+ * Disk-backed FIFO record queue on memory-mapped segment files.
+ *
+ * Entry format: [int payload length][int payload crc32][short partition key length][partition key][data]
+ *
+ * Payload length is written last, so an entry torn by a crash reads as the end of the segment.
+ * An entry failing its checksum at the write tail is a torn write and is cut off on recovery,
+ * elsewhere it is skipped by its length and counted as corrupted.
+ * Read position is kept in a position file, the queue survives process restart.
+ * Fully read segments are deleted. The directory is locked while the queue is open.
+ */
+public class SpillQueue {
+  private static Logger logger = LoggerFactory.getLogger(SpillQueue.class);
+
+  private static final String SEGMENT_FILE_SUFFIX = ".seg";
+  private static final String POSITION_FILE_NAME = "spill.pos";
+  private static final int ENTRY_HEADER_SIZE = 8;
+  private static final int PARTITION_KEY_LENGTH_SIZE = 2;
+
+  private final Path dir;
+  private final int segmentBytes;
+  private final TreeSet<Long> segmentIds = new TreeSet<>();
+  private final Map<Long, MappedByteBuffer> mappedSegments = new HashMap<>();
+
+  private final FileChannel positionChannel;
+  private final FileLock positionLock;
+  private final MappedByteBuffer positionBuffer;
+
+  private long readSegmentId;
+  private int readOffset;
+  private long writeSegmentId;
+  private int writeOffset;
+  private long size;
+  private long corruptedCount;
+
+  /**
+   * Constructor, open or create a queue and recover spilled records.
+   *
+   * @param dir queue directory.
+   * @param segmentBytes segment file size, a record larger than a segment can't be spilled.
+   *
+   * @throws IOException failed open queue files or queue is in use.
+   */
+  public SpillQueue(final Path dir, final int segmentBytes) throws IOException {
+    this.dir = dir;
+    this.segmentBytes = segmentBytes;
+
+    Files.createDirectories(dir);
+
+    this.positionChannel = FileChannel.open(dir.resolve(POSITION_FILE_NAME),
+      StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    this.positionLock = this.tryLock(positionChannel);
+
+    if (positionLock == null) {
+      positionChannel.close();
+      throw new IOException("spill queue is in use. dir: " + dir);
+    }
+
+    this.positionBuffer = positionChannel.map(FileChannel.MapMode.READ_WRITE, 0, 8);
+    this.recover();
+  }
+
+  // Getter >>
+  public Path getDir() { return dir; }
+  public synchronized long size() { return size; }
+  public synchronized boolean isEmpty() { return size == 0; }
+  public synchronized long getCorruptedCount() { return corruptedCount; }
+  // << Getter
+
+  /**
+   * Append a record.
+   *
+   * @param record record to spill.
+   *
+   * @return false if record is too large for a segment or failed write.
+   */
+  public synchronized boolean append(final IRecord record) {
+    final byte[] partitionKey = record.getPartitionKey().getBytes(StandardCharsets.UTF_8);
+    final ByteBuffer data = record.getData().duplicate();
+    final int payloadLength = PARTITION_KEY_LENGTH_SIZE + partitionKey.length + data.remaining();
+    final int entryLength = ENTRY_HEADER_SIZE + payloadLength;
+
+    if (partitionKey.length > 0xFFFF || entryLength > segmentBytes) {
+      logger.error("failed spill record. record is too large, size: " + entryLength + ", segment bytes: " + segmentBytes);
+      return false;
+    }
+
+    try {
+      MappedByteBuffer segment = this.getSegment(writeSegmentId);
+
+      if (segment == null || writeOffset + entryLength > segment.capacity()) {
+        logger.debug("roll spill segment. dir: " + dir + ", segment id: " + (writeSegmentId + 1));
+        segment = this.createSegment(writeSegmentId + 1);
+        writeSegmentId++;
+        writeOffset = 0;
+      }
+
+      final int nextOffset = writeOffset + entryLength;
+      if (nextOffset + 4 <= segment.capacity()) segment.putInt(nextOffset, 0);
+
+      final ByteBuffer payload = segment.duplicate();
+      payload.position(writeOffset + ENTRY_HEADER_SIZE);
+      payload.putShort((short) partitionKey.length).put(partitionKey).put(data);
+      payload.limit(payload.position()).position(writeOffset + ENTRY_HEADER_SIZE);
+
+      final CRC32 crc32 = new CRC32();
+      crc32.update(payload);
+
+      segment.putInt(writeOffset + 4, (int) crc32.getValue());
+      segment.putInt(writeOffset, payloadLength);
+
+      writeOffset = nextOffset;
+      size++;
+
+      return true;
+    } catch (IOException e) {
+      logger.error("failed spill record. dir: " + dir);
+      logger.error(e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * Read records from the head without removing.
+   *
+   * @param maxCount max record count.
+   *
+   * @return records in append order, data is copied out of segment files.
+   */
+  public synchronized List<IRecord> peek(final int maxCount) {
+    final List<IRecord> records = new ArrayList<>();
+    final Position position = new Position(readSegmentId, readOffset);
+
+    int payloadLength;
+    while (records.size() < maxCount && (payloadLength = this.seek(position)) > 0) {
+      records.add(this.readRecord(mappedSegments.get(position.segmentId), position.offset, payloadLength));
+      position.offset += ENTRY_HEADER_SIZE + payloadLength;
+    }
+
+    return records;
+  }
+
+  /**
+   * Remove records from the head and persist read position.
+   *
+   * @param count record count to remove, usually peeked record count.
+   */
+  public synchronized void remove(final int count) {
+    final Position position = new Position(readSegmentId, readOffset);
+
+    int removed = 0;
+    int payloadLength;
+    while (removed < count && (payloadLength = this.seek(position)) > 0) {
+      position.offset += ENTRY_HEADER_SIZE + payloadLength;
+      removed++;
+    }
+
+    if (position.skippedCount > 0) {
+      logger.error("drop corrupted spill entries. dir: " + dir + ", count: " + position.skippedCount);
+      corruptedCount += position.skippedCount;
+    }
+
+    readSegmentId = position.segmentId;
+    readOffset = position.offset;
+    positionBuffer.putLong(0, (readSegmentId << 32) | readOffset);
+    size -= removed;
+
+    for (long segmentId : new ArrayList<>(segmentIds.headSet(readSegmentId))) {
+      this.deleteSegment(segmentId);
+    }
+  }
+
+  /**
+   * Flush mapped segments and read position to disk.
+   */
+  public synchronized void force() {
+    mappedSegments.values().forEach(MappedByteBuffer::force);
+    positionBuffer.force();
+  }
+
+  public synchronized void close() {
+    logger.debug("close spill queue. dir: " + dir + ", size: " + size);
+
+    this.force();
+    mappedSegments.clear();
+
+    try {
+      positionLock.release();
+      positionChannel.close();
+    } catch (IOException e) {
+      logger.error("failed close spill queue. dir: " + dir);
+      logger.error(e.getMessage());
+    }
+  }
+
+  private void recover() throws IOException {
+    try (final DirectoryStream<Path> segmentPaths = Files.newDirectoryStream(dir, "*" + SEGMENT_FILE_SUFFIX)) {
+      for (Path segmentPath : segmentPaths) {
+        final String fileName = segmentPath.getFileName().toString();
+        try {
+          segmentIds.add(Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_FILE_SUFFIX.length())));
+        } catch (NumberFormatException e) {
+          logger.error("skip unknown spill segment file. path: " + segmentPath);
+        }
+      }
+    }
+
+    final long position = positionBuffer.getLong(0);
+    readSegmentId = position >>> 32;
+    readOffset = (int) position;
+
+    for (long segmentId : new ArrayList<>(segmentIds.headSet(readSegmentId))) {
+      this.deleteSegment(segmentId);
+    }
+
+    if (segmentIds.isEmpty()) {
+      readOffset = 0;
+      this.createSegment(readSegmentId);
+    } else if (segmentIds.first() != readSegmentId) {
+      readSegmentId = segmentIds.first();
+      readOffset = 0;
+    }
+
+    // write position is the end of valid entries of the last segment.
+    writeSegmentId = segmentIds.last();
+    writeOffset = writeSegmentId == readSegmentId ? readOffset : 0;
+
+    final MappedByteBuffer writeSegment = this.getSegment(writeSegmentId);
+    int payloadLength;
+    while ((payloadLength = this.readPayloadLength(writeSegment, writeOffset)) > 0) {
+      if (!this.isValidEntry(writeSegment, writeOffset, payloadLength) &&
+        !this.hasValidEntryFrom(writeSegment, writeOffset + ENTRY_HEADER_SIZE + payloadLength)) {
+        logger.error("cut off torn spill entry at write tail. dir: " + dir + ", offset: " + writeOffset);
+        break;
+      }
+      writeOffset += ENTRY_HEADER_SIZE + payloadLength;
+    }
+    if (writeOffset + 4 <= writeSegment.capacity()) writeSegment.putInt(writeOffset, 0);
+
+    final Position countPosition = new Position(readSegmentId, readOffset);
+    while ((payloadLength = this.seek(countPosition)) > 0) {
+      countPosition.offset += ENTRY_HEADER_SIZE + payloadLength;
+      size++;
+    }
+
+    logger.debug("recover spill queue. dir: " + dir + ", segment count: " + segmentIds.size() + ", size: " + size);
+  }
+
+  /**
+   * Move position to the next valid entry, skip to the following segment at the end of a segment.
+   * Corrupted entries are skipped by their length and counted in position.
+   *
+   * @return payload length of the entry, -1 if no more entry.
+   */
+  private int seek(final Position position) {
+    while (true) {
+      final MappedByteBuffer segment = this.getSegmentOrNull(position.segmentId);
+      final int payloadLength = segment == null ? -1 : this.readPayloadLength(segment, position.offset);
+
+      if (payloadLength > 0) {
+        if (this.isValidEntry(segment, position.offset, payloadLength)) return payloadLength;
+
+        position.offset += ENTRY_HEADER_SIZE + payloadLength;
+        position.skippedCount++;
+        continue;
+      }
+
+      final Long nextSegmentId = segmentIds.higher(position.segmentId);
+      if (nextSegmentId == null) return -1;
+
+      position.segmentId = nextSegmentId;
+      position.offset = 0;
+    }
+  }
+
+  /**
+   * @return payload length of an entry at offset, checksum is not verified. -1 if no entry.
+   */
+  private int readPayloadLength(final MappedByteBuffer segment, final int offset) {
+    if ((long) offset + ENTRY_HEADER_SIZE > segment.capacity()) return -1;
+
+    final int payloadLength = segment.getInt(offset);
+    if (payloadLength < PARTITION_KEY_LENGTH_SIZE ||
+      (long) offset + ENTRY_HEADER_SIZE + payloadLength > segment.capacity()) return -1;
+
+    return payloadLength;
+  }
+
+  private boolean isValidEntry(final MappedByteBuffer segment, final int offset, final int payloadLength) {
+    final ByteBuffer payload = segment.duplicate();
+    payload.limit(offset + ENTRY_HEADER_SIZE + payloadLength).position(offset + ENTRY_HEADER_SIZE);
+
+    final CRC32 crc32 = new CRC32();
+    crc32.update(payload);
+
+    if ((int) crc32.getValue() != segment.getInt(offset + 4)) {
+      logger.debug("spill entry checksum mismatch. dir: " + dir + ", offset: " + offset);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * @return true if a valid entry follows offset, a corrupted entry before it is not at the write tail.
+   */
+  private boolean hasValidEntryFrom(final MappedByteBuffer segment, int offset) {
+    int payloadLength;
+    while ((payloadLength = this.readPayloadLength(segment, offset)) > 0) {
+      if (this.isValidEntry(segment, offset, payloadLength)) return true;
+      offset += ENTRY_HEADER_SIZE + payloadLength;
+    }
+    return false;
+  }
+
+  private IRecord readRecord(final MappedByteBuffer segment, final int offset, final int payloadLength) {
+    final int payloadOffset = offset + ENTRY_HEADER_SIZE;
+    final int partitionKeyLength = segment.getShort(payloadOffset) & 0xFFFF;
+
+    final ByteBuffer entry = segment.duplicate();
+    entry.limit(payloadOffset + payloadLength).position(payloadOffset + PARTITION_KEY_LENGTH_SIZE);
+
+    final byte[] partitionKey = new byte[partitionKeyLength];
+    entry.get(partitionKey);
+
+    final ByteBuffer data = ByteBuffer.allocate(entry.remaining());
+    data.put(entry).flip();
+
+    return new SpilledRecord(new String(partitionKey, StandardCharsets.UTF_8), data);
+  }
+
+  private MappedByteBuffer getSegmentOrNull(final long segmentId) {
+    try {
+      return this.getSegment(segmentId);
+    } catch (IOException e) {
+      logger.error("failed map spill segment. dir: " + dir + ", segment id: " + segmentId);
+      logger.error(e.getMessage());
+      return null;
+    }
+  }
+
+  private MappedByteBuffer getSegment(final long segmentId) throws IOException {
+    if (!segmentIds.contains(segmentId)) return null;
+
+    MappedByteBuffer segment = mappedSegments.get(segmentId);
+
+    if (segment == null) {
+      try (final FileChannel segmentChannel = FileChannel.open(this.getSegmentPath(segmentId),
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        segment = segmentChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentChannel.size());
+      }
+      mappedSegments.put(segmentId, segment);
+    }
+
+    return segment;
+  }
+
+  private MappedByteBuffer createSegment(final long segmentId) throws IOException {
+    final MappedByteBuffer segment;
+
+    try (final FileChannel segmentChannel = FileChannel.open(this.getSegmentPath(segmentId),
+      StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      segment = segmentChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+    }
+
+    segmentIds.add(segmentId);
+    mappedSegments.put(segmentId, segment);
+
+    return segment;
+  }
+
+  private void deleteSegment(final long segmentId) {
+    logger.debug("delete spill segment. dir: " + dir + ", segment id: " + segmentId);
+
+    segmentIds.remove(segmentId);
+    mappedSegments.remove(segmentId);
+
+    try {
+      Files.deleteIfExists(this.getSegmentPath(segmentId));
+    } catch (IOException e) {
+      logger.error("failed delete spill segment. dir: " + dir + ", segment id: " + segmentId);
+      logger.error(e.getMessage());
+    }
+  }
+
+  private Path getSegmentPath(final long segmentId) {
+    return dir.resolve(String.format("%020d%s", segmentId, SEGMENT_FILE_SUFFIX));
+  }
+
+  private FileLock tryLock(final FileChannel channel) throws IOException {
+    try {
+      return channel.tryLock();
+    } catch (OverlappingFileLockException e) {
+      return null;
+    }
+  }
+
+  private static class Position {
+    private long segmentId;
+    private int offset;
+    private int skippedCount;
+
+    private Position(long segmentId, int offset) {
+      this.segmentId = segmentId;
+      this.offset = offset;
+    }
+  }
+}
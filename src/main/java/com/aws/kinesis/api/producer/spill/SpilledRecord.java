@@ -0,0 +1,47 @@
+package com.aws.kinesis.api.producer.spill;
+
+import com.aws.kinesis.record.IRecord;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+/**
+ * Record read back from the spill queue. {@link SpillQueue}
+ */
+public class SpilledRecord implements IRecord<ByteBuffer> {
+  private final String partitionKey;
+  private final ByteBuffer data;
+
+  public SpilledRecord(final String partitionKey, final ByteBuffer data) {
+    this.partitionKey = partitionKey;
+    this.data = data;
+  }
+
+  @Override
+  public String getPartitionKey() {
+    return partitionKey;
+  }
+
+  @Override
+  public ByteBuffer getValue() {
+    return data;
+  }
+
+  @Override
+  public ByteBuffer getData() {
+    return data;
+  }
+
+  @Override
+  public Optional<String> getSequenceNumber() {
+    return Optional.empty();
+  }
+
+  @Override
+  public String toString() {
+    return "SpilledRecord{" +
+      "partitionKey='" + partitionKey + '\'' +
+      ", data=" + data +
+      '}';
+  }
+}
@@ -83,8 +83,15 @@ public final class KclConsumer {
     this(AppConfig.getAwsRegion(), streamName, appName, recordProcessorFactory, AppConfig.getAwsProfile());
   }
 
+  /**
+   * Run the worker on its own thread, the worker blocks until shutdown and schedules record processors itself.
+   */
   public CompletableFuture<Void> consume() {
-    return CompletableFuture.runAsync(this::consumeRecords);
+    return CompletableFuture.runAsync(this::consumeRecords, runnable -> {
+      final Thread thread = new Thread(runnable, "kcl-worker-" + appName);
+      thread.setDaemon(true);
+      thread.start();
+    });
   }
 
   private void consumeRecords() {
@@ -10,7 +10,8 @@ import com.amazonaws.services.kinesis.clientlibrary.types.ShutdownInput;
 import com.amazonaws.services.kinesis.model.Record;
 import com.aws.kinesis.record.handler.IRecordsHandler;
 import com.utils.AppConfig;
-import com.utils.AppUtils;
+import com.utils.retry.Retry;
+import com.utils.retry.RetryPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,6 +23,8 @@ import java.util.concurrent.ConcurrentHashMap;
 abstract public class AbstractKinesisRecordsProcessor implements IKinesisRecordsProcessorImpl {
   private static final Logger logger = LoggerFactory.getLogger(AbstractKinesisRecordsProcessor.class);
 
+  private static final RetryPolicy CHECKPOINT_RETRY_POLICY = RetryPolicy.forOperation("checkpoint");
+
   //private ConcurrentHashMap<String, Object> status = new java.util.concurrent.ConcurrentHashMap<String, Object>();
 
   private long nextCheckpointTimeInMillis;
@@ -72,31 +75,29 @@ abstract public class AbstractKinesisRecordsProcessor implements IKinesisRecords
   public void checkpoint(IRecordProcessorCheckpointer checkpointer) {
     logger.info("Checkpointing shard " + kinesisShardId);
 
-    for (int i = 0; i < AppConfig.getRetryAttemptCount(); i++) {
+    final Retry retry = CHECKPOINT_RETRY_POLICY.newRetry();
+
+    do {
       try {
         checkpointer.checkpoint();
-        break;
+        return;
       } catch (ShutdownException e) {
         // Ignore checkpoint if the processor instance has been shutdown (fail over).
         logger.warn("Caught shutdown exception, skipping checkpoint.");
-        break;
+        return;
       } catch (ThrottlingException e) {
         // Backoff and re-attempt checkpoint upon transient failures
-        if (i >= (AppConfig.getRetryAttemptCount() - 1)) {
-          logger.error("Checkpoint failed after " + (i + 1) + "attempts.", e);
-          break;
-        } else {
-          logger.debug("Transient issue when checkpointing - attempt " + (i + 1) + " of "
-            + AppConfig.getRetryAttemptCount());
-          logger.debug(e.getMessage());
-        }
+        logger.debug("Transient issue when checkpointing - attempt " + retry.getAttempt() + " of "
+          + CHECKPOINT_RETRY_POLICY.getMaxAttempts());
+        logger.debug(e.getMessage());
       } catch (com.amazonaws.services.kinesis.clientlibrary.exceptions.InvalidStateException e) {
         // This indicates an issue with the DynamoDB table (check for table, provisioned IOPS).
         logger.error("Cannot save checkpoint to the DynamoDB table used by the Amazon Kinesis Client Library.", e);
-        break;
+        return;
       }
-      AppUtils.backoff("check point.");
-    }
+    } while (retry.backoff("check point."));
+
+    logger.error("Checkpoint failed after " + retry.getAttempt() + " attempts.");
   }
 
   public List<IRecordsHandler> getCheckedHandlerList(IRecordsHandler[] handlers) {
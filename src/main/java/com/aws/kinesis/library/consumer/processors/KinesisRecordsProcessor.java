@@ -1,32 +1,59 @@
 package com.aws.kinesis.library.consumer.processors;
 
 import com.amazonaws.services.kinesis.model.Record;
+import com.aws.kinesis.record.DecodedBatch;
+import com.aws.kinesis.record.codec.RecordDecoder;
 import com.aws.kinesis.record.handler.IRecordsHandler;
+import com.aws.kinesis.record.serde.ISerde;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.Array;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
 
 public class KinesisRecordsProcessor extends AbstractKinesisRecordsProcessor {
+  private static final Logger logger = LoggerFactory.getLogger(KinesisRecordsProcessor.class);
+
   private final IRecordsHandler[] handlers;
+  private final ISerde serde;
 
   private KinesisRecordsProcessor() {
     super();
     this.handlers = null;
+    this.serde = null;
   }
 
-  public KinesisRecordsProcessor(IRecordsHandler...handlers) {
+  /**
+   * @param serde record value serde of typed handlers. {@link IRecordsHandler#isTypedHandler()}
+   */
+  public KinesisRecordsProcessor(ISerde serde, IRecordsHandler...handlers) {
     this.handlers = handlers;
+    this.serde = serde;
   }
 
   @Override
+  @SuppressWarnings("unchecked")
   public void processRecordsWithRetries(final List<Record> records) {
+    // KCL de-aggregates records, decode payloads once for every handler.
+    final List<Record> decodedRecords = RecordDecoder.getInstance().decode(records);
+    // decode values once for every typed handler.
+    final DecodedBatch decodedBatch = DecodedBatch.isNeeded(Arrays.asList(handlers)) ? DecodedBatch.decode(decodedRecords, serde) : null;
+
     // List<CompletableFuture<Void>> futures = new ArrayList<>();
     for (IRecordsHandler handler : handlers) {
-      CompletableFuture.runAsync(() -> handler.kinesisRecordsProcess(records));
+      if (handler.isTypedHandler()) {
+        CompletableFuture.runAsync(() -> {
+          try {
+            handler.recordsProcess(getShardId(), decodedBatch.getRecords());
+          } catch (Exception e) {
+            logger.error("failed process records. shard: " + getShardId() + ", handler: " + handler.getClass().getName());
+            logger.error(e.getMessage());
+          }
+        });
+      } else {
+        CompletableFuture.runAsync(() -> handler.kinesisRecordsProcess(getShardId(), decodedRecords));
+      }
     }
   }
 }
@@ -4,25 +4,43 @@ import com.amazonaws.services.kinesis.clientlibrary.interfaces.v2.IRecordProcess
 import com.amazonaws.services.kinesis.clientlibrary.interfaces.v2.IRecordProcessorFactory;
 import com.aws.kinesis.record.handler.HandlerFactory;
 import com.aws.kinesis.record.handler.IRecordsHandler;
+import com.aws.kinesis.record.serde.ISerde;
+import com.aws.kinesis.record.serde.SerdeFactory;
+import com.aws.kinesis.record.serde.SerdeType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
+
 public class KinesisRecordsProcessorFactory implements IRecordProcessorFactory {
   private final static Logger logger = LoggerFactory.getLogger(KinesisRecordsProcessorFactory.class);
 
   private final IRecordsHandler[] handlers;
+  private final ISerde serde;
 
   private KinesisRecordsProcessorFactory() {
     super();
     this.handlers = null;
+    this.serde = null;
   }
 
-  public KinesisRecordsProcessorFactory(IRecordsHandler handler, IRecordsHandler...handlers) {
+  /**
+   * @param serde record value serde of typed handlers. {@link IRecordsHandler#isTypedHandler()}
+   */
+  public KinesisRecordsProcessorFactory(ISerde serde, IRecordsHandler handler, IRecordsHandler...handlers) {
     this.handlers = HandlerFactory.getInstance().mergeHandler(handler, handlers);
+    this.serde = serde;
+  }
+
+  /**
+   * Typed handlers get UTF-8 string records.
+   */
+  public KinesisRecordsProcessorFactory(IRecordsHandler handler, IRecordsHandler...handlers) {
+    this(SerdeFactory.getInstance().getSerde(SerdeType.UTF8, Collections.emptyList()), handler, handlers);
   }
 
   @Override
   public IRecordProcessor createProcessor() {
-    return new KinesisRecordsProcessor(handlers);
+    return new KinesisRecordsProcessor(serde, handlers);
   }
 }
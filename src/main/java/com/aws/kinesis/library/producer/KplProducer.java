@@ -4,13 +4,16 @@ import com.amazonaws.services.kinesis.producer.KinesisProducer;
 import com.amazonaws.services.kinesis.producer.KinesisProducerConfiguration;
 import com.amazonaws.services.kinesis.producer.UserRecordResult;
 import com.aws.credentials.CredentialsFactory;
+import com.aws.kinesis.api.PartitionKeySalter;
 import com.aws.kinesis.record.IRecord;
+import com.aws.kinesis.record.codec.RecordEncoder;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.utils.AppConfig;
-import com.utils.AppUtils;
 import com.utils.Tuple2;
+import com.utils.retry.Retry;
+import com.utils.retry.RetryPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -23,17 +26,22 @@ public final class KplProducer {
   private static final Logger logger = LoggerFactory.getLogger(KplProducer.class);
 
   private static final KinesisProducerConfiguration kinesisProducerConfiguration = AppConfig.getKplDaemonProps();
+  private static final RetryPolicy PRODUCE_RETRY_POLICY = RetryPolicy.forOperation("kplProduce");
 
   private final String profile;
   private final String region;
   private final String streamName;
   private final KinesisProducer kinesisProducer;
+  private final RecordEncoder recordEncoder;
+  private final PartitionKeySalter partitionKeySalter;
 
   private KplProducer(String profile, String region, String streamName, KinesisProducer kinesisProducer) {
     this.profile = profile;
     this.region = region;
     this.streamName = streamName;
     this.kinesisProducer = kinesisProducer;
+    this.recordEncoder = RecordEncoder.forStream(streamName);
+    this.partitionKeySalter = PartitionKeySalter.fromConfig();
   }
 
   public KplProducer(final String profile, final String region, final String streamName) {
@@ -53,7 +61,11 @@ public final class KplProducer {
   private ListenableFuture<UserRecordResult> produceSingleRecord(final IRecord record, final FutureCallback<UserRecordResult> callback) {
     logger.debug("add user record. stream: " + streamName + ", record: " + record.toString());
 
-    ListenableFuture<UserRecordResult> addUserRecordFuture = kinesisProducer.addUserRecord(streamName, record.getPartitionKey(), record.getData());
+    final String explicitHashKey = partitionKeySalter == null ? null :
+      partitionKeySalter.getExplicitHashKey(record.getPartitionKey()).orElse(null);
+
+    ListenableFuture<UserRecordResult> addUserRecordFuture = kinesisProducer.addUserRecord(streamName,
+      record.getPartitionKey(), explicitHashKey, recordEncoder.encode(record.getData()));
 
     if (callback == null) {
       return addUserRecordFuture;
@@ -74,6 +86,13 @@ public final class KplProducer {
       .filter(future -> {
         try {
           final UserRecordResult userRecordResult = future.getRear().get();
+
+          // kpl retries throttled records internally, throttled attempts are salting feedback.
+          if (partitionKeySalter != null && userRecordResult.getAttempts().stream()
+            .anyMatch(attempt -> PartitionKeySalter.THROTTLED_ERROR_CODE.equals(attempt.getErrorCode()))) {
+            partitionKeySalter.onThrottled(future.getForward());
+          }
+
           if (userRecordResult.isSuccessful()) {
             logger.debug("add record succeed.");
           } else {
@@ -104,9 +123,11 @@ public final class KplProducer {
   public boolean produce(final List<IRecord> records) {
     logger.debug("produce records with retry. stream name: " + streamName + ", record count: " + records.size());
 
+    final Retry retry = PRODUCE_RETRY_POLICY.newRetry();
+
     List<IRecord> currentRecords = records;
 
-    for (int i = 0; i < AppConfig.getRetryAttemptCount(); i++) {
+    do {
       currentRecords = this.getFailedRecords(this.produceRecords(currentRecords));
 
       if (currentRecords.isEmpty()) {
@@ -115,13 +136,13 @@ public final class KplProducer {
         return true;
       }
       logger.debug("failed records is not empty. backoff and flush sync and retry to produce remain record. " +
-        "attemps: " + i + "/" + AppConfig.getRetryAttemptCount() + ", " +
+        "attemps: " + retry.getAttempt() + "/" + PRODUCE_RETRY_POLICY.getMaxAttempts() + ", " +
         "stream: " + streamName + ", " +
         "records count: " + currentRecords.size());
-      AppUtils.backoff("retry to produce remain record.");
       kinesisProducer.flushSync();
-    }
-    logger.error("failed produce records. exceed retry attempts. " +
+    } while (retry.backoff("retry to produce remain record."));
+
+    logger.error("failed produce records. no more retry. " +
       "stream: " + streamName + ", " +
       "remain record count: " + currentRecords.size());
 
@@ -0,0 +1,102 @@
+package com.aws.kinesis.record;
+
+import com.amazonaws.services.kinesis.model.Record;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Record base, value is decoded from data on first {@link #getValue()} and data is encoded from value on first {@link #getData()}.
+ *
+ * Data is kept as a read-only view of the given buffer, from its position to limit at construction, and never copied.
+ * Each {@link #getData()} returns a new view, readers do not move each other's position.
+ * Decode and encode may run more than once under a race, results are equal and either one is kept.
+ */
+public abstract class AbstractRecord<T> implements IRecord<T> {
+  private final String partitionKey;
+  private final String sequenceNumber;
+
+  private volatile ByteBuffer data;
+  private volatile T value;
+
+  /**
+   * @param data record data, null if value is given.
+   * @param value record value, null if data is given.
+   */
+  protected AbstractRecord(final String partitionKey, final ByteBuffer data, final T value, final String sequenceNumber) {
+    this.partitionKey = partitionKey;
+    this.data = data == null ? null : data.asReadOnlyBuffer();
+    this.value = value;
+    this.sequenceNumber = sequenceNumber;
+  }
+
+  protected AbstractRecord(final Record kinesisRecord) {
+    this(kinesisRecord.getPartitionKey(), kinesisRecord.getData(), null, kinesisRecord.getSequenceNumber());
+  }
+
+  /**
+   * @param data read-only view, decode may move its position.
+   */
+  protected abstract T decode(ByteBuffer data);
+
+  protected abstract ByteBuffer encode(T value);
+
+  @Override
+  public String getPartitionKey() {
+    return partitionKey;
+  }
+
+  @Override
+  public T getValue() {
+    T value = this.value;
+    if (value == null) {
+      value = this.decode(data.duplicate());
+      this.value = value;
+    }
+    return value;
+  }
+
+  @Override
+  public ByteBuffer getData() {
+    ByteBuffer data = this.data;
+    if (data == null) {
+      data = this.encode(value).asReadOnlyBuffer();
+      this.data = data;
+    }
+    return data.duplicate();
+  }
+
+  @Override
+  public Optional<String> getSequenceNumber() {
+    return Optional.ofNullable(sequenceNumber);
+  }
+
+  /**
+   * @return true if value is decoded or given.
+   */
+  public boolean isDecoded() {
+    return value != null;
+  }
+
+  /**
+   * Records are equal by class, partition key, data and sequence number, value is not decoded.
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+
+    AbstractRecord that = (AbstractRecord) o;
+
+    return
+      Objects.equals(this.partitionKey, that.getPartitionKey()) &&
+      this.getData().equals(that.getData()) &&
+      this.getSequenceNumber().equals(that.getSequenceNumber());
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(partitionKey, this.getData(), sequenceNumber);
+  }
+}
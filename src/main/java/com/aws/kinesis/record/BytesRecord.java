@@ -0,0 +1,50 @@
+package com.aws.kinesis.record;
+
+import com.amazonaws.services.kinesis.model.Record;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Raw bytes record for handlers that need no decode, value is a read-only view of data. {@link AbstractRecord}
+ */
+public class BytesRecord extends AbstractRecord<ByteBuffer> {
+
+  public BytesRecord(String partitionKey, ByteBuffer data, String sequenceNumber) {
+    super(partitionKey, data, null, sequenceNumber);
+  }
+
+  public BytesRecord(String partitionKey, ByteBuffer data) {
+    this(partitionKey, data, null);
+  }
+
+  public BytesRecord(Record kinesisRecord) {
+    super(kinesisRecord);
+  }
+
+  @Override
+  protected ByteBuffer decode(ByteBuffer data) {
+    return data;
+  }
+
+  @Override
+  protected ByteBuffer encode(ByteBuffer value) {
+    return value;
+  }
+
+  /**
+   * @return new read-only view of data on each call.
+   */
+  @Override
+  public ByteBuffer getValue() {
+    return this.getData();
+  }
+
+  @Override
+  public String toString() {
+    return "BytesRecord{" +
+      "partitionKey='" + getPartitionKey() + '\'' +
+      ", data=" + getData() +
+      ", sequenceNumber='" + getSequenceNumber().orElse(null) + '\'' +
+      '}';
+  }
+}
@@ -0,0 +1,72 @@
+package com.aws.kinesis.record;
+
+import com.amazonaws.services.kinesis.model.Record;
+import com.aws.kinesis.record.handler.IRecordsHandler;
+import com.aws.kinesis.record.serde.ISerde;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Records of one read decoded once, shared read-only by every typed handler. {@link IRecordsHandler#isTypedHandler()}
+ *
+ * Values are deserialized before handlers run, so decode cost is per record, not per record and handler.
+ * Records wrap read-only views of the kinesis record data, raw handlers keep the kinesis records as they are.
+ * Records failed to deserialize are left out and counted.
+ */
+public class DecodedBatch<T> {
+  private static final Logger logger = LoggerFactory.getLogger(DecodedBatch.class);
+
+  private final List<IRecord<T>> records;
+  private final int failedCount;
+
+  private DecodedBatch(final List<IRecord<T>> records, final int failedCount) {
+    this.records = Collections.unmodifiableList(records);
+    this.failedCount = failedCount;
+  }
+
+  // Getter >>
+  public List<IRecord<T>> getRecords() { return records; }
+  public int getFailedCount() { return failedCount; }
+  // << Getter
+
+  public static <T> DecodedBatch<T> decode(final List<Record> kinesisRecords, final ISerde<T> serde) {
+    final List<IRecord<T>> records = new ArrayList<>(kinesisRecords.size());
+    int failedCount = 0;
+
+    for (Record kinesisRecord : kinesisRecords) {
+      final SerdeRecord<T> record = new SerdeRecord<>(kinesisRecord, serde);
+      try {
+        record.getValue();
+        records.add(record);
+      } catch (IllegalArgumentException e) {
+        failedCount++;
+        logger.error("failed decode record, skipped for typed handlers. serde: " + serde.getSerdeType() +
+          ", sequence number: " + kinesisRecord.getSequenceNumber());
+        logger.error(e.getMessage());
+      }
+    }
+    return new DecodedBatch<>(records, failedCount);
+  }
+
+  /**
+   * @return true if a handler takes typed records, a batch is decoded only then.
+   */
+  public static boolean isNeeded(final List<IRecordsHandler> handlers) {
+    for (IRecordsHandler handler : handlers) {
+      if (handler.isTypedHandler()) return true;
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return "DecodedBatch{" +
+      "count=" + records.size() +
+      ", failedCount=" + failedCount +
+      '}';
+  }
+}
@@ -0,0 +1,54 @@
+package com.aws.kinesis.record;
+
+import com.amazonaws.services.kinesis.model.Record;
+import com.aws.kinesis.record.serde.ISerde;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Record of any value type, value is deserialized on first {@link #getValue()} by the serde. {@link AbstractRecord}
+ *
+ * {@link #getValue()} throws IllegalArgumentException if data is malformed for the serde.
+ */
+public class SerdeRecord<T> extends AbstractRecord<T> {
+  private final ISerde<T> serde;
+
+  public SerdeRecord(String partitionKey, ByteBuffer data, String sequenceNumber, ISerde<T> serde) {
+    super(partitionKey, data, null, sequenceNumber);
+    this.serde = serde;
+  }
+
+  public SerdeRecord(String partitionKey, T value, ISerde<T> serde) {
+    super(partitionKey, null, value, null);
+    this.serde = serde;
+  }
+
+  public SerdeRecord(Record kinesisRecord, ISerde<T> serde) {
+    super(kinesisRecord);
+    this.serde = serde;
+  }
+
+  // Getter >>
+  public ISerde<T> getSerde() { return serde; }
+  // << Getter
+
+  @Override
+  protected T decode(ByteBuffer data) {
+    return serde.deserialize(data);
+  }
+
+  @Override
+  protected ByteBuffer encode(T value) {
+    return serde.serialize(value);
+  }
+
+  @Override
+  public String toString() {
+    return "SerdeRecord{" +
+      "partitionKey='" + getPartitionKey() + '\'' +
+      ", serde=" + serde.getSerdeType() +
+      ", data=" + getData() +
+      ", sequenceNumber='" + getSequenceNumber().orElse(null) + '\'' +
+      '}';
+  }
+}
@@ -1,128 +1,79 @@
 package com.aws.kinesis.record;
 
 import com.amazonaws.services.kinesis.model.Record;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.nio.ByteBuffer;
-import java.nio.CharBuffer;
-import java.nio.charset.CharacterCodingException;
-import java.nio.charset.CharsetDecoder;
-import java.nio.charset.CharsetEncoder;
 import java.nio.charset.StandardCharsets;
-import java.util.Objects;
-import java.util.Optional;
 
 /**
- * @throws CharacterCodingException
+ * UTF-8 string record, value is decoded on first {@link #getValue()}. {@link AbstractRecord}
+ *
+ * Encode and decode are thread-safe, malformed input is replaced as {@link String#String(byte[], java.nio.charset.Charset)} does.
+ * Decode copies data through a per-thread buffer, so the only allocation is the string.
  */
-public class StringRecord implements IRecord<String> {
-  private static final Logger logger = LoggerFactory.getLogger(StringRecord.class);
+public class StringRecord extends AbstractRecord<String> {
+  private static final int MAX_DECODE_BUFFER_BYTES = 64 * 1024;
 
-  private static final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
-  private static final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+  private static final ThreadLocal<byte[]> decodeBuffer = ThreadLocal.withInitial(() -> new byte[1024]);
 
-  private final String partitionKey;
-  private final ByteBuffer data;
-  private final String value;
-  private final String sequenceNumber;
-
-  private StringRecord(String partitionKey, ByteBuffer data, String value, String sequenceNumber) {
-    this.partitionKey = partitionKey;
-    this.data = data;
-    this.value = value;
-    this.sequenceNumber = sequenceNumber;
-  }
-
-  public StringRecord(String partitionKey, ByteBuffer data, String sequenceNumber) throws CharacterCodingException {
-    this(partitionKey,
-      data,
-      byteBufferToString(data),
-      sequenceNumber);
-  }
-
-  public StringRecord(String partitionKey, String value, String sequenceNumber) throws CharacterCodingException {
-    this(partitionKey,
-      stringToByteBuffer(value),
-      value,
-      sequenceNumber);
+  public StringRecord(String partitionKey, ByteBuffer data, String sequenceNumber) {
+    super(partitionKey, data, null, sequenceNumber);
   }
 
-  public StringRecord(String partitionKey, ByteBuffer data) throws CharacterCodingException {
-    this(partitionKey,
-      data,
-      byteBufferToString(data),
-      null);
+  public StringRecord(String partitionKey, String value, String sequenceNumber) {
+    super(partitionKey, null, value, sequenceNumber);
   }
 
-  public StringRecord(String partitionKey, String value) throws CharacterCodingException {
-    this(partitionKey,
-      stringToByteBuffer(value),
-      value,
-      null);
+  public StringRecord(String partitionKey, ByteBuffer data) {
+    this(partitionKey, data, (String) null);
   }
 
-  public StringRecord(Record kinesisRecord) throws CharacterCodingException {
-    this(kinesisRecord.getPartitionKey(),
-      kinesisRecord.getData(),
-      kinesisRecord.getSequenceNumber());
+  public StringRecord(String partitionKey, String value) {
+    this(partitionKey, value, null);
   }
 
-  @Override
-  public String getPartitionKey() {
-    return this.partitionKey;
+  public StringRecord(Record kinesisRecord) {
+    super(kinesisRecord);
   }
 
   @Override
-  public String getValue() {
-    return this.value;
+  protected String decode(ByteBuffer data) {
+    return byteBufferToString(data);
   }
 
   @Override
-  public ByteBuffer getData() { return this.data; }
-
-  @Override
-  public Optional<String> getSequenceNumber() {
-    return Optional.ofNullable(sequenceNumber);
+  protected ByteBuffer encode(String value) {
+    return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
   }
 
   @Override
   public String toString() {
     return "StringRecord{" +
-      "partitionKey='" + partitionKey + '\'' +
-      ", data=" + data +
-      ", value='" + value + '\'' +
-      ", sequenceNumber='" + sequenceNumber + '\'' +
+      "partitionKey='" + getPartitionKey() + '\'' +
+      ", data=" + getData() +
+      ", value='" + getValue() + '\'' +
+      ", sequenceNumber='" + getSequenceNumber().orElse(null) + '\'' +
       '}';
   }
 
-  @Override
-  public boolean equals(Object o) {
-    if (this == o) return true;
-    if (o == null || getClass() != o.getClass()) return false;
-
-    StringRecord that = (StringRecord) o;
-
-    return
-      this.partitionKey.equals(that.getPartitionKey()) &&
-      this.getData().equals(that.getData()) &&
-      this.getSequenceNumber().equals(that.getSequenceNumber()) &&
-      this.getValue().equals(that.getValue());
-  }
-
-  @Override
-  public int hashCode() {
-    return Objects.hash(partitionKey, data, sequenceNumber, data);
-  }
-
-  private static ByteBuffer stringToByteBuffer(String string) throws CharacterCodingException {
-    return encoder.encode(CharBuffer.wrap(string));
-  }
-
-  private static String byteBufferToString(ByteBuffer byteBuffer) throws CharacterCodingException {
-    final ByteBuffer readOnlyByteBuffer = byteBuffer.asReadOnlyBuffer();
-    readOnlyByteBuffer.rewind();
-
-    return decoder.decode(readOnlyByteBuffer).toString();
+  /**
+   * @param byteBuffer decoded from position to limit, position is moved to limit.
+   */
+  public static String byteBufferToString(ByteBuffer byteBuffer) {
+    final int length = byteBuffer.remaining();
+
+    if (byteBuffer.hasArray()) {
+      final String string = new String(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(), length, StandardCharsets.UTF_8);
+      byteBuffer.position(byteBuffer.limit());
+      return string;
+    }
+
+    byte[] bytes = decodeBuffer.get();
+    if (bytes.length < length) {
+      bytes = new byte[length];
+      if (length <= MAX_DECODE_BUFFER_BYTES) decodeBuffer.set(bytes);
+    }
+    byteBuffer.get(bytes, 0, length);
+    return new String(bytes, 0, length, StandardCharsets.UTF_8);
   }
-}
\ No newline at end of file
+}
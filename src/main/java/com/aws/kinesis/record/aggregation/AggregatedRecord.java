@@ -0,0 +1,80 @@
+package com.aws.kinesis.record.aggregation;
+
+import com.aws.kinesis.record.IRecord;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * KPL aggregated record, one kinesis record contains many user records.
+ *
+ * Partition key and explicit hash key are the first user record keys,
+ * so the aggregated record goes to the first user record shard.
+ */
+public class AggregatedRecord implements IRecord<List<IRecord>> {
+  private final String partitionKey;
+  private final String explicitHashKey;
+  private final ByteBuffer data;
+  private final List<IRecord> userRecords;
+  private final List<Integer> userRecordIndexes;
+
+  /**
+   * Constructor
+   *
+   * @param partitionKey aggregated record partition key.
+   * @param explicitHashKey aggregated record explicit hash key (nullable).
+   * @param data aggregated record data. {@link AggregationFormat}
+   * @param userRecords user records in aggregation order.
+   * @param userRecordIndexes user record positions in the produce record list.
+   */
+  public AggregatedRecord(String partitionKey,
+                          String explicitHashKey,
+                          ByteBuffer data,
+                          List<IRecord> userRecords,
+                          List<Integer> userRecordIndexes) {
+    this.partitionKey = partitionKey;
+    this.explicitHashKey = explicitHashKey;
+    this.data = data;
+    this.userRecords = userRecords;
+    this.userRecordIndexes = userRecordIndexes;
+  }
+
+  @Override
+  public String getPartitionKey() {
+    return partitionKey;
+  }
+
+  @Override
+  public List<IRecord> getValue() {
+    return userRecords;
+  }
+
+  @Override
+  public ByteBuffer getData() {
+    return data;
+  }
+
+  @Override
+  public Optional<String> getSequenceNumber() {
+    return Optional.empty();
+  }
+
+  public Optional<String> getExplicitHashKey() {
+    return Optional.ofNullable(explicitHashKey);
+  }
+
+  public List<Integer> getUserRecordIndexes() {
+    return userRecordIndexes;
+  }
+
+  @Override
+  public String toString() {
+    return "AggregatedRecord{" +
+      "partitionKey='" + partitionKey + '\'' +
+      ", explicitHashKey='" + explicitHashKey + '\'' +
+      ", data=" + data +
+      ", userRecordCount=" + userRecords.size() +
+      '}';
+  }
+}
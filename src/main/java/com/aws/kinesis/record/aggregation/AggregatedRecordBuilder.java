@@ -0,0 +1,177 @@
+package com.aws.kinesis.record.aggregation;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.aws.kinesis.record.aggregation.AggregationFormat.*;
+
+/**
+ * Build a KPL aggregated record. {@link AggregationFormat}
+ *
+ * Encoded size is tracked on every add, so the caller can check the size limit before adding.
+ * Partition keys and explicit hash keys are de-duplicated in key tables.
+ */
+public class AggregatedRecordBuilder {
+  private final Map<String, Integer> partitionKeyIndexes = new HashMap<>();
+  private final Map<String, Integer> explicitHashKeyIndexes = new HashMap<>();
+  private final List<byte[]> partitionKeyTable = new ArrayList<>();
+  private final List<byte[]> explicitHashKeyTable = new ArrayList<>();
+  private final List<UserRecord> userRecords = new ArrayList<>();
+
+  // protobuf message size, without magic and digest.
+  private int messageSize = 0;
+
+  public int getRecordCount() {
+    return userRecords.size();
+  }
+
+  public boolean isEmpty() {
+    return userRecords.isEmpty();
+  }
+
+  /**
+   * Aggregated record data size. (magic + protobuf message + digest)
+   */
+  public int getSize() {
+    return MAGIC.length + messageSize + DIGEST_SIZE;
+  }
+
+  /**
+   * Aggregated record data size if the user record is added.
+   *
+   * @param partitionKey user record partition key.
+   * @param explicitHashKey user record explicit hash key (nullable).
+   * @param data user record data.
+   */
+  public int getSizeIfAdded(final String partitionKey, final String explicitHashKey, final ByteBuffer data) {
+    return this.getSize() + this.getAddedSize(partitionKey, explicitHashKey, data.remaining());
+  }
+
+  public void add(final String partitionKey, final String explicitHashKey, final ByteBuffer data) {
+    final int addedSize = this.getAddedSize(partitionKey, explicitHashKey, data.remaining());
+
+    final int partitionKeyIndex = partitionKeyIndexes.computeIfAbsent(partitionKey, k -> {
+      partitionKeyTable.add(toUtf8Bytes(k));
+      return partitionKeyTable.size() - 1;
+    });
+
+    final int explicitHashKeyIndex = explicitHashKey == null ? -1 : explicitHashKeyIndexes.computeIfAbsent(explicitHashKey, k -> {
+      explicitHashKeyTable.add(toUtf8Bytes(k));
+      return explicitHashKeyTable.size() - 1;
+    });
+
+    userRecords.add(new UserRecord(partitionKeyIndex, explicitHashKeyIndex, data.slice()));
+    messageSize += addedSize;
+  }
+
+  /**
+   * Encode aggregated record.
+   *
+   * @return aggregated record data, position 0.
+   */
+  public ByteBuffer build() {
+    final ByteBuffer buffer = ByteBuffer.allocate(this.getSize());
+    buffer.put(MAGIC);
+
+    final int messageStart = buffer.position();
+
+    for (byte[] partitionKey : partitionKeyTable) {
+      this.writeBytesField(buffer, FIELD_PARTITION_KEY_TABLE, partitionKey);
+    }
+
+    for (byte[] explicitHashKey : explicitHashKeyTable) {
+      this.writeBytesField(buffer, FIELD_EXPLICIT_HASH_KEY_TABLE, explicitHashKey);
+    }
+
+    for (UserRecord userRecord : userRecords) {
+      writeVarint(buffer, tag(FIELD_RECORDS, WIRE_TYPE_LENGTH_DELIMITED));
+      writeVarint(buffer, userRecord.getMessageSize());
+
+      writeVarint(buffer, tag(FIELD_PARTITION_KEY_INDEX, WIRE_TYPE_VARINT));
+      writeVarint(buffer, userRecord.partitionKeyIndex);
+
+      if (userRecord.explicitHashKeyIndex >= 0) {
+        writeVarint(buffer, tag(FIELD_EXPLICIT_HASH_KEY_INDEX, WIRE_TYPE_VARINT));
+        writeVarint(buffer, userRecord.explicitHashKeyIndex);
+      }
+
+      writeVarint(buffer, tag(FIELD_DATA, WIRE_TYPE_LENGTH_DELIMITED));
+      writeVarint(buffer, userRecord.data.remaining());
+      buffer.put(userRecord.data.duplicate());
+    }
+
+    final MessageDigest md5 = newMd5();
+    md5.update(buffer.array(), messageStart, buffer.position() - messageStart);
+    buffer.put(md5.digest());
+
+    buffer.flip();
+    return buffer;
+  }
+
+  public void clear() {
+    partitionKeyIndexes.clear();
+    explicitHashKeyIndexes.clear();
+    partitionKeyTable.clear();
+    explicitHashKeyTable.clear();
+    userRecords.clear();
+    messageSize = 0;
+  }
+
+  private int getAddedSize(final String partitionKey, final String explicitHashKey, final int dataSize) {
+    int addedSize = 0;
+
+    int partitionKeyIndex = partitionKeyIndexes.getOrDefault(partitionKey, -1);
+    if (partitionKeyIndex < 0) {
+      partitionKeyIndex = partitionKeyTable.size();
+      addedSize += lengthDelimitedFieldSize(FIELD_PARTITION_KEY_TABLE, toUtf8Bytes(partitionKey).length);
+    }
+
+    int explicitHashKeyIndex = -1;
+    if (explicitHashKey != null) {
+      explicitHashKeyIndex = explicitHashKeyIndexes.getOrDefault(explicitHashKey, -1);
+      if (explicitHashKeyIndex < 0) {
+        explicitHashKeyIndex = explicitHashKeyTable.size();
+        addedSize += lengthDelimitedFieldSize(FIELD_EXPLICIT_HASH_KEY_TABLE, toUtf8Bytes(explicitHashKey).length);
+      }
+    }
+
+    final int recordMessageSize = UserRecord.getMessageSize(partitionKeyIndex, explicitHashKeyIndex, dataSize);
+    return addedSize + lengthDelimitedFieldSize(FIELD_RECORDS, recordMessageSize);
+  }
+
+  private void writeBytesField(final ByteBuffer buffer, final int fieldNumber, final byte[] bytes) {
+    writeVarint(buffer, tag(fieldNumber, WIRE_TYPE_LENGTH_DELIMITED));
+    writeVarint(buffer, bytes.length);
+    buffer.put(bytes);
+  }
+
+  private static class UserRecord {
+    private final int partitionKeyIndex;
+    private final int explicitHashKeyIndex;
+    private final ByteBuffer data;
+
+    private UserRecord(int partitionKeyIndex, int explicitHashKeyIndex, ByteBuffer data) {
+      this.partitionKeyIndex = partitionKeyIndex;
+      this.explicitHashKeyIndex = explicitHashKeyIndex;
+      this.data = data;
+    }
+
+    private int getMessageSize() {
+      return getMessageSize(partitionKeyIndex, explicitHashKeyIndex, data.remaining());
+    }
+
+    private static int getMessageSize(int partitionKeyIndex, int explicitHashKeyIndex, int dataSize) {
+      int size = varintSize(tag(FIELD_PARTITION_KEY_INDEX, WIRE_TYPE_VARINT)) + varintSize(partitionKeyIndex);
+
+      if (explicitHashKeyIndex >= 0) {
+        size += varintSize(tag(FIELD_EXPLICIT_HASH_KEY_INDEX, WIRE_TYPE_VARINT)) + varintSize(explicitHashKeyIndex);
+      }
+
+      return size + lengthDelimitedFieldSize(FIELD_DATA, dataSize);
+    }
+  }
+}
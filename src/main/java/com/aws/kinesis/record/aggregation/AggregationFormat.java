@@ -0,0 +1,119 @@
+package com.aws.kinesis.record.aggregation;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * KPL aggregated record format.
+ *
+ * [magic 4 bytes][protobuf AggregatedRecord][md5 of protobuf 16 bytes]
+ *
+ * <pre>
+ * message AggregatedRecord {
+ *   repeated string partition_key_table     = 1;
+ *   repeated string explicit_hash_key_table = 2;
+ *   repeated Record records                 = 3;
+ * }
+ *
+ * message Record {
+ *   required uint64 partition_key_index     = 1;
+ *   optional uint64 explicit_hash_key_index = 2;
+ *   required bytes  data                    = 3;
+ *   repeated Tag    tags                    = 4;
+ * }
+ * </pre>
+ *
+ * @see <a href="https://github.com/awslabs/amazon-kinesis-producer/blob/master/aggregation-format.md">aggregation format</a>
+ */
+public final class AggregationFormat {
+  public static final byte[] MAGIC = new byte[] {(byte) 0xF3, (byte) 0x89, (byte) 0x9A, (byte) 0xC2};
+  public static final int DIGEST_SIZE = 16;
+
+  public static final int WIRE_TYPE_VARINT = 0;
+  public static final int WIRE_TYPE_FIXED64 = 1;
+  public static final int WIRE_TYPE_LENGTH_DELIMITED = 2;
+  public static final int WIRE_TYPE_FIXED32 = 5;
+
+  // AggregatedRecord field numbers
+  public static final int FIELD_PARTITION_KEY_TABLE = 1;
+  public static final int FIELD_EXPLICIT_HASH_KEY_TABLE = 2;
+  public static final int FIELD_RECORDS = 3;
+
+  // Record field numbers
+  public static final int FIELD_PARTITION_KEY_INDEX = 1;
+  public static final int FIELD_EXPLICIT_HASH_KEY_INDEX = 2;
+  public static final int FIELD_DATA = 3;
+
+  private AggregationFormat() {}
+
+  public static MessageDigest newMd5() {
+    try {
+      return MessageDigest.getInstance("MD5");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("MD5 is not supported.", e);
+    }
+  }
+
+  /**
+   * Check magic bytes, buffer position is not changed.
+   */
+  public static boolean isAggregated(final ByteBuffer data) {
+    if (data == null || data.remaining() < MAGIC.length + DIGEST_SIZE) return false;
+
+    final int position = data.position();
+    for (int i = 0; i < MAGIC.length; i++) {
+      if (data.get(position + i) != MAGIC[i]) return false;
+    }
+    return true;
+  }
+
+  public static int tag(final int fieldNumber, final int wireType) {
+    return (fieldNumber << 3) | wireType;
+  }
+
+  public static int varintSize(long value) {
+    int size = 1;
+    while ((value & ~0x7FL) != 0L) {
+      value >>>= 7;
+      size++;
+    }
+    return size;
+  }
+
+  public static void writeVarint(final ByteBuffer buffer, long value) {
+    while ((value & ~0x7FL) != 0L) {
+      buffer.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    buffer.put((byte) value);
+  }
+
+  /**
+   * Read varint at buffer position and advance position.
+   *
+   * @throws IllegalArgumentException malformed varint.
+   */
+  public static long readVarint(final ByteBuffer buffer) {
+    long value = 0L;
+
+    for (int shift = 0; shift < 64; shift += 7) {
+      final byte b = buffer.get();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) return value;
+    }
+    throw new IllegalArgumentException("malformed varint.");
+  }
+
+  /**
+   * Length-delimited field size. (tag + length + bytes)
+   */
+  public static int lengthDelimitedFieldSize(final int fieldNumber, final int length) {
+    return varintSize(tag(fieldNumber, WIRE_TYPE_LENGTH_DELIMITED)) + varintSize(length) + length;
+  }
+
+  public static byte[] toUtf8Bytes(final String string) {
+    return string.getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,53 @@
+package com.aws.kinesis.record.aggregation;
+
+import com.amazonaws.services.kinesis.model.Record;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+/**
+ * User record extracted from a KPL aggregated record.
+ *
+ * Sequence number is the aggregated record sequence number,
+ * sub-sequence number is the user record position in the aggregated record.
+ * Data is a view of the aggregated record data, not a copy.
+ */
+public class DeaggregatedRecord extends Record {
+  private final long subSequenceNumber;
+  private final String explicitHashKey;
+
+  public DeaggregatedRecord(final Record aggregatedRecord,
+                            final long subSequenceNumber,
+                            final String partitionKey,
+                            final String explicitHashKey,
+                            final ByteBuffer data) {
+    super();
+    this.subSequenceNumber = subSequenceNumber;
+    this.explicitHashKey = explicitHashKey;
+
+    this.setSequenceNumber(aggregatedRecord.getSequenceNumber());
+    this.setApproximateArrivalTimestamp(aggregatedRecord.getApproximateArrivalTimestamp());
+    this.setEncryptionType(aggregatedRecord.getEncryptionType());
+    this.setPartitionKey(partitionKey);
+    this.setData(data);
+  }
+
+  public long getSubSequenceNumber() {
+    return subSequenceNumber;
+  }
+
+  public Optional<String> getExplicitHashKey() {
+    return Optional.ofNullable(explicitHashKey);
+  }
+
+  @Override
+  public String toString() {
+    return "DeaggregatedRecord{" +
+      "sequenceNumber='" + getSequenceNumber() + '\'' +
+      ", subSequenceNumber=" + subSequenceNumber +
+      ", partitionKey='" + getPartitionKey() + '\'' +
+      ", explicitHashKey='" + explicitHashKey + '\'' +
+      ", data=" + getData() +
+      '}';
+  }
+}
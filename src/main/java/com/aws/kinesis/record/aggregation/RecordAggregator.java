@@ -0,0 +1,130 @@
+package com.aws.kinesis.record.aggregation;
+
+import com.aws.kinesis.record.IRecord;
+import com.aws.kinesis.record.codec.RecordEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Pack user records into KPL aggregated records. {@link AggregationFormat}
+ *
+ * Records are grouped by target shard first, so every user record of an aggregated record
+ * belongs to the same shard as the aggregated record partition key (or explicit hash key).
+ */
+public class RecordAggregator {
+  private static Logger logger = LoggerFactory.getLogger(RecordAggregator.class);
+
+  // kinesis record limit 1 MiB, reserve max partition key size 256 bytes.
+  public static final int MAX_AGGREGATED_BYTES_LIMIT = 1024 * 1024 - 256;
+
+  private final int maxAggregatedBytes;
+  private final int maxAggregatedCount;
+  private final RecordEncoder recordEncoder;
+
+  /**
+   * Constructor
+   *
+   * @param maxAggregatedBytes max aggregated record data size.
+   * @param maxAggregatedCount max user record count in an aggregated record.
+   * @param recordEncoder user record data encoder, nullable.
+   *                      user records are encoded one by one, consumers decode after de-aggregation.
+   */
+  public RecordAggregator(final int maxAggregatedBytes, final int maxAggregatedCount, final RecordEncoder recordEncoder) {
+    this.maxAggregatedBytes = Math.min(maxAggregatedBytes, MAX_AGGREGATED_BYTES_LIMIT);
+    this.maxAggregatedCount = Math.max(1, maxAggregatedCount);
+    this.recordEncoder = recordEncoder;
+  }
+
+  public RecordAggregator(final int maxAggregatedBytes, final int maxAggregatedCount) {
+    this(maxAggregatedBytes, maxAggregatedCount, null);
+  }
+
+  /**
+   * Aggregate records.
+   *
+   * A user record larger than max aggregated bytes is aggregated alone.
+   *
+   * @param records user records.
+   * @param explicitHashKey explicit hash key of a record, nullable result.
+   *                        kcl drops user records whose hash key is out of the shard range,
+   *                        so the aggregated record takes the first user record explicit hash key.
+   * @param groupKey target shard of a record and its explicit hash key, records of the same key may be aggregated together.
+   *
+   * @return aggregated records, user record indexes are positions of records.
+   */
+  public List<AggregatedRecord> aggregate(final List<IRecord> records,
+                                          final Function<IRecord, String> explicitHashKey,
+                                          final BiFunction<IRecord, String, String> groupKey) {
+    logger.debug("aggregate records. count: " + records.size());
+
+    final String[] explicitHashKeys = new String[records.size()];
+    final Map<String, List<Integer>> groupedIndexes = new LinkedHashMap<>();
+
+    for (int i = 0; i < records.size(); i++) {
+      explicitHashKeys[i] = explicitHashKey.apply(records.get(i));
+      groupedIndexes.computeIfAbsent(groupKey.apply(records.get(i), explicitHashKeys[i]), k -> new ArrayList<>()).add(i);
+    }
+
+    final List<AggregatedRecord> aggregatedRecords = new ArrayList<>();
+    final AggregatedRecordBuilder builder = new AggregatedRecordBuilder();
+
+    for (List<Integer> indexes : groupedIndexes.values()) {
+      List<Integer> aggregatedIndexes = new ArrayList<>();
+
+      for (int index : indexes) {
+        final IRecord record = records.get(index);
+        final ByteBuffer data = recordEncoder == null ? record.getData() : recordEncoder.encode(record.getData());
+
+        if (!builder.isEmpty() &&
+          (builder.getRecordCount() >= maxAggregatedCount ||
+            builder.getSizeIfAdded(record.getPartitionKey(), explicitHashKeys[index], data) > maxAggregatedBytes)) {
+          aggregatedRecords.add(this.build(builder, records, explicitHashKeys, aggregatedIndexes));
+          aggregatedIndexes = new ArrayList<>();
+        }
+
+        builder.add(record.getPartitionKey(), explicitHashKeys[index], data);
+        aggregatedIndexes.add(index);
+      }
+
+      if (!builder.isEmpty()) {
+        aggregatedRecords.add(this.build(builder, records, explicitHashKeys, aggregatedIndexes));
+      }
+    }
+
+    logger.debug("aggregate records. user record count: " + records.size() + ", " +
+      "aggregated record count: " + aggregatedRecords.size());
+    return aggregatedRecords;
+  }
+
+  public List<AggregatedRecord> aggregate(final List<IRecord> records, final Function<IRecord, String> groupKey) {
+    return this.aggregate(records, record -> null, (record, explicitHashKey) -> groupKey.apply(record));
+  }
+
+  public List<AggregatedRecord> aggregate(final List<IRecord> records) {
+    return this.aggregate(records, record -> "");
+  }
+
+  private AggregatedRecord build(final AggregatedRecordBuilder builder,
+                                 final List<IRecord> records,
+                                 final String[] explicitHashKeys,
+                                 final List<Integer> indexes) {
+    final List<IRecord> userRecords = new ArrayList<>(indexes.size());
+    for (int index : indexes) {
+      userRecords.add(records.get(index));
+    }
+
+    final AggregatedRecord aggregatedRecord = new AggregatedRecord(userRecords.get(0).getPartitionKey(),
+      explicitHashKeys[indexes.get(0)], builder.build(), userRecords, indexes);
+    builder.clear();
+
+    return aggregatedRecord;
+  }
+}
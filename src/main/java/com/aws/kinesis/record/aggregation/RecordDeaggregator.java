@@ -0,0 +1,197 @@
+package com.aws.kinesis.record.aggregation;
+
+import com.amazonaws.services.kinesis.model.Record;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.aws.kinesis.record.aggregation.AggregationFormat.*;
+
+/**
+ * Expand KPL aggregated records into user records. {@link AggregationFormat}
+ *
+ * User record data is a slice of the aggregated record buffer, no data is copied.
+ * A record without magic bytes, with digest mismatch or malformed message is passed through as it is.
+ */
+public class RecordDeaggregator {
+  private static Logger logger = LoggerFactory.getLogger(RecordDeaggregator.class);
+
+  private static final ThreadLocal<MessageDigest> md5 = ThreadLocal.withInitial(AggregationFormat::newMd5);
+
+  private RecordDeaggregator() {}
+
+  /**
+   * De-aggregate records.
+   *
+   * @param records kinesis records, aggregated or not.
+   *
+   * @return user records in order. {@link DeaggregatedRecord} for aggregated records.
+   */
+  public static List<Record> deaggregate(final List<Record> records) {
+    final List<Record> userRecords = new ArrayList<>(records.size());
+
+    for (Record record : records) {
+      if (!isAggregated(record.getData()) || !deaggregate(record, userRecords)) {
+        userRecords.add(record);
+      }
+    }
+
+    return userRecords;
+  }
+
+  /**
+   * De-aggregate an aggregated record into user records.
+   *
+   * @param record aggregated record.
+   * @param userRecords user records are appended, nothing is appended on failure.
+   *
+   * @return true if succeed.
+   */
+  private static boolean deaggregate(final Record record, final List<Record> userRecords) {
+    final ByteBuffer data = record.getData();
+    final int messageStart = data.position() + MAGIC.length;
+    final int messageEnd = data.limit() - DIGEST_SIZE;
+
+    if (!isDigestMatched(data, messageStart, messageEnd)) {
+      logger.error("failed de-aggregate record. digest mismatch, sequence number: " + record.getSequenceNumber());
+      return false;
+    }
+
+    final ByteBuffer message = data.duplicate();
+    message.limit(messageEnd).position(messageStart);
+
+    final List<String> partitionKeyTable = new ArrayList<>();
+    final List<String> explicitHashKeyTable = new ArrayList<>();
+    final List<ByteBuffer> recordMessages = new ArrayList<>();
+
+    try {
+      while (message.hasRemaining()) {
+        final int tag = (int) readVarint(message);
+        final int fieldNumber = tag >>> 3;
+        final int wireType = tag & 0x7;
+
+        if (wireType == WIRE_TYPE_LENGTH_DELIMITED && fieldNumber == FIELD_PARTITION_KEY_TABLE) {
+          partitionKeyTable.add(readString(message));
+        } else if (wireType == WIRE_TYPE_LENGTH_DELIMITED && fieldNumber == FIELD_EXPLICIT_HASH_KEY_TABLE) {
+          explicitHashKeyTable.add(readString(message));
+        } else if (wireType == WIRE_TYPE_LENGTH_DELIMITED && fieldNumber == FIELD_RECORDS) {
+          recordMessages.add(readBytes(message));
+        } else {
+          skipField(message, wireType);
+        }
+      }
+
+      final List<Record> deaggregatedRecords = new ArrayList<>(recordMessages.size());
+
+      for (ByteBuffer recordMessage : recordMessages) {
+        deaggregatedRecords.add(toUserRecord(record, deaggregatedRecords.size(),
+          recordMessage, partitionKeyTable, explicitHashKeyTable));
+      }
+
+      userRecords.addAll(deaggregatedRecords);
+      return true;
+    } catch (IllegalArgumentException | BufferUnderflowException | IndexOutOfBoundsException e) {
+      logger.error("failed de-aggregate record. malformed message, sequence number: " + record.getSequenceNumber());
+      logger.error(e.getMessage());
+      return false;
+    }
+  }
+
+  private static DeaggregatedRecord toUserRecord(final Record record,
+                                                 final long subSequenceNumber,
+                                                 final ByteBuffer recordMessage,
+                                                 final List<String> partitionKeyTable,
+                                                 final List<String> explicitHashKeyTable) {
+    int partitionKeyIndex = -1;
+    int explicitHashKeyIndex = -1;
+    ByteBuffer userData = null;
+
+    while (recordMessage.hasRemaining()) {
+      final int tag = (int) readVarint(recordMessage);
+      final int fieldNumber = tag >>> 3;
+      final int wireType = tag & 0x7;
+
+      if (wireType == WIRE_TYPE_VARINT && fieldNumber == FIELD_PARTITION_KEY_INDEX) {
+        partitionKeyIndex = (int) readVarint(recordMessage);
+      } else if (wireType == WIRE_TYPE_VARINT && fieldNumber == FIELD_EXPLICIT_HASH_KEY_INDEX) {
+        explicitHashKeyIndex = (int) readVarint(recordMessage);
+      } else if (wireType == WIRE_TYPE_LENGTH_DELIMITED && fieldNumber == FIELD_DATA) {
+        userData = readBytes(recordMessage);
+      } else {
+        skipField(recordMessage, wireType);
+      }
+    }
+
+    if (partitionKeyIndex < 0 || userData == null) {
+      throw new IllegalArgumentException("required field is missing.");
+    }
+
+    return new DeaggregatedRecord(record,
+      subSequenceNumber,
+      partitionKeyTable.get(partitionKeyIndex),
+      explicitHashKeyIndex < 0 ? null : explicitHashKeyTable.get(explicitHashKeyIndex),
+      userData);
+  }
+
+  private static boolean isDigestMatched(final ByteBuffer data, final int messageStart, final int messageEnd) {
+    final MessageDigest messageDigest = md5.get();
+    messageDigest.reset();
+
+    final ByteBuffer message = data.duplicate();
+    message.limit(messageEnd).position(messageStart);
+    messageDigest.update(message);
+
+    final byte[] digest = messageDigest.digest();
+    for (int i = 0; i < DIGEST_SIZE; i++) {
+      if (data.get(messageEnd + i) != digest[i]) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Read length-delimited bytes as a slice and advance position.
+   */
+  private static ByteBuffer readBytes(final ByteBuffer buffer) {
+    final int length = (int) readVarint(buffer);
+
+    if (length < 0 || length > buffer.remaining()) {
+      throw new IllegalArgumentException("invalid length: " + length);
+    }
+
+    final int limit = buffer.limit();
+    buffer.limit(buffer.position() + length);
+    final ByteBuffer slice = buffer.slice();
+    buffer.position(buffer.limit()).limit(limit);
+
+    return slice;
+  }
+
+  private static String readString(final ByteBuffer buffer) {
+    return StandardCharsets.UTF_8.decode(readBytes(buffer)).toString();
+  }
+
+  private static void skipField(final ByteBuffer buffer, final int wireType) {
+    switch (wireType) {
+      case WIRE_TYPE_VARINT:
+        readVarint(buffer);
+        break;
+      case WIRE_TYPE_FIXED64:
+        buffer.position(buffer.position() + 8);
+        break;
+      case WIRE_TYPE_LENGTH_DELIMITED:
+        readBytes(buffer);
+        break;
+      case WIRE_TYPE_FIXED32:
+        buffer.position(buffer.position() + 4);
+        break;
+      default:
+        throw new IllegalArgumentException("unsupported wire type: " + wireType);
+    }
+  }
+}
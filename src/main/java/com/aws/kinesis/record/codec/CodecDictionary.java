@@ -0,0 +1,95 @@
+package com.aws.kinesis.record.codec;
+
+import com.github.luben.zstd.ZstdDictTrainer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * Compression dictionary for small payloads.
+ *
+ * Dictionary is trained from sample payloads with zstd dictionary trainer,
+ * ZSTD uses it as a zstd dictionary and DEFLATE as a preset dictionary.
+ * Dictionary id is crc32 of dictionary bytes, encoder and decoder must load the same dictionary file.
+ */
+public class CodecDictionary {
+  private static Logger logger = LoggerFactory.getLogger(CodecDictionary.class);
+
+  private final int id;
+  private final byte[] bytes;
+
+  public CodecDictionary(final byte[] bytes) {
+    final CRC32 crc32 = new CRC32();
+    crc32.update(bytes);
+
+    // 0 is reserved for no dictionary.
+    this.id = (int) crc32.getValue() == 0 ? 1 : (int) crc32.getValue();
+    this.bytes = bytes;
+  }
+
+  // Getter >>
+  public int getId() { return id; }
+  public byte[] getBytes() { return bytes; }
+  // << Getter
+
+  /**
+   * Train a dictionary.
+   *
+   * @param samples sample payloads, a few thousands of typical payloads.
+   * @param dictionaryBytes max dictionary size, usually 16 ~ 112 KiB.
+   *
+   * @return trained dictionary, empty if training failed. (too few samples)
+   */
+  public static Optional<CodecDictionary> train(final List<ByteBuffer> samples, final int dictionaryBytes) {
+    logger.debug("train codec dictionary. sample count: " + samples.size() + ", dictionary bytes: " + dictionaryBytes);
+
+    final int sampleBytes = samples.stream().mapToInt(ByteBuffer::remaining).sum();
+    final ZstdDictTrainer trainer = new ZstdDictTrainer(sampleBytes, dictionaryBytes);
+
+    for (ByteBuffer sample : samples) {
+      final byte[] sampleArray = new byte[sample.remaining()];
+      sample.duplicate().get(sampleArray);
+      trainer.addSample(sampleArray);
+    }
+
+    try {
+      return Optional.of(new CodecDictionary(trainer.trainSamples()));
+    } catch (RuntimeException e) {
+      logger.error("failed train codec dictionary. sample count: " + samples.size());
+      logger.error(e.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  public static Optional<CodecDictionary> load(final Path path) {
+    logger.debug("load codec dictionary. path: " + path);
+
+    try {
+      return Optional.of(new CodecDictionary(Files.readAllBytes(path)));
+    } catch (IOException e) {
+      logger.error("failed load codec dictionary. path: " + path);
+      logger.error(e.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  public boolean save(final Path path) {
+    logger.debug("save codec dictionary. path: " + path + ", id: " + id);
+
+    try {
+      Files.write(path, bytes);
+      return true;
+    } catch (IOException e) {
+      logger.error("failed save codec dictionary. path: " + path);
+      logger.error(e.getMessage());
+      return false;
+    }
+  }
+}
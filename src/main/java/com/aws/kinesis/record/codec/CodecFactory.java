@@ -0,0 +1,35 @@
+package com.aws.kinesis.record.codec;
+
+public class CodecFactory {
+
+  private CodecFactory() {}
+
+  public static CodecFactory getInstance() {
+    return LazyHolder.INSTANCE;
+  }
+
+  private static class LazyHolder {
+    private static final CodecFactory INSTANCE = new CodecFactory();
+  }
+
+  /**
+   * @param codecType codec type.
+   * @param level compression level.
+   * @param dictionary dictionary, nullable. LZ4 ignores dictionary.
+   *
+   * @return codec, null for NONE.
+   */
+  public ICodec getCodec(CodecType codecType, int level, CodecDictionary dictionary) {
+    switch (codecType) {
+      case DEFLATE:
+        return new DeflateCodec(level, dictionary);
+      case LZ4:
+        return new Lz4Codec(level);
+      case ZSTD:
+        return new ZstdCodec(level, dictionary);
+      case NONE:
+      default:
+        return null;
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package com.aws.kinesis.record.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encoded payload format.
+ *
+ * [magic 3 bytes][codec type id 1 byte][dictionary id 4 bytes][original length 4 bytes][compressed payload]
+ *
+ * Magic starts with 0xC0 which never starts a valid UTF-8 text, so text payloads are not mistaken
+ * for encoded payloads and raw and encoded payloads can be mixed in a stream.
+ * Dictionary id is 0 without dictionary.
+ */
+public final class CodecFormat {
+  public static final byte[] MAGIC = new byte[] {(byte) 0xC0, (byte) 0xDE, (byte) 0xC5};
+  public static final int HEADER_SIZE = MAGIC.length + 1 + 4 + 4;
+
+  public static final int CODEC_TYPE_OFFSET = MAGIC.length;
+  public static final int DICTIONARY_ID_OFFSET = CODEC_TYPE_OFFSET + 1;
+  public static final int ORIGINAL_LENGTH_OFFSET = DICTIONARY_ID_OFFSET + 4;
+
+  private CodecFormat() {}
+
+  /**
+   * Check magic bytes, buffer position is not changed.
+   */
+  public static boolean isEncoded(final ByteBuffer data) {
+    if (data == null || data.remaining() < HEADER_SIZE) return false;
+
+    final int position = data.position();
+    for (int i = 0; i < MAGIC.length; i++) {
+      if (data.get(position + i) != MAGIC[i]) return false;
+    }
+    return true;
+  }
+
+  public static ByteBuffer encode(final CodecType codecType,
+                                  final int dictionaryId,
+                                  final int originalLength,
+                                  final byte[] payload) {
+    final ByteBuffer encoded = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+
+    encoded.put(MAGIC)
+      .put((byte) codecType.getId())
+      .putInt(dictionaryId)
+      .putInt(originalLength)
+      .put(payload)
+      .flip();
+
+    return encoded;
+  }
+
+  public static byte[] toArray(final ByteBuffer data) {
+    final byte[] array = new byte[data.remaining()];
+    data.duplicate().get(array);
+    return array;
+  }
+}
@@ -0,0 +1,30 @@
+package com.aws.kinesis.record.codec;
+
+import java.util.Optional;
+
+/**
+ * Payload codec type, id is written in the payload header. {@link CodecFormat}
+ */
+public enum CodecType {
+  NONE(0),
+  DEFLATE(1),
+  LZ4(2),
+  ZSTD(3);
+
+  private final int id;
+
+  CodecType(int id) {
+    this.id = id;
+  }
+
+  public int getId() {
+    return id;
+  }
+
+  public static Optional<CodecType> fromId(final int id) {
+    for (CodecType codecType : values()) {
+      if (codecType.id == id) return Optional.of(codecType);
+    }
+    return Optional.empty();
+  }
+}
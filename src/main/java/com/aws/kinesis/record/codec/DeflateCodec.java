@@ -0,0 +1,83 @@
+package com.aws.kinesis.record.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Raw deflate codec, dictionary is used as preset dictionary.
+ */
+public class DeflateCodec implements ICodec {
+  private final int level;
+  private final byte[] dictionary;
+
+  private final ThreadLocal<Deflater> deflater;
+  private final ThreadLocal<Inflater> inflater = ThreadLocal.withInitial(() -> new Inflater(true));
+
+  /**
+   * Constructor
+   *
+   * @param level compression level 1 ~ 9.
+   * @param dictionary preset dictionary, nullable.
+   */
+  public DeflateCodec(final int level, final CodecDictionary dictionary) {
+    this.level = Math.max(Deflater.BEST_SPEED, Math.min(Deflater.BEST_COMPRESSION, level));
+    this.dictionary = dictionary == null ? null : dictionary.getBytes();
+    this.deflater = ThreadLocal.withInitial(() -> new Deflater(this.level, true));
+  }
+
+  @Override
+  public CodecType getCodecType() {
+    return CodecType.DEFLATE;
+  }
+
+  @Override
+  public byte[] compress(final byte[] data) {
+    final Deflater currentDeflater = deflater.get();
+    currentDeflater.reset();
+    if (dictionary != null) currentDeflater.setDictionary(dictionary);
+
+    currentDeflater.setInput(data);
+    currentDeflater.finish();
+
+    final ByteArrayOutputStream compressed = new ByteArrayOutputStream(data.length / 2 + 64);
+    final byte[] buffer = new byte[Math.max(64, Math.min(data.length, 64 * 1024))];
+
+    while (!currentDeflater.finished()) {
+      compressed.write(buffer, 0, currentDeflater.deflate(buffer));
+    }
+
+    return compressed.toByteArray();
+  }
+
+  @Override
+  public byte[] decompress(final byte[] compressed, final int originalLength) {
+    final Inflater currentInflater = inflater.get();
+    currentInflater.reset();
+    if (dictionary != null) currentInflater.setDictionary(dictionary);
+
+    // raw inflate may need an extra byte at the end of input.
+    final byte[] input = new byte[compressed.length + 1];
+    System.arraycopy(compressed, 0, input, 0, compressed.length);
+    currentInflater.setInput(input);
+
+    final byte[] data = new byte[originalLength];
+    int length = 0;
+
+    try {
+      while (length < originalLength && !currentInflater.finished()) {
+        final int inflated = currentInflater.inflate(data, length, originalLength - length);
+        if (inflated == 0 && (currentInflater.needsInput() || currentInflater.needsDictionary())) break;
+        length += inflated;
+      }
+    } catch (DataFormatException e) {
+      throw new IllegalArgumentException("malformed deflate payload. " + e.getMessage(), e);
+    }
+
+    if (length != originalLength) {
+      throw new IllegalArgumentException("deflate payload length mismatch. expected: " + originalLength + ", actual: " + length);
+    }
+    return data;
+  }
+}
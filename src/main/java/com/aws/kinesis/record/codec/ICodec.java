@@ -0,0 +1,18 @@
+package com.aws.kinesis.record.codec;
+
+/**
+ * Payload compression codec, implementations are thread safe.
+ */
+public interface ICodec {
+  CodecType getCodecType();
+
+  byte[] compress(byte[] data);
+
+  /**
+   * @param compressed compressed payload without header.
+   * @param originalLength original payload length from header.
+   *
+   * @throws IllegalArgumentException malformed compressed payload.
+   */
+  byte[] decompress(byte[] compressed, int originalLength);
+}
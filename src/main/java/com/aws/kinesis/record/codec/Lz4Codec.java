@@ -0,0 +1,51 @@
+package com.aws.kinesis.record.codec;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+/**
+ * LZ4 block codec. Fastest, lower ratio, no dictionary support.
+ */
+public class Lz4Codec implements ICodec {
+  private final LZ4Compressor compressor;
+  private final LZ4SafeDecompressor decompressor;
+
+  /**
+   * Constructor
+   *
+   * @param level 1 or less for fast compressor, otherwise high compressor level. (up to 17)
+   */
+  public Lz4Codec(final int level) {
+    final LZ4Factory factory = LZ4Factory.fastestInstance();
+
+    this.compressor = level <= 1 ? factory.fastCompressor() : factory.highCompressor(Math.min(level, 17));
+    this.decompressor = factory.safeDecompressor();
+  }
+
+  @Override
+  public CodecType getCodecType() {
+    return CodecType.LZ4;
+  }
+
+  @Override
+  public byte[] compress(final byte[] data) {
+    return compressor.compress(data);
+  }
+
+  @Override
+  public byte[] decompress(final byte[] compressed, final int originalLength) {
+    try {
+      final byte[] data = new byte[originalLength];
+      final int length = decompressor.decompress(compressed, 0, compressed.length, data, 0);
+
+      if (length != originalLength) {
+        throw new IllegalArgumentException("lz4 payload length mismatch. expected: " + originalLength + ", actual: " + length);
+      }
+      return data;
+    } catch (LZ4Exception e) {
+      throw new IllegalArgumentException("malformed lz4 payload. " + e.getMessage(), e);
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package com.aws.kinesis.record.codec;
+
+import com.amazonaws.services.kinesis.model.Record;
+import com.utils.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Payload decoder. {@link CodecFormat}
+ *
+ * Codec and dictionary are read from payload header, raw and encoded payloads can be mixed.
+ * Dictionaries of every configured stream are loaded, a payload with unknown dictionary
+ * or malformed payload is passed through as it is.
+ */
+public class RecordDecoder {
+  private static Logger logger = LoggerFactory.getLogger(RecordDecoder.class);
+
+  // kinesis record limit 1 MiB, allow compression ratio up to 64.
+  private static final int MAX_ORIGINAL_LENGTH = 64 * 1024 * 1024;
+  private static final int DECODE_LEVEL = 1;
+
+  private final Map<Integer, CodecDictionary> dictionaries = new ConcurrentHashMap<>();
+  private final Map<String, ICodec> codecs = new ConcurrentHashMap<>();
+
+  private RecordDecoder() {
+    for (String dictionaryPath : AppConfig.getCodecDictionaryPaths()) {
+      CodecDictionary.load(Paths.get(dictionaryPath)).ifPresent(this::register);
+    }
+  }
+
+  private static class LazyHolder {
+    private static final RecordDecoder INSTANCE = new RecordDecoder();
+  }
+
+  public static RecordDecoder getInstance() {
+    return LazyHolder.INSTANCE;
+  }
+
+  public void register(final CodecDictionary dictionary) {
+    logger.debug("register codec dictionary. id: " + dictionary.getId());
+    dictionaries.putIfAbsent(dictionary.getId(), dictionary);
+  }
+
+  /**
+   * Decode payload.
+   *
+   * @param data payload, position is not changed.
+   *
+   * @return decoded payload, or data itself if not encoded or failed decode.
+   */
+  public ByteBuffer decode(final ByteBuffer data) {
+    if (!CodecFormat.isEncoded(data)) return data;
+
+    final int position = data.position();
+    final Optional<CodecType> codecType = CodecType.fromId(data.get(position + CodecFormat.CODEC_TYPE_OFFSET));
+    final int dictionaryId = data.getInt(position + CodecFormat.DICTIONARY_ID_OFFSET);
+    final int originalLength = data.getInt(position + CodecFormat.ORIGINAL_LENGTH_OFFSET);
+
+    final ByteBuffer payload = data.duplicate();
+    payload.position(position + CodecFormat.HEADER_SIZE);
+
+    if (!codecType.isPresent() || originalLength < 0 || originalLength > MAX_ORIGINAL_LENGTH) {
+      logger.error("failed decode payload. invalid header, pass through.");
+      return data;
+    }
+
+    if (codecType.get() == CodecType.NONE) return payload.slice();
+
+    if (dictionaryId != 0 && !dictionaries.containsKey(dictionaryId)) {
+      logger.error("failed decode payload. unknown dictionary, pass through. dictionary id: " + dictionaryId);
+      return data;
+    }
+
+    try {
+      return ByteBuffer.wrap(this.getCodec(codecType.get(), dictionaryId)
+        .decompress(CodecFormat.toArray(payload), originalLength));
+    } catch (IllegalArgumentException e) {
+      logger.error("failed decode payload. malformed payload, pass through. codec: " + codecType.get());
+      logger.error(e.getMessage());
+      return data;
+    }
+  }
+
+  /**
+   * Decode kinesis records, decoded records are copies with decoded data.
+   *
+   * @param records kinesis records, de-aggregated.
+   *
+   * @return records in order.
+   */
+  public List<Record> decode(final List<Record> records) {
+    return records.stream()
+      .map(record -> {
+        if (!CodecFormat.isEncoded(record.getData())) return record;
+
+        final Record decodedRecord = record.clone();
+        decodedRecord.setData(this.decode(record.getData()));
+        return decodedRecord;
+      })
+      .collect(Collectors.toList());
+  }
+
+  private ICodec getCodec(final CodecType codecType, final int dictionaryId) {
+    return codecs.computeIfAbsent(codecType.name() + ":" + dictionaryId, key -> CodecFactory.getInstance()
+      .getCodec(codecType, DECODE_LEVEL, dictionaryId == 0 ? null : dictionaries.get(dictionaryId)));
+  }
+}
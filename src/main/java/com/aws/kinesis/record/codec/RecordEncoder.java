@@ -0,0 +1,78 @@
+package com.aws.kinesis.record.codec;
+
+import com.utils.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+
+/**
+ * Payload encoder of a stream. {@link CodecFormat}
+ *
+ * Payload is compressed only if it is not smaller than min bytes and compression saves bytes,
+ * otherwise payload is put as it is.
+ */
+public class RecordEncoder {
+  private static Logger logger = LoggerFactory.getLogger(RecordEncoder.class);
+
+  private final ICodec codec;
+  private final int dictionaryId;
+  private final int minBytes;
+
+  /**
+   * Constructor
+   *
+   * @param codecType codec type, NONE for no encoding.
+   * @param level compression level.
+   * @param minBytes min payload size to compress.
+   * @param dictionary dictionary, nullable. registered to {@link RecordDecoder} for decoding.
+   */
+  public RecordEncoder(final CodecType codecType, final int level, final int minBytes, final CodecDictionary dictionary) {
+    this.codec = CodecFactory.getInstance().getCodec(codecType, level, dictionary);
+    this.dictionaryId = dictionary == null || codecType == CodecType.LZ4 ? 0 : dictionary.getId();
+    this.minBytes = minBytes;
+
+    if (dictionary != null) RecordDecoder.getInstance().register(dictionary);
+  }
+
+  /**
+   * Encoder from config, aws.kinesis.codec.streams.{stream name} overrides aws.kinesis.codec.
+   */
+  public static RecordEncoder forStream(final String streamName) {
+    final String dictionaryPath = AppConfig.getCodecDictionaryPath(streamName);
+
+    return new RecordEncoder(AppConfig.getCodecType(streamName),
+      AppConfig.getCodecLevel(streamName),
+      AppConfig.getCodecMinBytes(streamName),
+      dictionaryPath.isEmpty() ? null : CodecDictionary.load(Paths.get(dictionaryPath)).orElse(null));
+  }
+
+  public boolean isEnabled() {
+    return codec != null;
+  }
+
+  /**
+   * Encode payload.
+   *
+   * @param data raw payload, position is not changed.
+   *
+   * @return encoded payload or data itself.
+   */
+  public ByteBuffer encode(final ByteBuffer data) {
+    if (codec == null) return data;
+
+    if (data.remaining() >= minBytes) {
+      final byte[] compressed = codec.compress(CodecFormat.toArray(data));
+
+      if (CodecFormat.HEADER_SIZE + compressed.length < data.remaining()) {
+        return CodecFormat.encode(codec.getCodecType(), dictionaryId, data.remaining(), compressed);
+      }
+      logger.debug("payload is not compressible. put as it is, size: " + data.remaining());
+    }
+
+    // raw payload starting with magic bytes would be decoded by mistake.
+    return CodecFormat.isEncoded(data) ?
+      CodecFormat.encode(CodecType.NONE, 0, data.remaining(), CodecFormat.toArray(data)) : data;
+  }
+}
@@ -0,0 +1,54 @@
+package com.aws.kinesis.record.codec;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+
+/**
+ * Zstandard codec, with dictionary for small payloads.
+ */
+public class ZstdCodec implements ICodec {
+  private final int level;
+  private final ZstdDictCompress dictCompress;
+  private final ZstdDictDecompress dictDecompress;
+
+  /**
+   * Constructor
+   *
+   * @param level compression level 1 ~ 22.
+   * @param dictionary trained dictionary, nullable.
+   */
+  public ZstdCodec(final int level, final CodecDictionary dictionary) {
+    this.level = level;
+    this.dictCompress = dictionary == null ? null : new ZstdDictCompress(dictionary.getBytes(), level);
+    this.dictDecompress = dictionary == null ? null : new ZstdDictDecompress(dictionary.getBytes());
+  }
+
+  @Override
+  public CodecType getCodecType() {
+    return CodecType.ZSTD;
+  }
+
+  @Override
+  public byte[] compress(final byte[] data) {
+    return dictCompress == null ? Zstd.compress(data, level) : Zstd.compress(data, dictCompress);
+  }
+
+  @Override
+  public byte[] decompress(final byte[] compressed, final int originalLength) {
+    final byte[] data;
+
+    try {
+      data = dictDecompress == null ?
+        Zstd.decompress(compressed, originalLength) :
+        Zstd.decompress(compressed, dictDecompress, originalLength);
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException("malformed zstd payload. " + e.getMessage(), e);
+    }
+
+    if (data.length != originalLength) {
+      throw new IllegalArgumentException("zstd payload length mismatch. expected: " + originalLength + ", actual: " + data.length);
+    }
+    return data;
+  }
+}
@@ -0,0 +1,236 @@
+package com.aws.kinesis.record.handler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Record file on a channel kept open, records are framed by newlines or length prefixes. {@link RecordFraming}
+ *
+ * A batch is written by gathered writes of record data views and frames, record buffers are not copied or moved.
+ * Batches of concurrent writers are not interleaved. Fsync follows the {@link SyncPolicy},
+ * a writer waiting for fsync is covered by an fsync started after its write, so concurrent batches share one fsync.
+ */
+public class FileSink {
+  private static Logger logger = LoggerFactory.getLogger(FileSink.class);
+
+  private static final ByteBuffer NEW_LINE = ByteBuffer.wrap(new byte[] {'\n'}).asReadOnlyBuffer();
+  public static final int MAX_VARINT_BYTES = 5;
+
+  private static final ScheduledExecutorService syncScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    final Thread thread = new Thread(runnable, "file-sink-sync");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final Path path;
+  private final FileChannel channel;
+  private final RecordFraming framing;
+  private final SyncPolicy syncPolicy;
+  private final long syncIntervalMillis;
+  private final long syncBytes;
+  private final ScheduledFuture<?> syncFuture;
+
+  private final Object writeLock = new Object();
+  private final Object syncLock = new Object();
+
+  // guarded by writeLock for update.
+  private volatile long writtenBytes = 0L;
+  // guarded by syncLock for update.
+  private volatile long syncedBytes = 0L;
+  private volatile long lastSyncMillis = System.currentTimeMillis();
+  private volatile boolean closed = false;
+
+  /**
+   * Constructor
+   *
+   * @param path record file.
+   * @param framing record framing.
+   * @param syncPolicy fsync policy.
+   * @param syncIntervalMillis max millis between fsync, INTERVAL only.
+   * @param syncBytes max written bytes between fsync, INTERVAL only.
+   * @param openOptions file open options, WRITE is added.
+   */
+  public FileSink(final Path path,
+                  final RecordFraming framing,
+                  final SyncPolicy syncPolicy,
+                  final long syncIntervalMillis,
+                  final long syncBytes,
+                  final OpenOption... openOptions) throws IOException {
+    final Set<OpenOption> options = new HashSet<>(Arrays.asList(openOptions));
+    options.add(StandardOpenOption.WRITE);
+
+    this.path = path;
+    this.channel = FileChannel.open(path, options);
+    this.framing = framing;
+    this.syncPolicy = syncPolicy;
+    this.syncIntervalMillis = syncIntervalMillis;
+    this.syncBytes = syncBytes;
+
+    // idle files are synced by the scheduler, busy files by writers.
+    this.syncFuture = syncPolicy != SyncPolicy.INTERVAL ? null : syncScheduler.scheduleWithFixedDelay(() -> {
+      if (System.currentTimeMillis() - lastSyncMillis < syncIntervalMillis) return;
+      try {
+        this.sync();
+      } catch (IOException e) {
+        logger.error("failed scheduled sync. path: " + path);
+        logger.error(e.getMessage());
+      }
+    }, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  public FileSink(final Path path,
+                  final SyncPolicy syncPolicy,
+                  final long syncIntervalMillis,
+                  final long syncBytes,
+                  final OpenOption... openOptions) throws IOException {
+    this(path, RecordFraming.NEWLINE, syncPolicy, syncIntervalMillis, syncBytes, openOptions);
+  }
+
+  public FileSink(final Path path, final SyncPolicy syncPolicy, final long syncIntervalMillis, final long syncBytes) throws IOException {
+    this(path, syncPolicy, syncIntervalMillis, syncBytes, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+  }
+
+  // Getter >>
+  public Path getPath() { return path; }
+  public RecordFraming getFraming() { return framing; }
+  public SyncPolicy getSyncPolicy() { return syncPolicy; }
+  public long getWrittenBytes() { return writtenBytes; }
+  public long getSyncedBytes() { return syncedBytes; }
+  // << Getter
+
+  /**
+   * Write records, each framed by the record framing.
+   *
+   * @param records record data from position to limit, positions are not changed.
+   *
+   * @return written bytes.
+   */
+  public long write(final List<ByteBuffer> records) throws IOException {
+    if (records.isEmpty()) return 0L;
+
+    final ByteBuffer[] buffers = new ByteBuffer[records.size() * 2];
+    long batchBytes = 0L;
+    if (framing == RecordFraming.LENGTH_PREFIXED) {
+      // one buffer holds the length prefixes of the batch.
+      final ByteBuffer prefixes = ByteBuffer.allocate(records.size() * MAX_VARINT_BYTES);
+      for (int i = 0; i < records.size(); i++) {
+        buffers[i * 2 + 1] = records.get(i).duplicate();
+        final int prefixStart = prefixes.position();
+        putVarint(prefixes, buffers[i * 2 + 1].remaining());
+        buffers[i * 2] = (ByteBuffer) prefixes.duplicate().limit(prefixes.position()).position(prefixStart);
+        batchBytes += buffers[i * 2].remaining() + buffers[i * 2 + 1].remaining();
+      }
+    } else {
+      for (int i = 0; i < records.size(); i++) {
+        buffers[i * 2] = records.get(i).duplicate();
+        buffers[i * 2 + 1] = NEW_LINE.duplicate();
+        batchBytes += buffers[i * 2].remaining() + 1;
+      }
+    }
+
+    final long batchEndBytes;
+    synchronized (writeLock) {
+      if (closed) throw new IOException("file sink is closed. path: " + path);
+
+      // a gathered write may stop early, continue from the first buffer with bytes left.
+      int offset = 0;
+      long written = 0L;
+      while (written < batchBytes) {
+        while (!buffers[offset].hasRemaining()) offset++;
+        written += channel.write(buffers, offset, buffers.length - offset);
+      }
+      writtenBytes += batchBytes;
+      batchEndBytes = writtenBytes;
+    }
+
+    switch (syncPolicy) {
+      case BATCH:
+        this.sync(batchEndBytes);
+        break;
+      case INTERVAL:
+        if (batchEndBytes - syncedBytes >= syncBytes || System.currentTimeMillis() - lastSyncMillis >= syncIntervalMillis) {
+          this.sync(batchEndBytes);
+        }
+        break;
+      case NONE:
+      default:
+        break;
+    }
+    return batchBytes;
+  }
+
+  /**
+   * Fsync all written bytes.
+   */
+  public void sync() throws IOException {
+    this.sync(writtenBytes);
+  }
+
+  /**
+   * Fsync up to target bytes, skipped if an fsync of another writer already covered them.
+   */
+  private void sync(final long targetBytes) throws IOException {
+    synchronized (syncLock) {
+      if (syncedBytes >= targetBytes || !channel.isOpen()) return;
+
+      final long syncingBytes = writtenBytes;
+      channel.force(false);
+      syncedBytes = syncingBytes;
+      lastSyncMillis = System.currentTimeMillis();
+    }
+  }
+
+  public void close() {
+    synchronized (writeLock) {
+      if (closed) return;
+      closed = true;
+    }
+    if (syncFuture != null) syncFuture.cancel(false);
+
+    try {
+      if (syncPolicy != SyncPolicy.NONE) this.sync();
+      channel.close();
+    } catch (IOException e) {
+      logger.error("failed close file sink. path: " + path);
+      logger.error(e.getMessage());
+    }
+  }
+
+  /**
+   * Put an unsigned varint, 7 bits per byte from the lowest, the high bit is set on all but the last byte.
+   */
+  static void putVarint(final ByteBuffer buffer, final int value) {
+    int remaining = value;
+    while ((remaining & ~0x7F) != 0) {
+      buffer.put((byte) ((remaining & 0x7F) | 0x80));
+      remaining >>>= 7;
+    }
+    buffer.put((byte) remaining);
+  }
+
+  @Override
+  public String toString() {
+    return "FileSink{" +
+      "path=" + path +
+      ", framing=" + framing +
+      ", syncPolicy=" + syncPolicy +
+      ", writtenBytes=" + writtenBytes +
+      ", syncedBytes=" + syncedBytes +
+      '}';
+  }
+}
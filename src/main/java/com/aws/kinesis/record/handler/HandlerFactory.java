@@ -3,6 +3,11 @@ package com.aws.kinesis.record.handler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class HandlerFactory {
   private static Logger logger = LoggerFactory.getLogger(HandlerFactory.class);
 
@@ -18,6 +23,11 @@ public class HandlerFactory {
     private static final HandlerFactory INSTANCE = new HandlerFactory();
   }
 
+  // one file handler per path, so writers of a file share its sink.
+  private final Map<String, IRecordsHandler> tmpFileoutHandlers = new ConcurrentHashMap<>();
+  // one segment handler per directory, so segments of a shard are not opened twice.
+  private final Map<String, IRecordsHandler> segmentFileoutHandlers = new ConcurrentHashMap<>();
+
   public IRecordsHandler getHandler(HandlerType handlerType, String...handlerArgs){
     switch (handlerType) {
       case StdoutHandler:
@@ -26,13 +36,29 @@ public class HandlerFactory {
         return LazyHolder.DebugoutHandler;
       case TmpFileoutHandler:
         if (handlerArgs.length >= 1) {
-          return new TmpFileoutHandler(handlerArgs[0]);
+          return tmpFileoutHandlers.computeIfAbsent(Paths.get(handlerArgs[0]).toAbsolutePath().normalize().toString(),
+            path -> new TmpFileoutHandler(handlerArgs[0]));
+        } else return null;
+      case SegmentFileoutHandler:
+        if (handlerArgs.length >= 1) {
+          return segmentFileoutHandlers.computeIfAbsent(Paths.get(handlerArgs[0]).toAbsolutePath().normalize().toString(),
+            this::createSegmentFileoutHandler);
         } else return null;
       default:
         return null;
     }
   }
 
+  private IRecordsHandler createSegmentFileoutHandler(String dir) {
+    try {
+      return new SegmentFileoutHandler(dir);
+    } catch (IOException e) {
+      logger.error("failed create segment handler. dir: " + dir);
+      logger.error(e.getMessage());
+      return null;
+    }
+  }
+
   public IRecordsHandler[] mergeHandler(IRecordsHandler handler, IRecordsHandler...handlers) {
     final IRecordsHandler[] totalHandlers;
 
@@ -3,5 +3,6 @@ package com.aws.kinesis.record.handler;
 public enum HandlerType {
   StdoutHandler,
   DebugoutHandler,
-  TmpFileoutHandler
+  TmpFileoutHandler,
+  SegmentFileoutHandler
 }
@@ -10,4 +10,19 @@ public interface IRecordsHandler<T> {
   void recordsProcess(List<IRecord<T>> records) throws IOException;
   void kinesisRecordsProcess(List<Record> kinesisRecords);
   HandlerType getHandlerType();
+
+  /**
+   * Records of one shard, consumers call this with the shard id. Defaults to {@link #recordsProcess(List)}.
+   */
+  default void recordsProcess(String shardId, List<IRecord<T>> records) throws IOException { recordsProcess(records); }
+
+  /**
+   * Kinesis records of one shard, consumers call this with the shard id. Defaults to {@link #kinesisRecordsProcess(List)}.
+   */
+  default void kinesisRecordsProcess(String shardId, List<Record> kinesisRecords) { kinesisRecordsProcess(kinesisRecords); }
+
+  /**
+   * @return true to get the shared decoded batch by recordsProcess, false to get kinesis records by kinesisRecordsProcess.
+   */
+  default boolean isTypedHandler() { return false; }
 }
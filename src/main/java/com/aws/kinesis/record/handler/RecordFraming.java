@@ -0,0 +1,11 @@
+package com.aws.kinesis.record.handler;
+
+/**
+ * File sink record framing. {@link FileSink}
+ */
+public enum RecordFraming {
+  // each record is followed by a newline, for text records.
+  NEWLINE,
+  // each record is preceded by its byte length as an unsigned varint, records may hold any byte.
+  LENGTH_PREFIXED
+}
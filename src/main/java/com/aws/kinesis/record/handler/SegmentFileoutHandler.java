@@ -0,0 +1,474 @@
+package com.aws.kinesis.record.handler;
+
+import com.amazonaws.services.kinesis.model.Record;
+import com.aws.kinesis.record.IRecord;
+import com.aws.kinesis.record.codec.CodecType;
+import com.github.luben.zstd.ZstdOutputStream;
+import com.utils.AppConfig;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Length prefixed records archived into rolling segment files, one open segment per shard. {@link RecordFraming#LENGTH_PREFIXED}
+ *
+ * A segment is written to "{shard id}.{first sequence number}.{open millis}.active" and rolls over after max bytes or max age.
+ * A rolled segment is compressed on a background thread into "{name}.data{ext}", then "{name}.manifest"
+ * with the shard and sequence range is written and moved into place. A segment is sealed once its manifest exists,
+ * batch jobs read only segments with a manifest. Active files left by a crash are sealed on startup,
+ * the first sequence number is taken from the name and the record count from the file. {@link #recoverSegment(Path)}
+ */
+public class SegmentFileoutHandler<T> implements IRecordsHandler<T> {
+  private static Logger logger = LoggerFactory.getLogger(SegmentFileoutHandler.class);
+
+  public static final String ACTIVE_SUFFIX = ".active";
+  public static final String MANIFEST_SUFFIX = ".manifest";
+  private static final String TMP_SUFFIX = ".tmp";
+  private static final String UNKNOWN_SHARD_ID = "unknown";
+  private static final long MAX_ROLL_CHECK_INTERVAL_MILLIS = 1000L;
+  // "{shard id}.{first sequence number}.{open millis}", first sequence number is missing for records without one.
+  private static final Pattern SEGMENT_NAME_PATTERN = Pattern.compile("^([^.]+)(?:\\.([^.]+))?\\.(\\d+)$");
+
+  private static final ScheduledExecutorService rollScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    final Thread thread = new Thread(runnable, "segment-roll");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final Path dir;
+  private final long maxBytes;
+  private final long maxAgeMillis;
+  private final CodecType codecType;
+  private final int level;
+
+  private final Map<String, Segment> segments = new ConcurrentHashMap<>();
+  private final ExecutorService sealExecutor;
+  private final ScheduledFuture<?> rollFuture;
+
+  /**
+   * Constructor
+   *
+   * @param dir segment directory, created if not exist.
+   * @param maxBytes segment rolls over after this many bytes.
+   * @param maxAgeMillis segment rolls over this long after its first record, even if idle.
+   * @param codecType sealed segment compression, DEFLATE is written as gzip, LZ4 as lz4 frame and ZSTD as zstd frame.
+   * @param level compression level, DEFLATE and ZSTD.
+   */
+  public SegmentFileoutHandler(final Path dir,
+                               final long maxBytes,
+                               final long maxAgeMillis,
+                               final CodecType codecType,
+                               final int level) throws IOException {
+    this.dir = Files.createDirectories(dir);
+    this.maxBytes = maxBytes;
+    this.maxAgeMillis = maxAgeMillis;
+    this.codecType = codecType;
+    this.level = level;
+
+    this.sealExecutor = Executors.newSingleThreadExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "segment-seal-" + dir.getFileName());
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    try (final DirectoryStream<Path> activePaths = Files.newDirectoryStream(dir, "*" + ACTIVE_SUFFIX)) {
+      for (Path activePath : activePaths) {
+        this.recoverSegment(activePath).ifPresent(segment -> sealExecutor.execute(() -> this.seal(segment)));
+      }
+    }
+
+    final long rollCheckIntervalMillis = Math.max(1L, Math.min(MAX_ROLL_CHECK_INTERVAL_MILLIS, maxAgeMillis));
+    this.rollFuture = rollScheduler.scheduleWithFixedDelay(this::rollExpired, rollCheckIntervalMillis, rollCheckIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  public SegmentFileoutHandler(final String dir) throws IOException {
+    this(Paths.get(dir),
+      AppConfig.getSegmentMaxBytes(),
+      AppConfig.getSegmentMaxAgeMillis(),
+      AppConfig.getSegmentCodecType(),
+      AppConfig.getSegmentCodecLevel());
+  }
+
+  // Getter >>
+  public Path getDir() { return dir; }
+  public int getOpenSegmentCount() { return segments.size(); }
+  // << Getter
+
+  @Override
+  public HandlerType getHandlerType() {
+    return HandlerType.SegmentFileoutHandler;
+  }
+
+  @Override
+  public void recordsProcess(List<IRecord<T>> records) throws IOException {
+    this.recordsProcess(UNKNOWN_SHARD_ID, records);
+  }
+
+  @Override
+  public void recordsProcess(String shardId, List<IRecord<T>> records) throws IOException {
+    logger.debug("process records. handler: " + getHandlerType() + ", shardId: " + shardId + ", count: " + records.size());
+    if (records.isEmpty()) return;
+
+    final List<ByteBuffer> dataList = new ArrayList<>(records.size());
+    for (IRecord record : records) {
+      dataList.add(record.getData());
+    }
+    this.write(shardId,
+      records.get(0).getSequenceNumber().orElse(""),
+      records.get(records.size() - 1).getSequenceNumber().orElse(""),
+      dataList);
+  }
+
+  @Override
+  public void kinesisRecordsProcess(List<Record> kinesisRecords) {
+    this.kinesisRecordsProcess(UNKNOWN_SHARD_ID, kinesisRecords);
+  }
+
+  @Override
+  public void kinesisRecordsProcess(String shardId, List<Record> kinesisRecords) {
+    logger.debug("process kinesis records. handler: " + getHandlerType() + ", shardId: " + shardId + ", count: " + kinesisRecords.size());
+    if (kinesisRecords.isEmpty()) return;
+
+    final List<ByteBuffer> dataList = new ArrayList<>(kinesisRecords.size());
+    for (Record kinesisRecord : kinesisRecords) {
+      dataList.add(kinesisRecord.getData());
+    }
+
+    try {
+      this.write(shardId,
+        kinesisRecords.get(0).getSequenceNumber(),
+        kinesisRecords.get(kinesisRecords.size() - 1).getSequenceNumber(),
+        dataList);
+    } catch (IOException e) {
+      logger.error("failed write segment. dir: " + dir + ", shardId: " + shardId);
+      logger.error(e.getMessage());
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Roll all open segments and wait until they are sealed.
+   */
+  public void close() {
+    rollFuture.cancel(false);
+    for (Segment segment : segments.values()) {
+      synchronized (segment) {
+        this.roll(segment);
+      }
+    }
+
+    sealExecutor.shutdown();
+    try {
+      if (!sealExecutor.awaitTermination(1, TimeUnit.MINUTES)) {
+        logger.error("segment seal is not done in time. dir: " + dir);
+      }
+    } catch (InterruptedException e) {
+      logger.error("interrupted waiting segment seal. dir: " + dir);
+      logger.error(e.getMessage());
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void write(final String shardId,
+                     final String firstSequenceNumber,
+                     final String lastSequenceNumber,
+                     final List<ByteBuffer> dataList) throws IOException {
+    while (true) {
+      final Segment segment;
+      try {
+        segment = segments.computeIfAbsent(shardId, key -> this.openSegment(shardId, firstSequenceNumber));
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+
+      synchronized (segment) {
+        // rolled by the age check between lookup and lock.
+        if (segment.rolled) continue;
+
+        segment.fileSink.write(dataList);
+        segment.lastSequenceNumber = lastSequenceNumber;
+        segment.recordCount += dataList.size();
+
+        if (segment.fileSink.getWrittenBytes() >= maxBytes) this.roll(segment);
+      }
+      return;
+    }
+  }
+
+  private Segment openSegment(final String shardId, final String firstSequenceNumber) {
+    // open time keeps names unique when records are read again after a crash.
+    final String name = shardId + "." + (firstSequenceNumber.isEmpty() ? "" : firstSequenceNumber + ".") + System.currentTimeMillis();
+    try {
+      logger.debug("open segment. dir: " + dir + ", name: " + name);
+      return new Segment(shardId, name, firstSequenceNumber, System.currentTimeMillis(),
+        new FileSink(dir.resolve(name + ACTIVE_SUFFIX), RecordFraming.LENGTH_PREFIXED, SyncPolicy.NONE, 0L, 0L,
+          StandardOpenOption.CREATE_NEW, StandardOpenOption.APPEND));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Segment of an active file left by a crash, rolled and ready to seal.
+   *
+   * Records are counted by walking the length prefixes. A torn last record is cut off, its batch was not checkpointed and is read again.
+   * Last sequence number is not kept in the file, it is left empty and the manifest is marked recovered.
+   *
+   * @return empty if the file is already sealed, empty or of unknown name.
+   */
+  private Optional<Segment> recoverSegment(final Path activePath) throws IOException {
+    final String fileName = activePath.getFileName().toString();
+    final String name = fileName.substring(0, fileName.length() - ACTIVE_SUFFIX.length());
+
+    // crashed after the manifest is moved into place.
+    if (Files.exists(dir.resolve(name + MANIFEST_SUFFIX))) {
+      logger.debug("delete active file of sealed segment. path: " + activePath);
+      Files.delete(activePath);
+      return Optional.empty();
+    }
+
+    final Matcher matcher = SEGMENT_NAME_PATTERN.matcher(name);
+    if (!matcher.matches()) {
+      logger.warn("unknown active file is left, not archived. path: " + activePath);
+      return Optional.empty();
+    }
+
+    long recordCount = 0L;
+    long recordEndBytes = 0L;
+    try (final FileChannel channel = FileChannel.open(activePath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      final long size = channel.size();
+      final ByteBuffer prefix = ByteBuffer.allocate(FileSink.MAX_VARINT_BYTES);
+      while (recordEndBytes < size) {
+        prefix.clear();
+        while (prefix.hasRemaining()) {
+          if (channel.read(prefix, recordEndBytes + prefix.position()) <= 0) break;
+        }
+        prefix.flip();
+
+        final long recordLength = readVarint(prefix);
+        // prefix or data is torn.
+        if (recordLength < 0L || recordEndBytes + prefix.position() + recordLength > size) break;
+
+        recordCount++;
+        recordEndBytes += prefix.position() + recordLength;
+      }
+
+      if (channel.size() > recordEndBytes) {
+        logger.warn("cut off torn record of active file. path: " + activePath + ", bytes: " + (channel.size() - recordEndBytes));
+        channel.truncate(recordEndBytes);
+        channel.force(false);
+      }
+    }
+
+    if (recordCount == 0L) {
+      logger.debug("delete empty active file. path: " + activePath);
+      Files.delete(activePath);
+      return Optional.empty();
+    }
+
+    final Segment segment = new Segment(matcher.group(1), name, matcher.group(2) == null ? "" : matcher.group(2),
+      Long.parseLong(matcher.group(3)), null);
+    segment.lastSequenceNumber = "";
+    segment.recordCount = recordCount;
+    segment.closedMillis = Files.getLastModifiedTime(activePath).toMillis();
+    segment.rolled = true;
+    segment.recovered = true;
+
+    logger.warn("recover unsealed segment. dir: " + dir + ", segment: " + segment);
+    return Optional.of(segment);
+  }
+
+  /**
+   * Read an unsigned varint of up to {@link FileSink#MAX_VARINT_BYTES} bytes.
+   *
+   * @return -1 if the varint is not complete or out of int range.
+   */
+  private static long readVarint(final ByteBuffer buffer) {
+    long value = 0L;
+    for (int shift = 0; buffer.hasRemaining(); shift += 7) {
+      final byte b = buffer.get();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) return value > Integer.MAX_VALUE ? -1L : value;
+    }
+    return -1L;
+  }
+
+  private void rollExpired() {
+    final long now = System.currentTimeMillis();
+    for (Segment segment : segments.values()) {
+      if (now - segment.createdMillis < maxAgeMillis) continue;
+      synchronized (segment) {
+        this.roll(segment);
+      }
+    }
+  }
+
+  /**
+   * Close a segment and queue it for sealing, caller holds the segment lock.
+   */
+  private void roll(final Segment segment) {
+    if (segment.rolled) return;
+
+    segment.rolled = true;
+    segments.remove(segment.shardId, segment);
+    segment.fileSink.close();
+    segment.closedMillis = System.currentTimeMillis();
+
+    logger.debug("roll segment. dir: " + dir + ", segment: " + segment);
+    sealExecutor.execute(() -> this.seal(segment));
+  }
+
+  /**
+   * Compress the active file, then write the manifest. Each file is written to a tmp file, synced and moved atomically.
+   */
+  private void seal(final Segment segment) {
+    final Path activePath = dir.resolve(segment.name + ACTIVE_SUFFIX);
+    final Path dataPath = dir.resolve(segment.name + ".data" + getExtension(codecType));
+    final Path manifestPath = dir.resolve(segment.name + MANIFEST_SUFFIX);
+
+    try {
+      final Path dataTmpPath = dir.resolve(dataPath.getFileName() + TMP_SUFFIX);
+      try (final OutputStream outputStream = this.newCompressStream(Files.newOutputStream(dataTmpPath,
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+        Files.copy(activePath, outputStream);
+      }
+      force(dataTmpPath);
+      Files.move(dataTmpPath, dataPath, StandardCopyOption.ATOMIC_MOVE);
+
+      final Path manifestTmpPath = dir.resolve(manifestPath.getFileName() + TMP_SUFFIX);
+      Files.write(manifestTmpPath, segment.toManifest(dataPath.getFileName().toString(), Files.size(activePath), Files.size(dataPath))
+        .getBytes(StandardCharsets.UTF_8));
+      force(manifestTmpPath);
+      Files.move(manifestTmpPath, manifestPath, StandardCopyOption.ATOMIC_MOVE);
+      force(dir);
+
+      Files.delete(activePath);
+      logger.debug("sealed segment. manifest: " + manifestPath);
+    } catch (IOException e) {
+      logger.error("failed seal segment, active file is kept. path: " + activePath);
+      logger.error(e.getMessage());
+    }
+  }
+
+  private OutputStream newCompressStream(final OutputStream outputStream) throws IOException {
+    switch (codecType) {
+      case DEFLATE:
+        return new LevelGzipOutputStream(outputStream, level);
+      case LZ4:
+        return new LZ4FrameOutputStream(outputStream);
+      case ZSTD:
+        return new ZstdOutputStream(outputStream, level);
+      case NONE:
+      default:
+        return outputStream;
+    }
+  }
+
+  private static String getExtension(final CodecType codecType) {
+    switch (codecType) {
+      case DEFLATE:
+        return ".gz";
+      case LZ4:
+        return ".lz4";
+      case ZSTD:
+        return ".zst";
+      case NONE:
+      default:
+        return "";
+    }
+  }
+
+  private static void force(final Path path) {
+    // directory fsync is not supported on some platforms, the move is still atomic.
+    try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      channel.force(true);
+    } catch (IOException e) {
+      logger.debug("skip fsync. path: " + path + ", " + e.getMessage());
+    }
+  }
+
+  private static class LevelGzipOutputStream extends GZIPOutputStream {
+    private LevelGzipOutputStream(final OutputStream outputStream, final int level) throws IOException {
+      super(outputStream, 64 * 1024);
+      def.setLevel(level);
+    }
+  }
+
+  private static class Segment {
+    private final String shardId;
+    private final String name;
+    private final String firstSequenceNumber;
+    private final FileSink fileSink;
+    private final long createdMillis;
+
+    // guarded by segment lock.
+    private String lastSequenceNumber;
+    private long recordCount = 0L;
+    private long closedMillis = 0L;
+    private boolean rolled = false;
+    // sealed from an active file left by a crash.
+    private boolean recovered = false;
+
+    /**
+     * @param fileSink active file sink, null for a recovered segment.
+     */
+    private Segment(final String shardId, final String name, final String firstSequenceNumber, final long createdMillis, final FileSink fileSink) {
+      this.shardId = shardId;
+      this.name = name;
+      this.firstSequenceNumber = firstSequenceNumber;
+      this.lastSequenceNumber = firstSequenceNumber;
+      this.createdMillis = createdMillis;
+      this.fileSink = fileSink;
+    }
+
+    private String toManifest(final String dataFileName, final long rawBytes, final long dataBytes) {
+      return "shardId=" + shardId + '\n' +
+        "firstSequenceNumber=" + firstSequenceNumber + '\n' +
+        "lastSequenceNumber=" + lastSequenceNumber + '\n' +
+        "recordCount=" + recordCount + '\n' +
+        "rawBytes=" + rawBytes + '\n' +
+        "dataFile=" + dataFileName + '\n' +
+        "dataBytes=" + dataBytes + '\n' +
+        "createdMillis=" + createdMillis + '\n' +
+        "closedMillis=" + closedMillis + '\n' +
+        "recovered=" + recovered + '\n';
+    }
+
+    @Override
+    public String toString() {
+      return "Segment{" +
+        "name='" + name + '\'' +
+        ", firstSequenceNumber='" + firstSequenceNumber + '\'' +
+        ", lastSequenceNumber='" + lastSequenceNumber + '\'' +
+        ", recordCount=" + recordCount +
+        ", recovered=" + recovered +
+        '}';
+    }
+  }
+}
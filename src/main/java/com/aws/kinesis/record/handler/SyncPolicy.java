@@ -0,0 +1,13 @@
+package com.aws.kinesis.record.handler;
+
+/**
+ * File sink fsync policy. {@link FileSink}
+ */
+public enum SyncPolicy {
+  // left to the OS page cache.
+  NONE,
+  // every written batch is synced before write returns, concurrent batches share one fsync.
+  BATCH,
+  // synced once sync interval millis or sync bytes are passed since the last sync.
+  INTERVAL
+}
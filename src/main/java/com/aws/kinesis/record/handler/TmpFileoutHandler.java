@@ -2,31 +2,45 @@ package com.aws.kinesis.record.handler;
 
 import com.amazonaws.services.kinesis.model.Record;
 import com.aws.kinesis.record.IRecord;
+import com.utils.AppConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.io.OutputStream;
-import java.nio.file.Files;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.nio.file.OpenOption;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+/**
+ * Newline delimited record file, records are appended through a file sink kept open. {@link FileSink}
+ *
+ * The handler is shared by shard threads, sink is opened on the first batch and closed by {@link #close()}.
+ * A failed write throws, so the consumer does not checkpoint records that are not written.
+ */
 public class TmpFileoutHandler<T> implements IRecordsHandler<T> {
   private final static Logger logger = LoggerFactory.getLogger(TmpFileoutHandler.class);
 
-  private final static byte[] newLineBytes = "\n".getBytes();
-
   private final String tmpFilePathString;
   private final OpenOption[] openOptions;
+  private final SyncPolicy syncPolicy;
 
-  public TmpFileoutHandler(String tmpFilePathString, StandardOpenOption... openOptions) {
+  private FileSink fileSink;
+
+  public TmpFileoutHandler(String tmpFilePathString, SyncPolicy syncPolicy, StandardOpenOption... openOptions) {
     this.tmpFilePathString = tmpFilePathString;
+    this.syncPolicy = syncPolicy;
     this.openOptions = openOptions;
   }
 
+  public TmpFileoutHandler(String tmpFilePathString, StandardOpenOption... openOptions) {
+    this(tmpFilePathString, AppConfig.getFileSinkSyncPolicy(), openOptions);
+  }
+
   public TmpFileoutHandler(String tmpFilePathString) {
     this(tmpFilePathString, StandardOpenOption.APPEND, StandardOpenOption.CREATE);
   }
@@ -40,35 +54,50 @@ public class TmpFileoutHandler<T> implements IRecordsHandler<T> {
   public void recordsProcess(List<IRecord<T>> records) {
     logger.debug("process records. handler: " + getHandlerType() + ", count: " + records.size());
 
-    try (final OutputStream outputStream = Files.newOutputStream(Paths.get(this.tmpFilePathString), this.openOptions)) {
-      for (IRecord record : records) {
-        logger.debug("write file to " + tmpFilePathString + ", record: " + record.toString());
-
-        outputStream.write(record.getData().array());
-        outputStream.write(newLineBytes);
-      }
-    } catch (IOException e) {
-      logger.error("failed out put stream job. file path: " + tmpFilePathString +
-        ", options: " + Arrays.toString(openOptions));
-      logger.error(e.getMessage());
+    final List<ByteBuffer> dataList = new ArrayList<>(records.size());
+    for (IRecord record : records) {
+      dataList.add(record.getData());
     }
+    this.write(dataList);
   }
 
   @Override
   public void kinesisRecordsProcess(List<Record> kinesisRecords) {
     logger.debug("process kinesis records. handler: " + getHandlerType() + ", count: " + kinesisRecords.size());
 
-    try (final OutputStream outputStream = Files.newOutputStream(Paths.get(this.tmpFilePathString), this.openOptions)) {
-      for (Record kinesisRecord : kinesisRecords) {
-        logger.debug("write file to " + tmpFilePathString + ", record: " + kinesisRecord.toString());
+    final List<ByteBuffer> dataList = new ArrayList<>(kinesisRecords.size());
+    for (Record kinesisRecord : kinesisRecords) {
+      dataList.add(kinesisRecord.getData());
+    }
+    this.write(dataList);
+  }
 
-        outputStream.write(kinesisRecord.getData().array());
-        outputStream.write(newLineBytes);
-      }
+  public synchronized void close() {
+    if (fileSink != null) {
+      fileSink.close();
+      fileSink = null;
+    }
+  }
+
+  /**
+   * @throws UncheckedIOException failed open or write, the batch fails and is not checkpointed.
+   */
+  private void write(final List<ByteBuffer> dataList) {
+    try {
+      this.getFileSink().write(dataList);
     } catch (IOException e) {
-      logger.error("failed out put stream job. file path: " + tmpFilePathString +
+      logger.error("failed write file sink. file path: " + tmpFilePathString +
         ", options: " + Arrays.toString(openOptions));
       logger.error(e.getMessage());
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private synchronized FileSink getFileSink() throws IOException {
+    if (fileSink == null) {
+      fileSink = new FileSink(Paths.get(tmpFilePathString), syncPolicy,
+        AppConfig.getFileSinkSyncIntervalMillis(), AppConfig.getFileSinkSyncBytes(), openOptions);
     }
+    return fileSink;
   }
-}
\ No newline at end of file
+}
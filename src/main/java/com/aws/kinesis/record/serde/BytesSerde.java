@@ -0,0 +1,24 @@
+package com.aws.kinesis.record.serde;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Raw bytes, value is a read-only view of data.
+ */
+public class BytesSerde implements ISerde<ByteBuffer> {
+
+  @Override
+  public SerdeType getSerdeType() {
+    return SerdeType.BYTES;
+  }
+
+  @Override
+  public ByteBuffer serialize(final ByteBuffer value) {
+    return value.asReadOnlyBuffer();
+  }
+
+  @Override
+  public ByteBuffer deserialize(final ByteBuffer data) {
+    return data.asReadOnlyBuffer();
+  }
+}
@@ -0,0 +1,19 @@
+package com.aws.kinesis.record.serde;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Record value serializer and deserializer, implementations are thread safe.
+ */
+public interface ISerde<T> {
+  SerdeType getSerdeType();
+
+  ByteBuffer serialize(T value);
+
+  /**
+   * @param data record data from position to limit, position may be moved.
+   *
+   * @throws IllegalArgumentException malformed data.
+   */
+  T deserialize(ByteBuffer data);
+}
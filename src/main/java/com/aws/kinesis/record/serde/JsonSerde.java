@@ -0,0 +1,44 @@
+package com.aws.kinesis.record.serde;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * JSON value of a class, Jackson databind. Data is parsed from the buffer without copying it.
+ */
+public class JsonSerde<T> implements ISerde<T> {
+  // configured once, ObjectMapper is thread safe after configuration.
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final Class<T> valueClass;
+
+  public JsonSerde(final Class<T> valueClass) {
+    this.valueClass = valueClass;
+  }
+
+  @Override
+  public SerdeType getSerdeType() {
+    return SerdeType.JSON;
+  }
+
+  @Override
+  public ByteBuffer serialize(final T value) {
+    try {
+      return ByteBuffer.wrap(objectMapper.writeValueAsBytes(value));
+    } catch (IOException e) {
+      throw new IllegalArgumentException("failed serialize json. class: " + valueClass.getName(), e);
+    }
+  }
+
+  @Override
+  public T deserialize(final ByteBuffer data) {
+    try {
+      return objectMapper.readValue(new ByteBufferBackedInputStream(data), valueClass);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("failed deserialize json. class: " + valueClass.getName(), e);
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package com.aws.kinesis.record.serde;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Ordered field list of the schema binary format. {@link SchemaSerde}
+ *
+ * Schema id is crc32 of the field specs, writer and reader must use the same field list.
+ * Any change of the field list, appended fields too, is a new schema id not compatible with the old one,
+ * records of the old schema fail to deserialize with schema id mismatch.
+ */
+public class Schema {
+  private final List<Field> fields;
+  private final int id;
+
+  public Schema(final List<Field> fields) {
+    this.fields = Collections.unmodifiableList(new ArrayList<>(fields));
+
+    final CRC32 crc32 = new CRC32();
+    crc32.update(this.toString().getBytes(StandardCharsets.UTF_8));
+    this.id = (int) crc32.getValue();
+  }
+
+  // Getter >>
+  public List<Field> getFields() { return fields; }
+  public int getId() { return id; }
+  // << Getter
+
+  /**
+   * @param fieldSpecs "name:TYPE" per field, type is a {@link FieldType} name.
+   *
+   * @throws IllegalArgumentException malformed field spec.
+   */
+  public static Schema parse(final List<String> fieldSpecs) {
+    final List<Field> fields = new ArrayList<>(fieldSpecs.size());
+    for (String fieldSpec : fieldSpecs) {
+      final int separatorIndex = fieldSpec.lastIndexOf(':');
+      if (separatorIndex <= 0) throw new IllegalArgumentException("malformed field spec. spec: " + fieldSpec);
+
+      fields.add(new Field(fieldSpec.substring(0, separatorIndex).trim(),
+        FieldType.valueOf(fieldSpec.substring(separatorIndex + 1).trim())));
+    }
+    return new Schema(fields);
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder builder = new StringBuilder();
+    for (Field field : fields) {
+      if (builder.length() > 0) builder.append(',');
+      builder.append(field.getName()).append(':').append(field.getFieldType());
+    }
+    return builder.toString();
+  }
+
+  public enum FieldType {
+    BOOLEAN,
+    INT,
+    LONG,
+    DOUBLE,
+    STRING,
+    BYTES
+  }
+
+  public static class Field {
+    private final String name;
+    private final FieldType fieldType;
+
+    public Field(final String name, final FieldType fieldType) {
+      this.name = name;
+      this.fieldType = fieldType;
+    }
+
+    // Getter >>
+    public String getName() { return name; }
+    public FieldType getFieldType() { return fieldType; }
+    // << Getter
+  }
+}
@@ -0,0 +1,241 @@
+package com.aws.kinesis.record.serde;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary of a {@link Schema}, value is a field name to value map.
+ *
+ * Format: schema id (4 bytes), null bitmap (1 bit per field), non-null values in field order.
+ * BOOLEAN 1 byte, INT and LONG zigzag varint, DOUBLE 8 bytes, STRING and BYTES varint length and bytes.
+ * Field names are not written. Missing or null map values are null fields.
+ * Deserialized BYTES values are read-only views of data.
+ */
+public class SchemaSerde implements ISerde<Map<String, Object>> {
+  private static final int SCHEMA_ID_BYTES = 4;
+
+  private final Schema schema;
+
+  public SchemaSerde(final Schema schema) {
+    this.schema = schema;
+  }
+
+  // Getter >>
+  public Schema getSchema() { return schema; }
+  // << Getter
+
+  @Override
+  public SerdeType getSerdeType() {
+    return SerdeType.SCHEMA;
+  }
+
+  /**
+   * @throws IllegalArgumentException value of a field is not of the field type.
+   */
+  @Override
+  public ByteBuffer serialize(final Map<String, Object> value) {
+    final List<Schema.Field> fields = schema.getFields();
+    final int bitmapBytes = (fields.size() + 7) / 8;
+
+    // string fields are encoded once, sized in the first pass and written in the second.
+    final Object[] fieldValues = new Object[fields.size()];
+    int size = SCHEMA_ID_BYTES + bitmapBytes;
+    for (int i = 0; i < fields.size(); i++) {
+      final Schema.Field field = fields.get(i);
+      final Object fieldValue = value.get(field.getName());
+      if (fieldValue == null) continue;
+
+      fieldValues[i] = toFieldValue(field, fieldValue);
+      size += getFieldSize(field.getFieldType(), fieldValues[i]);
+    }
+
+    final ByteBuffer data = ByteBuffer.allocate(size);
+    data.putInt(schema.getId());
+    for (int i = 0; i < bitmapBytes; i++) {
+      int bitmap = 0;
+      for (int bit = 0; bit < 8 && i * 8 + bit < fields.size(); bit++) {
+        if (fieldValues[i * 8 + bit] == null) bitmap |= 1 << bit;
+      }
+      data.put((byte) bitmap);
+    }
+    for (int i = 0; i < fields.size(); i++) {
+      if (fieldValues[i] != null) putField(data, fields.get(i).getFieldType(), fieldValues[i]);
+    }
+    data.flip();
+
+    return data;
+  }
+
+  @Override
+  public Map<String, Object> deserialize(final ByteBuffer data) {
+    final List<Schema.Field> fields = schema.getFields();
+    final int bitmapBytes = (fields.size() + 7) / 8;
+
+    try {
+      final int schemaId = data.getInt();
+      if (schemaId != schema.getId()) {
+        throw new IllegalArgumentException("schema id mismatch. expected: " + schema.getId() + ", actual: " + schemaId);
+      }
+
+      final int bitmapOffset = data.position();
+      data.position(bitmapOffset + bitmapBytes);
+
+      final Map<String, Object> value = new LinkedHashMap<>(fields.size() * 2);
+      for (int i = 0; i < fields.size(); i++) {
+        final boolean isNull = (data.get(bitmapOffset + i / 8) & (1 << (i % 8))) != 0;
+        value.put(fields.get(i).getName(), isNull ? null : getField(data, fields.get(i).getFieldType()));
+      }
+      return value;
+    } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("truncated schema data. schema: " + schema, e);
+    }
+  }
+
+  private static Object toFieldValue(final Schema.Field field, final Object fieldValue) {
+    switch (field.getFieldType()) {
+      case BOOLEAN:
+        if (fieldValue instanceof Boolean) return fieldValue;
+        break;
+      case INT:
+      case LONG:
+        if (fieldValue instanceof Integer || fieldValue instanceof Long || fieldValue instanceof Short || fieldValue instanceof Byte) {
+          final long longValue = ((Number) fieldValue).longValue();
+          if (field.getFieldType() == Schema.FieldType.INT && (int) longValue != longValue) break;
+          return longValue;
+        }
+        break;
+      case DOUBLE:
+        if (fieldValue instanceof Number) return ((Number) fieldValue).doubleValue();
+        break;
+      case STRING:
+        if (fieldValue instanceof String) return ((String) fieldValue).getBytes(StandardCharsets.UTF_8);
+        break;
+      case BYTES:
+        if (fieldValue instanceof byte[]) return ByteBuffer.wrap((byte[]) fieldValue);
+        if (fieldValue instanceof ByteBuffer) return ((ByteBuffer) fieldValue).duplicate();
+        break;
+    }
+    throw new IllegalArgumentException("field value type mismatch. field: " + field.getName() +
+      ", type: " + field.getFieldType() + ", value class: " + fieldValue.getClass().getName());
+  }
+
+  private static int getFieldSize(final Schema.FieldType fieldType, final Object fieldValue) {
+    switch (fieldType) {
+      case BOOLEAN:
+        return 1;
+      case INT:
+      case LONG:
+        return getVarLongSize(zigzag((Long) fieldValue));
+      case DOUBLE:
+        return 8;
+      case STRING:
+        return getVarLongSize(((byte[]) fieldValue).length) + ((byte[]) fieldValue).length;
+      case BYTES:
+      default:
+        return getVarLongSize(((ByteBuffer) fieldValue).remaining()) + ((ByteBuffer) fieldValue).remaining();
+    }
+  }
+
+  private static void putField(final ByteBuffer data, final Schema.FieldType fieldType, final Object fieldValue) {
+    switch (fieldType) {
+      case BOOLEAN:
+        data.put((byte) ((Boolean) fieldValue ? 1 : 0));
+        break;
+      case INT:
+      case LONG:
+        putVarLong(data, zigzag((Long) fieldValue));
+        break;
+      case DOUBLE:
+        data.putDouble((Double) fieldValue);
+        break;
+      case STRING:
+        putVarLong(data, ((byte[]) fieldValue).length);
+        data.put((byte[]) fieldValue);
+        break;
+      case BYTES:
+      default:
+        putVarLong(data, ((ByteBuffer) fieldValue).remaining());
+        data.put((ByteBuffer) fieldValue);
+        break;
+    }
+  }
+
+  private static Object getField(final ByteBuffer data, final Schema.FieldType fieldType) {
+    switch (fieldType) {
+      case BOOLEAN:
+        return data.get() != 0;
+      case INT:
+        return (int) unzigzag(getVarLong(data));
+      case LONG:
+        return unzigzag(getVarLong(data));
+      case DOUBLE:
+        return data.getDouble();
+      case STRING: {
+        final int length = getLength(data);
+        final String string;
+        if (data.hasArray()) {
+          string = new String(data.array(), data.arrayOffset() + data.position(), length, StandardCharsets.UTF_8);
+        } else {
+          final byte[] bytes = new byte[length];
+          data.duplicate().get(bytes);
+          string = new String(bytes, StandardCharsets.UTF_8);
+        }
+        data.position(data.position() + length);
+        return string;
+      }
+      case BYTES:
+      default: {
+        final int length = getLength(data);
+        final ByteBuffer bytes = data.asReadOnlyBuffer();
+        bytes.limit(bytes.position() + length);
+        data.position(data.position() + length);
+        return bytes.slice();
+      }
+    }
+  }
+
+  private static int getLength(final ByteBuffer data) {
+    final long length = getVarLong(data);
+    if (length < 0 || length > data.remaining()) throw new IllegalArgumentException("field length out of data. length: " + length);
+    return (int) length;
+  }
+
+  private static long zigzag(final long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private static long unzigzag(final long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private static int getVarLongSize(long value) {
+    int size = 1;
+    while ((value & ~0x7FL) != 0) {
+      value >>>= 7;
+      size++;
+    }
+    return size;
+  }
+
+  private static void putVarLong(final ByteBuffer data, long value) {
+    while ((value & ~0x7FL) != 0) {
+      data.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    data.put((byte) value);
+  }
+
+  private static long getVarLong(final ByteBuffer data) {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      final byte b = data.get();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) return value;
+    }
+    throw new IllegalArgumentException("malformed varint.");
+  }
+}
@@ -0,0 +1,49 @@
+package com.aws.kinesis.record.serde;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.utils.AppConfig;
+
+import java.util.List;
+
+public class SerdeFactory {
+
+  private SerdeFactory() {}
+
+  public static SerdeFactory getInstance() {
+    return LazyHolder.INSTANCE;
+  }
+
+  private static class LazyHolder {
+    private static final ISerde BytesSerde = new BytesSerde();
+    private static final ISerde Utf8Serde = new Utf8Serde();
+    private static final ISerde JsonSerde = new JsonSerde<>(JsonNode.class);
+    private static final SerdeFactory INSTANCE = new SerdeFactory();
+  }
+
+  /**
+   * @param serdeType serde type.
+   * @param schemaFields "name:TYPE" field specs, SCHEMA only. {@link Schema#parse(List)}
+   *
+   * @return serde, JSON values are JsonNode trees.
+   */
+  public ISerde getSerde(SerdeType serdeType, List<String> schemaFields) {
+    switch (serdeType) {
+      case UTF8:
+        return LazyHolder.Utf8Serde;
+      case JSON:
+        return LazyHolder.JsonSerde;
+      case SCHEMA:
+        return new SchemaSerde(Schema.parse(schemaFields));
+      case BYTES:
+      default:
+        return LazyHolder.BytesSerde;
+    }
+  }
+
+  /**
+   * @return serde of the stream config, aws.kinesis.serde.streams.{stream name} overrides aws.kinesis.serde.
+   */
+  public ISerde getSerde(String streamName) {
+    return this.getSerde(AppConfig.getSerdeType(streamName), AppConfig.getSerdeSchemaFields(streamName));
+  }
+}
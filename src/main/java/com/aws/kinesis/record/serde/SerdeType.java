@@ -0,0 +1,11 @@
+package com.aws.kinesis.record.serde;
+
+/**
+ * Record value format. {@link ISerde}
+ */
+public enum SerdeType {
+  BYTES,
+  UTF8,
+  JSON,
+  SCHEMA
+}
@@ -0,0 +1,27 @@
+package com.aws.kinesis.record.serde;
+
+import com.aws.kinesis.record.StringRecord;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * UTF-8 string, malformed input is replaced. {@link StringRecord#byteBufferToString(ByteBuffer)}
+ */
+public class Utf8Serde implements ISerde<String> {
+
+  @Override
+  public SerdeType getSerdeType() {
+    return SerdeType.UTF8;
+  }
+
+  @Override
+  public ByteBuffer serialize(final String value) {
+    return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Override
+  public String deserialize(final ByteBuffer data) {
+    return StringRecord.byteBufferToString(data);
+  }
+}
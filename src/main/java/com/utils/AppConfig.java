@@ -3,12 +3,20 @@ package com.utils;
 import com.amazonaws.services.kinesis.clientlibrary.lib.worker.InitialPositionInStream;
 import com.amazonaws.services.kinesis.model.ShardIteratorType;
 import com.amazonaws.services.kinesis.producer.KinesisProducerConfiguration;
+import com.aws.kinesis.api.consumer.checkpoint.CheckpointStoreType;
+import com.aws.kinesis.api.consumer.lease.LeaseManagerType;
+import com.aws.kinesis.api.producer.DispatchMode;
+import com.aws.kinesis.record.codec.CodecType;
+import com.aws.kinesis.record.handler.SyncPolicy;
+import com.aws.kinesis.record.serde.SerdeType;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 public class AppConfig {
   private static final Logger logger = LoggerFactory.getLogger(AppConfig.class);
@@ -32,6 +40,23 @@ public class AppConfig {
   // Retry config
   public static int getRetryAttemptCount() { return conf.getInt("retry.attemptCount"); }
   public static long getRetryBackoffTimeInMillis() { return conf.getLong("retry.backoffTimeInMillis"); }
+  public static long getRetryMaxBackoffTimeInMillis() { return conf.getLong("retry.maxBackoffTimeInMillis"); }
+  public static double getRetryBudgetMaxRetries() { return conf.getDouble("retry.budget.maxRetries"); }
+  public static double getRetryBudgetRetriesPerSecond() { return conf.getDouble("retry.budget.retriesPerSecond"); }
+
+  // per-operation retry config, falls back to retry config
+  public static int getRetryAttemptCount(String operation) {
+    final String path = "retry.operations." + operation + ".attemptCount";
+    return conf.hasPath(path) ? conf.getInt(path) : getRetryAttemptCount();
+  }
+  public static long getRetryBackoffTimeInMillis(String operation) {
+    final String path = "retry.operations." + operation + ".backoffTimeInMillis";
+    return conf.hasPath(path) ? conf.getLong(path) : getRetryBackoffTimeInMillis();
+  }
+  public static long getRetryMaxBackoffTimeInMillis(String operation) {
+    final String path = "retry.operations." + operation + ".maxBackoffTimeInMillis";
+    return conf.hasPath(path) ? conf.getLong(path) : getRetryMaxBackoffTimeInMillis();
+  }
 
   // aws account config
   public static String getAwsProfile() { return conf.getString("aws.profile"); }
@@ -40,6 +65,97 @@ public class AppConfig {
   // kinesis config
   public static int getKinesisShardCount() { return conf.getInt("aws.kinesis.shardCount"); }
   public static ShardIteratorType getShardIteratorType() { return ShardIteratorType.valueOf(conf.getString("aws.kinesis.shardIteratorType")); }
+  public static int getPollExecutorThreadCount() { return conf.getInt("aws.kinesis.pollExecutor.threadCount"); }
+
+  // api producer config
+  public static DispatchMode getProducerDispatchMode() { return DispatchMode.valueOf(conf.getString("aws.kinesis.producer.dispatchMode")); }
+  public static int getProducerInitialInFlightRequests() { return conf.getInt("aws.kinesis.producer.initialInFlightRequests"); }
+  public static int getProducerMaxInFlightRequests() { return conf.getInt("aws.kinesis.producer.maxInFlightRequests"); }
+  public static int getProducerShardThreadCount() { return conf.getInt("aws.kinesis.producer.shardThreadCount"); }
+  public static long getProducerShardRefreshMinIntervalMillis() { return conf.getLong("aws.kinesis.producer.shardRefreshMinIntervalMillis"); }
+  public static boolean isProducerRateLimitEnabled() { return conf.getBoolean("aws.kinesis.producer.rateLimit.enabled"); }
+  public static long getProducerRateLimitRecordsPerSecond() { return conf.getLong("aws.kinesis.producer.rateLimit.recordsPerSecond"); }
+  public static long getProducerRateLimitBytesPerSecond() { return conf.getLong("aws.kinesis.producer.rateLimit.bytesPerSecond"); }
+  public static boolean isProducerAggregationEnabled() { return conf.getBoolean("aws.kinesis.producer.aggregation.enabled"); }
+  public static int getProducerAggregationMaxBytes() { return conf.getInt("aws.kinesis.producer.aggregation.maxBytes"); }
+  public static int getProducerAggregationMaxCount() { return conf.getInt("aws.kinesis.producer.aggregation.maxCount"); }
+  public static boolean isProducerSpillEnabled() { return conf.getBoolean("aws.kinesis.producer.spill.enabled"); }
+  public static String getProducerSpillDir() { return conf.getString("aws.kinesis.producer.spill.dir"); }
+  public static int getProducerSpillSegmentBytes() { return conf.getInt("aws.kinesis.producer.spill.segmentBytes"); }
+  public static long getProducerSpillDrainIntervalMillis() { return conf.getLong("aws.kinesis.producer.spill.drainIntervalMillis"); }
+  public static int getProducerSpillDrainBatchCount() { return conf.getInt("aws.kinesis.producer.spill.drainBatchCount"); }
+  public static int getProducerAccumulatorMaxCount() { return conf.getInt("aws.kinesis.producer.accumulator.maxCount"); }
+  public static long getProducerAccumulatorMaxBytes() { return conf.getLong("aws.kinesis.producer.accumulator.maxBytes"); }
+  public static long getProducerAccumulatorLingerMillis() { return conf.getLong("aws.kinesis.producer.accumulator.lingerMillis"); }
+  public static int getProducerAccumulatorStripeCount() { return conf.getInt("aws.kinesis.producer.accumulator.stripeCount"); }
+  public static long getProducerAccumulatorBufferBytes() { return conf.getLong("aws.kinesis.producer.accumulator.bufferBytes"); }
+  public static long getProducerAccumulatorMaxBlockMillis() { return conf.getLong("aws.kinesis.producer.accumulator.maxBlockMillis"); }
+  public static boolean isProducerSaltingEnabled() { return conf.getBoolean("aws.kinesis.producer.salting.enabled"); }
+  public static int getProducerSaltingSaltCount() { return conf.getInt("aws.kinesis.producer.salting.saltCount"); }
+  public static int getProducerSaltingThrottleThreshold() { return conf.getInt("aws.kinesis.producer.salting.throttleThreshold"); }
+  public static long getProducerSaltingWindowMillis() { return conf.getLong("aws.kinesis.producer.salting.windowMillis"); }
+  public static long getProducerSaltingCoolDownMillis() { return conf.getLong("aws.kinesis.producer.salting.coolDownMillis"); }
+
+  // api consumer config
+  public static boolean isConsumerAdaptivePollEnabled() { return conf.getBoolean("aws.kinesis.consumer.poll.adaptive"); }
+  public static int getConsumerPollLimit() { return conf.getInt("aws.kinesis.consumer.poll.limit"); }
+  public static long getConsumerPollCatchUpMillisBehindLatest() { return conf.getLong("aws.kinesis.consumer.poll.catchUpMillisBehindLatest"); }
+  public static int getConsumerHandlerThreadCount() { return conf.getInt("aws.kinesis.consumer.handlerThreadCount"); }
+  public static boolean isConsumerPrefetchEnabled() { return conf.getBoolean("aws.kinesis.consumer.prefetch.enabled"); }
+  public static int getConsumerPrefetchMaxRecords() { return conf.getInt("aws.kinesis.consumer.prefetch.maxRecords"); }
+  public static long getConsumerPrefetchMaxBytes() { return conf.getLong("aws.kinesis.consumer.prefetch.maxBytes"); }
+  public static CheckpointStoreType getConsumerCheckpointStoreType() { return CheckpointStoreType.valueOf(conf.getString("aws.kinesis.consumer.checkpoint.store")); }
+  public static String getConsumerCheckpointDir() { return conf.getString("aws.kinesis.consumer.checkpoint.dir"); }
+  public static int getConsumerCheckpointJournalBytes() { return conf.getInt("aws.kinesis.consumer.checkpoint.journalBytes"); }
+  public static long getConsumerCheckpointFlushIntervalMillis() { return conf.getLong("aws.kinesis.consumer.checkpoint.flushIntervalMillis"); }
+  public static int getConsumerRecoveryMaxAttempts() { return conf.getInt("aws.kinesis.consumer.recovery.maxAttempts"); }
+  public static LeaseManagerType getConsumerLeaseManagerType() { return LeaseManagerType.valueOf(conf.getString("aws.kinesis.consumer.lease.manager")); }
+  public static String getConsumerLeaseDir() { return conf.getString("aws.kinesis.consumer.lease.dir"); }
+  public static long getConsumerLeaseDurationMillis() { return conf.getLong("aws.kinesis.consumer.lease.durationMillis"); }
+  public static long getConsumerLeaseRenewIntervalMillis() { return conf.getLong("aws.kinesis.consumer.lease.renewIntervalMillis"); }
+  public static int getConsumerReplayReadersPerShard() { return conf.getInt("aws.kinesis.consumer.replay.readersPerShard"); }
+  public static long getConsumerReplayRecordsPerSecond() { return conf.getLong("aws.kinesis.consumer.replay.recordsPerSecond"); }
+  public static long getConsumerReplayBytesPerSecond() { return conf.getLong("aws.kinesis.consumer.replay.bytesPerSecond"); }
+
+  // codec config, aws.kinesis.codec.streams.{stream name} overrides aws.kinesis.codec
+  public static CodecType getCodecType(String streamName) { return CodecType.valueOf(conf.getString(getCodecPath(streamName, "type"))); }
+  public static int getCodecLevel(String streamName) { return conf.getInt(getCodecPath(streamName, "level")); }
+  public static int getCodecMinBytes(String streamName) { return conf.getInt(getCodecPath(streamName, "minBytes")); }
+  public static String getCodecDictionaryPath(String streamName) { return conf.getString(getCodecPath(streamName, "dictionaryPath")); }
+  public static List<String> getCodecDictionaryPaths() {
+    final List<String> dictionaryPaths = new ArrayList<>();
+    dictionaryPaths.add(conf.getString("aws.kinesis.codec.dictionaryPath"));
+
+    for (String streamName : conf.getObject("aws.kinesis.codec.streams").keySet()) {
+      dictionaryPaths.add(getCodecDictionaryPath(streamName));
+    }
+    dictionaryPaths.removeIf(String::isEmpty);
+
+    return dictionaryPaths;
+  }
+  private static String getCodecPath(String streamName, String key) {
+    final String streamPath = "aws.kinesis.codec.streams.\"" + streamName + "\"." + key;
+    return conf.hasPath(streamPath) ? streamPath : "aws.kinesis.codec." + key;
+  }
+
+  // serde config, aws.kinesis.serde.streams.{stream name} overrides aws.kinesis.serde
+  public static SerdeType getSerdeType(String streamName) { return SerdeType.valueOf(conf.getString(getSerdePath(streamName, "type"))); }
+  public static List<String> getSerdeSchemaFields(String streamName) { return conf.getStringList(getSerdePath(streamName, "schema")); }
+  private static String getSerdePath(String streamName, String key) {
+    final String streamPath = "aws.kinesis.serde.streams.\"" + streamName + "\"." + key;
+    return conf.hasPath(streamPath) ? streamPath : "aws.kinesis.serde." + key;
+  }
+
+  // file sink config
+  public static SyncPolicy getFileSinkSyncPolicy() { return SyncPolicy.valueOf(conf.getString("aws.kinesis.fileSink.syncPolicy")); }
+  public static long getFileSinkSyncIntervalMillis() { return conf.getLong("aws.kinesis.fileSink.syncIntervalMillis"); }
+  public static long getFileSinkSyncBytes() { return conf.getLong("aws.kinesis.fileSink.syncBytes"); }
+
+  // segment file handler config
+  public static long getSegmentMaxBytes() { return conf.getLong("aws.kinesis.segment.maxBytes"); }
+  public static long getSegmentMaxAgeMillis() { return conf.getLong("aws.kinesis.segment.maxAgeMillis"); }
+  public static CodecType getSegmentCodecType() { return CodecType.valueOf(conf.getString("aws.kinesis.segment.codec")); }
+  public static int getSegmentCodecLevel() { return conf.getInt("aws.kinesis.segment.level"); }
 
   // kcl config
   public static long getKclCheckPointIntervalMillis() { return conf.getLong("aws.kcl.checkPointIntervalMillis"); }
@@ -6,7 +6,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.nio.charset.CharacterCodingException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -75,15 +74,9 @@ public class AppUtils {
     logger.debug("create example records. count: " + recordCount);
     final ArrayList<IRecord> exampleRecords = new ArrayList<>(recordCount);
     for(int i = 1; i <= recordCount; i++) {
-      try {
-        final IRecord createRecord = new StringRecord("pk-" + i, "data-" + i);
-//        logger.debug(String.format("create example record. record: StringRecord(pk-%s, data-%s)", i, i));
-//        exampleRecords.add(new StringRecord("pk-" + i, "data-" + i));
-        logger.debug("create example record. record: " + createRecord.toString());
-        exampleRecords.add(createRecord);
-      } catch (CharacterCodingException e) {
-        logger.error(String.format("failed create example record. skipped record: StringRecord(pk-%s, data-%s)", i, i));
-      }
+      final IRecord createRecord = new StringRecord("pk-" + i, "data-" + i);
+      logger.debug("create example record. record: " + createRecord.toString());
+      exampleRecords.add(createRecord);
     }
 
     return exampleRecords;
@@ -0,0 +1,81 @@
+package com.utils;
+
+/**
+ * Token bucket.
+ *
+ * Bucket refills continuously up to capacity.
+ * A request larger than capacity is granted when the bucket is full, tokens become negative (debt)
+ * and following requests wait until the debt is refilled.
+ */
+public class TokenBucket {
+  private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+  private final double capacity;
+  private final double refillPerNanos;
+
+  private double tokens;
+  private long lastRefillNanos;
+
+  /**
+   * Constructor
+   *
+   * @param capacity max tokens, bucket starts full.
+   * @param refillPerSecond tokens added per second.
+   */
+  public TokenBucket(final double capacity, final double refillPerSecond) {
+    this.capacity = capacity;
+    this.refillPerNanos = refillPerSecond / NANOS_PER_SECOND;
+    this.tokens = capacity;
+    this.lastRefillNanos = System.nanoTime();
+  }
+
+  public synchronized double getAvailableTokens() {
+    this.refill();
+    return tokens;
+  }
+
+  public synchronized boolean tryAcquire(final double permits) {
+    this.refill();
+
+    if (tokens >= Math.min(permits, capacity)) {
+      tokens -= permits;
+      return true;
+    }
+    return false;
+  }
+
+  public boolean tryAcquire() {
+    return this.tryAcquire(1.0);
+  }
+
+  /**
+   * Take permits without waiting, tokens become negative (debt) if not enough.
+   */
+  public synchronized void forceAcquire(final double permits) {
+    this.refill();
+    tokens -= permits;
+  }
+
+  /**
+   * Wait time until permits can be acquired.
+   *
+   * @param permits requested tokens.
+   *
+   * @return 0 if permits can be acquired now, otherwise wait millis.
+   */
+  public synchronized long getWaitMillis(final double permits) {
+    this.refill();
+
+    final double lackTokens = Math.min(permits, capacity) - tokens;
+
+    if (lackTokens <= 0) return 0L;
+    return (long) Math.ceil(lackTokens / refillPerNanos / 1_000_000.0);
+  }
+
+  private void refill() {
+    final long nowNanos = System.nanoTime();
+
+    tokens = Math.min(capacity, tokens + ((nowNanos - lastRefillNanos) * refillPerNanos));
+    lastRefillNanos = nowNanos;
+  }
+}
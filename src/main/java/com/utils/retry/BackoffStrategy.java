@@ -0,0 +1,16 @@
+package com.utils.retry;
+
+/**
+ * Backoff time between retry attempts.
+ */
+public interface BackoffStrategy {
+
+  /**
+   * Next backoff time.
+   *
+   * @param previousBackoffMillis previous backoff millis, 0 for the first retry.
+   *
+   * @return backoff millis before the next attempt.
+   */
+  long nextBackoffMillis(long previousBackoffMillis);
+}
@@ -0,0 +1,41 @@
+package com.utils.retry;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with decorrelated jitter.
+ *
+ * backoff = min(cap, random(base, previous backoff * 3))
+ *
+ * Backoff grows exponentially on average, and clients throttled at the same time
+ * spread their retries instead of retrying in lock-step.
+ */
+public class DecorrelatedJitterBackoff implements BackoffStrategy {
+  private final long baseBackoffMillis;
+  private final long maxBackoffMillis;
+
+  /**
+   * Constructor
+   *
+   * @param baseBackoffMillis min backoff millis.
+   * @param maxBackoffMillis max backoff millis, not less than base.
+   */
+  public DecorrelatedJitterBackoff(final long baseBackoffMillis, final long maxBackoffMillis) {
+    this.baseBackoffMillis = Math.max(1L, baseBackoffMillis);
+    this.maxBackoffMillis = Math.max(this.baseBackoffMillis, maxBackoffMillis);
+  }
+
+  // Getter >>
+  public long getBaseBackoffMillis() { return baseBackoffMillis; }
+  public long getMaxBackoffMillis() { return maxBackoffMillis; }
+  // << Getter
+
+  @Override
+  public long nextBackoffMillis(final long previousBackoffMillis) {
+    final long upperBackoffMillis = Math.min(maxBackoffMillis,
+      Math.max(baseBackoffMillis, previousBackoffMillis) * 3);
+
+    if (upperBackoffMillis <= baseBackoffMillis) return baseBackoffMillis;
+    return ThreadLocalRandom.current().nextLong(baseBackoffMillis, upperBackoffMillis + 1);
+  }
+}
@@ -0,0 +1,17 @@
+package com.utils.retry;
+
+/**
+ * Same backoff time for every retry.
+ */
+public class FixedBackoff implements BackoffStrategy {
+  private final long backoffMillis;
+
+  public FixedBackoff(final long backoffMillis) {
+    this.backoffMillis = Math.max(0L, backoffMillis);
+  }
+
+  @Override
+  public long nextBackoffMillis(final long previousBackoffMillis) {
+    return backoffMillis;
+  }
+}
@@ -0,0 +1,119 @@
+package com.utils.retry;
+
+import com.utils.AppUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retry state of one call. {@link RetryPolicy}
+ *
+ * Blocking callers use {@link #backoff(String)}, async callers use {@link #backoffAsync(String)}
+ * which completes on a scheduler thread and blocks no thread while waiting.
+ * Not thread safe, a call owns its retry state.
+ */
+public class Retry {
+  private static Logger logger = LoggerFactory.getLogger(Retry.class);
+
+  private static final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    final Thread thread = new Thread(runnable, "retry-scheduler");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final RetryPolicy retryPolicy;
+
+  private int attempt = 1;
+  private long backoffMillis = 0L;
+
+  Retry(final RetryPolicy retryPolicy) {
+    this.retryPolicy = retryPolicy;
+  }
+
+  /**
+   * Retry state of a part split off the call, continues from the same attempt.
+   */
+  public Retry copy() {
+    final Retry retry = new Retry(retryPolicy);
+    retry.attempt = attempt;
+    retry.backoffMillis = backoffMillis;
+    return retry;
+  }
+
+  // Getter >>
+  public int getAttempt() { return attempt; }
+  public long getBackoffMillis() { return backoffMillis; }
+  // << Getter
+
+  /**
+   * Move to the next attempt.
+   *
+   * @return backoff millis before the next attempt, empty if no more retry.
+   */
+  public Optional<Long> next() {
+    if (!retryPolicy.tryAcquireRetry(attempt)) {
+      logger.error("no more retry. operation: " + retryPolicy.getOperation() + ", " +
+        "attempts: " + attempt + "/" + retryPolicy.getMaxAttempts() +
+        (attempt < retryPolicy.getMaxAttempts() ? ", retry budget exhausted." : ", exceeded retry attempts."));
+      return Optional.empty();
+    }
+
+    attempt++;
+    backoffMillis = retryPolicy.nextBackoffMillis(backoffMillis);
+
+    return Optional.of(backoffMillis);
+  }
+
+  /**
+   * Backoff on the calling thread.
+   *
+   * @param msg backoff reason.
+   *
+   * @return false if no more retry, returns right away.
+   */
+  public boolean backoff(final String msg) {
+    final Optional<Long> nextBackoffMillis = this.next();
+
+    if (!nextBackoffMillis.isPresent()) return false;
+
+    AppUtils.backoff(msg + " attempts: " + attempt + "/" + retryPolicy.getMaxAttempts(), nextBackoffMillis.get());
+    return true;
+  }
+
+  /**
+   * Backoff without blocking.
+   *
+   * @param msg backoff reason.
+   *
+   * @return future completed with true after backoff, or false right away if no more retry.
+   */
+  public CompletableFuture<Boolean> backoffAsync(final String msg) {
+    final Optional<Long> nextBackoffMillis = this.next();
+
+    if (!nextBackoffMillis.isPresent()) return CompletableFuture.completedFuture(false);
+
+    logger.debug("backoff async " + nextBackoffMillis.get() + " millis, " + msg + " " +
+      "attempts: " + attempt + "/" + retryPolicy.getMaxAttempts());
+
+    return delayAsync(nextBackoffMillis.get()).thenApply(ignored -> true);
+  }
+
+  /**
+   * Wait without blocking on the retry scheduler, for a wait that does not count as an attempt.
+   *
+   * @param delayMillis wait millis.
+   *
+   * @return future completed after delay.
+   */
+  public static CompletableFuture<Void> delayAsync(final long delayMillis) {
+    final CompletableFuture<Void> delayFuture = new CompletableFuture<>();
+    retryScheduler.schedule(() -> delayFuture.complete(null), delayMillis, TimeUnit.MILLISECONDS);
+
+    return delayFuture;
+  }
+}
@@ -0,0 +1,47 @@
+package com.utils.retry;
+
+import com.utils.AppConfig;
+import com.utils.TokenBucket;
+
+/**
+ * Retry budget, every retry takes a token.
+ *
+ * When many calls fail at once, retries are limited to the budget refill rate
+ * instead of multiplying the load. A call out of budget fails without retry.
+ * First attempts are never limited.
+ */
+public class RetryBudget {
+  private final TokenBucket tokenBucket;
+
+  /**
+   * Constructor
+   *
+   * @param maxRetries max burst retries.
+   * @param retriesPerSecond sustained retries per second.
+   */
+  public RetryBudget(final double maxRetries, final double retriesPerSecond) {
+    this.tokenBucket = new TokenBucket(maxRetries, retriesPerSecond);
+  }
+
+  // Singleton >>
+  private static class LazyHolder {
+    private static final RetryBudget INSTANCE = new RetryBudget(AppConfig.getRetryBudgetMaxRetries(),
+      AppConfig.getRetryBudgetRetriesPerSecond());
+  }
+
+  /**
+   * Process-wide retry budget shared by every retry policy from config.
+   */
+  public static RetryBudget getInstance() {
+    return RetryBudget.LazyHolder.INSTANCE;
+  }
+  // << Singleton
+
+  public boolean tryAcquire() {
+    return tokenBucket.tryAcquire();
+  }
+
+  public double getAvailableRetries() {
+    return tokenBucket.getAvailableTokens();
+  }
+}
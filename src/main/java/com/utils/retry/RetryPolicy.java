@@ -0,0 +1,77 @@
+package com.utils.retry;
+
+import com.utils.AppConfig;
+
+/**
+ * Retry policy of an operation.
+ *
+ * Max attempts and backoff are per operation, retry budget is usually shared by the process.
+ * {@link RetryBudget}
+ */
+public class RetryPolicy {
+  private final String operation;
+  private final int maxAttempts;
+  private final BackoffStrategy backoffStrategy;
+  private final RetryBudget retryBudget;
+
+  /**
+   * Constructor
+   *
+   * @param operation operation name for logging.
+   * @param maxAttempts max attempts including the first attempt.
+   * @param backoffStrategy backoff between attempts.
+   * @param retryBudget retry budget, no budget limit if null.
+   */
+  public RetryPolicy(final String operation,
+                     final int maxAttempts,
+                     final BackoffStrategy backoffStrategy,
+                     final RetryBudget retryBudget) {
+    this.operation = operation;
+    this.maxAttempts = Math.max(1, maxAttempts);
+    this.backoffStrategy = backoffStrategy;
+    this.retryBudget = retryBudget;
+  }
+
+  /**
+   * Retry policy from config. retry.operations.{operation} overrides retry defaults.
+   *
+   * @param operation operation name.
+   *
+   * @return decorrelated jitter backoff policy with the process-wide retry budget.
+   */
+  public static RetryPolicy forOperation(final String operation) {
+    return new RetryPolicy(operation,
+      AppConfig.getRetryAttemptCount(operation),
+      new DecorrelatedJitterBackoff(AppConfig.getRetryBackoffTimeInMillis(operation),
+        AppConfig.getRetryMaxBackoffTimeInMillis(operation)),
+      RetryBudget.getInstance());
+  }
+
+  // Getter >>
+  public String getOperation() { return operation; }
+  public int getMaxAttempts() { return maxAttempts; }
+  public BackoffStrategy getBackoffStrategy() { return backoffStrategy; }
+  // << Getter
+
+  /**
+   * Check a retry is allowed after the attempt, takes a retry budget token if allowed.
+   *
+   * @param attempt finished attempt, starts with 1.
+   *
+   * @return false if attempts are exhausted or retry budget is exhausted.
+   */
+  public boolean tryAcquireRetry(final int attempt) {
+    return attempt < maxAttempts && (retryBudget == null || retryBudget.tryAcquire());
+  }
+
+  public long nextBackoffMillis(final long previousBackoffMillis) {
+    return backoffStrategy.nextBackoffMillis(previousBackoffMillis);
+  }
+
+  /**
+   * New retry state for one call.
+   */
+  public Retry newRetry() {
+    return new Retry(this);
+  }
+}
@@ -0,0 +1,122 @@
+package com.aws.kinesis.api;
+
+import com.amazonaws.services.kinesis.model.HashKeyRange;
+import com.amazonaws.services.kinesis.model.Shard;
+import com.aws.kinesis.record.IRecord;
+import com.aws.kinesis.record.StringRecord;
+import com.aws.kinesis.record.aggregation.AggregatedRecord;
+import com.aws.kinesis.record.aggregation.RecordAggregator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.nio.charset.CharacterCodingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestPartitionKeySalter {
+  private final String maxHashKey = "340282366920938463463374607431768211455";
+
+  private ShardLocator createShardLocator(final int shardCount) {
+    final BigInteger hashKeySpace = BigInteger.ONE.shiftLeft(128);
+    final List<Shard> shards = new ArrayList<>();
+
+    for (int i = 0; i < shardCount; i++) {
+      final BigInteger startingHashKey = hashKeySpace.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(shardCount));
+      final BigInteger endingHashKey = hashKeySpace.multiply(BigInteger.valueOf(i + 1)).divide(BigInteger.valueOf(shardCount)).subtract(BigInteger.ONE);
+      shards.add(new Shard()
+        .withShardId("shardId-" + i)
+        .withHashKeyRange(new HashKeyRange().withStartingHashKey(startingHashKey.toString()).withEndingHashKey(endingHashKey.toString())));
+    }
+    return new ShardLocator(shards);
+  }
+
+  @Test
+  public void testSaltAfterThreshold() {
+    final PartitionKeySalter salter = new PartitionKeySalter(4, 3, 60000, 60000);
+
+    salter.onThrottled("hot");
+    salter.onThrottled("hot");
+    Assert.assertThat(salter.isSalted("hot"), is(false));
+    Assert.assertThat(salter.getExplicitHashKey("hot"), is(Optional.empty()));
+
+    salter.onThrottled("hot");
+    Assert.assertThat(salter.isSalted("hot"), is(true));
+    Assert.assertThat(salter.isSalted("cold"), is(false));
+    Assert.assertThat(salter.getSaltedKeyCount(), is(1L));
+  }
+
+  @Test
+  public void testSaltedKeysSpreadOverShards() {
+    final PartitionKeySalter salter = new PartitionKeySalter(4, 1, 60000, 60000);
+    final ShardLocator shardLocator = createShardLocator(4);
+
+    salter.onThrottled("hot");
+
+    final Set<String> shardIds = new HashSet<>();
+    for (int i = 0; i < 8; i++) {
+      final String explicitHashKey = salter.getExplicitHashKey("hot").get();
+
+      Assert.assertThat(new BigInteger(explicitHashKey).compareTo(new BigInteger(maxHashKey)) <= 0, is(true));
+      shardIds.add(shardLocator.getShardId("hot", explicitHashKey).get());
+    }
+
+    Assert.assertThat(shardIds.size(), is(4));
+    Assert.assertThat(PartitionKeySalter.getSaltedHashKey("hot", 0, 4), is(ShardLocator.getHashKey("hot")));
+  }
+
+  @Test
+  public void testUnsaltAfterCoolDown() throws InterruptedException {
+    final PartitionKeySalter salter = new PartitionKeySalter(4, 1, 60000, 50);
+
+    salter.onThrottled("hot");
+    Assert.assertThat(salter.isSalted("hot"), is(true));
+
+    Thread.sleep(100);
+
+    Assert.assertThat(salter.isSalted("hot"), is(false));
+    Assert.assertThat(salter.getExplicitHashKey("hot"), is(Optional.empty()));
+  }
+
+  @Test
+  public void testThrottledAggregatedRecord() throws CharacterCodingException {
+    final PartitionKeySalter salter = new PartitionKeySalter(4, 1, 60000, 60000);
+    final List<IRecord> records = Arrays.asList(new StringRecord("pk-1", "a"), new StringRecord("pk-2", "b"));
+
+    for (AggregatedRecord aggregatedRecord : new RecordAggregator(RecordAggregator.MAX_AGGREGATED_BYTES_LIMIT, 10).aggregate(records)) {
+      salter.onThrottled(aggregatedRecord);
+    }
+
+    Assert.assertThat(salter.isSalted("pk-1"), is(true));
+    Assert.assertThat(salter.isSalted("pk-2"), is(true));
+  }
+
+  @Test
+  public void testAggregateSaltedRecords() throws CharacterCodingException {
+    final PartitionKeySalter salter = new PartitionKeySalter(4, 1, 60000, 60000);
+    final ShardLocator shardLocator = createShardLocator(4);
+    final List<IRecord> records = new ArrayList<>();
+
+    for (int i = 0; i < 8; i++) {
+      records.add(new StringRecord("hot", "value-" + i));
+    }
+    salter.onThrottled("hot");
+
+    final List<AggregatedRecord> aggregatedRecords = new RecordAggregator(RecordAggregator.MAX_AGGREGATED_BYTES_LIMIT, 100)
+      .aggregate(records,
+        record -> salter.getExplicitHashKey(record.getPartitionKey()).orElse(null),
+        (record, explicitHashKey) -> shardLocator.getShardId(record.getPartitionKey(), explicitHashKey).get());
+
+    Assert.assertThat(aggregatedRecords.size(), is(4));
+    for (AggregatedRecord aggregatedRecord : aggregatedRecords) {
+      Assert.assertThat(aggregatedRecord.getValue().size(), is(2));
+      Assert.assertThat(aggregatedRecord.getExplicitHashKey().isPresent(), is(true));
+    }
+  }
+}
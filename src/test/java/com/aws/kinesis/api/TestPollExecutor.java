@@ -0,0 +1,73 @@
+package com.aws.kinesis.api;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestPollExecutor {
+  private final PollExecutor pollExecutor = new PollExecutor(2);
+
+  @Test
+  public void testLoopUntilDone() throws Exception {
+    final AtomicInteger pollCount = new AtomicInteger();
+
+    final CompletableFuture<Integer> loopFuture = pollExecutor.loop(() -> pollCount.incrementAndGet() < 3 ?
+      PollExecutor.Poll.again(10L) :
+      PollExecutor.Poll.done(pollCount.get()));
+
+    Assert.assertThat(loopFuture.get(1, TimeUnit.SECONDS), is(3));
+    Assert.assertThat(pollCount.get(), is(3));
+  }
+
+  @Test
+  public void testCancelStopsLoop() throws Exception {
+    final AtomicInteger pollCount = new AtomicInteger();
+
+    final CompletableFuture<Boolean> loopFuture = pollExecutor.loop(() -> {
+      pollCount.incrementAndGet();
+      return PollExecutor.Poll.again(10L);
+    });
+
+    Thread.sleep(50L);
+    loopFuture.cancel(false);
+    final int cancelledCount = pollCount.get();
+    Thread.sleep(50L);
+
+    // at most one poll already running while cancelling.
+    Assert.assertThat(pollCount.get() <= cancelledCount + 1, is(true));
+  }
+
+  @Test(expected = ExecutionException.class)
+  public void testFailedPoll() throws Exception {
+    pollExecutor.<Boolean>loop(() -> {
+      throw new IllegalStateException("failed poll");
+    }).get(1, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testManyLoopsOnFewThreads() throws Exception {
+    final List<CompletableFuture<Integer>> loopFutures = new ArrayList<>();
+
+    for (int i = 0; i < 1000; i++) {
+      final AtomicInteger pollCount = new AtomicInteger();
+      loopFutures.add(pollExecutor.loop(() -> pollCount.incrementAndGet() < 5 ?
+        PollExecutor.Poll.again(20L) :
+        PollExecutor.Poll.done(pollCount.get())));
+    }
+
+    CompletableFuture.allOf(loopFutures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+    for (CompletableFuture<Integer> loopFuture : loopFutures) {
+      Assert.assertThat(loopFuture.get(), is(5));
+    }
+    Assert.assertThat(pollExecutor.getThreadCount(), is(2));
+  }
+}
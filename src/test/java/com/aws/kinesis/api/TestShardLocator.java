@@ -0,0 +1,55 @@
+package com.aws.kinesis.api;
+
+import com.amazonaws.services.kinesis.model.HashKeyRange;
+import com.amazonaws.services.kinesis.model.SequenceNumberRange;
+import com.amazonaws.services.kinesis.model.Shard;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestShardLocator {
+  private final String halfHashKey = "170141183460469231731687303715884105728";
+  private final String maxHashKey = "340282366920938463463374607431768211455";
+
+  private Shard createShard(final String shardId, final String startingHashKey, final String endingHashKey, final boolean closed) {
+    return new Shard()
+      .withShardId(shardId)
+      .withHashKeyRange(new HashKeyRange().withStartingHashKey(startingHashKey).withEndingHashKey(endingHashKey))
+      .withSequenceNumberRange(new SequenceNumberRange()
+        .withStartingSequenceNumber("0")
+        .withEndingSequenceNumber(closed ? "1" : null));
+  }
+
+  @Test
+  public void testGetHashKey() {
+    Assert.assertThat(ShardLocator.getHashKey("pk-1"), is(new BigInteger("273922656776327812788301823748127981641")));
+    Assert.assertThat(ShardLocator.getHashKey("pk-3"), is(new BigInteger("20993191229325758342412920619827293048")));
+  }
+
+  @Test
+  public void testGetShardId() {
+    final ShardLocator shardLocator = new ShardLocator(Arrays.asList(
+      createShard("shardId-000000000000", "0", maxHashKey, true),
+      createShard("shardId-000000000001", "0", new BigInteger(halfHashKey).subtract(BigInteger.ONE).toString(), false),
+      createShard("shardId-000000000002", halfHashKey, maxHashKey, false)));
+
+    Assert.assertThat(shardLocator.getOpenShardCount(), is(2));
+    Assert.assertThat(shardLocator.getShardId("pk-1"), is(Optional.of("shardId-000000000002")));
+    Assert.assertThat(shardLocator.getShardId("pk-3"), is(Optional.of("shardId-000000000001")));
+    Assert.assertThat(shardLocator.getShardId("pk-3", halfHashKey), is(Optional.of("shardId-000000000002")));
+    Assert.assertThat(shardLocator.getShardId("pk-1", "0"), is(Optional.of("shardId-000000000001")));
+  }
+
+  @Test
+  public void testEmptyShardLocator() {
+    final ShardLocator shardLocator = new ShardLocator(Arrays.asList(createShard("shardId-000000000000", "0", maxHashKey, true)));
+
+    Assert.assertThat(shardLocator.isEmpty(), is(true));
+    Assert.assertThat(shardLocator.getShardId("pk-1").isPresent(), is(false));
+  }
+}
@@ -0,0 +1,60 @@
+package com.aws.kinesis.api.consumer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestAdaptivePollScheduler {
+
+  @Test
+  public void testCatchUpWhenBehind() {
+    final AdaptivePollScheduler scheduler = new AdaptivePollScheduler(1000, 10000, 100);
+
+    Assert.assertThat(scheduler.onRecords(10, 1000, 3600000L), is(AdaptivePollScheduler.MIN_INTERVAL_MILLIS));
+    Assert.assertThat(scheduler.getLimit(), is(AdaptivePollScheduler.MAX_LIMIT));
+  }
+
+  @Test
+  public void testCatchUpOnFullBatch() {
+    final AdaptivePollScheduler scheduler = new AdaptivePollScheduler(1000, 10000, 100);
+
+    scheduler.onRecords(0, 0, 0L);
+    Assert.assertThat(scheduler.getLimit(), is(100));
+
+    Assert.assertThat(scheduler.onRecords(100, 1000, 0L), is(AdaptivePollScheduler.MIN_INTERVAL_MILLIS));
+    Assert.assertThat(scheduler.getLimit(), is(AdaptivePollScheduler.MAX_LIMIT));
+  }
+
+  @Test
+  public void testBackoffWhenCaughtUp() {
+    final AdaptivePollScheduler scheduler = new AdaptivePollScheduler(1000, 10000, 100);
+
+    Assert.assertThat(scheduler.onRecords(0, 0, 0L), is(400L));
+    Assert.assertThat(scheduler.onRecords(0, 0, 0L), is(800L));
+    Assert.assertThat(scheduler.onRecords(0, 0, 0L), is(1000L));
+    Assert.assertThat(scheduler.onRecords(5, 500, 0L), is(1000L));
+    Assert.assertThat(scheduler.getLimit(), is(100));
+
+    Assert.assertThat(scheduler.onRecords(10, 1000, 20000L), is(AdaptivePollScheduler.MIN_INTERVAL_MILLIS));
+  }
+
+  @Test
+  public void testReadBytesLimit() {
+    final AdaptivePollScheduler scheduler = new AdaptivePollScheduler(1000, 10000, 100);
+
+    // 10 MiB read takes 5 seconds of 2 MiB/s shard read throughput.
+    Assert.assertThat(scheduler.onRecords(10000, 10L * 1024 * 1024, 3600000L), is(5000L));
+  }
+
+  @Test
+  public void testBackoffWhenThrottled() {
+    final AdaptivePollScheduler scheduler = new AdaptivePollScheduler(1000, 10000, 100);
+
+    Assert.assertThat(scheduler.onThrottled(), is(400L));
+    Assert.assertThat(scheduler.onThrottled(), is(800L));
+    Assert.assertThat(scheduler.getLimit(), is(100));
+
+    Assert.assertThat(scheduler.onRecords(10, 1000, 20000L), is(AdaptivePollScheduler.MIN_INTERVAL_MILLIS));
+  }
+}
@@ -0,0 +1,171 @@
+package com.aws.kinesis.api.consumer;
+
+import com.amazonaws.services.kinesis.model.GetRecordsRequest;
+import com.amazonaws.services.kinesis.model.GetRecordsResult;
+import com.amazonaws.services.kinesis.model.GetShardIteratorRequest;
+import com.amazonaws.services.kinesis.model.HashKeyRange;
+import com.amazonaws.services.kinesis.model.ProvisionedThroughputExceededException;
+import com.amazonaws.services.kinesis.model.Record;
+import com.amazonaws.services.kinesis.model.SequenceNumberRange;
+import com.amazonaws.services.kinesis.model.Shard;
+import com.amazonaws.services.kinesis.model.ShardIteratorType;
+import com.aws.kinesis.api.ApiClient;
+import com.aws.kinesis.api.consumer.checkpoint.ICheckpointStore;
+import com.aws.kinesis.record.IRecord;
+import com.aws.kinesis.record.handler.HandlerType;
+import com.aws.kinesis.record.handler.IRecordsHandler;
+import com.aws.kinesis.record.serde.SerdeFactory;
+import com.aws.kinesis.record.serde.SerdeType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestApiConsumer {
+  private static final String SHARD_ID = "shardId-000000000000";
+
+  private final Shard shard = new Shard()
+    .withShardId(SHARD_ID)
+    .withHashKeyRange(new HashKeyRange().withStartingHashKey("0").withEndingHashKey("340282366920938463463374607431768211455"))
+    .withSequenceNumberRange(new SequenceNumberRange().withStartingSequenceNumber("0").withEndingSequenceNumber("99"));
+
+  private final AtomicInteger readCount = new AtomicInteger();
+  private final Map<String, String> checkpoints = new ConcurrentHashMap<>();
+
+  private static List<Record> createKinesisRecords(final int count) {
+    final List<Record> kinesisRecords = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      kinesisRecords.add(new Record()
+        .withPartitionKey("pk-" + i)
+        .withSequenceNumber(String.valueOf(i))
+        .withData(ByteBuffer.wrap(("data-" + i).getBytes(StandardCharsets.UTF_8))));
+    }
+    return kinesisRecords;
+  }
+
+  /**
+   * Closed shard of one batch. The first read is throttled, the second reads records and the third reaches shard end.
+   */
+  private ApiClient createApiClient() {
+    return new ApiClient() {
+      @Override
+      public boolean isNotStreamExist(final String streamName) { return false; }
+
+      @Override
+      public List<Shard> getShardList(final String streamName) { return Collections.singletonList(shard); }
+
+      @Override
+      public Optional<String> getShardIteratorOnce(final GetShardIteratorRequest getShardIteratorRequest, final Consumer<Exception> failureConsumer) {
+        return Optional.of("iterator-0");
+      }
+
+      @Override
+      public Optional<GetRecordsResult> getRecordsOnce(final GetRecordsRequest getRecordsRequest, final Consumer<Exception> failureConsumer) {
+        switch (readCount.getAndIncrement()) {
+          case 0:
+            failureConsumer.accept(new ProvisionedThroughputExceededException("exceeded"));
+            return Optional.empty();
+          case 1:
+            return Optional.of(new GetRecordsResult().withRecords(createKinesisRecords(3)).withNextShardIterator("iterator-1"));
+          default:
+            return Optional.of(new GetRecordsResult().withRecords(Collections.emptyList()));
+        }
+      }
+    };
+  }
+
+  private ICheckpointStore createCheckpointStore() {
+    return new ICheckpointStore() {
+      @Override
+      public Optional<String> getCheckpoint(final String shardId) { return Optional.ofNullable(checkpoints.get(shardId)); }
+
+      @Override
+      public void checkpoint(final String shardId, final String sequenceNumber) { checkpoints.put(shardId, sequenceNumber); }
+
+      @Override
+      public boolean flush() { return true; }
+
+      @Override
+      public void close() {}
+    };
+  }
+
+  /**
+   * Collects record data and handler thread names, fails the first failCount calls with records.
+   */
+  private static class CollectingHandler implements IRecordsHandler<byte[]> {
+    private final AtomicInteger failCount;
+    private final List<String> values = new CopyOnWriteArrayList<>();
+    private final List<String> threadNames = new CopyOnWriteArrayList<>();
+    private final AtomicInteger callCount = new AtomicInteger();
+
+    private CollectingHandler(final int failCount) {
+      this.failCount = new AtomicInteger(failCount);
+    }
+
+    @Override
+    public void recordsProcess(final List<IRecord<byte[]>> records) {}
+
+    @Override
+    public void kinesisRecordsProcess(final List<Record> kinesisRecords) {
+      threadNames.add(Thread.currentThread().getName());
+      // empty read at shard end.
+      if (kinesisRecords.isEmpty()) return;
+
+      callCount.incrementAndGet();
+      if (failCount.getAndDecrement() > 0) throw new IllegalStateException("handler failure");
+
+      for (Record kinesisRecord : kinesisRecords) {
+        values.add(StandardCharsets.UTF_8.decode(kinesisRecord.getData()).toString());
+      }
+    }
+
+    @Override
+    public HandlerType getHandlerType() { return HandlerType.DebugoutHandler; }
+  }
+
+  @Test
+  public void testConsumeOnHandlerPool() throws Exception {
+    final ApiConsumer apiConsumer = new ApiConsumer(createApiClient(), "test-stream", createCheckpointStore(), null,
+      SerdeFactory.getInstance().getSerde(SerdeType.BYTES, Collections.emptyList()));
+
+    final CollectingHandler failingHandler = new CollectingHandler(1);
+    final CollectingHandler handler = new CollectingHandler(0);
+
+    final List<CompletableFuture<Void>> futures = apiConsumer.consume(ShardIteratorType.TRIM_HORIZON, 10L, failingHandler, handler);
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+    // throttled read is read again, the failed handler is retried and the succeeded one is not.
+    Assert.assertThat(readCount.get(), is(3));
+    Assert.assertThat(failingHandler.callCount.get(), is(2));
+    Assert.assertThat(handler.callCount.get(), is(1));
+    Assert.assertThat(failingHandler.values, is(handler.values));
+    Assert.assertThat(handler.values.size(), is(3));
+
+    // checkpointed after both handlers succeeded.
+    Assert.assertThat(checkpoints.get(SHARD_ID), is("2"));
+
+    // no handler runs on a poll thread.
+    for (String threadName : failingHandler.threadNames) {
+      Assert.assertThat(threadName.startsWith("api-consumer-handler-"), is(true));
+    }
+    for (String threadName : handler.threadNames) {
+      Assert.assertThat(threadName.startsWith("api-consumer-handler-"), is(true));
+    }
+    apiConsumer.close();
+  }
+}
@@ -0,0 +1,90 @@
+package com.aws.kinesis.api.consumer;
+
+import com.amazonaws.services.kinesis.model.ExpiredIteratorException;
+import com.amazonaws.services.kinesis.model.ProvisionedThroughputExceededException;
+import com.amazonaws.services.kinesis.model.Record;
+import com.amazonaws.services.kinesis.model.ResourceNotFoundException;
+import com.utils.retry.FixedBackoff;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestFetchRecovery {
+  private final ConsumerMetrics metrics = new ConsumerMetrics();
+  private final FetchRecovery fetchRecovery = new FetchRecovery(3, new FixedBackoff(100L), metrics);
+
+  @Test
+  public void testTrackLastSequenceNumber() {
+    Assert.assertThat(fetchRecovery.getLastSequenceNumber(), is(Optional.empty()));
+
+    fetchRecovery.onRecords(Arrays.asList(new Record().withSequenceNumber("1"), new Record().withSequenceNumber("2")));
+    fetchRecovery.onRecords(Collections.emptyList());
+
+    Assert.assertThat(fetchRecovery.getLastSequenceNumber(), is(Optional.of("2")));
+  }
+
+  @Test
+  public void testRecoverExpiredIterator() {
+    fetchRecovery.onRecords(Collections.singletonList(new Record().withSequenceNumber("1")));
+
+    Assert.assertThat(fetchRecovery.onFailure(new ExpiredIteratorException("expired")), is(Optional.of(100L)));
+    // failed fresh iterator does not change the cause.
+    Assert.assertThat(fetchRecovery.onFailure(null), is(Optional.of(100L)));
+    Assert.assertThat(fetchRecovery.getAttempt(), is(2));
+
+    fetchRecovery.onRecords(Collections.emptyList());
+
+    Assert.assertThat(fetchRecovery.getAttempt(), is(0));
+    Assert.assertThat(metrics.getExpiredIteratorRecoveryCount(), is(1L));
+    Assert.assertThat(metrics.getTransientFailureRecoveryCount(), is(0L));
+  }
+
+  @Test
+  public void testRecoverTransientFailure() {
+    fetchRecovery.onFailure(new ProvisionedThroughputExceededException("exceeded"));
+    fetchRecovery.onRecords(Collections.emptyList());
+
+    Assert.assertThat(metrics.getTransientFailureRecoveryCount(), is(1L));
+    Assert.assertThat(metrics.getExpiredIteratorRecoveryCount(), is(0L));
+  }
+
+  @Test
+  public void testStopOnMaxAttempts() {
+    for (int i = 0; i < 3; i++) {
+      Assert.assertThat(fetchRecovery.onFailure(null).isPresent(), is(true));
+    }
+
+    Assert.assertThat(fetchRecovery.onFailure(null), is(Optional.empty()));
+    Assert.assertThat(metrics.getFailedRecoveryCount(), is(1L));
+  }
+
+  @Test
+  public void testStopOnStreamNotExist() {
+    Assert.assertThat(fetchRecovery.onFailure(new ResourceNotFoundException("not exist")), is(Optional.empty()));
+    Assert.assertThat(metrics.getFailedRecoveryCount(), is(1L));
+  }
+
+  @Test
+  public void testThrottleDoesNotStop() {
+    final FetchRecovery recovery = new FetchRecovery(3,
+      previousBackoffMillis -> previousBackoffMillis == 0L ? 100L : Math.min(1000L, previousBackoffMillis * 2), metrics);
+
+    // more throttles than max attempts, backoff grows and the loop keeps going.
+    Assert.assertThat(recovery.onThrottled(), is(100L));
+    Assert.assertThat(recovery.onThrottled(), is(200L));
+    for (int i = 0; i < 5; i++) {
+      recovery.onThrottled();
+    }
+    Assert.assertThat(recovery.onThrottled(), is(1000L));
+    Assert.assertThat(recovery.getAttempt(), is(0));
+
+    recovery.onRecords(Collections.emptyList());
+    Assert.assertThat(recovery.onThrottled(), is(100L));
+    Assert.assertThat(metrics.getFailedRecoveryCount(), is(0L));
+  }
+}
@@ -0,0 +1,63 @@
+package com.aws.kinesis.api.consumer;
+
+import com.amazonaws.services.kinesis.model.Record;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestPrefetchQueue {
+
+  private List<Record> createBatch(final int recordCount, final int recordBytes) {
+    final List<Record> batch = new ArrayList<>(recordCount);
+    for (int i = 0; i < recordCount; i++) {
+      batch.add(new Record().withPartitionKey("pk-" + i).withData(ByteBuffer.allocate(recordBytes)));
+    }
+    return batch;
+  }
+
+  @Test
+  public void testOfferAndPoll() {
+    final PrefetchQueue queue = new PrefetchQueue(15, 1000);
+    final List<Record> batch = createBatch(10, 10);
+
+    Assert.assertThat(queue.offer(batch), is(true));
+    Assert.assertThat(queue.offer(createBatch(10, 10)), is(false));
+    Assert.assertThat(queue.getBatchCount(), is(1));
+    Assert.assertThat(queue.getRecordCount(), is(10));
+    Assert.assertThat(queue.getBytes(), is(100L));
+
+    Assert.assertThat(queue.poll(), is(Optional.of(batch)));
+    Assert.assertThat(queue.getRecordCount(), is(0));
+    Assert.assertThat(queue.getBytes(), is(0L));
+    Assert.assertThat(queue.poll(), is(Optional.empty()));
+    Assert.assertThat(queue.offer(createBatch(10, 10)), is(true));
+  }
+
+  @Test
+  public void testOversizeBatchIntoEmptyQueue() {
+    final PrefetchQueue queue = new PrefetchQueue(5, 50);
+
+    Assert.assertThat(queue.offer(createBatch(10, 10)), is(true));
+    Assert.assertThat(queue.getRecordCount(), is(10));
+  }
+
+  @Test
+  public void testClose() {
+    final PrefetchQueue queue = new PrefetchQueue(100, 1000);
+    final List<Record> batch = createBatch(1, 10);
+
+    queue.offer(batch);
+    queue.close();
+
+    Assert.assertThat(queue.offer(Collections.emptyList()), is(false));
+    Assert.assertThat(queue.poll(), is(Optional.of(batch)));
+    Assert.assertThat(queue.poll(), is(Optional.empty()));
+  }
+}
@@ -0,0 +1,38 @@
+package com.aws.kinesis.api.consumer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestReplayRateLimiter {
+
+  @Test
+  public void testUnlimited() {
+    final ReplayRateLimiter rateLimiter = new ReplayRateLimiter(0, 0);
+    rateLimiter.onRecords(1_000_000, 1_000_000_000L);
+
+    Assert.assertThat(rateLimiter.getWaitMillis(), is(0L));
+  }
+
+  @Test
+  public void testWaitWhileInDebt() {
+    final ReplayRateLimiter rateLimiter = new ReplayRateLimiter(100, 0);
+
+    Assert.assertThat(rateLimiter.getWaitMillis(), is(0L));
+
+    // a read twice the cap, one second of debt.
+    rateLimiter.onRecords(200, 0L);
+    final long waitMillis = rateLimiter.getWaitMillis();
+
+    Assert.assertThat(waitMillis > 900L && waitMillis <= 1020L, is(true));
+  }
+
+  @Test
+  public void testBytesCap() {
+    final ReplayRateLimiter rateLimiter = new ReplayRateLimiter(0, 1000);
+    rateLimiter.onRecords(1, 1500L);
+
+    Assert.assertThat(rateLimiter.getWaitMillis() > 0L, is(true));
+  }
+}
@@ -0,0 +1,61 @@
+package com.aws.kinesis.api.consumer;
+
+import com.amazonaws.services.kinesis.model.Record;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestReplaySlice {
+
+  private Record createRecord(final long arrivalMillis) {
+    return new Record()
+      .withSequenceNumber(String.valueOf(arrivalMillis))
+      .withApproximateArrivalTimestamp(new Date(arrivalMillis))
+      .withData(ByteBuffer.allocate(1));
+  }
+
+  @Test
+  public void testSplit() {
+    final List<ReplaySlice> slices = ReplaySlice.split(new Date(1000L), new Date(2000L), 4);
+
+    Assert.assertThat(slices.size(), is(4));
+    Assert.assertThat(slices.get(0).getStartTimestamp(), is(new Date(1000L)));
+    Assert.assertThat(slices.get(0).getEndTimestamp(), is(new Date(1250L)));
+    Assert.assertThat(slices.get(3).getStartTimestamp(), is(new Date(1750L)));
+    Assert.assertThat(slices.get(3).getEndTimestamp(), is(new Date(2000L)));
+
+    for (int i = 1; i < slices.size(); i++) {
+      Assert.assertThat(slices.get(i).getStartTimestamp(), is(slices.get(i - 1).getEndTimestamp()));
+    }
+  }
+
+  @Test
+  public void testSplitShortRange() {
+    Assert.assertThat(ReplaySlice.split(new Date(1000L), new Date(1002L), 4).size(), is(2));
+    Assert.assertThat(ReplaySlice.split(new Date(1000L), new Date(1000L), 4).size(), is(1));
+  }
+
+  @Test
+  public void testHeadOf() {
+    final ReplaySlice slice = new ReplaySlice(new Date(1000L), new Date(2000L), 1);
+    final List<Record> records = Arrays.asList(createRecord(1500L), createRecord(1999L), createRecord(2000L), createRecord(2500L));
+
+    Assert.assertThat(slice.headOf(records).size(), is(2));
+    Assert.assertThat(slice.headOf(records.subList(0, 2)).size(), is(2));
+  }
+
+  @Test
+  public void testReadDelayWithinShardLimit() {
+    final ReplaySlice slice = new ReplaySlice(new Date(1000L), new Date(2000L), 4);
+
+    // 4 readers of a shard, 5 reads/s and 2 MiB/s in total.
+    Assert.assertThat(slice.getReadDelayMillis(0L), is(800L));
+    Assert.assertThat(slice.getReadDelayMillis(AdaptivePollScheduler.MAX_BYTES_PER_SECOND), is(4000L));
+  }
+}
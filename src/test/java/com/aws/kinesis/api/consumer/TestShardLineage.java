@@ -0,0 +1,75 @@
+package com.aws.kinesis.api.consumer;
+
+import com.amazonaws.services.kinesis.model.Shard;
+import com.amazonaws.services.kinesis.model.ShardIteratorType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestShardLineage {
+
+  private Shard createShard(final String shardId, final String parentShardId, final String adjacentParentShardId) {
+    return new Shard()
+      .withShardId(shardId)
+      .withParentShardId(parentShardId)
+      .withAdjacentParentShardId(adjacentParentShardId);
+  }
+
+  private List<String> toShardIds(final List<Shard> shards) {
+    return shards.stream().map(Shard::getShardId).collect(Collectors.toList());
+  }
+
+  @Test
+  public void testSplit() {
+    final Shard parent = createShard("shardId-0", null, null);
+    final ShardLineage shardLineage = new ShardLineage(Collections.singletonList(parent), ShardIteratorType.LATEST);
+
+    Assert.assertThat(toShardIds(shardLineage.startableShards(Collections.singletonList(parent))), is(Collections.singletonList("shardId-0")));
+
+    final List<Shard> shards = Arrays.asList(parent,
+      createShard("shardId-1", "shardId-0", null),
+      createShard("shardId-2", "shardId-0", null));
+
+    // parent is not drained yet, started shard is not started again.
+    Assert.assertThat(shardLineage.startableShards(shards).isEmpty(), is(true));
+
+    shardLineage.onShardDrained("shardId-0");
+    Assert.assertThat(toShardIds(shardLineage.startableShards(shards)), is(Arrays.asList("shardId-1", "shardId-2")));
+    Assert.assertThat(shardLineage.startableShards(shards).isEmpty(), is(true));
+
+    Assert.assertThat(shardLineage.getShardIteratorType(parent), is(ShardIteratorType.LATEST));
+    Assert.assertThat(shardLineage.getShardIteratorType(shards.get(1)), is(ShardIteratorType.TRIM_HORIZON));
+  }
+
+  @Test
+  public void testMergeWaitsForBothParents() {
+    final List<Shard> shards = Arrays.asList(
+      createShard("shardId-0", null, null),
+      createShard("shardId-1", null, null),
+      createShard("shardId-2", "shardId-0", "shardId-1"));
+    final ShardLineage shardLineage = new ShardLineage(shards, ShardIteratorType.TRIM_HORIZON);
+
+    Assert.assertThat(toShardIds(shardLineage.startableShards(shards)), is(Arrays.asList("shardId-0", "shardId-1")));
+
+    shardLineage.onShardDrained("shardId-0");
+    Assert.assertThat(shardLineage.startableShards(shards).isEmpty(), is(true));
+
+    shardLineage.onShardDrained("shardId-1");
+    Assert.assertThat(toShardIds(shardLineage.startableShards(shards)), is(Collections.singletonList("shardId-2")));
+    Assert.assertThat(shardLineage.getShardIteratorType(shards.get(2)), is(ShardIteratorType.TRIM_HORIZON));
+  }
+
+  @Test
+  public void testTrimmedParent() {
+    final List<Shard> shards = Collections.singletonList(createShard("shardId-2", "shardId-0", null));
+    final ShardLineage shardLineage = new ShardLineage(shards, ShardIteratorType.LATEST);
+
+    Assert.assertThat(toShardIds(shardLineage.startableShards(shards)), is(Collections.singletonList("shardId-2")));
+  }
+}
@@ -0,0 +1,108 @@
+package com.aws.kinesis.api.consumer.checkpoint;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestJournalCheckpointStore {
+  private Path dir;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("checkpoint-store-test");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    try (final Stream<Path> paths = Files.walk(dir)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+
+  @Test
+  public void testCheckpointAndRecover() throws IOException {
+    final JournalCheckpointStore store = new JournalCheckpointStore(dir, 4096, 60000);
+
+    store.checkpoint("shardId-000000000000", "100");
+    store.checkpoint("shardId-000000000001", "200");
+    store.checkpoint("shardId-000000000000", "101");
+    Assert.assertThat(store.getCheckpoint("shardId-000000000000"), is(Optional.of("101")));
+
+    // pending checkpoints are batched into one flush.
+    Assert.assertThat(store.getJournalOffset(), is(0));
+    Assert.assertThat(store.flush(), is(true));
+    store.close();
+
+    final JournalCheckpointStore recovered = new JournalCheckpointStore(dir, 4096, 60000);
+    Assert.assertThat(recovered.getCheckpoint("shardId-000000000000"), is(Optional.of("101")));
+    Assert.assertThat(recovered.getCheckpoint("shardId-000000000001"), is(Optional.of("200")));
+    Assert.assertThat(recovered.getCheckpoint("shardId-000000000002"), is(Optional.empty()));
+    recovered.close();
+  }
+
+  @Test
+  public void testCompaction() throws IOException {
+    final JournalCheckpointStore store = new JournalCheckpointStore(dir, 512, 60000);
+
+    for (int i = 0; i < 100; i++) {
+      store.checkpoint("shardId-000000000000", String.valueOf(i));
+      store.checkpoint("shardId-000000000001", String.valueOf(i * 2));
+      Assert.assertThat(store.flush(), is(true));
+    }
+
+    Assert.assertThat(store.getJournalOffset() < 512, is(true));
+    Assert.assertThat(Files.exists(dir.resolve("checkpoint.journal.compact")), is(false));
+    store.close();
+
+    final JournalCheckpointStore recovered = new JournalCheckpointStore(dir, 512, 60000);
+    Assert.assertThat(recovered.getCheckpoint("shardId-000000000000"), is(Optional.of("99")));
+    Assert.assertThat(recovered.getCheckpoint("shardId-000000000001"), is(Optional.of("198")));
+    recovered.close();
+  }
+
+  @Test
+  public void testTornEntry() throws IOException {
+    final JournalCheckpointStore store = new JournalCheckpointStore(dir, 4096, 60000);
+    store.checkpoint("shardId-000000000000", "100");
+    store.flush();
+    final int validOffset = store.getJournalOffset();
+    store.checkpoint("shardId-000000000000", "101");
+    store.close();
+
+    // corrupt the second entry crc.
+    try (FileChannel channel = FileChannel.open(dir.resolve("checkpoint.journal"), StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[] {1, 2, 3, 4}), validOffset + 4);
+    }
+
+    final JournalCheckpointStore recovered = new JournalCheckpointStore(dir, 4096, 60000);
+    Assert.assertThat(recovered.getCheckpoint("shardId-000000000000"), is(Optional.of("100")));
+    Assert.assertThat(recovered.getJournalOffset(), is(validOffset));
+    recovered.close();
+  }
+
+  @Test(expected = IOException.class)
+  public void testStoreInUse() throws IOException {
+    final JournalCheckpointStore store = new JournalCheckpointStore(dir, 4096, 60000);
+    try {
+      new JournalCheckpointStore(dir, 4096, 60000);
+    } finally {
+      store.close();
+    }
+  }
+}
@@ -0,0 +1,121 @@
+package com.aws.kinesis.api.consumer.lease;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestFileLeaseManager {
+  private static final List<String> SHARD_IDS = Arrays.asList(
+    "shardId-000000000000", "shardId-000000000001", "shardId-000000000002", "shardId-000000000003");
+
+  private Path dir;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("lease-manager-test");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    try (final Stream<Path> paths = Files.walk(dir)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+
+  @Test
+  public void testEvenSplitByStealing() throws IOException {
+    final FileLeaseManager first = new FileLeaseManager(dir, "worker-1", 60000);
+    final FileLeaseManager second = new FileLeaseManager(dir, "worker-2", 60000);
+
+    Assert.assertThat(first.acquire(SHARD_IDS).size(), is(4));
+
+    // one steal per acquire.
+    Assert.assertThat(second.acquire(SHARD_IDS).size(), is(1));
+    Assert.assertThat(first.acquire(SHARD_IDS).size(), is(3));
+    Assert.assertThat(second.acquire(SHARD_IDS).size(), is(2));
+    Assert.assertThat(first.acquire(SHARD_IDS).size(), is(2));
+    Assert.assertThat(second.acquire(SHARD_IDS).size(), is(2));
+
+    final Set<String> allShardIds = new HashSet<>(first.getHeldShardIds());
+    allShardIds.addAll(second.getHeldShardIds());
+    Assert.assertThat(allShardIds, is(new HashSet<>(SHARD_IDS)));
+  }
+
+  @Test
+  public void testTakeOverExpiredLease() throws Exception {
+    final FileLeaseManager first = new FileLeaseManager(dir, "worker-1", 100);
+    final FileLeaseManager second = new FileLeaseManager(dir, "worker-2", 100);
+
+    first.acquire(SHARD_IDS);
+    first.checkpoint(SHARD_IDS.get(0), "100");
+    Assert.assertThat(first.flush(), is(true));
+
+    Thread.sleep(200);
+
+    Assert.assertThat(second.acquire(SHARD_IDS).size(), is(4));
+    // checkpoint moves with the lease.
+    Assert.assertThat(second.getCheckpoint(SHARD_IDS.get(0)), is(Optional.of("100")));
+    // expired worker rejoins and steals back toward an even split.
+    final Set<String> rejoinedShardIds = first.acquire(SHARD_IDS);
+    Assert.assertThat(rejoinedShardIds.size(), is(1));
+    Assert.assertThat(second.acquire(SHARD_IDS).contains(rejoinedShardIds.iterator().next()), is(false));
+  }
+
+  @Test
+  public void testDropCheckpointOfLostLease() throws Exception {
+    final FileLeaseManager first = new FileLeaseManager(dir, "worker-1", 100);
+    final FileLeaseManager second = new FileLeaseManager(dir, "worker-2", 60000);
+
+    first.acquire(SHARD_IDS);
+    Thread.sleep(200);
+    second.acquire(SHARD_IDS);
+
+    first.checkpoint(SHARD_IDS.get(0), "100");
+    first.flush();
+    second.acquire(SHARD_IDS);
+
+    Assert.assertThat(second.getCheckpoint(SHARD_IDS.get(0)), is(Optional.empty()));
+  }
+
+  @Test
+  public void testComplete() throws IOException {
+    final FileLeaseManager first = new FileLeaseManager(dir, "worker-1", 60000);
+    first.acquire(SHARD_IDS);
+    first.complete(SHARD_IDS.get(0));
+
+    Assert.assertThat(first.getHeldShardIds().contains(SHARD_IDS.get(0)), is(false));
+
+    final FileLeaseManager second = new FileLeaseManager(dir, "worker-2", 60000);
+    second.acquire(Collections.emptyList());
+    Assert.assertThat(second.isCompleted(SHARD_IDS.get(0)), is(true));
+  }
+
+  @Test
+  public void testCloseReleasesLeases() throws IOException {
+    final FileLeaseManager first = new FileLeaseManager(dir, "worker-1", 60000);
+    final FileLeaseManager second = new FileLeaseManager(dir, "worker-2", 60000);
+
+    first.acquire(SHARD_IDS);
+    first.close();
+
+    Assert.assertThat(second.acquire(SHARD_IDS).size(), is(4));
+  }
+}
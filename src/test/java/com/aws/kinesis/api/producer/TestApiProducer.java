@@ -0,0 +1,183 @@
+package com.aws.kinesis.api.producer;
+
+import com.amazonaws.services.kinesis.model.HashKeyRange;
+import com.amazonaws.services.kinesis.model.PutRecordsRequest;
+import com.amazonaws.services.kinesis.model.PutRecordsRequestEntry;
+import com.amazonaws.services.kinesis.model.PutRecordsResult;
+import com.amazonaws.services.kinesis.model.PutRecordsResultEntry;
+import com.amazonaws.services.kinesis.model.SequenceNumberRange;
+import com.amazonaws.services.kinesis.model.Shard;
+import com.aws.kinesis.api.ApiClient;
+import com.aws.kinesis.api.ShardLocator;
+import com.aws.kinesis.record.IRecord;
+import com.aws.kinesis.record.StringRecord;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestApiProducer {
+  private static final String HALF_HASH_KEY = "170141183460469231731687303715884105728";
+  private static final String MAX_HASH_KEY = "340282366920938463463374607431768211455";
+
+  private final List<Shard> shards = Arrays.asList(
+    createShard("shardId-000000000001", "0", new BigInteger(HALF_HASH_KEY).subtract(BigInteger.ONE).toString()),
+    createShard("shardId-000000000002", HALF_HASH_KEY, MAX_HASH_KEY));
+  private final ShardLocator shardLocator = new ShardLocator(shards);
+
+  // partition keys of each put request, in request order.
+  private final List<List<String>> requests = Collections.synchronizedList(new ArrayList<>());
+
+  private static Shard createShard(final String shardId, final String startingHashKey, final String endingHashKey) {
+    return new Shard()
+      .withShardId(shardId)
+      .withHashKeyRange(new HashKeyRange().withStartingHashKey(startingHashKey).withEndingHashKey(endingHashKey))
+      .withSequenceNumberRange(new SequenceNumberRange().withStartingSequenceNumber("0"));
+  }
+
+  /**
+   * Put succeeds for every entry, sequence number is the partition key.
+   */
+  private Optional<PutRecordsResult> putAll(final PutRecordsRequest putRecordsRequest) {
+    requests.add(putRecordsRequest.getRecords().stream().map(PutRecordsRequestEntry::getPartitionKey).collect(Collectors.toList()));
+
+    return Optional.of(new PutRecordsResult().withRecords(putRecordsRequest.getRecords().stream()
+      .map(entry -> new PutRecordsResultEntry()
+        .withShardId(shardLocator.getShardId(entry.getPartitionKey()).get())
+        .withSequenceNumber(entry.getPartitionKey()))
+      .collect(Collectors.toList())));
+  }
+
+  private ApiClient createApiClient(final Supplier<List<Shard>> shardList,
+                                    final Function<PutRecordsRequest, Optional<PutRecordsResult>> putRecords) {
+    return new ApiClient() {
+      @Override
+      public boolean isNotStreamExist(final String streamName) { return false; }
+
+      @Override
+      public List<Shard> getShardList(final String streamName) { return shardList.get(); }
+
+      @Override
+      public Optional<PutRecordsResult> putRecords(final PutRecordsRequest putRecordsRequest) {
+        return putRecords.apply(putRecordsRequest);
+      }
+    };
+  }
+
+  private ApiClient createApiClient(final Function<PutRecordsRequest, Optional<PutRecordsResult>> putRecords) {
+    return this.createApiClient(() -> shards, putRecords);
+  }
+
+  @Test
+  public void testProduceByShard() {
+    final ApiProducer apiProducer = new ApiProducer(createApiClient(this::putAll), "test-stream");
+
+    final List<IRecord> records = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      records.add(new StringRecord("pk-" + i, "value-" + i));
+    }
+
+    final List<ProduceRecordResult> results = apiProducer.produceByShard(records);
+
+    // results follow record order.
+    Assert.assertThat(results.size(), is(records.size()));
+    for (int i = 0; i < records.size(); i++) {
+      Assert.assertThat(results.get(i).isSuccessful(), is(true));
+      Assert.assertThat(results.get(i).getRecord(), is(records.get(i)));
+      Assert.assertThat(results.get(i).getShardId(), is(shardLocator.getShardId("pk-" + i)));
+    }
+
+    // one request per shard, records of a request are of one shard and in record order.
+    Assert.assertThat(requests.size(), is(2));
+    for (List<String> partitionKeys : requests) {
+      final String shardId = shardLocator.getShardId(partitionKeys.get(0)).get();
+      final List<String> expected = records.stream()
+        .map(IRecord::getPartitionKey)
+        .filter(partitionKey -> shardLocator.getShardId(partitionKey).get().equals(shardId))
+        .collect(Collectors.toList());
+
+      Assert.assertThat(partitionKeys, is(expected));
+    }
+  }
+
+  @Test
+  public void testProduceWithResultInOrder() {
+    final ApiProducer apiProducer = new ApiProducer(createApiClient(this::putAll), "test-stream");
+
+    final List<IRecord> records = new ArrayList<>();
+    for (int i = 0; i < 1200; i++) {
+      records.add(new StringRecord("pk-" + i, "value-" + i));
+    }
+
+    final List<ProduceRecordResult> results = apiProducer.produceWithResult(records);
+
+    Assert.assertThat(results.stream().allMatch(ProduceRecordResult::isSuccessful), is(true));
+
+    // batches are put one after another, requests concatenate to record order.
+    Assert.assertThat(requests.size(), is(3));
+    Assert.assertThat(requests.stream().flatMap(List::stream).collect(Collectors.toList()),
+      is(records.stream().map(IRecord::getPartitionKey).collect(Collectors.toList())));
+  }
+
+  @Test
+  public void testRefreshShardsOnClosedShard() {
+    // producer starts before a split, the parent shard covers all keys.
+    final List<Shard> parentShards = Collections.singletonList(createShard("shardId-000000000000", "0", MAX_HASH_KEY));
+    final AtomicInteger shardListCount = new AtomicInteger();
+
+    final ApiProducer apiProducer = new ApiProducer(createApiClient(
+      () -> shardListCount.getAndIncrement() == 0 ? parentShards : shards, this::putAll), "test-stream");
+
+    final List<IRecord> records = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      records.add(new StringRecord("pk-" + i, "value-" + i));
+    }
+
+    // records land on child shards, shards are reloaded once.
+    Assert.assertThat(apiProducer.produceByShard(records).stream().allMatch(ProduceRecordResult::isSuccessful), is(true));
+    Assert.assertThat(shardListCount.get(), is(2));
+
+    // child shards are known, no more reload.
+    Assert.assertThat(apiProducer.produceByShard(records).stream().allMatch(ProduceRecordResult::isSuccessful), is(true));
+    Assert.assertThat(shardListCount.get(), is(2));
+  }
+
+  @Test
+  public void testFailDeferredRecordsOnRequestFailure() {
+    // one shard, the rate limiter burst of 1000 records is taken by the first two batches.
+    final List<Shard> singleShard = Collections.singletonList(createShard("shardId-000000000000", "0", MAX_HASH_KEY));
+    final AtomicInteger requestCount = new AtomicInteger();
+
+    final ApiProducer apiProducer = new ApiProducer(createApiClient(() -> singleShard, putRecordsRequest -> {
+      // the third request is sent while the rate limiter defers the rest of the last batch.
+      if (requestCount.incrementAndGet() == 3) return Optional.empty();
+      return Optional.of(new PutRecordsResult().withRecords(putRecordsRequest.getRecords().stream()
+        .map(entry -> new PutRecordsResultEntry().withShardId("shardId-000000000000").withSequenceNumber(entry.getPartitionKey()))
+        .collect(Collectors.toList())));
+    }), "test-stream");
+
+    final List<IRecord> records = new ArrayList<>();
+    for (int i = 0; i < 1200; i++) {
+      records.add(new StringRecord("pk-" + i, "value-" + i));
+    }
+
+    final List<ProduceRecordResult> results = apiProducer.produceWithResult(records);
+
+    Assert.assertThat(results.size(), is(records.size()));
+    Assert.assertThat(results.stream().allMatch(result -> result != null), is(true));
+    Assert.assertThat(results.subList(0, 1000).stream().allMatch(ProduceRecordResult::isSuccessful), is(true));
+    Assert.assertThat(results.subList(1000, 1200).stream()
+      .allMatch(result -> result.getErrorCode().equals(Optional.of(ProduceRecordResult.ERROR_CODE_REQUEST_FAILED))), is(true));
+  }
+}
@@ -0,0 +1,68 @@
+package com.aws.kinesis.api.producer;
+
+import com.amazonaws.services.kinesis.model.PutRecordsRequest;
+import com.amazonaws.services.kinesis.model.PutRecordsRequestEntry;
+import com.amazonaws.services.kinesis.model.PutRecordsResult;
+import com.amazonaws.services.kinesis.model.PutRecordsResultEntry;
+import com.aws.kinesis.api.ApiClient;
+import com.aws.kinesis.record.IRecord;
+import com.aws.kinesis.record.StringRecord;
+import com.utils.Tuple2;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestAsyncPutRecordsDispatcher {
+  // partition keys of each put request, in request order.
+  private final List<List<String>> requests = Collections.synchronizedList(new ArrayList<>());
+
+  /**
+   * The first entry of the first request is throttled, every other entry succeeds.
+   */
+  private ApiClient createApiClient() {
+    return new ApiClient() {
+      @Override
+      public CompletableFuture<PutRecordsResult> putRecordsAsync(final PutRecordsRequest putRecordsRequest) {
+        final boolean first = requests.isEmpty();
+        requests.add(putRecordsRequest.getRecords().stream()
+          .map(PutRecordsRequestEntry::getPartitionKey).collect(Collectors.toList()));
+
+        final List<PutRecordsResultEntry> resultEntries = new ArrayList<>();
+        for (int i = 0; i < putRecordsRequest.getRecords().size(); i++) {
+          resultEntries.add(first && i == 0 ?
+            new PutRecordsResultEntry().withErrorCode("ProvisionedThroughputExceededException").withErrorMessage("exceeded") :
+            new PutRecordsResultEntry().withShardId("shardId-000000000001").withSequenceNumber(String.valueOf(requests.size())));
+        }
+        return CompletableFuture.completedFuture(new PutRecordsResult().withRecords(resultEntries));
+      }
+    };
+  }
+
+  @Test
+  public void testRetryFailedEntries() throws Exception {
+    final AsyncPutRecordsDispatcher dispatcher = new AsyncPutRecordsDispatcher(createApiClient(), "test-stream");
+
+    final List<Tuple2<IRecord, PutRecordsRequestEntry>> batch = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      final IRecord record = new StringRecord("pk-" + i, "value-" + i);
+      batch.add(new Tuple2<>(record, new PutRecordsRequestEntry().withPartitionKey("pk-" + i).withData(record.getData())));
+    }
+
+    final List<ProduceRecordResult> results = dispatcher.submit(batch).get(30, TimeUnit.SECONDS);
+
+    // only the failed entry is sent again after backoff.
+    Assert.assertThat(requests.size(), is(2));
+    Assert.assertThat(requests.get(1), is(Collections.singletonList("pk-0")));
+    Assert.assertThat(results.stream().allMatch(ProduceRecordResult::isSuccessful), is(true));
+    Assert.assertThat(results.get(0).getSequenceNumber().get(), is("2"));
+    Assert.assertThat(results.get(1).getSequenceNumber().get(), is("1"));
+  }
+}
@@ -0,0 +1,61 @@
+package com.aws.kinesis.api.producer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestInFlightWindow {
+
+  @Test
+  public void testAcquireAndRelease() {
+    final InFlightWindow window = new InFlightWindow(2, 8);
+
+    Assert.assertThat(window.tryAcquire(), is(true));
+    Assert.assertThat(window.tryAcquire(), is(true));
+    Assert.assertThat(window.tryAcquire(), is(false));
+    Assert.assertThat(window.getInFlightCount(), is(2));
+
+    window.release();
+    Assert.assertThat(window.getInFlightCount(), is(1));
+    Assert.assertThat(window.tryAcquire(), is(true));
+  }
+
+  @Test
+  public void testAdditiveIncreaseMultiplicativeDecrease() {
+    final InFlightWindow window = new InFlightWindow(4, 8);
+
+    // one full window of succeeded requests grows window by 1.
+    for (int i = 0; i < 4; i++) {
+      Assert.assertThat(window.tryAcquire(), is(true));
+      window.onSuccess();
+    }
+    Assert.assertThat(window.getWindowSize(), is(4));
+    Assert.assertThat(window.tryAcquire(), is(true));
+    window.onSuccess();
+    Assert.assertThat(window.getWindowSize(), is(5));
+
+    Assert.assertThat(window.tryAcquire(), is(true));
+    window.onThrottled();
+    Assert.assertThat(window.getWindowSize(), is(2));
+
+    for (int i = 0; i < 4; i++) {
+      Assert.assertThat(window.tryAcquire(), is(true));
+      window.onThrottled();
+    }
+    Assert.assertThat(window.getWindowSize(), is(1));
+    Assert.assertThat(window.getInFlightCount(), is(0));
+  }
+
+  @Test
+  public void testMaxWindowSize() {
+    final InFlightWindow window = new InFlightWindow(16, 2);
+    Assert.assertThat(window.getWindowSize(), is(2));
+
+    for (int i = 0; i < 100; i++) {
+      window.tryAcquire();
+      window.onSuccess();
+    }
+    Assert.assertThat(window.getWindowSize(), is(2));
+  }
+}
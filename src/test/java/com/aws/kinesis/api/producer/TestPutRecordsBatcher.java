@@ -0,0 +1,69 @@
+package com.aws.kinesis.api.producer;
+
+import com.amazonaws.services.kinesis.model.PutRecordsRequestEntry;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestPutRecordsBatcher {
+
+  private List<PutRecordsRequestEntry> createEntries(final int count, final int dataSize) {
+    final List<PutRecordsRequestEntry> entries = new ArrayList<>(count);
+
+    for (int i = 0; i < count; i++) {
+      entries.add(new PutRecordsRequestEntry()
+        .withPartitionKey("pk")
+        .withData(ByteBuffer.allocate(dataSize)));
+    }
+    return entries;
+  }
+
+  @Test
+  public void testEntrySize() {
+    final PutRecordsRequestEntry entry = new PutRecordsRequestEntry()
+      .withPartitionKey("pk-1")
+      .withData(ByteBuffer.wrap(new byte[10]));
+
+    Assert.assertThat(PutRecordsBatcher.getEntrySize(entry), is(14L));
+    Assert.assertThat(PutRecordsBatcher.isOversize(entry), is(false));
+    Assert.assertThat(PutRecordsBatcher.isOversize(createEntries(1, 1024 * 1024).get(0)), is(true));
+  }
+
+  @Test
+  public void testSplitByRecordCount() {
+    final List<List<PutRecordsRequestEntry>> batches = PutRecordsBatcher.split(createEntries(1201, 10));
+
+    Assert.assertThat(batches.size(), is(3));
+    Assert.assertThat(batches.get(0).size(), is(500));
+    Assert.assertThat(batches.get(1).size(), is(500));
+    Assert.assertThat(batches.get(2).size(), is(201));
+  }
+
+  @Test
+  public void testSplitByBytes() {
+    // (512 KiB - 2) + 2 bytes partition key, 10 records per 5 MiB.
+    final List<List<PutRecordsRequestEntry>> batches = PutRecordsBatcher.split(createEntries(25, 512 * 1024 - 2));
+
+    Assert.assertThat(batches.size(), is(3));
+    Assert.assertThat(batches.get(0).size(), is(10));
+    Assert.assertThat(batches.get(1).size(), is(10));
+    Assert.assertThat(batches.get(2).size(), is(5));
+  }
+
+  @Test
+  public void testSplitSkipOversize() {
+    final List<PutRecordsRequestEntry> entries = createEntries(3, 10);
+    entries.add(1, createEntries(1, 1024 * 1024).get(0));
+
+    final List<List<PutRecordsRequestEntry>> batches = PutRecordsBatcher.split(entries);
+
+    Assert.assertThat(batches.size(), is(1));
+    Assert.assertThat(batches.get(0).size(), is(3));
+    Assert.assertThat(PutRecordsBatcher.split(new ArrayList<>()).isEmpty(), is(true));
+  }
+}
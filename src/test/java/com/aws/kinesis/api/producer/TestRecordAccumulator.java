@@ -0,0 +1,163 @@
+package com.aws.kinesis.api.producer;
+
+import com.aws.kinesis.record.IRecord;
+import com.aws.kinesis.record.StringRecord;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestRecordAccumulator {
+  private final ConcurrentLinkedQueue<Integer> batchSizes = new ConcurrentLinkedQueue<>();
+
+  private final Function<List<IRecord>, List<ProduceRecordResult>> produceRecords = records -> {
+    batchSizes.add(records.size());
+    return records.stream()
+      .map(record -> ProduceRecordResult.succeeded(record, "shardId-000000000000", record.getPartitionKey()))
+      .collect(Collectors.toList());
+  };
+
+  @Test
+  public void testProduceOnMaxCount() throws Exception {
+    final RecordAccumulator accumulator = new RecordAccumulator(produceRecords, 3, Long.MAX_VALUE, 60000, 1);
+
+    final List<CompletableFuture<ProduceRecordResult>> futures = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      futures.add(accumulator.send(new StringRecord("pk-" + i, "value")));
+    }
+
+    for (int i = 0; i < 3; i++) {
+      Assert.assertThat(futures.get(i).get(1, TimeUnit.SECONDS).getSequenceNumber().get(), is("pk-" + i));
+    }
+    Assert.assertThat(accumulator.getPendingRecordCount(), is(0));
+    Assert.assertThat(batchSizes.poll(), is(3));
+  }
+
+  @Test
+  public void testProduceOnMaxBytes() throws Exception {
+    final RecordAccumulator accumulator = new RecordAccumulator(produceRecords, 500, 20, 60000, 1);
+
+    final CompletableFuture<ProduceRecordResult> first = accumulator.send(new StringRecord("pk", "12345678"));
+    Assert.assertThat(first.isDone(), is(false));
+
+    final CompletableFuture<ProduceRecordResult> second = accumulator.send(new StringRecord("pk", "12345678"));
+
+    Assert.assertThat(first.get(1, TimeUnit.SECONDS).isSuccessful(), is(true));
+    Assert.assertThat(second.get(1, TimeUnit.SECONDS).isSuccessful(), is(true));
+    Assert.assertThat(batchSizes.poll(), is(2));
+  }
+
+  @Test
+  public void testProduceOnLinger() throws Exception {
+    final RecordAccumulator accumulator = new RecordAccumulator(produceRecords, 500, Long.MAX_VALUE, 50, 1);
+
+    final CompletableFuture<ProduceRecordResult> future = accumulator.send(new StringRecord("pk", "value"));
+
+    Assert.assertThat(future.get(1, TimeUnit.SECONDS).isSuccessful(), is(true));
+    Assert.assertThat(batchSizes.poll(), is(1));
+  }
+
+  @Test
+  public void testFlush() throws Exception {
+    final RecordAccumulator accumulator = new RecordAccumulator(produceRecords, 500, Long.MAX_VALUE, 60000, 4);
+
+    final CompletableFuture<ProduceRecordResult> future = accumulator.send(new StringRecord("pk", "value"));
+    accumulator.flush().get(1, TimeUnit.SECONDS);
+
+    Assert.assertThat(future.isDone(), is(true));
+    Assert.assertThat(accumulator.getPendingRecordCount(), is(0));
+  }
+
+  @Test
+  public void testConcurrentSend() throws Exception {
+    final RecordAccumulator accumulator = new RecordAccumulator(produceRecords, 100, Long.MAX_VALUE, 20, 4);
+    final ConcurrentLinkedQueue<CompletableFuture<ProduceRecordResult>> futures = new ConcurrentLinkedQueue<>();
+
+    final List<IRecord> records = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      records.add(new StringRecord("pk-" + i, "value"));
+    }
+
+    final List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      threads.add(new Thread(() -> records.forEach(record -> futures.add(accumulator.send(record)))));
+    }
+    threads.forEach(Thread::start);
+    for (Thread thread : threads) thread.join();
+
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+    Assert.assertThat(futures.size(), is(8000));
+    Assert.assertThat(batchSizes.stream().mapToInt(Integer::intValue).sum(), is(8000));
+    Assert.assertThat(batchSizes.size() < 8000, is(true));
+  }
+
+  @Test
+  public void testStripeBatchesInOrder() throws Exception {
+    final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicInteger maxInFlight = new AtomicInteger();
+    final ConcurrentLinkedQueue<String> producedKeys = new ConcurrentLinkedQueue<>();
+
+    final RecordAccumulator accumulator = new RecordAccumulator(records -> {
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(5);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      records.forEach(record -> producedKeys.add(record.getPartitionKey()));
+      inFlight.decrementAndGet();
+      return produceRecords.apply(records);
+    }, 1, Long.MAX_VALUE, 60000, 1);
+
+    final List<CompletableFuture<ProduceRecordResult>> futures = new ArrayList<>();
+    final List<String> sentKeys = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      sentKeys.add("pk-" + i);
+      futures.add(accumulator.send(new StringRecord("pk-" + i, "value")));
+    }
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+    // one batch of a stripe in flight at a time, in send order.
+    Assert.assertThat(maxInFlight.get(), is(1));
+    Assert.assertThat(new ArrayList<>(producedKeys), is(sentKeys));
+  }
+
+  @Test
+  public void testSendBlocksOnFullBuffer() throws Exception {
+    final CountDownLatch produceLatch = new CountDownLatch(1);
+
+    // 12 bytes per record, buffer holds one record.
+    final RecordAccumulator accumulator = new RecordAccumulator(records -> {
+      try {
+        produceLatch.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return produceRecords.apply(records);
+    }, 1, Long.MAX_VALUE, 60000, 1, 20, 50);
+
+    final CompletableFuture<ProduceRecordResult> first = accumulator.send(new StringRecord("pk", "1234567890"));
+    Assert.assertThat(accumulator.getBufferedBytes(), is(12L));
+
+    final CompletableFuture<ProduceRecordResult> second = accumulator.send(new StringRecord("pk", "1234567890"));
+    Assert.assertThat(second.get(1, TimeUnit.SECONDS).getErrorCode().get(), is(ProduceRecordResult.ERROR_CODE_BUFFER_FULL));
+
+    produceLatch.countDown();
+    Assert.assertThat(first.get(1, TimeUnit.SECONDS).isSuccessful(), is(true));
+
+    final CompletableFuture<ProduceRecordResult> third = accumulator.send(new StringRecord("pk", "1234567890"));
+    Assert.assertThat(third.get(1, TimeUnit.SECONDS).isSuccessful(), is(true));
+    Assert.assertThat(accumulator.getBufferedBytes(), is(0L));
+  }
+}
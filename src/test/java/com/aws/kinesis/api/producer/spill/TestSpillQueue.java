@@ -0,0 +1,193 @@
+package com.aws.kinesis.api.producer.spill;
+
+import com.aws.kinesis.record.IRecord;
+import com.aws.kinesis.record.StringRecord;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestSpillQueue {
+  private Path dir;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("spill-queue-test");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    try (final Stream<Path> paths = Files.walk(dir)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+
+  @Test
+  public void testAppendPeekRemove() throws IOException {
+    final SpillQueue spillQueue = new SpillQueue(dir, 1024);
+
+    for (int i = 0; i < 10; i++) {
+      Assert.assertThat(spillQueue.append(new StringRecord("pk-" + i, "data-" + i)), is(true));
+    }
+    Assert.assertThat(spillQueue.size(), is(10L));
+
+    final List<IRecord> peekedRecords = spillQueue.peek(4);
+    Assert.assertThat(peekedRecords.size(), is(4));
+    Assert.assertThat(peekedRecords.get(0).getPartitionKey(), is("pk-0"));
+    Assert.assertThat(toString(peekedRecords.get(3).getData()), is("data-3"));
+
+    // peek does not remove.
+    Assert.assertThat(spillQueue.peek(1).get(0).getPartitionKey(), is("pk-0"));
+
+    spillQueue.remove(4);
+    Assert.assertThat(spillQueue.size(), is(6L));
+    Assert.assertThat(spillQueue.peek(1).get(0).getPartitionKey(), is("pk-4"));
+
+    spillQueue.remove(100);
+    Assert.assertThat(spillQueue.isEmpty(), is(true));
+    Assert.assertThat(spillQueue.peek(10).isEmpty(), is(true));
+
+    spillQueue.close();
+  }
+
+  @Test
+  public void testSegmentRollAndDelete() throws IOException {
+    final SpillQueue spillQueue = new SpillQueue(dir, 64);
+
+    for (int i = 0; i < 10; i++) {
+      Assert.assertThat(spillQueue.append(new StringRecord("pk-" + i, "data-" + i)), is(true));
+    }
+    Assert.assertThat(countSegmentFiles() > 1, is(true));
+
+    // larger than a segment.
+    Assert.assertThat(spillQueue.append(new StringRecord("pk", new String(new char[64]))), is(false));
+
+    final List<IRecord> records = spillQueue.peek(100);
+    Assert.assertThat(records.size(), is(10));
+    for (int i = 0; i < 10; i++) {
+      Assert.assertThat(records.get(i).getPartitionKey(), is("pk-" + i));
+    }
+
+    spillQueue.remove(10);
+    Assert.assertThat(countSegmentFiles(), is(1L));
+
+    spillQueue.close();
+  }
+
+  @Test
+  public void testRecoverAfterReopen() throws IOException {
+    final SpillQueue spillQueue = new SpillQueue(dir, 64);
+    for (int i = 0; i < 10; i++) {
+      spillQueue.append(new StringRecord("pk-" + i, "data-" + i));
+    }
+    spillQueue.remove(3);
+    spillQueue.close();
+
+    final SpillQueue reopenedSpillQueue = new SpillQueue(dir, 64);
+    Assert.assertThat(reopenedSpillQueue.size(), is(7L));
+    Assert.assertThat(reopenedSpillQueue.peek(1).get(0).getPartitionKey(), is("pk-3"));
+
+    reopenedSpillQueue.append(new StringRecord("pk-10", "data-10"));
+    final List<IRecord> records = reopenedSpillQueue.peek(100);
+    Assert.assertThat(records.size(), is(8));
+    Assert.assertThat(records.get(7).getPartitionKey(), is("pk-10"));
+
+    reopenedSpillQueue.close();
+  }
+
+  @Test
+  public void testRecoverTornEntry() throws IOException {
+    final SpillQueue spillQueue = new SpillQueue(dir, 1024);
+    spillQueue.append(new StringRecord("pk-0", "data-0"));
+    spillQueue.append(new StringRecord("pk-1", "data-1"));
+    spillQueue.close();
+
+    // corrupt the last entry payload.
+    final Path segmentPath;
+    try (final Stream<Path> paths = Files.list(dir)) {
+      segmentPath = paths.filter(path -> path.toString().endsWith(".seg")).findFirst().get();
+    }
+    try (final FileChannel segmentChannel = FileChannel.open(segmentPath, StandardOpenOption.WRITE)) {
+      segmentChannel.write(ByteBuffer.wrap(new byte[] {(byte) 0xFF}), 8 + 2 + 4 + 6 + 8 + 4);
+    }
+
+    final SpillQueue reopenedSpillQueue = new SpillQueue(dir, 1024);
+    Assert.assertThat(reopenedSpillQueue.size(), is(1L));
+
+    reopenedSpillQueue.append(new StringRecord("pk-2", "data-2"));
+    final List<IRecord> records = reopenedSpillQueue.peek(100);
+    Assert.assertThat(records.size(), is(2));
+    Assert.assertThat(records.get(1).getPartitionKey(), is("pk-2"));
+
+    reopenedSpillQueue.close();
+  }
+
+  @Test
+  public void testSkipCorruptedEntry() throws IOException {
+    final SpillQueue spillQueue = new SpillQueue(dir, 1024);
+    for (int i = 0; i < 4; i++) {
+      spillQueue.append(new StringRecord("pk-" + i, "data-" + i));
+    }
+    spillQueue.close();
+
+    // corrupt the second entry payload, entries after it are valid.
+    final Path segmentPath;
+    try (final Stream<Path> paths = Files.list(dir)) {
+      segmentPath = paths.filter(path -> path.toString().endsWith(".seg")).findFirst().get();
+    }
+    try (final FileChannel segmentChannel = FileChannel.open(segmentPath, StandardOpenOption.WRITE)) {
+      segmentChannel.write(ByteBuffer.wrap(new byte[] {(byte) 0xFF}), 8 + 2 + 4 + 6 + 8 + 4);
+    }
+
+    final SpillQueue reopenedSpillQueue = new SpillQueue(dir, 1024);
+    Assert.assertThat(reopenedSpillQueue.size(), is(3L));
+
+    final List<IRecord> records = reopenedSpillQueue.peek(100);
+    Assert.assertThat(records.stream().map(IRecord::getPartitionKey).collect(Collectors.toList()),
+      is(Arrays.asList("pk-0", "pk-2", "pk-3")));
+
+    // the corrupted entry is counted when the read position passes it.
+    reopenedSpillQueue.remove(2);
+    Assert.assertThat(reopenedSpillQueue.getCorruptedCount(), is(1L));
+    Assert.assertThat(reopenedSpillQueue.peek(1).get(0).getPartitionKey(), is("pk-3"));
+
+    reopenedSpillQueue.close();
+  }
+
+  @Test(expected = IOException.class)
+  public void testDirLock() throws IOException {
+    final SpillQueue spillQueue = new SpillQueue(dir, 1024);
+    try {
+      new SpillQueue(dir, 1024);
+    } finally {
+      spillQueue.close();
+    }
+  }
+
+  private long countSegmentFiles() throws IOException {
+    try (final Stream<Path> paths = Files.list(dir)) {
+      return paths.filter(path -> path.toString().endsWith(".seg")).count();
+    }
+  }
+
+  private static String toString(ByteBuffer data) {
+    return StandardCharsets.UTF_8.decode(data.duplicate()).toString();
+  }
+}
@@ -0,0 +1,30 @@
+package com.aws.kinesis.record;
+
+import com.amazonaws.services.kinesis.model.Record;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestBytesRecord {
+
+  @Test
+  public void testBytesRecord() {
+    final ByteBuffer testData = ByteBuffer.wrap("data-1".getBytes(StandardCharsets.UTF_8));
+    final BytesRecord bytesRecord = new BytesRecord(new Record()
+      .withPartitionKey("pk-1")
+      .withData(testData)
+      .withSequenceNumber("seq-1"));
+
+    Assert.assertThat(bytesRecord.getPartitionKey(), is("pk-1"));
+    Assert.assertThat(bytesRecord.getSequenceNumber().get(), is("seq-1"));
+    Assert.assertThat(bytesRecord.getValue().isReadOnly(), is(true));
+    Assert.assertThat(bytesRecord.getValue().equals(testData), is(true));
+
+    bytesRecord.getValue().position(6);
+    Assert.assertThat(bytesRecord.getValue().remaining(), is(6));
+  }
+}
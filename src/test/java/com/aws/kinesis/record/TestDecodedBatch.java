@@ -0,0 +1,106 @@
+package com.aws.kinesis.record;
+
+import com.amazonaws.services.kinesis.model.Record;
+import com.aws.kinesis.record.handler.HandlerFactory;
+import com.aws.kinesis.record.handler.HandlerType;
+import com.aws.kinesis.record.handler.IRecordsHandler;
+import com.aws.kinesis.record.serde.Utf8Serde;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestDecodedBatch {
+
+  // counts deserialize calls, fails on "bad" data.
+  private static class CountingSerde extends Utf8Serde {
+    private final AtomicInteger deserializeCount = new AtomicInteger();
+
+    @Override
+    public String deserialize(final ByteBuffer data) {
+      deserializeCount.incrementAndGet();
+      final String value = super.deserialize(data);
+      if (value.equals("bad")) throw new IllegalArgumentException("bad record");
+      return value;
+    }
+  }
+
+  private static class TypedHandler extends StringCollector {
+    @Override
+    public boolean isTypedHandler() { return true; }
+  }
+
+  private static class StringCollector implements IRecordsHandler<String> {
+    final List<String> values = new ArrayList<>();
+
+    @Override
+    public void recordsProcess(final List<IRecord<String>> records) {
+      for (IRecord<String> record : records) values.add(record.getValue());
+    }
+
+    @Override
+    public void kinesisRecordsProcess(final List<Record> kinesisRecords) {}
+
+    @Override
+    public HandlerType getHandlerType() { return HandlerType.DebugoutHandler; }
+  }
+
+  private List<Record> createKinesisRecords(final String... values) {
+    final List<Record> kinesisRecords = new ArrayList<>();
+    for (int i = 0; i < values.length; i++) {
+      kinesisRecords.add(new Record()
+        .withPartitionKey("pk-" + i)
+        .withSequenceNumber(String.valueOf(i))
+        .withData(ByteBuffer.wrap(values[i].getBytes(StandardCharsets.UTF_8))));
+    }
+    return kinesisRecords;
+  }
+
+  @Test
+  public void testDecodeOnceForHandlers() {
+    final CountingSerde serde = new CountingSerde();
+    final DecodedBatch<String> decodedBatch = DecodedBatch.decode(createKinesisRecords("data-1", "data-2", "data-3"), serde);
+
+    final List<TypedHandler> handlers = Arrays.asList(new TypedHandler(), new TypedHandler(), new TypedHandler());
+    for (TypedHandler handler : handlers) {
+      handler.recordsProcess(decodedBatch.getRecords());
+      Assert.assertThat(handler.values, is(Arrays.asList("data-1", "data-2", "data-3")));
+    }
+
+    Assert.assertThat(serde.deserializeCount.get(), is(3));
+    Assert.assertThat(decodedBatch.getRecords().get(0).getSequenceNumber().get(), is("0"));
+  }
+
+  @Test
+  public void testFailedRecordsLeftOut() {
+    final CountingSerde serde = new CountingSerde();
+    final List<Record> kinesisRecords = createKinesisRecords("data-1", "bad", "data-3");
+    final DecodedBatch<String> decodedBatch = DecodedBatch.decode(kinesisRecords, serde);
+
+    Assert.assertThat(decodedBatch.getRecords().size(), is(2));
+    Assert.assertThat(decodedBatch.getFailedCount(), is(1));
+    // raw records are not touched.
+    Assert.assertThat(kinesisRecords.get(1).getData().remaining(), is(3));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testImmutable() {
+    DecodedBatch.decode(createKinesisRecords("data-1"), new Utf8Serde()).getRecords().clear();
+  }
+
+  @Test
+  public void testIsNeeded() {
+    final IRecordsHandler rawHandler = HandlerFactory.getInstance().getHandler(HandlerType.DebugoutHandler);
+
+    Assert.assertThat(DecodedBatch.isNeeded(Collections.singletonList(rawHandler)), is(false));
+    Assert.assertThat(DecodedBatch.isNeeded(Arrays.asList(rawHandler, new TypedHandler())), is(true));
+  }
+}
@@ -0,0 +1,59 @@
+package com.aws.kinesis.record;
+
+import com.amazonaws.services.kinesis.model.Record;
+import com.aws.kinesis.record.serde.ISerde;
+import com.aws.kinesis.record.serde.SerdeFactory;
+import com.aws.kinesis.record.serde.SerdeType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestSerdeRecord {
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testSchemaRecord() {
+    final ISerde<Map<String, Object>> serde = SerdeFactory.getInstance().getSerde(SerdeType.SCHEMA, Arrays.asList("id:LONG", "name:STRING"));
+    final Map<String, Object> value = new HashMap<>();
+    value.put("id", 1L);
+    value.put("name", "name-1");
+
+    final SerdeRecord<Map<String, Object>> producedRecord = new SerdeRecord<>("pk-1", value, serde);
+    final SerdeRecord<Map<String, Object>> consumedRecord = new SerdeRecord<>(new Record()
+      .withPartitionKey("pk-1")
+      .withData(producedRecord.getData())
+      .withSequenceNumber("seq-1"), serde);
+
+    Assert.assertThat(consumedRecord.isDecoded(), is(false));
+    Assert.assertThat(consumedRecord.getValue().get("id"), is((Object) 1L));
+    Assert.assertThat(consumedRecord.getValue().get("name"), is((Object) "name-1"));
+    Assert.assertThat(consumedRecord.getSequenceNumber().get(), is("seq-1"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testUtf8Record() {
+    final ISerde<String> serde = SerdeFactory.getInstance().getSerde(SerdeType.UTF8, Collections.emptyList());
+    final SerdeRecord<String> serdeRecord = new SerdeRecord<>("pk-1", "data-1", serde);
+
+    Assert.assertThat(serdeRecord.getData().equals(new StringRecord("pk-1", "data-1").getData()), is(true));
+    Assert.assertThat(new SerdeRecord<>("pk-1", serdeRecord.getData(), null, serde).getValue(), is("data-1"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testBytesRecord() {
+    final ISerde<ByteBuffer> serde = SerdeFactory.getInstance().getSerde(SerdeType.BYTES, Collections.emptyList());
+    final SerdeRecord<ByteBuffer> serdeRecord = new SerdeRecord<>("pk-1", ByteBuffer.wrap(new byte[] {1, 2}), null, serde);
+
+    Assert.assertThat(serdeRecord.getValue().isReadOnly(), is(true));
+    Assert.assertThat(serdeRecord.getValue().remaining(), is(2));
+  }
+}
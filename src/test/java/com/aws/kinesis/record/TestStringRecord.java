@@ -10,6 +10,9 @@ import java.nio.charset.CharacterCodingException;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CharsetEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.CoreMatchers.is;
 
@@ -38,18 +41,85 @@ public class TestStringRecord {
 
     final StringRecord stringRecord = new StringRecord(testPartitionKey, testData, testSequenceNumber);
     Assert.assertThat(stringRecord.getPartitionKey().equals(testPartitionKey), is(true));
-    Assert.assertThat(stringRecord.getData() == testData, is(true));
+    Assert.assertThat(stringRecord.getData().isReadOnly(), is(true));
     Assert.assertThat(stringRecord.getData().equals(testData), is(true));
     Assert.assertThat(stringRecord.getValue().equals(testValue), is(true));
 
 
     final StringRecord kinesisRecordToStringRecord = new StringRecord(testKinesisRecord);
     Assert.assertThat(kinesisRecordToStringRecord.getPartitionKey().equals(testPartitionKey), is(true));
-    Assert.assertThat(kinesisRecordToStringRecord.getData() == testData, is(true));
+    Assert.assertThat(kinesisRecordToStringRecord.getData().isReadOnly(), is(true));
+    Assert.assertThat(kinesisRecordToStringRecord.isDecoded(), is(false));
     Assert.assertThat(kinesisRecordToStringRecord.getData().equals(testData), is(true));
     Assert.assertThat(kinesisRecordToStringRecord.getValue().equals(testValue), is(true));
 
     Assert.assertThat(stringRecord.equals(kinesisRecordToStringRecord), is(true));
     Assert.assertThat(stringRecord == kinesisRecordToStringRecord, is(false));
+    Assert.assertThat(stringRecord.hashCode() == kinesisRecordToStringRecord.hashCode(), is(true));
+  }
+
+  @Test
+  public void testLazyDecode() {
+    final StringRecord stringRecord = new StringRecord(testKinesisRecord);
+    Assert.assertThat(stringRecord.isDecoded(), is(false));
+
+    final String value = stringRecord.getValue();
+    Assert.assertThat(value, is(testValue));
+    Assert.assertThat(stringRecord.isDecoded(), is(true));
+    Assert.assertThat(stringRecord.getValue() == value, is(true));
+  }
+
+  @Test
+  public void testDataView() {
+    final StringRecord stringRecord = new StringRecord(testPartitionKey, testData, testSequenceNumber);
+
+    // readers of a view do not move the record data or the source buffer.
+    final ByteBuffer data = stringRecord.getData();
+    data.get(new byte[data.remaining()]);
+    Assert.assertThat(stringRecord.getData().remaining(), is(testValue.length()));
+    Assert.assertThat(testData.remaining(), is(testValue.length()));
+    Assert.assertThat(stringRecord.getValue(), is(testValue));
+  }
+
+  @Test
+  public void testValueToData() {
+    final StringRecord stringRecord = new StringRecord(testPartitionKey, "\uD55C\uAE00-1");
+
+    Assert.assertThat(stringRecord.isDecoded(), is(true));
+    Assert.assertThat(stringRecord.getData().remaining(), is(8));
+    Assert.assertThat(StringRecord.byteBufferToString(stringRecord.getData()), is("\uD55C\uAE00-1"));
+  }
+
+  @Test
+  public void testDirectBufferDecode() {
+    final ByteBuffer directData = ByteBuffer.allocateDirect(testData.remaining());
+    directData.put(testData.duplicate()).flip();
+
+    Assert.assertThat(new StringRecord(testPartitionKey, directData).getValue(), is(testValue));
+  }
+
+  @Test
+  public void testConcurrentDecode() throws InterruptedException {
+    final List<StringRecord> records = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      final ByteBuffer directData = ByteBuffer.allocateDirect(16);
+      directData.put(("data-" + i).getBytes(StandardCharsets.UTF_8)).flip();
+      records.add(new StringRecord("pk-" + i, directData));
+    }
+
+    final AtomicInteger mismatchCount = new AtomicInteger();
+    final List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      final Thread thread = new Thread(() -> {
+        for (int i = 0; i < records.size(); i++) {
+          if (!records.get(i).getValue().equals("data-" + i)) mismatchCount.incrementAndGet();
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) thread.join();
+
+    Assert.assertThat(mismatchCount.get(), is(0));
   }
 }
@@ -0,0 +1,94 @@
+package com.aws.kinesis.record.aggregation;
+
+import com.amazonaws.services.kinesis.clientlibrary.types.UserRecord;
+import com.amazonaws.services.kinesis.model.Record;
+import com.aws.kinesis.record.IRecord;
+import com.aws.kinesis.record.StringRecord;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestRecordAggregator {
+
+  private List<IRecord> createRecords(final int count) throws CharacterCodingException {
+    final List<IRecord> records = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      records.add(new StringRecord("pk-" + (i % 3), "data-" + i));
+    }
+    return records;
+  }
+
+  @Test
+  public void testAggregateSizeTracking() throws CharacterCodingException {
+    final AggregatedRecordBuilder builder = new AggregatedRecordBuilder();
+
+    for (IRecord record : createRecords(10)) {
+      final int sizeIfAdded = builder.getSizeIfAdded(record.getPartitionKey(), null, record.getData());
+      builder.add(record.getPartitionKey(), null, record.getData());
+      Assert.assertThat(builder.getSize(), is(sizeIfAdded));
+    }
+
+    final ByteBuffer aggregatedData = builder.build();
+    Assert.assertThat(aggregatedData.remaining(), is(builder.getSize()));
+    Assert.assertThat(AggregationFormat.isAggregated(aggregatedData), is(true));
+    Assert.assertThat(AggregationFormat.isAggregated(ByteBuffer.wrap("data-1".getBytes(StandardCharsets.UTF_8))), is(false));
+  }
+
+  @Test
+  public void testAggregateLimit() throws CharacterCodingException {
+    final RecordAggregator countLimitAggregator = new RecordAggregator(51200, 4);
+    final List<AggregatedRecord> countLimited = countLimitAggregator.aggregate(createRecords(10));
+
+    Assert.assertThat(countLimited.size(), is(3));
+    Assert.assertThat(countLimited.get(2).getUserRecordIndexes(), is(Arrays.asList(8, 9)));
+
+    final RecordAggregator bytesLimitAggregator = new RecordAggregator(64, 1000);
+    for (AggregatedRecord aggregatedRecord : bytesLimitAggregator.aggregate(createRecords(10))) {
+      Assert.assertThat(aggregatedRecord.getData().remaining() <= 64, is(true));
+    }
+  }
+
+  @Test
+  public void testAggregateGroupKey() throws CharacterCodingException {
+    final List<IRecord> records = createRecords(9);
+    final List<AggregatedRecord> aggregatedRecords = new RecordAggregator(51200, 1000)
+      .aggregate(records, IRecord::getPartitionKey);
+
+    Assert.assertThat(aggregatedRecords.size(), is(3));
+    for (AggregatedRecord aggregatedRecord : aggregatedRecords) {
+      for (IRecord userRecord : aggregatedRecord.getValue()) {
+        Assert.assertThat(userRecord.getPartitionKey(), is(aggregatedRecord.getPartitionKey()));
+      }
+    }
+  }
+
+  @Test
+  public void testKclDeaggregateCompatibility() throws CharacterCodingException {
+    final List<IRecord> records = createRecords(20);
+    final AggregatedRecord aggregatedRecord = new RecordAggregator(51200, 1000).aggregate(records).get(0);
+
+    final Record kinesisRecord = new Record()
+      .withPartitionKey(aggregatedRecord.getPartitionKey())
+      .withSequenceNumber("1")
+      .withData(aggregatedRecord.getData());
+
+    final List<UserRecord> userRecords = UserRecord.deaggregate(Collections.singletonList(kinesisRecord));
+
+    Assert.assertThat(userRecords.size(), is(records.size()));
+    for (int i = 0; i < records.size(); i++) {
+      Assert.assertThat(userRecords.get(i).isAggregated(), is(true));
+      Assert.assertThat(userRecords.get(i).getSubSequenceNumber(), is((long) i));
+      Assert.assertThat(userRecords.get(i).getPartitionKey(), is(records.get(i).getPartitionKey()));
+      Assert.assertThat(StandardCharsets.UTF_8.decode(userRecords.get(i).getData()).toString(), is("data-" + i));
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package com.aws.kinesis.record.aggregation;
+
+import com.amazonaws.services.kinesis.model.Record;
+import com.aws.kinesis.record.IRecord;
+import com.aws.kinesis.record.StringRecord;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestRecordDeaggregator {
+
+  private Record createAggregatedKinesisRecord(final int userRecordCount, final String sequenceNumber) throws CharacterCodingException {
+    final List<IRecord> records = new ArrayList<>(userRecordCount);
+    for (int i = 0; i < userRecordCount; i++) {
+      records.add(new StringRecord("pk-" + i, "data-" + i));
+    }
+
+    final AggregatedRecord aggregatedRecord = new RecordAggregator(51200, 1000).aggregate(records).get(0);
+
+    return new Record()
+      .withPartitionKey(aggregatedRecord.getPartitionKey())
+      .withSequenceNumber(sequenceNumber)
+      .withData(aggregatedRecord.getData());
+  }
+
+  @Test
+  public void testDeaggregate() throws CharacterCodingException {
+    final Record plainRecord = new Record()
+      .withPartitionKey("pk-plain")
+      .withSequenceNumber("2")
+      .withData(ByteBuffer.wrap("data-plain".getBytes(StandardCharsets.UTF_8)));
+
+    final List<Record> userRecords = RecordDeaggregator.deaggregate(Arrays.asList(
+      createAggregatedKinesisRecord(5, "1"), plainRecord, createAggregatedKinesisRecord(3, "3")));
+
+    Assert.assertThat(userRecords.size(), is(9));
+    Assert.assertThat(userRecords.get(5) == plainRecord, is(true));
+
+    for (int i = 0; i < 5; i++) {
+      final DeaggregatedRecord userRecord = (DeaggregatedRecord) userRecords.get(i);
+      Assert.assertThat(userRecord.getSequenceNumber(), is("1"));
+      Assert.assertThat(userRecord.getSubSequenceNumber(), is((long) i));
+      Assert.assertThat(userRecord.getPartitionKey(), is("pk-" + i));
+      Assert.assertThat(StandardCharsets.UTF_8.decode(userRecord.getData()).toString(), is("data-" + i));
+    }
+    Assert.assertThat(((DeaggregatedRecord) userRecords.get(8)).getSubSequenceNumber(), is(2L));
+  }
+
+  @Test
+  public void testDeaggregateDigestMismatch() throws CharacterCodingException {
+    final Record aggregatedRecord = createAggregatedKinesisRecord(5, "1");
+    final ByteBuffer data = aggregatedRecord.getData();
+    data.put(data.limit() - 1, (byte) (data.get(data.limit() - 1) + 1));
+
+    final List<Record> userRecords = RecordDeaggregator.deaggregate(Arrays.asList(aggregatedRecord));
+
+    Assert.assertThat(userRecords.size(), is(1));
+    Assert.assertThat(userRecords.get(0) == aggregatedRecord, is(true));
+  }
+}
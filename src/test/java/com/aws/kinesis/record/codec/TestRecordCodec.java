@@ -0,0 +1,114 @@
+package com.aws.kinesis.record.codec;
+
+import com.amazonaws.services.kinesis.model.Record;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+
+public class TestRecordCodec {
+
+  @Test
+  public void testEncodeAndDecode() {
+    final ByteBuffer data = toByteBuffer(createJson(0, 50));
+
+    for (CodecType codecType : Arrays.asList(CodecType.DEFLATE, CodecType.LZ4, CodecType.ZSTD)) {
+      final ByteBuffer encoded = new RecordEncoder(codecType, 3, 64, null).encode(data);
+
+      Assert.assertThat(CodecFormat.isEncoded(encoded), is(true));
+      Assert.assertThat(encoded.remaining() * 2 < data.remaining(), is(true));
+      Assert.assertThat(RecordDecoder.getInstance().decode(encoded), is(data));
+    }
+  }
+
+  @Test
+  public void testEncodeWithDictionary() {
+    final List<ByteBuffer> samples = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      samples.add(toByteBuffer(createJson(i, 2)));
+    }
+
+    final CodecDictionary dictionary = CodecDictionary.train(samples, 16 * 1024).get();
+    final ByteBuffer data = toByteBuffer(createJson(5000, 2));
+
+    for (CodecType codecType : Arrays.asList(CodecType.DEFLATE, CodecType.ZSTD)) {
+      final ByteBuffer encodedWithoutDictionary = new RecordEncoder(codecType, 3, 0, null).encode(data);
+      final ByteBuffer encoded = new RecordEncoder(codecType, 3, 0, dictionary).encode(data);
+
+      Assert.assertThat(encoded.getInt(CodecFormat.DICTIONARY_ID_OFFSET), is(dictionary.getId()));
+      Assert.assertThat(encoded.remaining() < encodedWithoutDictionary.remaining(), is(true));
+      Assert.assertThat(RecordDecoder.getInstance().decode(encoded), is(data));
+    }
+  }
+
+  @Test
+  public void testPassThrough() {
+    final RecordEncoder recordEncoder = new RecordEncoder(CodecType.ZSTD, 3, 64, null);
+
+    // smaller than min bytes.
+    final ByteBuffer smallData = toByteBuffer("{\"id\":1}");
+    Assert.assertThat(recordEncoder.encode(smallData), sameInstance(smallData));
+
+    // codec NONE.
+    final ByteBuffer data = toByteBuffer(createJson(0, 10));
+    Assert.assertThat(new RecordEncoder(CodecType.NONE, 0, 0, null).encode(data), sameInstance(data));
+
+    // raw payload is not decoded.
+    Assert.assertThat(RecordDecoder.getInstance().decode(data), sameInstance(data));
+  }
+
+  @Test
+  public void testRawPayloadWithMagic() {
+    final ByteBuffer data = ByteBuffer.wrap(new byte[] {(byte) 0xC0, (byte) 0xDE, (byte) 0xC5, 3, 0, 0, 0, 0, 0, 0, 0, 1, 7});
+    final ByteBuffer encoded = new RecordEncoder(CodecType.ZSTD, 3, 64, null).encode(data);
+
+    Assert.assertThat(encoded.get(CodecFormat.CODEC_TYPE_OFFSET), is((byte) CodecType.NONE.getId()));
+    Assert.assertThat(RecordDecoder.getInstance().decode(encoded), is(data));
+  }
+
+  @Test
+  public void testDecodeRecords() {
+    final ByteBuffer data = toByteBuffer(createJson(0, 20));
+    final ByteBuffer encoded = new RecordEncoder(CodecType.LZ4, 1, 64, null).encode(data);
+
+    final Record rawRecord = new Record().withPartitionKey("pk-0").withSequenceNumber("1").withData(data);
+    final Record encodedRecord = new Record().withPartitionKey("pk-1").withSequenceNumber("2").withData(encoded);
+
+    final List<Record> decodedRecords = RecordDecoder.getInstance().decode(Arrays.asList(rawRecord, encodedRecord));
+
+    Assert.assertThat(decodedRecords.get(0), sameInstance(rawRecord));
+    Assert.assertThat(decodedRecords.get(1), not(sameInstance(encodedRecord)));
+    Assert.assertThat(decodedRecords.get(1).getPartitionKey(), is("pk-1"));
+    Assert.assertThat(decodedRecords.get(1).getSequenceNumber(), is("2"));
+    Assert.assertThat(decodedRecords.get(1).getData(), is(data));
+  }
+
+  @Test
+  public void testUnknownDictionary() {
+    final ByteBuffer encoded = CodecFormat.encode(CodecType.ZSTD, 12345, 10, new byte[] {1, 2, 3});
+
+    Assert.assertThat(RecordDecoder.getInstance().decode(encoded), sameInstance(encoded));
+  }
+
+  private static String createJson(final int id, final int itemCount) {
+    final StringBuilder json = new StringBuilder("{\"id\":" + id + ",\"type\":\"order\",\"items\":[");
+    for (int i = 0; i < itemCount; i++) {
+      if (i > 0) json.append(',');
+      json.append("{\"sku\":\"sku-").append((id + i) % 97).append("\",\"quantity\":").append(i % 5 + 1)
+        .append(",\"price\":").append((id * 31 + i) % 1000).append(".99,\"currency\":\"USD\"}");
+    }
+    return json.append("],\"status\":\"created\",\"region\":\"ap-northeast-2\"}").toString();
+  }
+
+  private static ByteBuffer toByteBuffer(final String value) {
+    return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,145 @@
+package com.aws.kinesis.record.handler;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestFileSink {
+  private Path dir;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("file-sink-test");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    try (final Stream<Path> paths = Files.walk(dir)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+
+  private static ByteBuffer toByteBuffer(final String value) {
+    return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testWriteBufferViews() throws IOException {
+    final Path path = dir.resolve("records");
+    final FileSink fileSink = new FileSink(path, SyncPolicy.NONE, 1000L, 1024L);
+
+    // slice of a larger buffer, read-only and direct buffers.
+    final ByteBuffer slice = toByteBuffer("xxdata-1yy");
+    slice.position(2).limit(8);
+    final ByteBuffer readOnly = toByteBuffer("data-2").asReadOnlyBuffer();
+    final ByteBuffer direct = ByteBuffer.allocateDirect(6);
+    direct.put(toByteBuffer("data-3")).flip();
+
+    Assert.assertThat(fileSink.write(Arrays.asList(slice, readOnly, direct)), is(21L));
+    Assert.assertThat(fileSink.write(Collections.singletonList(toByteBuffer("data-4"))), is(7L));
+    fileSink.close();
+
+    Assert.assertThat(Files.readAllLines(path), is(Arrays.asList("data-1", "data-2", "data-3", "data-4")));
+    // record positions are not moved.
+    Assert.assertThat(slice.position(), is(2));
+    Assert.assertThat(direct.remaining(), is(6));
+  }
+
+  @Test
+  public void testConcurrentBatchesNotInterleaved() throws IOException {
+    final Path path = dir.resolve("records");
+    final FileSink fileSink = new FileSink(path, SyncPolicy.BATCH, 1000L, 1024L);
+
+    final List<CompletableFuture<Void>> futures = new ArrayList<>();
+    for (int writer = 0; writer < 8; writer++) {
+      final int writerId = writer;
+      futures.add(CompletableFuture.runAsync(() -> {
+        for (int batch = 0; batch < 20; batch++) {
+          final List<ByteBuffer> records = new ArrayList<>();
+          for (int i = 0; i < 50; i++) {
+            records.add(toByteBuffer(writerId + "-" + batch + "-" + i));
+          }
+          try {
+            fileSink.write(records);
+          } catch (IOException e) {
+            throw new RuntimeException(e);
+          }
+        }
+      }));
+    }
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+    Assert.assertThat(fileSink.getSyncedBytes(), is(fileSink.getWrittenBytes()));
+    fileSink.close();
+
+    final List<String> lines = Files.readAllLines(path);
+    Assert.assertThat(lines.size(), is(8 * 20 * 50));
+    for (int i = 0; i < lines.size(); i += 50) {
+      final String batchPrefix = lines.get(i).substring(0, lines.get(i).lastIndexOf('-') + 1);
+      for (int j = 0; j < 50; j++) {
+        Assert.assertThat(lines.get(i + j), is(batchPrefix + j));
+      }
+    }
+  }
+
+  @Test
+  public void testIntervalSyncBytes() throws IOException {
+    final FileSink fileSink = new FileSink(dir.resolve("records"), SyncPolicy.INTERVAL, 60000L, 20L);
+
+    fileSink.write(Collections.singletonList(toByteBuffer("data-1")));
+    Assert.assertThat(fileSink.getSyncedBytes(), is(0L));
+
+    fileSink.write(Arrays.asList(toByteBuffer("data-2"), toByteBuffer("data-3")));
+    Assert.assertThat(fileSink.getSyncedBytes(), is(21L));
+    fileSink.close();
+  }
+
+  @Test(expected = IOException.class)
+  public void testWriteAfterClose() throws IOException {
+    final FileSink fileSink = new FileSink(dir.resolve("records"), SyncPolicy.NONE, 1000L, 1024L);
+    fileSink.close();
+
+    fileSink.write(Collections.singletonList(toByteBuffer("data-1")));
+  }
+
+  @Test
+  public void testLengthPrefixed() throws IOException {
+    final Path path = dir.resolve("records");
+    final FileSink fileSink = new FileSink(path, RecordFraming.LENGTH_PREFIXED, SyncPolicy.NONE, 1000L, 1024L,
+      StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+    // a newline in data and a record with a 2 byte prefix.
+    final byte[] large = new byte[200];
+    Arrays.fill(large, (byte) 'x');
+    Assert.assertThat(fileSink.write(Arrays.asList(toByteBuffer("a\nb"), ByteBuffer.wrap(large))), is(206L));
+    fileSink.close();
+
+    final ByteBuffer written = ByteBuffer.wrap(Files.readAllBytes(path));
+    Assert.assertThat(written.remaining(), is(206));
+    Assert.assertThat(written.get(0), is((byte) 3));
+    Assert.assertThat(new String(written.array(), 1, 3, StandardCharsets.UTF_8), is("a\nb"));
+    // 200 = 0b1_1001000, low 7 bits with the continuation bit first.
+    Assert.assertThat(written.get(4), is((byte) 0xC8));
+    Assert.assertThat(written.get(5), is((byte) 0x01));
+  }
+}
@@ -0,0 +1,233 @@
+package com.aws.kinesis.record.handler;
+
+import com.amazonaws.services.kinesis.model.Record;
+import com.aws.kinesis.record.codec.CodecType;
+import com.github.luben.zstd.ZstdInputStream;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestSegmentFileoutHandler {
+  private Path dir;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("segment-handler-test");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    try (final Stream<Path> paths = Files.walk(dir)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+
+  private static List<Record> createKinesisRecords(final int fromSequenceNumber, final int count) {
+    final List<Record> kinesisRecords = new ArrayList<>();
+    for (int i = fromSequenceNumber; i < fromSequenceNumber + count; i++) {
+      kinesisRecords.add(new Record()
+        .withPartitionKey("pk-" + i)
+        .withSequenceNumber(String.format("%05d", i))
+        .withData(ByteBuffer.wrap(("data-" + i).getBytes(StandardCharsets.UTF_8))));
+    }
+    return kinesisRecords;
+  }
+
+  private List<Path> listFiles(final String suffix) throws IOException {
+    try (final Stream<Path> paths = Files.list(dir)) {
+      return paths.filter(path -> path.getFileName().toString().endsWith(suffix)).sorted().collect(Collectors.toList());
+    }
+  }
+
+  private static Properties readManifest(final Path manifestPath) throws IOException {
+    final Properties manifest = new Properties();
+    try (final InputStream inputStream = Files.newInputStream(manifestPath)) {
+      manifest.load(inputStream);
+    }
+    return manifest;
+  }
+
+  /**
+   * Read length prefixed records.
+   */
+  private static List<String> readRecords(final InputStream inputStream) throws IOException {
+    final List<String> records = new ArrayList<>();
+    try (final DataInputStream dataInputStream = new DataInputStream(new BufferedInputStream(inputStream))) {
+      int b;
+      while ((b = dataInputStream.read()) >= 0) {
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+          length |= (b & 0x7F) << shift;
+          if ((b & 0x80) == 0) break;
+          b = dataInputStream.readUnsignedByte();
+        }
+        final byte[] data = new byte[length];
+        dataInputStream.readFully(data);
+        records.add(new String(data, StandardCharsets.UTF_8));
+      }
+    }
+    return records;
+  }
+
+  /**
+   * Length prefixed records of less than 128 bytes, the last one is cut to tornBytes if not 0.
+   */
+  private static byte[] toActiveFile(final int tornBytes, final String... records) {
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    for (String record : records) {
+      final byte[] data = record.getBytes(StandardCharsets.UTF_8);
+      outputStream.write(data.length);
+      outputStream.write(data, 0, data.length);
+    }
+    final byte[] bytes = outputStream.toByteArray();
+    return tornBytes == 0 ? bytes : Arrays.copyOf(bytes, bytes.length - records[records.length - 1].length() - 1 + tornBytes);
+  }
+
+  @Test
+  public void testSizeRotation() throws IOException {
+    // each batch of 10 records is 80 bytes, a segment rolls after 2 batches.
+    final SegmentFileoutHandler handler = new SegmentFileoutHandler(dir, 100L, 60000L, CodecType.DEFLATE, 6);
+    for (int batch = 0; batch < 4; batch++) {
+      handler.kinesisRecordsProcess("shardId-000000000000", createKinesisRecords(batch * 10, 10));
+    }
+    handler.kinesisRecordsProcess("shardId-000000000001", createKinesisRecords(100, 10));
+    handler.close();
+
+    final List<Path> manifestPaths = listFiles(SegmentFileoutHandler.MANIFEST_SUFFIX);
+    Assert.assertThat(manifestPaths.size(), is(3));
+    Assert.assertThat(listFiles(SegmentFileoutHandler.ACTIVE_SUFFIX).isEmpty(), is(true));
+    Assert.assertThat(listFiles(".tmp").isEmpty(), is(true));
+
+    final Properties manifest = readManifest(manifestPaths.get(1));
+    Assert.assertThat(manifest.getProperty("shardId"), is("shardId-000000000000"));
+    Assert.assertThat(manifest.getProperty("firstSequenceNumber"), is("00020"));
+    Assert.assertThat(manifest.getProperty("lastSequenceNumber"), is("00039"));
+    Assert.assertThat(manifest.getProperty("recordCount"), is("20"));
+    Assert.assertThat(manifest.getProperty("rawBytes"), is("160"));
+
+    final Path dataPath = dir.resolve(manifest.getProperty("dataFile"));
+    Assert.assertThat(dataPath.toString().endsWith(".data.gz"), is(true));
+    final List<String> records = readRecords(new GZIPInputStream(Files.newInputStream(dataPath)));
+    Assert.assertThat(records.size(), is(20));
+    Assert.assertThat(records.get(0), is("data-20"));
+    Assert.assertThat(records.get(19), is("data-39"));
+
+    Assert.assertThat(readManifest(manifestPaths.get(2)).getProperty("shardId"), is("shardId-000000000001"));
+  }
+
+  @Test
+  public void testAgeRotation() throws IOException, InterruptedException {
+    final SegmentFileoutHandler handler = new SegmentFileoutHandler(dir, Long.MAX_VALUE, 50L, CodecType.ZSTD, 3);
+    handler.kinesisRecordsProcess("shardId-000000000000", createKinesisRecords(0, 5));
+    Assert.assertThat(handler.getOpenSegmentCount(), is(1));
+
+    // idle segment is rolled and sealed in background.
+    final long deadline = System.currentTimeMillis() + 5000L;
+    while (listFiles(SegmentFileoutHandler.MANIFEST_SUFFIX).isEmpty() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(20L);
+    }
+    Assert.assertThat(handler.getOpenSegmentCount(), is(0));
+
+    final Properties manifest = readManifest(listFiles(SegmentFileoutHandler.MANIFEST_SUFFIX).get(0));
+    Assert.assertThat(manifest.getProperty("recordCount"), is("5"));
+    Assert.assertThat(readRecords(new ZstdInputStream(Files.newInputStream(dir.resolve(manifest.getProperty("dataFile"))))).size(), is(5));
+    handler.close();
+  }
+
+  @Test
+  public void testUncompressedSeal() throws IOException {
+    final SegmentFileoutHandler handler = new SegmentFileoutHandler(dir, Long.MAX_VALUE, 60000L, CodecType.NONE, 0);
+    handler.kinesisRecordsProcess("shardId-000000000000", createKinesisRecords(0, 3));
+    Assert.assertThat(listFiles(SegmentFileoutHandler.ACTIVE_SUFFIX).size(), is(1));
+    handler.close();
+
+    final Properties manifest = readManifest(listFiles(SegmentFileoutHandler.MANIFEST_SUFFIX).get(0));
+    Assert.assertThat(readRecords(Files.newInputStream(dir.resolve(manifest.getProperty("dataFile")))).get(2), is("data-2"));
+  }
+
+  @Test
+  public void testRecoverRecordsWithNewline() throws IOException {
+    // newlines in data are not record boundaries.
+    Files.write(dir.resolve("shardId-000000000000.00010.1000" + SegmentFileoutHandler.ACTIVE_SUFFIX),
+      toActiveFile(3, "line-1\nline-2", "\n", "data\n\n12"));
+
+    final SegmentFileoutHandler handler = new SegmentFileoutHandler(dir, Long.MAX_VALUE, 60000L, CodecType.NONE, 0);
+    handler.close();
+
+    final Properties manifest = readManifest(listFiles(SegmentFileoutHandler.MANIFEST_SUFFIX).get(0));
+    Assert.assertThat(manifest.getProperty("recordCount"), is("2"));
+    Assert.assertThat(manifest.getProperty("rawBytes"), is("16"));
+    Assert.assertThat(readRecords(Files.newInputStream(dir.resolve(manifest.getProperty("dataFile")))),
+      is(Arrays.asList("line-1\nline-2", "\n")));
+  }
+
+  @Test(expected = UncheckedIOException.class)
+  public void testFailedWriteThrows() throws IOException {
+    final SegmentFileoutHandler handler = new SegmentFileoutHandler(dir, Long.MAX_VALUE, 60000L, CodecType.NONE, 0);
+    // segment file can't be opened in a removed directory.
+    Files.delete(dir);
+    try {
+      handler.kinesisRecordsProcess("shardId-000000000000", createKinesisRecords(0, 3));
+    } finally {
+      handler.close();
+      Files.createDirectories(dir);
+    }
+  }
+
+  @Test
+  public void testSealActiveFileOnRestart() throws IOException {
+    // active files left by a crash, the last record of the first is torn and the second holds only a torn record.
+    Files.write(dir.resolve("shardId-000000000000.00010.1000" + SegmentFileoutHandler.ACTIVE_SUFFIX),
+      toActiveFile(4, "data-10", "data-11", "data-12"));
+    Files.write(dir.resolve("shardId-000000000001.00020.2000" + SegmentFileoutHandler.ACTIVE_SUFFIX),
+      toActiveFile(1, "data-20"));
+
+    final SegmentFileoutHandler handler = new SegmentFileoutHandler(dir, Long.MAX_VALUE, 60000L, CodecType.NONE, 0);
+    handler.kinesisRecordsProcess("shardId-000000000000", createKinesisRecords(12, 3));
+    handler.close();
+
+    Assert.assertThat(listFiles(SegmentFileoutHandler.ACTIVE_SUFFIX).isEmpty(), is(true));
+
+    // recovered segment and the segment written after restart, the file without a whole record is dropped.
+    final List<Path> manifestPaths = listFiles(SegmentFileoutHandler.MANIFEST_SUFFIX);
+    Assert.assertThat(manifestPaths.size(), is(2));
+
+    final Properties manifest = readManifest(manifestPaths.get(0));
+    Assert.assertThat(manifest.getProperty("shardId"), is("shardId-000000000000"));
+    Assert.assertThat(manifest.getProperty("firstSequenceNumber"), is("00010"));
+    Assert.assertThat(manifest.getProperty("lastSequenceNumber"), is(""));
+    Assert.assertThat(manifest.getProperty("recordCount"), is("2"));
+    Assert.assertThat(manifest.getProperty("createdMillis"), is("1000"));
+    Assert.assertThat(manifest.getProperty("recovered"), is("true"));
+    Assert.assertThat(readRecords(Files.newInputStream(dir.resolve(manifest.getProperty("dataFile")))), is(Arrays.asList("data-10", "data-11")));
+
+    final Properties restartManifest = readManifest(manifestPaths.get(1));
+    Assert.assertThat(restartManifest.getProperty("firstSequenceNumber"), is("00012"));
+    Assert.assertThat(restartManifest.getProperty("recordCount"), is("3"));
+    Assert.assertThat(restartManifest.getProperty("recovered"), is("false"));
+  }
+}
@@ -0,0 +1,62 @@
+package com.aws.kinesis.record.handler;
+
+import com.amazonaws.services.kinesis.model.Record;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestTmpFileoutHandler {
+  private Path dir;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("tmp-handler-test");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(dir.resolve("records"));
+    Files.deleteIfExists(dir);
+  }
+
+  private static List<Record> createKinesisRecords(final String... values) {
+    final Record[] kinesisRecords = new Record[values.length];
+    for (int i = 0; i < values.length; i++) {
+      kinesisRecords[i] = new Record()
+        .withSequenceNumber(String.valueOf(i))
+        .withData(ByteBuffer.wrap(values[i].getBytes(StandardCharsets.UTF_8)));
+    }
+    return Arrays.asList(kinesisRecords);
+  }
+
+  @Test
+  public void testWriteRecords() throws IOException {
+    final TmpFileoutHandler handler = new TmpFileoutHandler(dir.resolve("records").toString(), SyncPolicy.BATCH,
+      StandardOpenOption.APPEND, StandardOpenOption.CREATE);
+    handler.kinesisRecordsProcess(createKinesisRecords("data-1", "data-2"));
+    handler.close();
+
+    Assert.assertThat(Files.readAllLines(dir.resolve("records")), is(Arrays.asList("data-1", "data-2")));
+  }
+
+  @Test(expected = UncheckedIOException.class)
+  public void testFailedWriteThrows() {
+    // a directory can't be opened as the record file.
+    final TmpFileoutHandler handler = new TmpFileoutHandler(dir.toString(), SyncPolicy.BATCH,
+      StandardOpenOption.APPEND, StandardOpenOption.CREATE);
+    handler.kinesisRecordsProcess(createKinesisRecords("data-1"));
+  }
+}
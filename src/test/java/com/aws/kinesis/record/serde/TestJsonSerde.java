@@ -0,0 +1,39 @@
+package com.aws.kinesis.record.serde;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestJsonSerde {
+
+  @Test
+  public void testRoundTrip() {
+    final JsonSerde<Map> jsonSerde = new JsonSerde<>(Map.class);
+    final Map<String, Object> value = new HashMap<>();
+    value.put("id", 1);
+    value.put("name", "name-1");
+
+    Assert.assertThat(jsonSerde.deserialize(jsonSerde.serialize(value).asReadOnlyBuffer()), is((Map) value));
+  }
+
+  @Test
+  public void testJsonNode() {
+    final JsonSerde<JsonNode> jsonSerde = new JsonSerde<>(JsonNode.class);
+    final JsonNode jsonNode = jsonSerde.deserialize(ByteBuffer.wrap("{\"id\":1,\"tags\":[\"a\",\"b\"]}".getBytes(StandardCharsets.UTF_8)));
+
+    Assert.assertThat(jsonNode.get("id").asInt(), is(1));
+    Assert.assertThat(jsonNode.get("tags").size(), is(2));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMalformed() {
+    new JsonSerde<>(JsonNode.class).deserialize(ByteBuffer.wrap("{\"id\":".getBytes(StandardCharsets.UTF_8)));
+  }
+}
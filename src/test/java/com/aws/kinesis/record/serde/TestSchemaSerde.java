@@ -0,0 +1,95 @@
+package com.aws.kinesis.record.serde;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestSchemaSerde {
+  private final Schema schema = Schema.parse(Arrays.asList("id:LONG", "count:INT", "name:STRING", "score:DOUBLE", "valid:BOOLEAN", "raw:BYTES"));
+  private final SchemaSerde schemaSerde = new SchemaSerde(schema);
+
+  @Test
+  public void testRoundTrip() {
+    final Map<String, Object> value = new HashMap<>();
+    value.put("id", -1234567890123L);
+    value.put("count", 42);
+    value.put("name", "한글-name");
+    value.put("score", 0.5);
+    value.put("valid", true);
+    value.put("raw", new byte[] {1, 2, 3});
+
+    final Map<String, Object> deserialized = schemaSerde.deserialize(schemaSerde.serialize(value).asReadOnlyBuffer());
+
+    Assert.assertThat(deserialized.get("id"), is((Object) (-1234567890123L)));
+    Assert.assertThat(deserialized.get("count"), is((Object) 42));
+    Assert.assertThat(deserialized.get("name"), is((Object) "한글-name"));
+    Assert.assertThat(deserialized.get("score"), is((Object) 0.5));
+    Assert.assertThat(deserialized.get("valid"), is((Object) true));
+    Assert.assertThat(deserialized.get("raw"), is((Object) ByteBuffer.wrap(new byte[] {1, 2, 3})));
+  }
+
+  @Test
+  public void testNullFields() {
+    final Map<String, Object> value = new HashMap<>();
+    value.put("count", 7);
+
+    final ByteBuffer data = schemaSerde.serialize(value);
+    // schema id, 1 bitmap byte, 1 varint byte.
+    Assert.assertThat(data.remaining(), is(6));
+
+    final Map<String, Object> deserialized = schemaSerde.deserialize(data);
+    Assert.assertThat(deserialized.size(), is(6));
+    Assert.assertThat(deserialized.get("count"), is((Object) 7));
+    Assert.assertThat(deserialized.get("id") == null, is(true));
+    Assert.assertThat(deserialized.get("name") == null, is(true));
+  }
+
+  @Test
+  public void testSchemaMismatch() {
+    final ByteBuffer data = new SchemaSerde(Schema.parse(Arrays.asList("id:LONG"))).serialize(new HashMap<>());
+
+    try {
+      schemaSerde.deserialize(data);
+      Assert.fail();
+    } catch (IllegalArgumentException e) {
+      Assert.assertThat(e.getMessage().startsWith("schema id mismatch"), is(true));
+    }
+  }
+
+  @Test
+  public void testTruncatedData() {
+    final Map<String, Object> value = new HashMap<>();
+    value.put("name", "name-1");
+    final ByteBuffer data = schemaSerde.serialize(value);
+    data.limit(data.limit() - 1);
+
+    try {
+      schemaSerde.deserialize(data);
+      Assert.fail();
+    } catch (IllegalArgumentException e) {
+      Assert.assertThat(e.getMessage().startsWith("field length out of data"), is(true));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testFieldTypeMismatch() {
+    final Map<String, Object> value = new HashMap<>();
+    value.put("count", "42");
+
+    schemaSerde.serialize(value);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIntOverflow() {
+    final Map<String, Object> value = new HashMap<>();
+    value.put("count", Long.MAX_VALUE);
+
+    schemaSerde.serialize(value);
+  }
+}
@@ -0,0 +1,43 @@
+package com.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestTokenBucket {
+
+  @Test
+  public void testAcquire() {
+    final TokenBucket tokenBucket = new TokenBucket(10, 1);
+
+    Assert.assertThat(tokenBucket.tryAcquire(4), is(true));
+    Assert.assertThat(tokenBucket.tryAcquire(6), is(true));
+    Assert.assertThat(tokenBucket.tryAcquire(), is(false));
+    Assert.assertThat(tokenBucket.getWaitMillis(1) > 0, is(true));
+    Assert.assertThat(tokenBucket.getWaitMillis(1) <= 1000L, is(true));
+  }
+
+  @Test
+  public void testRefill() throws InterruptedException {
+    final TokenBucket tokenBucket = new TokenBucket(100, 1000);
+
+    Assert.assertThat(tokenBucket.tryAcquire(100), is(true));
+    Assert.assertThat(tokenBucket.tryAcquire(50), is(false));
+
+    Thread.sleep(100L);
+    Assert.assertThat(tokenBucket.tryAcquire(50), is(true));
+    Assert.assertThat(tokenBucket.getAvailableTokens() <= 100.0, is(true));
+  }
+
+  @Test
+  public void testAcquireOverCapacity() {
+    final TokenBucket tokenBucket = new TokenBucket(10, 10);
+
+    // request larger than capacity is granted on full bucket and leaves debt.
+    Assert.assertThat(tokenBucket.tryAcquire(30), is(true));
+    Assert.assertThat(tokenBucket.getAvailableTokens() < 0, is(true));
+    Assert.assertThat(tokenBucket.tryAcquire(1), is(false));
+    Assert.assertThat(tokenBucket.getWaitMillis(1) > 1000L, is(true));
+  }
+}
@@ -0,0 +1,95 @@
+package com.utils.retry;
+
+import com.utils.AppConfig;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TestRetryPolicy {
+
+  @Test
+  public void testDecorrelatedJitterBackoff() {
+    final DecorrelatedJitterBackoff backoff = new DecorrelatedJitterBackoff(100L, 1000L);
+
+    long backoffMillis = 0L;
+    for (int i = 0; i < 100; i++) {
+      final long nextBackoffMillis = backoff.nextBackoffMillis(backoffMillis);
+
+      Assert.assertThat(nextBackoffMillis >= 100L, is(true));
+      Assert.assertThat(nextBackoffMillis <= 1000L, is(true));
+      Assert.assertThat(nextBackoffMillis <= Math.max(100L, backoffMillis) * 3, is(true));
+      backoffMillis = nextBackoffMillis;
+    }
+
+    // cap is not less than base.
+    Assert.assertThat(new DecorrelatedJitterBackoff(500L, 10L).nextBackoffMillis(10_000L), is(500L));
+  }
+
+  @Test
+  public void testMaxAttempts() {
+    final Retry retry = new RetryPolicy("test", 3, new FixedBackoff(0L), null).newRetry();
+
+    Assert.assertThat(retry.getAttempt(), is(1));
+    Assert.assertThat(retry.next(), is(Optional.of(0L)));
+    Assert.assertThat(retry.backoff("test."), is(true));
+    Assert.assertThat(retry.getAttempt(), is(3));
+    Assert.assertThat(retry.next().isPresent(), is(false));
+    Assert.assertThat(retry.backoff("test."), is(false));
+  }
+
+  @Test
+  public void testRetryBudget() {
+    final RetryPolicy retryPolicy = new RetryPolicy("test", 10, new FixedBackoff(0L), new RetryBudget(2, 0.001));
+
+    final Retry retry = retryPolicy.newRetry();
+    Assert.assertThat(retry.next().isPresent(), is(true));
+    Assert.assertThat(retry.next().isPresent(), is(true));
+    Assert.assertThat(retry.next().isPresent(), is(false));
+
+    // budget is shared by every call of the policy.
+    Assert.assertThat(retryPolicy.newRetry().next().isPresent(), is(false));
+  }
+
+  @Test
+  public void testBackoffAsync() throws ExecutionException, InterruptedException {
+    final Retry retry = new RetryPolicy("test", 2, new FixedBackoff(50L), null).newRetry();
+
+    final long startMillis = System.currentTimeMillis();
+    Assert.assertThat(retry.backoffAsync("test.").get(), is(true));
+    Assert.assertThat(System.currentTimeMillis() - startMillis >= 50L, is(true));
+
+    Assert.assertThat(retry.backoffAsync("test.").isDone(), is(true));
+    Assert.assertThat(retry.backoffAsync("test.").get(), is(false));
+  }
+
+  @Test
+  public void testCopy() {
+    final Retry retry = new RetryPolicy("test", 3, new FixedBackoff(0L), null).newRetry();
+    Assert.assertThat(retry.next().isPresent(), is(true));
+
+    // copy continues from the same attempt and moves on its own.
+    final Retry copy = retry.copy();
+    Assert.assertThat(copy.getAttempt(), is(2));
+    Assert.assertThat(copy.next().isPresent(), is(true));
+    Assert.assertThat(copy.next().isPresent(), is(false));
+    Assert.assertThat(retry.getAttempt(), is(2));
+    Assert.assertThat(retry.next().isPresent(), is(true));
+  }
+
+  @Test
+  public void testDelayAsync() throws ExecutionException, InterruptedException {
+    final long startMillis = System.currentTimeMillis();
+    Retry.delayAsync(50L).get();
+    Assert.assertThat(System.currentTimeMillis() - startMillis >= 50L, is(true));
+  }
+
+  @Test
+  public void testOperationConfigFallback() {
+    Assert.assertThat(RetryPolicy.forOperation("notConfiguredOperation").getMaxAttempts(),
+      is(AppConfig.getRetryAttemptCount()));
+  }
+}